@@ -0,0 +1,59 @@
+package com.parkinglot.benchmark;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+final class BenchmarkResult {
+    private final String operation;
+    private final StorageBackend backend;
+    private final int lotSize;
+    private final double fill;
+    private final int threads;
+    private final int operations;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+    private final double throughput;
+
+    BenchmarkResult(String operation, StorageBackend backend, int lotSize, double fill, int threads,
+                    long[] latencies, int count, long wallNanos) {
+        this.operation = operation;
+        this.backend = backend;
+        this.lotSize = lotSize;
+        this.fill = fill;
+        this.threads = threads;
+        this.operations = count;
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        this.meanNanos = count == 0 ? 0 : (double) Arrays.stream(sorted).sum() / count;
+        this.p50Nanos = percentile(sorted, 0.50);
+        this.p90Nanos = percentile(sorted, 0.90);
+        this.p99Nanos = percentile(sorted, 0.99);
+        this.maxNanos = count == 0 ? 0 : sorted[count - 1];
+        this.throughput = wallNanos == 0 ? 0 : count * 1_000_000_000.0 / wallNanos;
+    }
+
+    String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"benchmark\": \"%s\", \"backend\": \"%s\", \"lotSize\": %d, \"fill\": %.2f, \"threads\": %d, "
+                        + "\"operations\": %d, \"meanNs\": %.1f, \"p50Ns\": %d, \"p90Ns\": %d, \"p99Ns\": %d, \"maxNs\": %d, \"opsPerSecond\": %.1f}",
+                operation, backend.name().toLowerCase(Locale.ROOT), lotSize, fill, threads,
+                operations, meanNanos, p50Nanos, p90Nanos, p99Nanos, maxNanos, throughput);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-8s %-10s size=%-8d fill=%.2f threads=%-2d ops=%-7d mean=%10.1fns p50=%8dns p99=%10dns %12.1f ops/s",
+                operation, backend.name().toLowerCase(Locale.ROOT), lotSize, fill, threads,
+                operations, meanNanos, p50Nanos, p99Nanos, throughput);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+}
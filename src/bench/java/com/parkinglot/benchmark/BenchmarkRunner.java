@@ -0,0 +1,227 @@
+package com.parkinglot.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BenchmarkRunner {
+    private static final List<String> OPERATIONS = List.of("park", "exit", "status", "edit", "delete");
+
+    private final Map<String, String> options;
+    private final List<BenchmarkResult> results = new ArrayList<>();
+
+    private BenchmarkRunner(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                System.out.println("Unexpected argument: " + args[i]);
+                System.exit(1);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new BenchmarkRunner(options).run();
+    }
+
+    private void run() throws Exception {
+        List<StorageBackend> backends = new ArrayList<>();
+        for (String name : list("backends", "memory,file")) {
+            backends.add(StorageBackend.valueOf(name.toUpperCase(Locale.ROOT)));
+        }
+        List<String> operations = list("ops", String.join(",", OPERATIONS));
+        int[] sizes = list("sizes", "10,1000,100000,1000000").stream().mapToInt(Integer::parseInt).toArray();
+        double[] fills = list("fills", "0,0.5,0.99").stream().mapToDouble(Double::parseDouble).toArray();
+        int[] threadCounts = list("threads", "1,4").stream().mapToInt(Integer::parseInt).toArray();
+        int fileMaxSize = Integer.parseInt(options.getOrDefault("file-max-size", "100000"));
+        Path output = Paths.get(options.getOrDefault("out", "benchmark-results.json"));
+        Path workDirectory = Files.createTempDirectory("parking-bench");
+
+        try {
+            for (StorageBackend backend : backends) {
+                for (int size : sizes) {
+                    if (backend == StorageBackend.FILE && size > fileMaxSize) {
+                        System.out.println("Skipping file backend at size " + size + " (raise --file-max-size to include it)");
+                        continue;
+                    }
+                    for (double fill : fills) {
+                        runSingleThreaded(backend, workDirectory, size, fill, operations);
+                        for (int threads : threadCounts) {
+                            if (threads > 1 && backend.isThreadSafe()) {
+                                runContended(backend, workDirectory, size, fill, threads, operations);
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            LotFixture.deleteRecursively(workDirectory);
+        }
+        writeJson(output);
+        System.out.println("Wrote " + results.size() + " results to " + output);
+    }
+
+    private void runSingleThreaded(StorageBackend backend, Path workDirectory, int size, double fill, List<String> operations) throws Exception {
+        try (LotFixture fixture = LotFixture.create(backend, workDirectory, size, fill, 42)) {
+            Random random = new Random(7);
+            // Delete shrinks the lot, so it always runs last on the shared fixture
+            for (String operation : OPERATIONS) {
+                if (!operations.contains(operation)) {
+                    continue;
+                }
+                Measurement measurement = new Measurement();
+                int iterations = warmupIterations() + measurementIterations();
+                int maxOps = maxOpsPerIteration();
+                if (operation.equals("delete")) {
+                    // Spread the free slots over all iterations so the lot is never emptied during warmup
+                    maxOps = Math.min(maxOps, Math.max(1, fixture.freeSlotCount() / iterations));
+                }
+                for (int iteration = 0; iteration < iterations; iteration++) {
+                    boolean recording = iteration >= warmupIterations();
+                    long iterationEnd = System.nanoTime() + iterationNanos();
+                    int ops = 0;
+                    while (System.nanoTime() < iterationEnd && ops++ < maxOps) {
+                        long elapsed = runOperation(fixture, operation, random, "S");
+                        if (recording && elapsed != LotFixture.SKIPPED) {
+                            measurement.record(elapsed);
+                        }
+                    }
+                }
+                report(new BenchmarkResult(operation, backend, size, fill, 1, measurement.latencies, measurement.count, measurement.total));
+            }
+        }
+    }
+
+    private void runContended(StorageBackend backend, Path workDirectory, int size, double fill, int threads, List<String> operations) throws Exception {
+        for (String operation : List.of("park", "exit")) {
+            if (!operations.contains(operation)) {
+                continue;
+            }
+            try (LotFixture fixture = LotFixture.create(backend, workDirectory, size, fill, 42)) {
+                ExecutorService gates = Executors.newFixedThreadPool(threads);
+                try {
+                    for (int iteration = 0; iteration < warmupIterations() + measurementIterations(); iteration++) {
+                        CountDownLatch start = new CountDownLatch(1);
+                        List<Future<Measurement>> futures = new ArrayList<>();
+                        for (int gate = 0; gate < threads; gate++) {
+                            String platePrefix = "G" + gate + "-";
+                            Random random = new Random(gate);
+                            futures.add(gates.submit(() -> {
+                                Measurement measurement = new Measurement();
+                                start.await();
+                                long iterationEnd = System.nanoTime() + iterationNanos();
+                                int ops = 0;
+                                while (System.nanoTime() < iterationEnd && ops++ < maxOpsPerIteration()) {
+                                    long elapsed = runOperation(fixture, operation, random, platePrefix);
+                                    if (elapsed != LotFixture.SKIPPED) {
+                                        measurement.record(elapsed);
+                                    }
+                                }
+                                return measurement;
+                            }));
+                        }
+                        long wallStart = System.nanoTime();
+                        start.countDown();
+                        Measurement combined = new Measurement();
+                        for (Future<Measurement> future : futures) {
+                            combined.addAll(future.get());
+                        }
+                        long wallNanos = System.nanoTime() - wallStart;
+                        if (iteration == warmupIterations() + measurementIterations() - 1) {
+                            report(new BenchmarkResult(operation, backend, size, fill, threads, combined.latencies, combined.count, wallNanos));
+                        }
+                    }
+                } finally {
+                    gates.shutdown();
+                }
+            }
+        }
+    }
+
+    private static long runOperation(LotFixture fixture, String operation, Random random, String platePrefix) {
+        switch (operation) {
+            case "park":
+                return fixture.park(random, platePrefix);
+            case "exit":
+                return fixture.exit(random, platePrefix);
+            case "status":
+                return fixture.status();
+            case "edit":
+                return fixture.edit(random);
+            case "delete":
+                return fixture.delete(random);
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private void report(BenchmarkResult result) {
+        results.add(result);
+        System.out.println(result);
+    }
+
+    private void writeJson(Path output) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output))) {
+            writer.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                writer.println("  " + results.get(i).toJson() + (i < results.size() - 1 ? "," : ""));
+            }
+            writer.println("]");
+        }
+    }
+
+    private List<String> list(String option, String defaultValue) {
+        return Arrays.asList(options.getOrDefault(option, defaultValue).split(","));
+    }
+
+    private int warmupIterations() {
+        return Integer.parseInt(options.getOrDefault("warmup", "2"));
+    }
+
+    private int measurementIterations() {
+        return Integer.parseInt(options.getOrDefault("iterations", "5"));
+    }
+
+    private long iterationNanos() {
+        return Long.parseLong(options.getOrDefault("iteration-millis", "300")) * 1_000_000;
+    }
+
+    private int maxOpsPerIteration() {
+        return Integer.parseInt(options.getOrDefault("max-ops", "20000"));
+    }
+
+    private static final class Measurement {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long total;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            total += nanos;
+        }
+
+        void addAll(Measurement other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i]);
+            }
+        }
+    }
+}
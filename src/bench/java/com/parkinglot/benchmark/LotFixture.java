@@ -0,0 +1,179 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.ParkingStorage;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// A lot at a given size and fill level; each operation returns the nanoseconds spent in the measured call only
+public final class LotFixture implements AutoCloseable {
+    private static final VehicleType[] ARRIVAL_MIX = {
+        VehicleType.SMALL, VehicleType.SMALL, VehicleType.SMALL, VehicleType.SMALL, VehicleType.SMALL, VehicleType.SMALL,
+        VehicleType.LARGE, VehicleType.LARGE, VehicleType.LARGE,
+        VehicleType.OVERSIZE
+    };
+    static final long SKIPPED = -1;
+
+    private final ParkingStorage storage;
+    private final ParkingLotService service;
+    private final AtomicLong plateSequence = new AtomicLong();
+    // Every measured result is folded in here, so the JIT cannot drop a call whose result nothing reads
+    private long sink;
+    private static volatile long publishedSink;
+
+    private LotFixture(ParkingStorage storage) {
+        this.storage = storage;
+        this.service = new ParkingLotService(storage, new DefaultSlotAllocationStrategy());
+    }
+
+    public static LotFixture create(StorageBackend backend, Path workDirectory, int lotSize, double fill, long seed) throws IOException {
+        LotFixture fixture = new LotFixture(backend.create(workDirectory));
+        int smallSlots = lotSize * 6 / 10;
+        int largeSlots = lotSize * 3 / 10;
+        fixture.service.createParkingLot(smallSlots, largeSlots, lotSize - smallSlots - largeSlots);
+
+        // Filled through the service so metrics, strategy and billing agree with the lot: every slot is taken in one
+        // batch, then a random subset leaves, which scatters the free slots across the lot
+        int[] slotsByType = {smallSlots, largeSlots, lotSize - smallSlots - largeSlots};
+        List<Vehicle> vehicles = new ArrayList<>(lotSize);
+        for (VehicleType type : VehicleType.values()) {
+            for (int i = 0; i < slotsByType[type.ordinal()]; i++) {
+                vehicles.add(new Vehicle(fixture.nextPlate("F"), type));
+            }
+        }
+        fixture.service.parkVehicles(vehicles);
+        List<String> leaving = new ArrayList<>(lotSize);
+        for (Vehicle vehicle : vehicles) {
+            leaving.add(vehicle.getVehicleNumber());
+        }
+        Collections.shuffle(leaving, new Random(seed));
+        fixture.service.exitVehicles(leaving.subList(0, lotSize - (int) (lotSize * fill)));
+        return fixture;
+    }
+
+    long park(Random random, String platePrefix) {
+        String vehicleNumber = nextPlate(platePrefix);
+        long start = System.nanoTime();
+        Optional<Integer> slotNumber = service.parkVehicle(vehicleNumber, arrival(random));
+        long elapsed = System.nanoTime() - start;
+        sink += slotNumber.orElse(0);
+        if (slotNumber.isPresent()) {
+            service.exitVehicle(vehicleNumber); // Keep the fill level steady
+        }
+        return elapsed;
+    }
+
+    long exit(Random random, String platePrefix) {
+        String vehicleNumber = nextPlate(platePrefix);
+        if (service.parkVehicle(vehicleNumber, arrival(random)).isEmpty()) {
+            return SKIPPED;
+        }
+        long start = System.nanoTime();
+        boolean exited = service.exitVehicle(vehicleNumber);
+        long elapsed = System.nanoTime() - start;
+        sink += exited ? 1 : 0;
+        return elapsed;
+    }
+
+    long status() {
+        long start = System.nanoTime();
+        List<ParkingSlot> occupied = service.getStatus();
+        long elapsed = System.nanoTime() - start;
+        sink += occupied.size();
+        return elapsed;
+    }
+
+    long edit(Random random) {
+        Optional<ParkingSlot> slot = anyFreeSlot(random);
+        if (slot.isEmpty()) {
+            return SKIPPED;
+        }
+        int slotNumber = slot.get().getSlotNumber();
+        VehicleType originalType = slot.get().getSupportedType();
+        VehicleType newType = VehicleType.values()[(originalType.ordinal() + 1) % VehicleType.values().length];
+        long start = System.nanoTime();
+        boolean edited = service.editSlot(slotNumber, newType);
+        long elapsed = System.nanoTime() - start;
+        sink += edited ? 1 : 0;
+        service.editSlot(slotNumber, originalType);
+        return elapsed;
+    }
+
+    // Destructive: every call removes one free slot from the lot
+    long delete(Random random) {
+        Optional<ParkingSlot> slot = anyFreeSlot(random);
+        if (slot.isEmpty()) {
+            return SKIPPED;
+        }
+        long start = System.nanoTime();
+        boolean deleted = service.deleteSlot(slot.get().getSlotNumber());
+        long elapsed = System.nanoTime() - start;
+        sink += deleted ? 1 : 0;
+        return elapsed;
+    }
+
+    int freeSlotCount() {
+        int free = 0;
+        for (VehicleType type : VehicleType.values()) {
+            free += storage.getFreeSlotIndex().freeCount(type);
+        }
+        return free;
+    }
+
+    public ParkingLotService getService() {
+        return service;
+    }
+
+    public String nextPlate(String prefix) {
+        return prefix + plateSequence.incrementAndGet();
+    }
+
+    public static VehicleType arrival(Random random) {
+        return ARRIVAL_MIX[random.nextInt(ARRIVAL_MIX.length)];
+    }
+
+    public Optional<ParkingSlot> anyFreeSlot(Random random) {
+        VehicleType[] types = VehicleType.values();
+        int first = random.nextInt(types.length);
+        for (int i = 0; i < types.length; i++) {
+            Optional<ParkingSlot> slot = storage.getFreeSlotIndex().lowestFree(types[(first + i) % types.length]);
+            if (slot.isPresent()) {
+                return slot;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void close() {
+        publishedSink = sink;
+        if (storage instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) storage).close();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to close benchmark storage", e);
+            }
+        }
+    }
+
+    public static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.storage.ColumnarParkingStorage;
+import com.parkinglot.storage.ConcurrentParkingStorage;
+import com.parkinglot.storage.FileBasedParkingStorage;
+import com.parkinglot.storage.FsyncPolicy;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.storage.JournaledParkingStorage;
+import com.parkinglot.storage.ParkingStorage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public enum StorageBackend {
+    MEMORY(false),
+    FILE(false),
+    CONCURRENT(true),
+    COLUMNAR(false),
+    JOURNALED(false);
+
+    private final boolean threadSafe;
+
+    StorageBackend(boolean threadSafe) {
+        this.threadSafe = threadSafe;
+    }
+
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    public ParkingStorage create(Path workDirectory) throws IOException {
+        switch (this) {
+            case MEMORY:
+                return new InMemoryParkingStorage();
+            case FILE:
+                return new FileBasedParkingStorage(Files.createTempDirectory(workDirectory, "file").resolve("parking.json").toString());
+            case CONCURRENT:
+                return new ConcurrentParkingStorage();
+            case COLUMNAR:
+                return new ColumnarParkingStorage();
+            case JOURNALED:
+                return new JournaledParkingStorage(Files.createTempDirectory(workDirectory, "journal").toString(), FsyncPolicy.GROUP_COMMIT, 100_000);
+            default:
+                throw new IllegalStateException("Unknown backend " + this);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.parkinglot.benchmark.jmh;
+
+import com.parkinglot.benchmark.LotFixture;
+import com.parkinglot.benchmark.StorageBackend;
+import com.parkinglot.service.ParkingLotService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Several gates parking into and exiting from one shared lot. Only backends that are safe to share between
+// threads belong here; override the thread count with -t.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class GateContentionBenchmark {
+    @Param({"CONCURRENT"})
+    public StorageBackend backend;
+
+    @Param({"1000", "100000", "1000000"})
+    public int lotSize;
+
+    @Param({"0", "0.5", "0.99"})
+    public double fill;
+
+    private final AtomicInteger gateIds = new AtomicInteger();
+    private Path workDirectory;
+    private LotFixture fixture;
+    private ParkingLotService service;
+
+    @Setup(Level.Trial)
+    public void createLot() throws IOException {
+        if (!backend.isThreadSafe()) {
+            throw new IllegalStateException(backend + " cannot be shared between gate threads");
+        }
+        workDirectory = Files.createTempDirectory("parking-jmh");
+        fixture = LotFixture.create(backend, workDirectory, lotSize, fill, 42);
+        service = fixture.getService();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeLot() throws IOException {
+        fixture.close();
+        LotFixture.deleteRecursively(workDirectory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void parkAndExit(Gate gate, Blackhole blackhole) {
+        String vehicleNumber = fixture.nextPlate(gate.platePrefix);
+        Optional<Integer> slotNumber = service.parkVehicle(vehicleNumber, LotFixture.arrival(gate.random));
+        blackhole.consume(slotNumber);
+        if (slotNumber.isPresent()) {
+            blackhole.consume(service.exitVehicle(vehicleNumber));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Gate {
+        String platePrefix;
+        Random random;
+
+        @Setup(Level.Trial)
+        public void open(GateContentionBenchmark benchmark) {
+            int gateId = benchmark.gateIds.incrementAndGet();
+            platePrefix = "G" + gateId + "-";
+            random = new Random(gateId);
+        }
+    }
+}
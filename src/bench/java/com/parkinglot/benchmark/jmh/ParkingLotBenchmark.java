@@ -0,0 +1,120 @@
+package com.parkinglot.benchmark.jmh;
+
+import com.parkinglot.benchmark.LotFixture;
+import com.parkinglot.benchmark.StorageBackend;
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// One gate against one lot. Park and edit are measured together with the call that undoes them, so the lot
+// stays at the configured fill level for the whole run; the score is per single operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingLotBenchmark {
+    @Param({"MEMORY", "FILE"})
+    public StorageBackend backend;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int lotSize;
+
+    @Param({"0", "0.5", "0.99"})
+    public double fill;
+
+    private Path workDirectory;
+    private LotFixture fixture;
+    private ParkingLotService service;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void createLot() throws IOException {
+        workDirectory = Files.createTempDirectory("parking-jmh");
+        fixture = LotFixture.create(backend, workDirectory, lotSize, fill, 42);
+        service = fixture.getService();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeLot() throws IOException {
+        fixture.close();
+        LotFixture.deleteRecursively(workDirectory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void parkAndExit(Blackhole blackhole) {
+        String vehicleNumber = fixture.nextPlate("J");
+        Optional<Integer> slotNumber = service.parkVehicle(vehicleNumber, LotFixture.arrival(random));
+        blackhole.consume(slotNumber);
+        if (slotNumber.isPresent()) {
+            blackhole.consume(service.exitVehicle(vehicleNumber));
+        }
+    }
+
+    @Benchmark
+    public List<ParkingSlot> status() {
+        return service.getStatus();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void editAndRevert(Blackhole blackhole) {
+        Optional<ParkingSlot> slot = fixture.anyFreeSlot(random);
+        if (slot.isEmpty()) {
+            return; // Full lot: nothing is editable
+        }
+        int slotNumber = slot.get().getSlotNumber();
+        VehicleType originalType = slot.get().getSupportedType();
+        VehicleType newType = VehicleType.values()[(originalType.ordinal() + 1) % VehicleType.values().length];
+        blackhole.consume(service.editSlot(slotNumber, newType));
+        blackhole.consume(service.editSlot(slotNumber, originalType));
+    }
+
+    @Benchmark
+    public boolean delete(DeleteTarget target) {
+        return service.deleteSlot(target.slotNumber);
+    }
+
+    // Delete cannot be undone, so a free slot is picked outside the measurement before every call, and the lot is
+    // rebuilt once it has none left. Invocation-level setup adds timer overhead, which matters only for sub-microsecond
+    // scores on the memory backend.
+    @State(Scope.Thread)
+    public static class DeleteTarget {
+        int slotNumber;
+
+        @Setup(Level.Invocation)
+        public void pickFreeSlot(ParkingLotBenchmark benchmark) throws IOException {
+            Optional<ParkingSlot> slot = benchmark.fixture.anyFreeSlot(benchmark.random);
+            if (slot.isEmpty()) {
+                benchmark.closeLot();
+                benchmark.createLot();
+                slot = benchmark.fixture.anyFreeSlot(benchmark.random);
+            }
+            slotNumber = slot.map(ParkingSlot::getSlotNumber).orElse(0);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.parkinglot.billing;
+
+import com.parkinglot.domain.VehicleType;
+
+// Read back from a session log; the live exit path never creates these
+public class ClosedSession {
+    private final int slotNumber;
+    private final String vehicleNumber;
+    private final VehicleType vehicleType;
+    private final VehicleType slotType;
+    private final long entryMillis;
+    private final long exitMillis;
+    private final long feeCents;
+
+    public ClosedSession(int slotNumber, String vehicleNumber, VehicleType vehicleType, VehicleType slotType,
+                         long entryMillis, long exitMillis, long feeCents) {
+        this.slotNumber = slotNumber;
+        this.vehicleNumber = vehicleNumber;
+        this.vehicleType = vehicleType;
+        this.slotType = slotType;
+        this.entryMillis = entryMillis;
+        this.exitMillis = exitMillis;
+        this.feeCents = feeCents;
+    }
+
+    public int getSlotNumber() {
+        return slotNumber;
+    }
+
+    public String getVehicleNumber() {
+        return vehicleNumber;
+    }
+
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    public VehicleType getSlotType() {
+        return slotType;
+    }
+
+    public long getEntryMillis() {
+        return entryMillis;
+    }
+
+    public long getExitMillis() {
+        return exitMillis;
+    }
+
+    public long getFeeCents() {
+        return feeCents;
+    }
+}
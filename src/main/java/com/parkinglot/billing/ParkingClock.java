@@ -0,0 +1,14 @@
+package com.parkinglot.billing;
+
+// Epoch milliseconds that never go backwards; tests inject a manual source
+@FunctionalInterface
+public interface ParkingClock {
+    long millis();
+
+    // Anchored to the wall clock once, then advanced by System.nanoTime so NTP steps cannot shorten a session
+    static ParkingClock monotonic() {
+        long baseMillis = System.currentTimeMillis();
+        long baseNanos = System.nanoTime();
+        return () -> baseMillis + (System.nanoTime() - baseNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,85 @@
+package com.parkinglot.billing;
+
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+
+// An open session is just the entry time the service stamps on the parked vehicle, so it leaves the storage with
+// the occupancy and a slot re-used by another gate cannot mix two sessions up. Closed sessions go straight into the
+// session log's buffer, so parking and exiting allocate nothing for billing.
+public class ParkingSessions implements AutoCloseable {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final ParkingClock clock;
+    private final SessionLog log;
+    private volatile Tariff tariff;
+    private volatile long startMillis;
+    private final long[] revenueCents = new long[VEHICLE_TYPES.length];
+    private final long[] closedSessions = new long[VEHICLE_TYPES.length];
+
+    public ParkingSessions(ParkingClock clock, Tariff tariff) {
+        this(clock, tariff, null);
+    }
+
+    // A null log keeps only the revenue totals
+    public ParkingSessions(ParkingClock clock, Tariff tariff, SessionLog log) {
+        this.clock = clock;
+        this.tariff = tariff;
+        this.log = log;
+        this.startMillis = clock.millis();
+    }
+
+    public Tariff getTariff() {
+        return tariff;
+    }
+
+    public void setTariff(Tariff tariff) {
+        this.tariff = tariff;
+    }
+
+    // Vehicles already parked when billing starts (or the lot is re-created) are billed from now
+    public void reset() {
+        startMillis = clock.millis();
+    }
+
+    // Entry time for a vehicle about to park
+    public long entryMillis() {
+        return clock.millis();
+    }
+
+    // Returns the fee in cents. A vehicle without an entry time, or one parked before the last reset, is billed from
+    // the reset.
+    public synchronized long close(int slotNumber, Vehicle vehicle, VehicleType slotType) {
+        long exit = clock.millis();
+        long entry = Math.min(exit, Math.max(vehicle.getEntryMillis(), startMillis));
+        VehicleType vehicleType = vehicle.getType();
+        String vehicleNumber = vehicle.getVehicleNumber();
+        long fee = tariff.feeCents(vehicleType, exit - entry);
+        revenueCents[vehicleType.ordinal()] += fee;
+        closedSessions[vehicleType.ordinal()]++;
+        if (log != null) {
+            log.append(slotNumber, vehicleNumber, vehicleType, slotType, entry, exit, fee);
+        }
+        return fee;
+    }
+
+    public synchronized long revenueCents(VehicleType vehicleType) {
+        return revenueCents[vehicleType.ordinal()];
+    }
+
+    public synchronized long closedSessions(VehicleType vehicleType) {
+        return closedSessions[vehicleType.ordinal()];
+    }
+
+    public synchronized void flush() {
+        if (log != null) {
+            log.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (log != null) {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.parkinglot.billing;
+
+import com.parkinglot.domain.VehicleType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Closed sessions are encoded straight into one reusable buffer and written out a batch at a time, so closing a
+// session allocates nothing. File: magic, format version, then records of slot, vehicle type, slot type, entry,
+// exit, fee, plate length, plate chars and a CRC-32C of the record. Logs from before the header (version 1) have no
+// CRCs. Not thread-safe; ParkingSessions serialises access.
+public class SessionLog implements AutoCloseable {
+    private static final int DEFAULT_BUFFER_BYTES = 1 << 18;
+    private static final int MAGIC = 0x504C534C; // "PLSL"
+    private static final int LEGACY_VERSION = 1;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4;
+    private static final int LEGACY_FIXED_RECORD_BYTES = 4 + 1 + 1 + 8 + 8 + 8 + 2;
+    private static final int FIXED_RECORD_BYTES = LEGACY_FIXED_RECORD_BYTES + 4;
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    private long recordCount;
+
+    public SessionLog(Path file) {
+        this(file, DEFAULT_BUFFER_BYTES);
+    }
+
+    public SessionLog(Path file, int bufferBytes) {
+        if (bufferBytes < FIXED_RECORD_BYTES + 2 * Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Buffer must hold at least one record with the longest plate");
+        }
+        boolean empty;
+        try {
+            if (Files.exists(file) && Files.size(file) > 0 && formatVersion(file) == LEGACY_VERSION) {
+                // Records with CRCs cannot be appended to an old log, so it is kept readable beside the new one
+                Files.move(file, file.resolveSibling(file.getFileName() + ".v1"));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open session log", e);
+        }
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            empty = channel.size() == 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open session log", e);
+        }
+        buffer = ByteBuffer.allocateDirect(bufferBytes);
+        if (empty) {
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION);
+        }
+    }
+
+    public void append(int slotNumber, String vehicleNumber, VehicleType vehicleType, VehicleType slotType,
+                       long entryMillis, long exitMillis, long feeCents) {
+        int plateLength = Math.min(vehicleNumber.length(), Short.MAX_VALUE);
+        if (buffer.remaining() < FIXED_RECORD_BYTES + 2 * plateLength) {
+            flush();
+        }
+        int start = buffer.position();
+        buffer.putInt(slotNumber)
+              .put((byte) vehicleType.ordinal())
+              .put((byte) slotType.ordinal())
+              .putLong(entryMillis)
+              .putLong(exitMillis)
+              .putLong(feeCents)
+              .putShort((short) plateLength);
+        for (int i = 0; i < plateLength; i++) {
+            buffer.putChar(vehicleNumber.charAt(i));
+        }
+        int end = buffer.position();
+        buffer.position(start).limit(end);
+        crc.reset();
+        crc.update(buffer);
+        buffer.limit(buffer.capacity());
+        buffer.putInt((int) crc.getValue());
+        recordCount++;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public void flush() {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write session log", e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close session log", e);
+        }
+    }
+
+    // Stops before the first torn or corrupt record; the records after it cannot be trusted to line up
+    public static List<ClosedSession> read(Path file) {
+        ByteBuffer data;
+        try {
+            data = ByteBuffer.wrap(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read session log", e);
+        }
+        boolean checked = formatVersion(data) == FORMAT_VERSION;
+        if (checked) {
+            data.position(HEADER_BYTES);
+        }
+        List<ClosedSession> sessions = new ArrayList<>();
+        CRC32C crc = new CRC32C();
+        while (data.remaining() >= (checked ? FIXED_RECORD_BYTES : LEGACY_FIXED_RECORD_BYTES)) {
+            int start = data.position();
+            int slotNumber = data.getInt();
+            int vehicleType = data.get();
+            int slotType = data.get();
+            long entryMillis = data.getLong();
+            long exitMillis = data.getLong();
+            long feeCents = data.getLong();
+            int plateLength = data.getShort();
+            if (vehicleType < 0 || vehicleType >= VEHICLE_TYPES.length || slotType < 0 || slotType >= VEHICLE_TYPES.length
+                    || plateLength < 0 || data.remaining() < 2 * plateLength + (checked ? 4 : 0)) {
+                break;
+            }
+            char[] plate = new char[plateLength];
+            for (int i = 0; i < plate.length; i++) {
+                plate[i] = data.getChar();
+            }
+            if (checked) {
+                crc.reset();
+                crc.update(data.array(), start, data.position() - start);
+                if (data.getInt() != (int) crc.getValue()) {
+                    break;
+                }
+            }
+            sessions.add(new ClosedSession(slotNumber, new String(plate), VEHICLE_TYPES[vehicleType],
+                    VEHICLE_TYPES[slotType], entryMillis, exitMillis, feeCents));
+        }
+        return sessions;
+    }
+
+    private static int formatVersion(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return formatVersion(ByteBuffer.wrap(in.readNBytes(HEADER_BYTES)));
+        }
+    }
+
+    // A file without the magic is a version 1 log, whose first bytes are a slot number far below it
+    private static int formatVersion(ByteBuffer data) {
+        if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            return LEGACY_VERSION;
+        }
+        int version = data.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new RuntimeException("Unsupported session log version " + version);
+        }
+        return version;
+    }
+}
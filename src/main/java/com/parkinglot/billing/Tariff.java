@@ -0,0 +1,52 @@
+package com.parkinglot.billing;
+
+import com.parkinglot.domain.VehicleType;
+import java.util.Arrays;
+
+// Immutable: every started hour is charged at the vehicle type's hourly rate, and each 24 hours costs at most the daily cap
+public final class Tariff {
+    public static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    public static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private final long[] hourlyCents;
+    private final long[] dailyCapCents;
+
+    public Tariff() {
+        this(new long[] {100, 200, 400}, new long[] {1000, 2000, 4000});
+    }
+
+    private Tariff(long[] hourlyCents, long[] dailyCapCents) {
+        this.hourlyCents = hourlyCents;
+        this.dailyCapCents = dailyCapCents;
+    }
+
+    public Tariff withRate(VehicleType vehicleType, long hourlyCents, long dailyCapCents) {
+        if (hourlyCents < 0 || dailyCapCents < 0) {
+            throw new IllegalArgumentException("Rates must be non-negative");
+        }
+        long[] hourly = Arrays.copyOf(this.hourlyCents, this.hourlyCents.length);
+        long[] dailyCap = Arrays.copyOf(this.dailyCapCents, this.dailyCapCents.length);
+        hourly[vehicleType.ordinal()] = hourlyCents;
+        dailyCap[vehicleType.ordinal()] = dailyCapCents;
+        return new Tariff(hourly, dailyCap);
+    }
+
+    public long hourlyCents(VehicleType vehicleType) {
+        return hourlyCents[vehicleType.ordinal()];
+    }
+
+    public long dailyCapCents(VehicleType vehicleType) {
+        return dailyCapCents[vehicleType.ordinal()];
+    }
+
+    public long feeCents(VehicleType vehicleType, long durationMillis) {
+        if (durationMillis <= 0) {
+            return 0;
+        }
+        long hourly = hourlyCents[vehicleType.ordinal()];
+        long dailyCap = dailyCapCents[vehicleType.ordinal()];
+        long days = durationMillis / DAY_MILLIS;
+        long startedHours = (durationMillis % DAY_MILLIS + HOUR_MILLIS - 1) / HOUR_MILLIS;
+        return days * dailyCap + Math.min(startedHours * hourly, dailyCap);
+    }
+}
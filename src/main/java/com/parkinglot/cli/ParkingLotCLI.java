@@ -1,30 +1,101 @@
 package com.parkinglot.cli;
 
-import com.parkinglot.controller.ParkingLotController;
-import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.billing.ParkingClock;
+import com.parkinglot.billing.ParkingSessions;
+import com.parkinglot.billing.SessionLog;
+import com.parkinglot.billing.Tariff;
+import com.parkinglot.controller.LotRegistryController;
+import com.parkinglot.events.AuditLogListener;
+import com.parkinglot.events.BackpressurePolicy;
+import com.parkinglot.events.ParkingEventBus;
+import com.parkinglot.server.GateServer;
+import com.parkinglot.service.LotRegistry;
 import com.parkinglot.storage.InMemoryParkingStorage;
 import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ParkingLotCLI {
+    private static final String DEFAULT_LOT = "default";
+    private static final int DEFAULT_PORT = 7070;
+    private static final int AUDIT_RING_CAPACITY = 1 << 14;
+    private static final int AUDIT_BATCH_SIZE = 512;
+    private static final AtomicBoolean shutDown = new AtomicBoolean();
+
     public static void main(String[] args) {
-        ParkingLotService service = new ParkingLotService(
-            new InMemoryParkingStorage(),
-            new DefaultSlotAllocationStrategy()
+        Integer serverPort = null;
+        String auditFile = null;
+        String billingDirectory = null;
+        int maxLots = LotRegistry.DEFAULT_MAX_LOTS;
+        String seedDirectory = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--server")) {
+                serverPort = i + 1 < args.length && !args[i + 1].startsWith("--") ? Integer.parseInt(args[++i]) : DEFAULT_PORT;
+            } else if (args[i].equals("--audit") && i + 1 < args.length) {
+                auditFile = args[++i];
+            } else if (args[i].equals("--billing") && i + 1 < args.length) {
+                billingDirectory = args[++i];
+            } else if (args[i].equals("--max-lots") && i + 1 < args.length) {
+                maxLots = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed-dir") && i + 1 < args.length) {
+                seedDirectory = args[++i];
+            }
+        }
+
+        LotRegistry registry = new LotRegistry(Runtime.getRuntime().availableProcessors(), maxLots);
+        ParkingEventBus eventBus = auditFile == null ? null : startAuditLog(registry, Paths.get(auditFile));
+        if (billingDirectory != null) {
+            startBilling(registry, Paths.get(billingDirectory));
+        }
+        LotRegistryController controller = new LotRegistryController(
+            registry,
+            DEFAULT_LOT,
+            InMemoryParkingStorage::new,
+            DefaultSlotAllocationStrategy::new
         );
+        registry.execute(DEFAULT_LOT, service -> service.getMetrics().registerMBean(DEFAULT_LOT));
+        // Billing and audit logs are buffered; a SIGTERM or Ctrl+C still writes them out
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(registry, eventBus), "parking-shutdown"));
+
+        if (serverPort != null) {
+            runServer(registry, serverPort, seedDirectory == null ? null : Paths.get(seedDirectory));
+            shutdown(registry, eventBus);
+            return;
+        }
 
-        ParkingLotController controller = new ParkingLotController(service);
         Scanner scanner = new Scanner(System.in);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
 
         System.out.println("Parking Lot Management System");
         System.out.println("Commands:");
         System.out.println("CREATE <small_count> <large_count> <oversize_count> - Create parking lot with specified slot counts");
         System.out.println("SEED [OFFICE|MALL|RESIDENTIAL] - Seed parking lot with predefined scenario data");
+        System.out.println("SEED FILE <csv_or_snapshot_file> - Load a lot and its parked vehicles from a CSV or binary snapshot file");
         System.out.println("PARK <vehicle_number> <SMALL|LARGE|OVERSIZE> - Park a vehicle");
         System.out.println("EXIT <vehicle_number> - Exit a vehicle");
-        System.out.println("STATUS - Show parking status");
+        System.out.println("RESERVE <vehicle_number> <SMALL|LARGE|OVERSIZE> [<hold_seconds>] - Hold a slot for an approaching vehicle (default 30 seconds)");
+        System.out.println("CONFIRM <vehicle_number> - Park a reserved vehicle in its held slot (PARK does the same)");
+        System.out.println("CANCEL <vehicle_number> - Release a reservation");
+        System.out.println("STATUS [<after_slot_number> <limit>] - Show parking status, optionally one page at a time");
         System.out.println("EDIT <slot_number> <SMALL|LARGE|OVERSIZE> - Change slot type (only if unoccupied)");
         System.out.println("DELETE <slot_number> - Remove slot (only if unoccupied)");
+        System.out.println("BATCH PARK <vehicle_number> <type> [...] | BATCH EXIT <vehicle_number> [...] - Park or exit several vehicles at once");
+        System.out.println("STRATEGY [DEFAULT|BEST_FIT|NEAREST <entrance_slot_number>|ZONED <zone_count>] - Show or switch the lot's allocation strategy");
+        System.out.println("TARIFF [<SMALL|LARGE|OVERSIZE> <hourly_cents> <daily_cap_cents>] - Show or change parking rates (with --billing)");
+        System.out.println("HISTORY <SECONDS|MINUTES|HOURS> [<count>] - Show mean/peak occupancy per slot type over time");
+        System.out.println("METRICS - Show occupancy counters and operation latencies");
+        System.out.println("USE <lot_id> - Switch to another lot, creating it if needed (starts on lot '" + DEFAULT_LOT + "')");
+        System.out.println("LOTS - List lots");
+        System.out.println("LOT <lot_id> <command> - Run one command against another lot");
+        System.out.println("FIND <vehicle_number> - Find a vehicle in any lot");
+        System.out.println("FREE <SMALL|LARGE|OVERSIZE> - Total free slots of a type across all lots");
         System.out.println("END - Exit application");
         System.out.println();
 
@@ -37,11 +108,64 @@ public class ParkingLotCLI {
                 break;
             }
 
-            String result = controller.processCommand(command);
-            System.out.println(result);
-            System.out.println();
+            try {
+                controller.processCommand(command, out);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write command output", e);
+            }
+            out.println();
+            out.println();
+            out.flush();
         }
 
         scanner.close();
+        shutdown(registry, eventBus);
+    }
+
+    // Gates never wait on the audit log: a full ring spills to a file next to it and is replayed in order
+    private static ParkingEventBus startAuditLog(LotRegistry registry, Path auditFile) {
+        Path spillFile = auditFile.resolveSibling(auditFile.getFileName() + ".spill");
+        ParkingEventBus eventBus = new ParkingEventBus(AUDIT_RING_CAPACITY, BackpressurePolicy.SPILL, spillFile, AUDIT_BATCH_SIZE);
+        eventBus.subscribe("audit", new AuditLogListener(auditFile));
+        eventBus.start();
+        registry.setEventBus(eventBus);
+        return eventBus;
+    }
+
+    // Closed sessions of each lot go to <lot_id>.sessions in the directory; lot ids are plain names, so the file stays inside it
+    private static void startBilling(LotRegistry registry, Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create billing directory", e);
+        }
+        ParkingClock clock = ParkingClock.monotonic();
+        registry.setSessionFactory(lotId -> new ParkingSessions(clock, new Tariff(),
+                new SessionLog(directory.resolve(lotId + ".sessions"))));
+    }
+
+    // Runs once, from whichever of the normal exit path and the shutdown hook gets there first
+    private static void shutdown(LotRegistry registry, ParkingEventBus eventBus) {
+        if (!shutDown.compareAndSet(false, true)) {
+            return;
+        }
+        registry.close();
+        if (eventBus != null) {
+            eventBus.close();
+        }
+    }
+
+    private static void runServer(LotRegistry registry, int port, Path seedDirectory) {
+        try (GateServer server = new GateServer(registry, DEFAULT_LOT, port)) {
+            server.setSeedDirectory(seedDirectory);
+            server.start();
+            System.out.println("Parking Lot gate server listening on port " + server.getPort());
+            System.out.println("Send one command per line; each reply ends with a blank line. END closes the connection.");
+            server.awaitTermination();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start gate server", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.parkinglot.cli;
+
+import com.parkinglot.storage.BinarySnapshot;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class SnapshotTool {
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage:");
+            System.out.println("  SnapshotTool export <snapshot_file> <json_file> - Convert a binary snapshot to JSON");
+            System.out.println("  SnapshotTool import <json_file> <snapshot_file> - Convert JSON to a binary snapshot");
+            System.exit(1);
+        }
+
+        try {
+            switch (args[0].toLowerCase()) {
+                case "export":
+                    BinarySnapshot.exportJson(Paths.get(args[1]), Paths.get(args[2]));
+                    break;
+                case "import":
+                    BinarySnapshot.importJson(Paths.get(args[1]), Paths.get(args[2]));
+                    break;
+                default:
+                    System.out.println("Unknown mode: " + args[0]);
+                    System.exit(1);
+            }
+            System.out.println("Wrote " + args[2]);
+        } catch (IOException e) {
+            System.out.println("Conversion failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.parkinglot.cli;
+
+import com.parkinglot.seeder.ArrivalProcess;
+import com.parkinglot.seeder.SimulationConfig;
+import com.parkinglot.seeder.TrafficSimulator;
+import com.parkinglot.storage.ColumnarParkingStorage;
+import com.parkinglot.storage.ConcurrentParkingStorage;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.storage.ParkingStorage;
+import com.parkinglot.strategy.BestFitSlotAllocationStrategy;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import com.parkinglot.strategy.NearestSlotAllocationStrategy;
+import com.parkinglot.strategy.SlotAllocationStrategy;
+import com.parkinglot.strategy.ZonedSlotAllocationStrategy;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class TrafficSimulatorTool {
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                printUsage();
+                System.exit(1);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        try {
+            int[] slots = ints(options.getOrDefault("slots", "6000,3000,1000"));
+            int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+            SimulationConfig config = new SimulationConfig(slots[0], slots[1], slots[2],
+                    Long.parseLong(options.getOrDefault("vehicles", "1000000")), arrivals(options))
+                    .withLots(Integer.parseInt(options.getOrDefault("lots", String.valueOf(threads))), threads)
+                    .withMeanDwellSeconds(Double.parseDouble(options.getOrDefault("dwell", "7200")))
+                    .withTimeScale(Double.parseDouble(options.getOrDefault("time-scale", "0")))
+                    .withSeed(Long.parseLong(options.getOrDefault("seed", "42")));
+            if (options.containsKey("mix")) {
+                double[] mix = doubles(options.get("mix"));
+                config = config.withVehicleMix(mix[0], mix[1], mix[2]);
+            }
+            if (config.getLots() < threads && !options.getOrDefault("backend", "memory").equals("concurrent")) {
+                System.out.println("Threads sharing a lot need --backend concurrent");
+                System.exit(1);
+            }
+
+            System.out.println("Simulating " + config);
+            TrafficSimulator simulator = new TrafficSimulator(storage(options.getOrDefault("backend", "memory")),
+                    strategy(options.getOrDefault("strategy", "default")));
+            System.out.println(simulator.run(config));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid option: " + e.getMessage());
+            printUsage();
+            System.exit(1);
+        }
+    }
+
+    private static ArrivalProcess arrivals(Map<String, String> options) {
+        double rate = Double.parseDouble(options.getOrDefault("rate", "1"));
+        ArrivalProcess arrivals;
+        switch (options.getOrDefault("profile", "poisson")) {
+            case "poisson":
+                arrivals = ArrivalProcess.poisson(rate);
+                break;
+            case "rush-hour":
+                arrivals = ArrivalProcess.rushHour(rate, Double.parseDouble(options.getOrDefault("peak-rate", String.valueOf(rate * 5))));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown profile " + options.get("profile"));
+        }
+        if (options.containsKey("spike")) {
+            double[] spike = doubles(options.get("spike"));
+            arrivals = arrivals.withSpike(spike[0], spike[1], spike[2]);
+        }
+        return arrivals;
+    }
+
+    private static Supplier<ParkingStorage> storage(String backend) {
+        switch (backend) {
+            case "memory":
+                return InMemoryParkingStorage::new;
+            case "concurrent":
+                return ConcurrentParkingStorage::new;
+            case "columnar":
+                return ColumnarParkingStorage::new;
+            default:
+                throw new IllegalArgumentException("Unknown backend " + backend);
+        }
+    }
+
+    private static Supplier<SlotAllocationStrategy> strategy(String name) {
+        String[] parts = name.toUpperCase(Locale.ROOT).split(":");
+        if (parts.length != ((parts[0].equals("NEAREST") || parts[0].equals("ZONED")) ? 2 : 1)) {
+            throw new IllegalArgumentException("Invalid strategy " + name);
+        }
+        switch (parts[0]) {
+            case "DEFAULT":
+                return DefaultSlotAllocationStrategy::new;
+            case "BEST_FIT":
+                return BestFitSlotAllocationStrategy::new;
+            case "NEAREST":
+                int entrance = Integer.parseInt(parts[1]);
+                return () -> new NearestSlotAllocationStrategy(entrance);
+            case "ZONED":
+                int zones = Integer.parseInt(parts[1]);
+                return () -> new ZonedSlotAllocationStrategy(zones);
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + name);
+        }
+    }
+
+    private static int[] ints(String values) {
+        String[] parts = values.split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected three comma-separated values: " + values);
+        }
+        return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+    }
+
+    private static double[] doubles(String values) {
+        String[] parts = values.split(",");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected three comma-separated values: " + values);
+        }
+        return new double[] {Double.parseDouble(parts[0]), Double.parseDouble(parts[1]), Double.parseDouble(parts[2])};
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: TrafficSimulatorTool [--<option> <value> ...]");
+        System.out.println("  --slots <small,large,oversize>   Slots per lot (default 6000,3000,1000)");
+        System.out.println("  --lots <count>                   Lots to simulate (default: one per thread)");
+        System.out.println("  --threads <count>                Gate threads driving load (default: available processors)");
+        System.out.println("  --vehicles <count>               Total arrivals (default 1000000)");
+        System.out.println("  --profile <poisson|rush-hour>    Arrival process (default poisson)");
+        System.out.println("  --rate <per_second>              Arrivals per simulated second per lot, the base rate for rush-hour (default 1)");
+        System.out.println("  --peak-rate <per_second>         Rush-hour peak rate (default 5 x rate)");
+        System.out.println("  --spike <start,duration,factor>  Multiply the arrival rate for a window of simulated seconds");
+        System.out.println("  --dwell <seconds>                Mean parking time (default 7200)");
+        System.out.println("  --mix <small,large,oversize>     Vehicle type weights (default 0.6,0.3,0.1)");
+        System.out.println("  --backend <memory|concurrent|columnar>");
+        System.out.println("  --strategy <default|best_fit|nearest:<slot>|zoned:<zones>>");
+        System.out.println("  --time-scale <factor>            Simulated seconds per real second (default 0: as fast as possible)");
+        System.out.println("  --seed <seed>");
+    }
+}
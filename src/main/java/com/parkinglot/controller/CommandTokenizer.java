@@ -0,0 +1,109 @@
+package com.parkinglot.controller;
+
+import com.parkinglot.domain.VehicleType;
+import java.util.Arrays;
+
+// Splits a command on whitespace by recording token offsets, so nothing is copied unless a caller asks for a token as a String
+final class CommandTokenizer {
+    static final long INVALID_NUMBER = Long.MIN_VALUE;
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private CharSequence input = "";
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int count;
+
+    void reset(CharSequence command) {
+        input = command;
+        count = 0;
+        int length = command.length();
+        int position = 0;
+        while (true) {
+            while (position < length && Character.isWhitespace(command.charAt(position))) {
+                position++;
+            }
+            if (position == length) {
+                return;
+            }
+            int start = position;
+            while (position < length && !Character.isWhitespace(command.charAt(position))) {
+                position++;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = position;
+            count++;
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean is(int token, String keyword) {
+        int length = ends[token] - starts[token];
+        if (length != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toUpperCase(input.charAt(starts[token] + i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String token(int token) {
+        return input.subSequence(starts[token], ends[token]).toString();
+    }
+
+    // Everything from the start of the given token to the end of the input, original spacing kept
+    CharSequence remainder(int token) {
+        return input.subSequence(starts[token], input.length());
+    }
+
+    void appendToken(int token, StringBuilder output) {
+        output.append(input, starts[token], ends[token]);
+    }
+
+    // Same range and syntax as Integer.parseInt, but reports bad input as INVALID_NUMBER instead of throwing
+    long parseInt(int token) {
+        int position = starts[token];
+        int end = ends[token];
+        boolean negative = false;
+        char first = input.charAt(position);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            position++;
+        }
+        if (position == end) {
+            return INVALID_NUMBER;
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = Character.digit(input.charAt(position), 10);
+            if (digit < 0) {
+                return INVALID_NUMBER;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return INVALID_NUMBER;
+            }
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? INVALID_NUMBER : value;
+    }
+
+    // Case-insensitive match against the enum names; null when the token is not a vehicle type
+    VehicleType vehicleType(int token) {
+        for (VehicleType type : VEHICLE_TYPES) {
+            if (is(token, type.name())) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,174 @@
+package com.parkinglot.controller;
+
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.LotRegistry;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.service.VehicleLocation;
+import com.parkinglot.storage.ParkingStorage;
+import com.parkinglot.strategy.SlotAllocationStrategy;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Handles the lot-level commands and routes everything else to the current lot's controller on that lot's shard.
+// Holds the caller's current lot and a reusable tokenizer, so each gate or console gets its own instance.
+public class LotRegistryController {
+    private final LotRegistry registry;
+    private final Supplier<ParkingStorage> storageFactory;
+    private final Supplier<SlotAllocationStrategy> strategyFactory;
+    private final Function<ParkingLotService, ParkingLotController> controllerFactory;
+    private final Map<String, ParkingLotController> controllers = new ConcurrentHashMap<>();
+    private final CommandTokenizer tokens = new CommandTokenizer();
+    private String currentLot;
+
+    public LotRegistryController(LotRegistry registry, String initialLot,
+                                 Supplier<ParkingStorage> storageFactory, Supplier<SlotAllocationStrategy> strategyFactory) {
+        this(registry, initialLot, storageFactory, strategyFactory, ParkingLotController::new);
+    }
+
+    // The controller factory decides what each lot's commands may do, e.g. where SEED FILE may read from
+    public LotRegistryController(LotRegistry registry, String initialLot,
+                                 Supplier<ParkingStorage> storageFactory, Supplier<SlotAllocationStrategy> strategyFactory,
+                                 Function<ParkingLotService, ParkingLotController> controllerFactory) {
+        this.registry = registry;
+        this.storageFactory = storageFactory;
+        this.strategyFactory = strategyFactory;
+        this.controllerFactory = controllerFactory;
+        if (!registry.hasLot(initialLot)) {
+            registry.createLot(initialLot, storageFactory.get(), strategyFactory.get());
+        }
+        this.currentLot = initialLot;
+    }
+
+    public String getCurrentLot() {
+        return currentLot;
+    }
+
+    public String processCommand(String command) {
+        StringWriter result = new StringWriter();
+        try {
+            processCommand(command, result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    public void processCommand(CharSequence command, Writer out) throws IOException {
+        tokens.reset(command);
+        if (tokens.count() == 0) {
+            routeToLot(currentLot, command, out);
+        } else if (tokens.is(0, "USE")) {
+            out.write(handleUse());
+        } else if (tokens.is(0, "LOTS")) {
+            out.write(handleLots());
+        } else if (tokens.is(0, "LOT")) {
+            if (tokens.count() < 3) {
+                out.write("Invalid LOT command. Usage: LOT <lot_id> <command>");
+                return;
+            }
+            routeToLot(tokens.token(1), tokens.remainder(2), out);
+        } else if (tokens.is(0, "FIND")) {
+            out.write(handleFind());
+        } else if (tokens.is(0, "FREE")) {
+            out.write(handleFree());
+        } else {
+            routeToLot(currentLot, command, out);
+        }
+    }
+
+    private void routeToLot(String lotId, CharSequence command, Writer out) throws IOException {
+        if (!registry.hasLot(lotId)) {
+            controllers.remove(lotId);
+            out.write("Lot " + lotId + " not found");
+            return;
+        }
+        try {
+            registry.execute(lotId, service -> {
+                // A lot removed and created again under the same id has a new service; its old controller is dropped
+                ParkingLotController controller = controllers.compute(lotId, (id, cached) ->
+                        cached != null && cached.getService() == service ? cached : controllerFactory.apply(service));
+                try {
+                    controller.processCommand(command, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IllegalArgumentException e) {
+            controllers.remove(lotId);
+            out.write("Lot " + lotId + " not found"); // Removed after the check above
+        }
+    }
+
+    private String handleUse() {
+        if (tokens.count() != 2) {
+            return "Invalid USE command. Usage: USE <lot_id>";
+        }
+        String lotId = tokens.token(1);
+        if (registry.hasLot(lotId)) {
+            currentLot = lotId;
+            return "Using lot " + lotId;
+        }
+        if (!LotRegistry.isValidLotId(lotId)) {
+            return "Invalid lot id. Use 1-64 letters, digits, '_' or '-'";
+        }
+        try {
+            registry.createLot(lotId, storageFactory.get(), strategyFactory.get());
+        } catch (IllegalArgumentException e) {
+            // Another caller created it first; using it is still correct
+        } catch (IllegalStateException e) {
+            return "Cannot create lot " + lotId + ": limit of " + registry.getMaxLots() + " lots reached";
+        }
+        currentLot = lotId;
+        return "Created lot " + lotId + ". Using lot " + lotId;
+    }
+
+    private String handleLots() {
+        if (tokens.count() != 1) {
+            return "Invalid LOTS command. Usage: LOTS";
+        }
+        StringBuilder result = new StringBuilder();
+        for (String lotId : registry.getLotIds()) {
+            result.append(lotId);
+            if (lotId.equals(currentLot)) {
+                result.append(" (current)");
+            }
+            result.append("\n");
+        }
+        return result.toString().trim();
+    }
+
+    private String handleFind() {
+        if (tokens.count() != 2) {
+            return "Invalid FIND command. Usage: FIND <vehicle_number>";
+        }
+        String vehicleNumber = tokens.token(1);
+        Optional<VehicleLocation> location = registry.findVehicle(vehicleNumber).join();
+        if (location.isEmpty()) {
+            return "Vehicle " + vehicleNumber + " not found in any lot";
+        }
+        return "Vehicle " + vehicleNumber + " is parked in lot " + location.get().getLotId()
+                + ", slot " + location.get().getSlot().getSlotNumber();
+    }
+
+    private String handleFree() {
+        if (tokens.count() != 2) {
+            return "Invalid FREE command. Usage: FREE <SMALL|LARGE|OVERSIZE>";
+        }
+        VehicleType slotType = tokens.vehicleType(1);
+        if (slotType == null) {
+            return "Invalid vehicle type. Must be SMALL, LARGE, or OVERSIZE";
+        }
+        long free = registry.totalFree(slotType).join();
+        return "Free " + slotType + " slots across " + registry.getLotIds().size() + " lots: " + free;
+    }
+}
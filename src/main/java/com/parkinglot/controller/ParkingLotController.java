@@ -1,198 +1,743 @@
 package com.parkinglot.controller;
 
+import com.parkinglot.billing.ParkingSessions;
+import com.parkinglot.billing.Tariff;
 import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
+import com.parkinglot.domain.Vehicle;
 import com.parkinglot.domain.VehicleType;
+import com.parkinglot.metrics.LatencyHistogram;
+import com.parkinglot.metrics.OccupancyHistory;
+import com.parkinglot.metrics.OccupancySample;
+import com.parkinglot.metrics.ParkingMetrics;
 import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.service.Reservation;
 import com.parkinglot.seeder.ParkingLotSeeder;
+import com.parkinglot.strategy.BestFitSlotAllocationStrategy;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import com.parkinglot.strategy.NearestSlotAllocationStrategy;
+import com.parkinglot.strategy.SlotAllocationStrategy;
+import com.parkinglot.strategy.ZonedSlotAllocationStrategy;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
+// Reuses one tokenizer and one output buffer across commands, so an instance must only be used by one thread at a time
 public class ParkingLotController {
+    private static final int DEFAULT_HOLD_SECONDS = 30;
+    private static final int DEFAULT_HISTORY_BUCKETS = 60;
+
     private final ParkingLotService service;
     private final ParkingLotSeeder seeder;
+    private final boolean local;
+    private final Path seedDirectory;
+    private final CommandTokenizer tokens = new CommandTokenizer();
+    private final StringBuilder output = new StringBuilder(256);
+    private final char[] digits = new char[11];
+    private char[] writeBuffer = new char[256];
 
+    // For the local console, where SEED FILE may read any file the user can
     public ParkingLotController(ParkingLotService service) {
+        this(service, true, null);
+    }
+
+    // For remote gates: SEED FILE only reads files inside seedDirectory, and is refused when it is null
+    public ParkingLotController(ParkingLotService service, Path seedDirectory) {
+        this(service, false, seedDirectory);
+    }
+
+    private ParkingLotController(ParkingLotService service, boolean local, Path seedDirectory) {
         this.service = service;
         this.seeder = new ParkingLotSeeder(service);
+        this.local = local;
+        this.seedDirectory = seedDirectory == null ? null : seedDirectory.toAbsolutePath().normalize();
     }
 
-    public String processCommand(String command) {
-        String[] parts = command.trim().split("\\s+");
+    ParkingLotService getService() {
+        return service;
+    }
 
-        if (parts.length == 0) {
-            return "Invalid command";
+    // Same as processCommand(String), but STATUS rows are written straight to the writer instead of being buffered
+    public void processCommand(CharSequence command, Writer out) throws IOException {
+        tokens.reset(command);
+        if (tokens.count() > 0 && tokens.is(0, "STATUS")) {
+            writeStatus(out);
+            return;
+        }
+        dispatch();
+        int length = output.length();
+        if (writeBuffer.length < length) {
+            writeBuffer = new char[Math.max(length, writeBuffer.length * 2)];
         }
+        output.getChars(0, length, writeBuffer, 0);
+        out.write(writeBuffer, 0, length);
+    }
+
+    public String processCommand(String command) {
+        tokens.reset(command);
+        dispatch();
+        return output.toString();
+    }
 
-        String action = parts[0].toUpperCase();
+    private void dispatch() {
+        output.setLength(0);
+        if (tokens.count() == 0) {
+            output.append("Invalid command");
+            return;
+        }
 
         try {
-            switch (action) {
-                case "CREATE":
-                    return handleCreate(parts);
-                case "PARK":
-                    return handlePark(parts);
-                case "EXIT":
-                    return handleExit(parts);
-                case "STATUS":
-                    return handleStatus();
-                case "EDIT":
-                    return handleEdit(parts);
-                case "DELETE":
-                    return handleDelete(parts);
-                case "SEED":
-                    return handleSeed(parts);
-                case "END":
-                    return "END";
+            switch (Command.of(tokens)) {
+                case CREATE:
+                    handleCreate();
+                    break;
+                case PARK:
+                    handlePark();
+                    break;
+                case EXIT:
+                    handleExit();
+                    break;
+                case STATUS:
+                    writeStatus(output);
+                    break;
+                case EDIT:
+                    handleEdit();
+                    break;
+                case DELETE:
+                    handleDelete();
+                    break;
+                case SEED:
+                    handleSeed();
+                    break;
+                case BATCH:
+                    handleBatch();
+                    break;
+                case METRICS:
+                    handleMetrics();
+                    break;
+                case STRATEGY:
+                    handleStrategy();
+                    break;
+                case RESERVE:
+                    handleReserve();
+                    break;
+                case CONFIRM:
+                    handleConfirm();
+                    break;
+                case CANCEL:
+                    handleCancel();
+                    break;
+                case TARIFF:
+                    handleTariff();
+                    break;
+                case HISTORY:
+                    handleHistory();
+                    break;
+                case END:
+                    output.append("END");
+                    break;
                 default:
-                    return "Invalid command";
+                    output.append("Invalid command");
+                    break;
             }
         } catch (Exception e) {
-            return "Invalid command format";
+            output.setLength(0);
+            output.append("Invalid command format");
         }
     }
 
-    private String handleCreate(String[] parts) {
-        if (parts.length != 4) {
-            return "Invalid CREATE command. Usage: CREATE <small_count> <large_count> <oversize_count>";
+    private void handleCreate() {
+        if (tokens.count() != 4) {
+            output.append("Invalid CREATE command. Usage: CREATE <small_count> <large_count> <oversize_count>");
+            return;
         }
 
-        try {
-            int smallSlots = Integer.parseInt(parts[1]);
-            int largeSlots = Integer.parseInt(parts[2]);
-            int oversizeSlots = Integer.parseInt(parts[3]);
-
-            if (smallSlots < 0 || largeSlots < 0 || oversizeSlots < 0) {
-                return "Slot counts must be non-negative";
-            }
+        long smallSlots = tokens.parseInt(1);
+        long largeSlots = tokens.parseInt(2);
+        long oversizeSlots = tokens.parseInt(3);
+        if (smallSlots == CommandTokenizer.INVALID_NUMBER || largeSlots == CommandTokenizer.INVALID_NUMBER
+                || oversizeSlots == CommandTokenizer.INVALID_NUMBER) {
+            output.append("Invalid number format");
+            return;
+        }
 
-            if (smallSlots + largeSlots + oversizeSlots == 0) {
-                return "Total slots must be greater than 0";
-            }
+        if (smallSlots < 0 || largeSlots < 0 || oversizeSlots < 0) {
+            output.append("Slot counts must be non-negative");
+            return;
+        }
 
-            service.createParkingLot(smallSlots, largeSlots, oversizeSlots);
-            int totalSlots = smallSlots + largeSlots + oversizeSlots;
-            return "Created a parking lot with " + totalSlots + " slots (" + smallSlots + " small, " + largeSlots + " large, " + oversizeSlots + " oversize)";
-        } catch (NumberFormatException e) {
-            return "Invalid number format";
+        long totalSlots = smallSlots + largeSlots + oversizeSlots;
+        if (totalSlots == 0) {
+            output.append("Total slots must be greater than 0");
+            return;
+        }
+        if (totalSlots > ParkingLotService.MAX_LOT_SLOTS) {
+            output.append("Total slots must be at most ").append(ParkingLotService.MAX_LOT_SLOTS);
+            return;
         }
+
+        service.createParkingLot((int) smallSlots, (int) largeSlots, (int) oversizeSlots);
+        output.append("Created a parking lot with ").append(totalSlots).append(" slots (")
+              .append(smallSlots).append(" small, ")
+              .append(largeSlots).append(" large, ")
+              .append(oversizeSlots).append(" oversize)");
     }
 
-    private String handlePark(String[] parts) {
-        if (parts.length != 3) {
-            return "Invalid PARK command. Usage: PARK <vehicle_number> <SMALL|LARGE|OVERSIZE>";
+    private void handlePark() {
+        if (tokens.count() != 3) {
+            output.append("Invalid PARK command. Usage: PARK <vehicle_number> <SMALL|LARGE|OVERSIZE>");
+            return;
         }
 
-        String vehicleNumber = parts[1];
-        VehicleType vehicleType;
+        VehicleType vehicleType = tokens.vehicleType(2);
+        if (vehicleType == null) {
+            output.append("Invalid vehicle type. Must be SMALL, LARGE, or OVERSIZE");
+            return;
+        }
 
-        try {
-            vehicleType = VehicleType.valueOf(parts[2].toUpperCase());
-        } catch (IllegalArgumentException e) {
-            return "Invalid vehicle type. Must be SMALL, LARGE, or OVERSIZE";
+        String vehicleNumber = tokens.token(1);
+        if (service.isVehicleParked(vehicleNumber)) {
+            output.append("Vehicle ").append(vehicleNumber).append(" is already parked");
+            return;
         }
 
         Optional<Integer> slotNumber = service.parkVehicle(vehicleNumber, vehicleType);
         if (slotNumber.isPresent()) {
-            return "Allocated slot number: " + slotNumber.get();
+            output.append("Allocated slot number: ").append(slotNumber.get().intValue());
         } else {
-            return "Parking lot full or invalid vehicle type for available slots";
+            output.append("Parking lot full or invalid vehicle type for available slots");
         }
     }
 
-    private String handleExit(String[] parts) {
-        if (parts.length != 2) {
-            return "Invalid EXIT command. Usage: EXIT <vehicle_number>";
+    private void handleReserve() {
+        if (tokens.count() != 3 && tokens.count() != 4) {
+            output.append("Invalid RESERVE command. Usage: RESERVE <vehicle_number> <SMALL|LARGE|OVERSIZE> [<hold_seconds>]");
+            return;
+        }
+
+        VehicleType vehicleType = tokens.vehicleType(2);
+        if (vehicleType == null) {
+            output.append("Invalid vehicle type. Must be SMALL, LARGE, or OVERSIZE");
+            return;
+        }
+
+        long holdSeconds = tokens.count() == 4 ? tokens.parseInt(3) : DEFAULT_HOLD_SECONDS;
+        if (holdSeconds == CommandTokenizer.INVALID_NUMBER || holdSeconds <= 0) {
+            output.append("Invalid hold time");
+            return;
+        }
+
+        String vehicleNumber = tokens.token(1);
+        if (service.isVehicleParked(vehicleNumber)) {
+            output.append("Vehicle ").append(vehicleNumber).append(" is already parked");
+            return;
+        }
+        if (service.getReservation(vehicleNumber).isPresent()) {
+            output.append("Vehicle ").append(vehicleNumber).append(" already has a reservation");
+            return;
         }
 
-        String vehicleNumber = parts[1];
-        boolean success = service.exitVehicle(vehicleNumber);
-        if (success) {
-            return "Vehicle " + vehicleNumber + " exited successfully";
+        Optional<Reservation> reservation = service.reserveSlot(vehicleNumber, vehicleType, holdSeconds * 1000);
+        if (reservation.isPresent()) {
+            output.append("Reserved slot number: ").append(reservation.get().getSlotNumber())
+                  .append(" (held for ").append(holdSeconds).append(" seconds)");
         } else {
-            return "Vehicle " + vehicleNumber + " not found";
+            output.append("Parking lot full or invalid vehicle type for available slots");
         }
     }
 
-    private String handleStatus() {
-        if (!service.isParkingLotCreated()) {
-            return "Parking lot not created yet";
+    private void handleConfirm() {
+        if (tokens.count() != 2) {
+            output.append("Invalid CONFIRM command. Usage: CONFIRM <vehicle_number>");
+            return;
         }
 
-        List<ParkingSlot> occupiedSlots = service.getStatus();
-        if (occupiedSlots.isEmpty()) {
-            return "No vehicles parked";
+        Optional<Integer> slotNumber = service.confirmReservation(tokens.token(1));
+        if (slotNumber.isPresent()) {
+            output.append("Allocated slot number: ").append(slotNumber.get().intValue());
+        } else {
+            output.append("No active reservation for ");
+            tokens.appendToken(1, output);
         }
+    }
 
-        StringBuilder status = new StringBuilder();
-        status.append("Slot No.\tRegistration No.\tType\n");
-        for (ParkingSlot slot : occupiedSlots) {
-            status.append(slot.getSlotNumber())
-                  .append("\t\t")
-                  .append(slot.getParkedVehicle().getVehicleNumber())
-                  .append("\t\t")
-                  .append(slot.getParkedVehicle().getType())
-                  .append("\n");
+    private void handleCancel() {
+        if (tokens.count() != 2) {
+            output.append("Invalid CANCEL command. Usage: CANCEL <vehicle_number>");
+            return;
+        }
+
+        if (service.cancelReservation(tokens.token(1))) {
+            output.append("Reservation for ");
+            tokens.appendToken(1, output);
+            output.append(" cancelled");
+        } else {
+            output.append("No active reservation for ");
+            tokens.appendToken(1, output);
         }
-        return status.toString().trim();
     }
 
-    private String handleEdit(String[] parts) {
-        if (parts.length != 3) {
-            return "Invalid EDIT command. Usage: EDIT <slot_number> <SMALL|LARGE|OVERSIZE>";
+    private void handleExit() {
+        if (tokens.count() != 2) {
+            output.append("Invalid EXIT command. Usage: EXIT <vehicle_number>");
+            return;
         }
 
-        try {
-            int slotNumber = Integer.parseInt(parts[1]);
-            VehicleType newType;
+        long feeCents = service.exitAndCharge(tokens.token(1));
+        output.append("Vehicle ");
+        tokens.appendToken(1, output);
+        if (feeCents < 0) {
+            output.append(" not found");
+            return;
+        }
+        output.append(" exited successfully");
+        if (service.getSessions() != null) {
+            output.append(". Fee: ");
+            appendCents(feeCents);
+        }
+    }
 
-            try {
-                newType = VehicleType.valueOf(parts[2].toUpperCase());
-            } catch (IllegalArgumentException e) {
-                return "Invalid vehicle type. Must be SMALL, LARGE, or OVERSIZE";
+    private void appendCents(long cents) {
+        output.append(cents / 100).append('.');
+        if (cents % 100 < 10) {
+            output.append('0');
+        }
+        output.append(cents % 100);
+    }
+
+    private void writeStatus(Appendable out) throws IOException {
+        if (tokens.count() != 1 && tokens.count() != 3) {
+            out.append("Invalid STATUS command. Usage: STATUS or STATUS <after_slot_number> <limit>");
+            return;
+        }
+        int afterSlotNumber = 0;
+        int limit = Integer.MAX_VALUE;
+        if (tokens.count() == 3) {
+            long after = tokens.parseInt(1);
+            long pageSize = tokens.parseInt(2);
+            if (after == CommandTokenizer.INVALID_NUMBER || pageSize == CommandTokenizer.INVALID_NUMBER
+                    || after < 0 || pageSize <= 0) {
+                out.append("Invalid slot number or limit");
+                return;
+            }
+            afterSlotNumber = (int) after;
+            limit = (int) pageSize;
+        }
+        writeStatus(out, afterSlotNumber, limit);
+    }
+
+    public void writeStatus(Writer out, int afterSlotNumber, int limit) throws IOException {
+        writeStatus((Appendable) out, afterSlotNumber, limit);
+    }
+
+    private void writeStatus(Appendable out, int afterSlotNumber, int limit) throws IOException {
+        if (!service.isParkingLotCreated()) {
+            out.append("Parking lot not created yet");
+            return;
+        }
+
+        int written = 0;
+        int lastSlotNumber = afterSlotNumber;
+        boolean more;
+        if (service.publishesSnapshots()) {
+            // One snapshot per page, so a park or exit at a gate never shows up half-applied
+            Iterator<SlotState> occupiedSlots = service.getSnapshot().getOccupiedSlots(afterSlotNumber).iterator();
+            while (written < limit && occupiedSlots.hasNext()) {
+                SlotState slot = occupiedSlots.next();
+                appendStatusRow(out, written++, slot.getSlotNumber(), slot.getParkedVehicle());
+                lastSlotNumber = slot.getSlotNumber();
+            }
+            more = occupiedSlots.hasNext();
+        } else {
+            // Copying the lot into a snapshot would cost O(slots) per page, so these backends are paged live
+            Iterator<ParkingSlot> occupiedSlots = service.getOccupiedSlots(afterSlotNumber).iterator();
+            while (written < limit && occupiedSlots.hasNext()) {
+                ParkingSlot slot = occupiedSlots.next();
+                Vehicle vehicle = slot.getParkedVehicle();
+                if (vehicle == null) {
+                    continue; // Exited while the page was being written
+                }
+                appendStatusRow(out, written++, slot.getSlotNumber(), vehicle);
+                lastSlotNumber = slot.getSlotNumber();
             }
+            more = occupiedSlots.hasNext();
+        }
 
-            boolean success = service.editSlot(slotNumber, newType);
-            if (success) {
-                return "Slot " + slotNumber + " edited to " + newType + " successfully";
+        if (written == 0) {
+            if (afterSlotNumber == 0) {
+                out.append("No vehicles parked");
             } else {
-                return "Failed to edit slot " + slotNumber + ". Slot may be occupied or not exist";
+                out.append("No vehicles parked after slot ");
+                appendInt(out, afterSlotNumber);
             }
-        } catch (NumberFormatException e) {
-            return "Invalid slot number";
+        } else if (more) {
+            out.append("\nNext page: STATUS ");
+            appendInt(out, lastSlotNumber);
+            out.append(' ');
+            appendInt(out, limit);
         }
     }
 
-    private String handleDelete(String[] parts) {
-        if (parts.length != 2) {
-            return "Invalid DELETE command. Usage: DELETE <slot_number>";
+    private void appendStatusRow(Appendable out, int row, int slotNumber, Vehicle vehicle) throws IOException {
+        if (row == 0) {
+            out.append("Slot No.\tRegistration No.\tType");
         }
+        out.append('\n');
+        appendInt(out, slotNumber);
+        out.append("\t\t");
+        out.append(vehicle.getVehicleNumber());
+        out.append("\t\t");
+        out.append(vehicle.getType().name());
+    }
 
-        try {
-            int slotNumber = Integer.parseInt(parts[1]);
+    private void appendInt(Appendable out, int value) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(value);
+            return;
+        }
+        int position = digits.length;
+        long remaining = Math.abs((long) value);
+        do {
+            digits[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        if (value < 0) {
+            out.append('-');
+        }
+        for (; position < digits.length; position++) {
+            out.append(digits[position]);
+        }
+    }
+
+    private void handleEdit() {
+        if (tokens.count() != 3) {
+            output.append("Invalid EDIT command. Usage: EDIT <slot_number> <SMALL|LARGE|OVERSIZE>");
+            return;
+        }
+
+        long slotNumber = tokens.parseInt(1);
+        if (slotNumber == CommandTokenizer.INVALID_NUMBER) {
+            output.append("Invalid slot number");
+            return;
+        }
+
+        VehicleType newType = tokens.vehicleType(2);
+        if (newType == null) {
+            output.append("Invalid vehicle type. Must be SMALL, LARGE, or OVERSIZE");
+            return;
+        }
+
+        if (service.editSlot((int) slotNumber, newType)) {
+            output.append("Slot ").append(slotNumber).append(" edited to ").append(newType.name()).append(" successfully");
+        } else {
+            output.append("Failed to edit slot ").append(slotNumber).append(". Slot may be occupied or not exist");
+        }
+    }
+
+    private void handleDelete() {
+        if (tokens.count() != 2) {
+            output.append("Invalid DELETE command. Usage: DELETE <slot_number>");
+            return;
+        }
+
+        long slotNumber = tokens.parseInt(1);
+        if (slotNumber == CommandTokenizer.INVALID_NUMBER) {
+            output.append("Invalid slot number");
+            return;
+        }
 
-            boolean success = service.deleteSlot(slotNumber);
-            if (success) {
-                return "Slot " + slotNumber + " deleted successfully. Remaining slots renumbered";
+        if (service.deleteSlot((int) slotNumber)) {
+            output.append("Slot ").append(slotNumber).append(" deleted successfully");
+        } else {
+            output.append("Failed to delete slot ").append(slotNumber).append(". Slot may be occupied or not exist");
+        }
+    }
+
+    private void handleBatch() {
+        String usage = "Invalid BATCH command. Usage: BATCH PARK <vehicle_number> <SMALL|LARGE|OVERSIZE> [<vehicle_number> <type> ...] or BATCH EXIT <vehicle_number> [<vehicle_number> ...]";
+        if (tokens.count() < 3) {
+            output.append(usage);
+            return;
+        }
+
+        if (tokens.is(1, "PARK") && tokens.count() % 2 == 0) {
+            handleBatchPark();
+        } else if (tokens.is(1, "EXIT")) {
+            handleBatchExit();
+        } else {
+            output.append(usage);
+        }
+    }
+
+    private void handleBatchPark() {
+        List<Vehicle> vehicles = new ArrayList<>((tokens.count() - 2) / 2);
+        for (int i = 2; i < tokens.count(); i += 2) {
+            VehicleType vehicleType = tokens.vehicleType(i + 1);
+            if (vehicleType == null) {
+                output.append("Invalid vehicle type. Must be SMALL, LARGE, or OVERSIZE");
+                return;
+            }
+            vehicles.add(new Vehicle(tokens.token(i), vehicleType));
+        }
+
+        List<Optional<Integer>> slotNumbers = service.parkVehicles(vehicles);
+        for (int i = 0; i < vehicles.size(); i++) {
+            String vehicleNumber = vehicles.get(i).getVehicleNumber();
+            if (i > 0) {
+                output.append('\n');
+            }
+            output.append(vehicleNumber).append(": ");
+            if (slotNumbers.get(i).isPresent()) {
+                output.append("Allocated slot number: ").append(slotNumbers.get(i).get().intValue());
+            } else if (service.isVehicleParked(vehicleNumber)) {
+                output.append("Vehicle ").append(vehicleNumber).append(" is already parked");
             } else {
-                return "Failed to delete slot " + slotNumber + ". Slot may be occupied or not exist";
+                output.append("Parking lot full or invalid vehicle type for available slots");
+            }
+        }
+    }
+
+    private void handleBatchExit() {
+        List<String> vehicleNumbers = new ArrayList<>(tokens.count() - 2);
+        for (int i = 2; i < tokens.count(); i++) {
+            vehicleNumbers.add(tokens.token(i));
+        }
+        List<Boolean> exited = service.exitVehicles(vehicleNumbers);
+        for (int i = 0; i < vehicleNumbers.size(); i++) {
+            if (i > 0) {
+                output.append('\n');
+            }
+            output.append("Vehicle ").append(vehicleNumbers.get(i))
+                  .append(exited.get(i) ? " exited successfully" : " not found");
+        }
+    }
+
+    private void handleMetrics() {
+        if (tokens.count() != 1) {
+            output.append("Invalid METRICS command. Usage: METRICS");
+            return;
+        }
+
+        ParkingMetrics metrics = service.getMetrics();
+        output.append("Slot Type\tCapacity\tOccupied\tFree\tUpsized Into Larger\n");
+        for (VehicleType type : VehicleType.values()) {
+            output.append(type.name()).append("\t\t")
+                  .append(metrics.capacity(type)).append("\t\t")
+                  .append(metrics.occupied(type)).append("\t\t")
+                  .append(metrics.free(type)).append("\t")
+                  .append(metrics.upsized(type)).append("\n");
+        }
+        output.append("Allocation failures: ").append(metrics.allocationFailures()).append("\n");
+        output.append("Upsized allocations: ").append(metrics.upsizedTotal()).append("\n");
+        output.append("Latency (ns)\tSamples\tMean\tp50\tp99\tMax");
+        appendLatency("park", metrics.parkLatency());
+        appendLatency("exit", metrics.exitLatency());
+        appendLatency("find", metrics.findLatency());
+        appendLatency("persist", metrics.persistLatency());
+
+        ParkingSessions sessions = service.getSessions();
+        if (sessions != null) {
+            output.append("\nVehicle Type\tClosed Sessions\tRevenue");
+            for (VehicleType type : VehicleType.values()) {
+                output.append('\n').append(type.name()).append("\t\t")
+                      .append(sessions.closedSessions(type)).append("\t\t");
+                appendCents(sessions.revenueCents(type));
+            }
+        }
+    }
+
+    private void appendLatency(String operation, LatencyHistogram histogram) {
+        output.append('\n').append(operation).append("\t\t")
+              .append(histogram.count()).append("\t")
+              .append(histogram.meanNanos()).append("\t")
+              .append(histogram.percentileNanos(0.50)).append("\t")
+              .append(histogram.percentileNanos(0.99)).append("\t")
+              .append(histogram.maxNanos());
+    }
+
+    private void handleStrategy() {
+        if (tokens.count() == 1) {
+            output.append("Allocation strategy: ").append(service.getAllocationStrategy().toString());
+            return;
+        }
+
+        SlotAllocationStrategy strategy = null;
+        if (tokens.count() == 2 && tokens.is(1, "DEFAULT")) {
+            strategy = new DefaultSlotAllocationStrategy();
+        } else if (tokens.count() == 2 && tokens.is(1, "BEST_FIT")) {
+            strategy = new BestFitSlotAllocationStrategy();
+        } else if (tokens.count() == 3 && (tokens.is(1, "NEAREST") || tokens.is(1, "ZONED"))) {
+            long value = tokens.parseInt(2);
+            if (value == CommandTokenizer.INVALID_NUMBER || value < 1) {
+                output.append(tokens.is(1, "NEAREST") ? "Invalid entrance slot number" : "Invalid zone count");
+                return;
+            }
+            if (tokens.is(1, "ZONED") && value > ZonedSlotAllocationStrategy.MAX_ZONES) {
+                output.append("Zone count must be between 1 and ").append(ZonedSlotAllocationStrategy.MAX_ZONES);
+                return;
+            }
+            strategy = tokens.is(1, "NEAREST")
+                    ? new NearestSlotAllocationStrategy((int) value)
+                    : new ZonedSlotAllocationStrategy((int) value);
+        }
+
+        if (strategy == null) {
+            output.append("Invalid STRATEGY command. Usage: STRATEGY or STRATEGY <DEFAULT|BEST_FIT|NEAREST <entrance_slot_number>|ZONED <zone_count>>");
+            return;
+        }
+        service.setAllocationStrategy(strategy);
+        output.append("Allocation strategy set to ").append(strategy.toString());
+    }
+
+    private void handleTariff() {
+        ParkingSessions sessions = service.getSessions();
+        if (sessions == null) {
+            output.append("Billing is not enabled");
+            return;
+        }
+        if (tokens.count() != 1 && tokens.count() != 4) {
+            output.append("Invalid TARIFF command. Usage: TARIFF or TARIFF <SMALL|LARGE|OVERSIZE> <hourly_cents> <daily_cap_cents>");
+            return;
+        }
+
+        if (tokens.count() == 4) {
+            VehicleType vehicleType = tokens.vehicleType(1);
+            if (vehicleType == null) {
+                output.append("Invalid vehicle type. Must be SMALL, LARGE, or OVERSIZE");
+                return;
+            }
+            long hourlyCents = tokens.parseInt(2);
+            long dailyCapCents = tokens.parseInt(3);
+            if (hourlyCents == CommandTokenizer.INVALID_NUMBER || dailyCapCents == CommandTokenizer.INVALID_NUMBER
+                    || hourlyCents < 0 || dailyCapCents < 0) {
+                output.append("Invalid rate");
+                return;
             }
-        } catch (NumberFormatException e) {
-            return "Invalid slot number";
+            sessions.setTariff(sessions.getTariff().withRate(vehicleType, hourlyCents, dailyCapCents));
+        }
+
+        Tariff tariff = sessions.getTariff();
+        output.append("Vehicle Type\tHourly\tDaily Cap");
+        for (VehicleType type : VehicleType.values()) {
+            output.append('\n').append(type.name()).append("\t\t");
+            appendCents(tariff.hourlyCents(type));
+            output.append('\t');
+            appendCents(tariff.dailyCapCents(type));
         }
     }
 
-    private String handleSeed(String[] parts) {
-        if (parts.length > 2) {
-            return "Invalid SEED command. Usage: SEED or SEED <OFFICE|MALL|RESIDENTIAL>";
+    private void handleHistory() {
+        String usage = "Invalid HISTORY command. Usage: HISTORY <SECONDS|MINUTES|HOURS> [<count>]";
+        if (tokens.count() != 2 && tokens.count() != 3) {
+            output.append(usage);
+            return;
+        }
+
+        OccupancyHistory.Resolution resolution = null;
+        for (OccupancyHistory.Resolution candidate : OccupancyHistory.Resolution.values()) {
+            if (tokens.is(1, candidate.name())) {
+                resolution = candidate;
+            }
+        }
+        if (resolution == null) {
+            output.append(usage);
+            return;
+        }
+
+        long count = tokens.count() == 3 ? tokens.parseInt(2) : DEFAULT_HISTORY_BUCKETS;
+        if (count == CommandTokenizer.INVALID_NUMBER || count <= 0 || count > resolution.getBuckets()) {
+            output.append("Invalid count. Must be between 1 and ").append(resolution.getBuckets());
+            return;
         }
 
-        String scenario = parts.length == 2 ? parts[1] : "DEFAULT";
+        List<OccupancySample> samples = service.getOccupancyHistory().recent(resolution, (int) count);
+        if (samples.isEmpty()) {
+            output.append("No occupancy history yet");
+            return;
+        }
+        output.append("Time (UTC)\t\t\tSMALL\tLARGE\tOVERSIZE\t(mean/peak occupied)");
+        for (OccupancySample sample : samples) {
+            output.append('\n').append(Instant.ofEpochMilli(sample.getStartMillis()).toString()).append('\t');
+            for (VehicleType type : VehicleType.values()) {
+                output.append('\t').append(sample.mean(type)).append('/').append(sample.peak(type));
+            }
+        }
+    }
+
+    private void handleSeed() {
+        if (tokens.count() == 3 && tokens.is(1, "FILE")) {
+            if (!local && seedDirectory == null) {
+                output.append("SEED FILE is not available on this connection");
+                return;
+            }
+            Path file = local ? null : seedDirectoryFile(tokens.token(2));
+            if (!local && file == null) {
+                output.append("Seed file must be inside the seed directory");
+                return;
+            }
+            try {
+                int vehicles = seeder.seedFromFile(local ? Paths.get(tokens.token(2)) : file);
+                output.append("Parking lot seeded with ").append(vehicles).append(" vehicles from ");
+                tokens.appendToken(2, output);
+            } catch (Exception e) {
+                // The cause can quote the file's contents, so it is not passed back to the caller
+                output.append("Failed to seed data from ");
+                tokens.appendToken(2, output);
+            }
+            return;
+        }
+        if (tokens.count() > 2) {
+            output.append("Invalid SEED command. Usage: SEED, SEED <OFFICE|MALL|RESIDENTIAL> or SEED FILE <csv_or_snapshot_file>");
+            return;
+        }
+
+        String scenario = tokens.count() == 2 ? tokens.token(1) : "DEFAULT";
 
         try {
             seeder.seedScenario(scenario);
-            return "Parking lot seeded with " + scenario.toLowerCase() + " scenario data";
+            output.append("Parking lot seeded with ").append(scenario.toLowerCase()).append(" scenario data");
         } catch (Exception e) {
-            return "Failed to seed data: " + e.getMessage();
+            output.append("Failed to seed data: ").append(e.getMessage());
+        }
+    }
+
+    // Returns null for names that lead outside the seed directory. Symbolic links are resolved before the check,
+    // so a link inside the directory cannot point outside it.
+    private Path seedDirectoryFile(String name) {
+        try {
+            Path file = seedDirectory.resolve(name).normalize();
+            if (!file.startsWith(seedDirectory)) {
+                return null;
+            }
+            if (Files.exists(file) && !file.toRealPath().startsWith(seedDirectory.toRealPath())) {
+                return null;
+            }
+            return file;
+        } catch (InvalidPathException | IOException e) {
+            return null;
+        }
+    }
+
+    private enum Command {
+        CREATE, PARK, EXIT, STATUS, EDIT, DELETE, SEED, BATCH, METRICS, STRATEGY, RESERVE, CONFIRM, CANCEL, TARIFF, HISTORY, END, UNKNOWN;
+
+        private static final Command[] KNOWN = {CREATE, PARK, EXIT, STATUS, EDIT, DELETE, SEED, BATCH, METRICS, STRATEGY, RESERVE, CONFIRM, CANCEL, TARIFF, HISTORY, END};
+
+        static Command of(CommandTokenizer tokens) {
+            for (Command command : KNOWN) {
+                if (tokens.is(0, command.name())) {
+                    return command;
+                }
+            }
+            return UNKNOWN;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,14 @@
 package com.parkinglot.domain;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 public class ParkingSlot {
+    private static final AtomicReferenceFieldUpdater<ParkingSlot, Vehicle> PARKED_VEHICLE =
+            AtomicReferenceFieldUpdater.newUpdater(ParkingSlot.class, Vehicle.class, "parkedVehicle");
+
     private final int slotNumber;
     private final VehicleType supportedType;
-    private Vehicle parkedVehicle;
+    private volatile Vehicle parkedVehicle;
 
     public ParkingSlot(int slotNumber, VehicleType supportedType) {
         this.slotNumber = slotNumber;
@@ -26,12 +31,24 @@ public class ParkingSlot {
         this.parkedVehicle = parkedVehicle;
     }
 
+    public boolean claim(Vehicle vehicle) {
+        return PARKED_VEHICLE.compareAndSet(this, null, vehicle);
+    }
+
+    public boolean release(Vehicle vehicle) {
+        return PARKED_VEHICLE.compareAndSet(this, vehicle, null);
+    }
+
     public boolean isOccupied() {
         return parkedVehicle != null;
     }
 
     public boolean canAccommodate(VehicleType vehicleType) {
-        switch (supportedType) {
+        return canAccommodate(supportedType, vehicleType);
+    }
+
+    public static boolean canAccommodate(VehicleType slotType, VehicleType vehicleType) {
+        switch (slotType) {
             case SMALL:
                 return vehicleType == VehicleType.SMALL;
             case LARGE:
@@ -42,4 +59,4 @@ public class ParkingSlot {
                 return false;
         }
     }
-}
\ No newline at end of file
+}
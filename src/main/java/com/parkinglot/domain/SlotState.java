@@ -0,0 +1,34 @@
+package com.parkinglot.domain;
+
+// Immutable copy of a slot as it was when a lot snapshot was published; never changes after parking or exit
+public final class SlotState {
+    private final int slotNumber;
+    private final VehicleType supportedType;
+    private final Vehicle parkedVehicle;
+
+    public SlotState(int slotNumber, VehicleType supportedType, Vehicle parkedVehicle) {
+        this.slotNumber = slotNumber;
+        this.supportedType = supportedType;
+        this.parkedVehicle = parkedVehicle;
+    }
+
+    public static SlotState of(ParkingSlot slot) {
+        return new SlotState(slot.getSlotNumber(), slot.getSupportedType(), slot.getParkedVehicle());
+    }
+
+    public int getSlotNumber() {
+        return slotNumber;
+    }
+
+    public VehicleType getSupportedType() {
+        return supportedType;
+    }
+
+    public Vehicle getParkedVehicle() {
+        return parkedVehicle;
+    }
+
+    public boolean isOccupied() {
+        return parkedVehicle != null;
+    }
+}
@@ -1,12 +1,22 @@
 package com.parkinglot.domain;
 
 public class Vehicle {
+    public static final long UNKNOWN_ENTRY = -1;
+
     private final String vehicleNumber;
     private final VehicleType type;
+    private final long entryMillis;
 
     public Vehicle(String vehicleNumber, VehicleType type) {
+        this(vehicleNumber, type, UNKNOWN_ENTRY);
+    }
+
+    // The entry time rides with the occupancy, so an exit is billed from its own park even when the slot is
+    // taken again before billing runs. Vehicles restored from a file or parked with billing off have none.
+    public Vehicle(String vehicleNumber, VehicleType type, long entryMillis) {
         this.vehicleNumber = vehicleNumber;
         this.type = type;
+        this.entryMillis = entryMillis;
     }
 
     public String getVehicleNumber() {
@@ -16,4 +26,8 @@ public class Vehicle {
     public VehicleType getType() {
         return type;
     }
-}
\ No newline at end of file
+
+    public long getEntryMillis() {
+        return entryMillis;
+    }
+}
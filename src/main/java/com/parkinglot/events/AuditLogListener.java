@@ -0,0 +1,45 @@
+package com.parkinglot.events;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Appends one line per event and flushes once per batch, so a burst of gate traffic costs one write
+public class AuditLogListener implements ParkingEventListener, AutoCloseable {
+    private final BufferedWriter writer;
+
+    public AuditLogListener(Path file) {
+        try {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open audit log", e);
+        }
+    }
+
+    @Override
+    public void onEvents(List<ParkingEvent> events) {
+        try {
+            for (int i = 0; i < events.size(); i++) {
+                writer.write(events.get(i).toString());
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write audit log", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close audit log", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.parkinglot.events;
+
+// What a publisher does when the slowest listener is a full ring behind
+public enum BackpressurePolicy {
+    DROP,  // Discard the event and count it
+    BLOCK, // Wait for the slowest listener to free an entry
+    SPILL  // Append to a spill file; a drain thread feeds it back into the ring in order
+}
@@ -0,0 +1,106 @@
+package com.parkinglot.events;
+
+import com.parkinglot.domain.VehicleType;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Overflow file for the SPILL policy. Callers synchronize on the instance; records are only read once fully written.
+final class EventSpill implements AutoCloseable {
+    private static final ParkingEventType[] EVENT_TYPES = ParkingEventType.values();
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final Path file;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private long written;
+    private long read;
+
+    EventSpill(Path file) {
+        this.file = file;
+        reset();
+    }
+
+    boolean isEmpty() {
+        return read == written;
+    }
+
+    void append(ParkingEvent event) {
+        try {
+            out.writeByte(event.getType().ordinal());
+            out.writeLong(event.getTimestampMillis());
+            out.writeUTF(event.getLotId());
+            out.writeInt(event.getSlotNumber());
+            writeType(event.getSlotType());
+            out.writeBoolean(event.getVehicleNumber() != null);
+            if (event.getVehicleNumber() != null) {
+                out.writeUTF(event.getVehicleNumber());
+            }
+            writeType(event.getVehicleType());
+            for (VehicleType type : VEHICLE_TYPES) {
+                out.writeInt(event.getSlotCount(type));
+            }
+            out.flush();
+            written++;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to spill parking event", e);
+        }
+    }
+
+    void readNext(ParkingEvent into) {
+        try {
+            ParkingEventType type = EVENT_TYPES[in.readByte()];
+            long timestampMillis = in.readLong();
+            String lotId = in.readUTF();
+            int slotNumber = in.readInt();
+            VehicleType slotType = readType();
+            String vehicleNumber = in.readBoolean() ? in.readUTF() : null;
+            VehicleType vehicleType = readType();
+            into.set(type, lotId, slotNumber, slotType, vehicleNumber, vehicleType, timestampMillis);
+            into.setSlotCounts(in.readInt(), in.readInt(), in.readInt());
+            read++;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read spilled parking event", e);
+        }
+    }
+
+    // Called once everything written has been read, so the file can start again from empty
+    void reset() {
+        try {
+            close();
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+            written = 0;
+            read = 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open event spill file", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (out != null) {
+                out.close();
+            }
+            if (in != null) {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close event spill file", e);
+        }
+    }
+
+    private void writeType(VehicleType type) throws IOException {
+        out.writeByte(type == null ? -1 : type.ordinal());
+    }
+
+    private VehicleType readType() throws IOException {
+        byte ordinal = in.readByte();
+        return ordinal < 0 ? null : VEHICLE_TYPES[ordinal];
+    }
+}
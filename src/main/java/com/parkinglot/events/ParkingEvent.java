@@ -0,0 +1,111 @@
+package com.parkinglot.events;
+
+import com.parkinglot.domain.VehicleType;
+
+// Preallocated ring entry, overwritten in place by the publisher, so publishing does not allocate
+public final class ParkingEvent {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private long sequence;
+    private long timestampMillis;
+    private ParkingEventType type;
+    private String lotId;
+    private int slotNumber;
+    private VehicleType slotType;
+    private String vehicleNumber;
+    private VehicleType vehicleType;
+    private final int[] slotCounts = new int[VEHICLE_TYPES.length];
+
+    ParkingEvent() {
+    }
+
+    void set(ParkingEventType type, String lotId, int slotNumber, VehicleType slotType,
+             String vehicleNumber, VehicleType vehicleType, long timestampMillis) {
+        this.type = type;
+        this.lotId = lotId;
+        this.slotNumber = slotNumber;
+        this.slotType = slotType;
+        this.vehicleNumber = vehicleNumber;
+        this.vehicleType = vehicleType;
+        this.timestampMillis = timestampMillis;
+    }
+
+    void setSlotCounts(int smallSlots, int largeSlots, int oversizeSlots) {
+        slotCounts[VehicleType.SMALL.ordinal()] = smallSlots;
+        slotCounts[VehicleType.LARGE.ordinal()] = largeSlots;
+        slotCounts[VehicleType.OVERSIZE.ordinal()] = oversizeSlots;
+    }
+
+    void copyFrom(ParkingEvent other) {
+        set(other.type, other.lotId, other.slotNumber, other.slotType, other.vehicleNumber, other.vehicleType, other.timestampMillis);
+        System.arraycopy(other.slotCounts, 0, slotCounts, 0, slotCounts.length);
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public ParkingEvent copy() {
+        ParkingEvent copy = new ParkingEvent();
+        copy.copyFrom(this);
+        copy.sequence = sequence;
+        return copy;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public ParkingEventType getType() {
+        return type;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    // Zero for LOT_CREATED
+    public int getSlotNumber() {
+        return slotNumber;
+    }
+
+    // For SLOT_EDITED this is the new type
+    public VehicleType getSlotType() {
+        return slotType;
+    }
+
+    // Only set for PARKED and EXITED
+    public String getVehicleNumber() {
+        return vehicleNumber;
+    }
+
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    // Only set for LOT_CREATED
+    public int getSlotCount(VehicleType slotType) {
+        return slotCounts[slotType.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(64);
+        text.append(sequence).append(' ').append(timestampMillis).append(' ').append(type).append(' ').append(lotId);
+        if (type == ParkingEventType.LOT_CREATED) {
+            for (VehicleType size : VEHICLE_TYPES) {
+                text.append(' ').append(slotCounts[size.ordinal()]);
+            }
+            return text.toString();
+        }
+        text.append(' ').append(slotNumber).append(' ').append(slotType);
+        if (vehicleNumber != null) {
+            text.append(' ').append(vehicleNumber).append(' ').append(vehicleType);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,374 @@
+package com.parkinglot.events;
+
+import com.parkinglot.domain.VehicleType;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Multi-producer ring buffer in the style of the LMAX Disruptor. Publishers claim a sequence with one CAS, fill the
+// preallocated entry and mark it published; every listener has its own thread and sequence and is handed all the
+// entries published since its last call as one batch. The slowest listener gates how far publishers can run ahead.
+public class ParkingEventBus implements AutoCloseable {
+    private static final int DEFAULT_MAX_BATCH = 256;
+    private static final int IDLE_SPINS = 100;
+    private static final long IDLE_PARK_NANOS = 50_000;
+    private static final long CLOSE_WAIT_NANOS = 10_000_000_000L;
+
+    private final ParkingEvent[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final BackpressurePolicy policy;
+    private final int maxBatchSize;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicInteger inFlight = new AtomicInteger(); // Publishers past the accepting check
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder spilledCount = new LongAdder();
+    private final LongAdder listenerFailures = new LongAdder();
+    private final EventSpill spill;
+    private Thread spillDrainer;
+    private volatile long gatingSequence = -1; // Cached minimum of the listener sequences
+    private volatile boolean spilling;
+    private volatile boolean accepting = true;
+    private volatile boolean running;
+    private volatile boolean abandoned; // Set when close() stops waiting; blocked claims give up
+    private boolean spillClosed; // Guarded by spill
+
+    public ParkingEventBus(int capacity, BackpressurePolicy policy) {
+        this(capacity, policy, null, DEFAULT_MAX_BATCH);
+    }
+
+    public ParkingEventBus(int capacity, BackpressurePolicy policy, Path spillFile, int maxBatchSize) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+        if ((policy == BackpressurePolicy.SPILL) != (spillFile != null)) {
+            throw new IllegalArgumentException("A spill file is required for the SPILL policy, and only for it");
+        }
+        this.entries = new ParkingEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new ParkingEvent();
+        }
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.policy = policy;
+        this.maxBatchSize = maxBatchSize;
+        this.spill = spillFile == null ? null : new EventSpill(spillFile);
+    }
+
+    // Listeners must be added before start(); each gets every event published from then on, in sequence order
+    public synchronized void subscribe(String name, ParkingEventListener listener) {
+        if (running) {
+            throw new IllegalStateException("Listeners must subscribe before the bus is started");
+        }
+        subscribers.add(new Subscriber(name, listener));
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.thread.start();
+        }
+        if (spill != null) {
+            spillDrainer = new Thread(this::drainSpill, "parking-events-spill");
+            spillDrainer.setDaemon(true);
+            spillDrainer.start();
+        }
+    }
+
+    public boolean publish(ParkingEventType type, String lotId, int slotNumber, VehicleType slotType,
+                           String vehicleNumber, VehicleType vehicleType) {
+        return publish(type, lotId, slotNumber, slotType, vehicleNumber, vehicleType, 0, 0, 0);
+    }
+
+    public boolean publishLotCreated(String lotId, int smallSlots, int largeSlots, int oversizeSlots) {
+        return publish(ParkingEventType.LOT_CREATED, lotId, 0, null, null, null, smallSlots, largeSlots, oversizeSlots);
+    }
+
+    private boolean publish(ParkingEventType type, String lotId, int slotNumber, VehicleType slotType,
+                            String vehicleNumber, VehicleType vehicleType,
+                            int smallSlots, int largeSlots, int oversizeSlots) {
+        long timestampMillis = System.currentTimeMillis();
+        // Registering before the accepting check pairs with close(), which clears accepting before it waits for the
+        // count to reach zero: either this publisher sees the bus closing or close() waits for its commit
+        inFlight.incrementAndGet();
+        try {
+            if (!accepting) {
+                droppedCount.increment();
+                return false;
+            }
+            long sequence = spilling ? -1 : claim(policy == BackpressurePolicy.BLOCK);
+            if (sequence < 0) {
+                if (policy != BackpressurePolicy.SPILL) {
+                    droppedCount.increment();
+                    return false;
+                }
+                ParkingEvent event = new ParkingEvent();
+                event.set(type, lotId, slotNumber, slotType, vehicleNumber, vehicleType, timestampMillis);
+                event.setSlotCounts(smallSlots, largeSlots, oversizeSlots);
+                return spill(event);
+            }
+            ParkingEvent entry = entries[(int) sequence & mask];
+            entry.set(type, lotId, slotNumber, slotType, vehicleNumber, vehicleType, timestampMillis);
+            entry.setSlotCounts(smallSlots, largeSlots, oversizeSlots);
+            commit(sequence, entry);
+            return true;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void commit(long sequence, ParkingEvent entry) {
+        entry.setSequence(sequence);
+        published.lazySet((int) sequence & mask, sequence);
+    }
+
+    // Returns the claimed sequence, or -1 when the ring is full and the caller does not want to wait (or close()
+    // has given up on the listeners making room)
+    private long claim(boolean wait) {
+        int idle = 0;
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - entries.length;
+            if (wrapPoint > gatingSequence) {
+                long minimum = minimumSequence(current);
+                gatingSequence = minimum;
+                if (wrapPoint > minimum) {
+                    if (!wait || abandoned) {
+                        return -1;
+                    }
+                    idle = idle(idle);
+                    continue;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long minimumSequence(long fallback) {
+        long minimum = fallback;
+        for (Subscriber subscriber : subscribers) {
+            minimum = Math.min(minimum, subscriber.sequence.get());
+        }
+        return minimum;
+    }
+
+    // Once spilling starts every event goes to the file until the drain thread has caught up, which keeps order
+    private boolean spill(ParkingEvent event) {
+        synchronized (spill) {
+            if (spillClosed) {
+                droppedCount.increment();
+                return false;
+            }
+            spill.append(event);
+            spilledCount.increment();
+            if (!spilling) {
+                spilling = true;
+                spill.notifyAll();
+            }
+            return true;
+        }
+    }
+
+    private void drainSpill() {
+        ParkingEvent scratch = new ParkingEvent();
+        while (true) {
+            synchronized (spill) {
+                while (spill.isEmpty()) {
+                    if (spilling) {
+                        spill.reset();
+                        spilling = false;
+                    }
+                    if (!running) {
+                        return;
+                    }
+                    try {
+                        spill.wait(100);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                spill.readNext(scratch);
+            }
+            long sequence = claim(true);
+            if (sequence < 0) {
+                droppedCount.increment(); // Abandoned by close(); what is left in the spill is lost
+                return;
+            }
+            ParkingEvent entry = entries[(int) sequence & mask];
+            entry.copyFrom(scratch);
+            commit(sequence, entry);
+        }
+    }
+
+    // Every claimed sequence is published, so the cursor doubles as the count
+    public long getPublishedCount() {
+        return cursor.get() + 1;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.sum();
+    }
+
+    public long getListenerFailures() {
+        return listenerFailures.sum();
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    // Waits until every listener has seen every event published so far, including spilled ones
+    public boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        while (spilling || minimumSequence(cursor.get()) < cursor.get()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        accepting = false;
+        try {
+            // Publishers already admitted finish first, while the listeners still make room for blocked claims
+            if (!awaitPublishers(System.nanoTime() + CLOSE_WAIT_NANOS)) {
+                abandoned = true;
+                awaitPublishers(System.nanoTime() + CLOSE_WAIT_NANOS);
+            }
+            synchronized (this) {
+                running = false;
+            }
+            // The drain thread empties the spill next, while the listeners are still consuming
+            if (spillDrainer != null) {
+                spillDrainer.join(CLOSE_WAIT_NANOS / 1_000_000);
+                if (spillDrainer.isAlive()) {
+                    abandoned = true;
+                    spillDrainer.join(CLOSE_WAIT_NANOS / 1_000_000);
+                }
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.stopping = true;
+                subscriber.thread.join(CLOSE_WAIT_NANOS / 1_000_000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandoned = true;
+        }
+        if (spill != null) {
+            synchronized (spill) {
+                spillClosed = true;
+                spill.close();
+            }
+        }
+    }
+
+    private boolean awaitPublishers(long deadlineNanos) throws InterruptedException {
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() - deadlineNanos > 0) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private static int idle(int idle) {
+        if (idle < IDLE_SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return idle + 1;
+    }
+
+    private final class Subscriber implements Runnable {
+        private final ParkingEventListener listener;
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final Thread thread;
+        private final Batch batch = new Batch();
+        private volatile boolean stopping;
+
+        Subscriber(String name, ParkingEventListener listener) {
+            this.listener = listener;
+            this.thread = new Thread(this, "parking-events-" + name);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (true) {
+                long next = sequence.get() + 1;
+                long last = next - 1;
+                while (last + 1 - next < maxBatchSize && published.get((int) (last + 1) & mask) == last + 1) {
+                    last++;
+                }
+                if (last < next) {
+                    if (stopping) {
+                        return; // close() stops listeners only after admitted publishers and the spill drain are done, or abandoned
+                    }
+                    idle = idle(idle);
+                    continue;
+                }
+                idle = 0;
+                batch.first = next;
+                batch.size = (int) (last - next + 1);
+                try {
+                    listener.onEvents(batch);
+                } catch (RuntimeException e) {
+                    listenerFailures.increment(); // A failing listener loses that batch but keeps its place
+                }
+                sequence.set(last);
+            }
+        }
+    }
+
+    // Read-only window over the ring, reused for every batch a listener receives
+    private final class Batch extends AbstractList<ParkingEvent> {
+        private long first;
+        private int size;
+
+        @Override
+        public ParkingEvent get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return entries[(int) (first + index) & mask];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
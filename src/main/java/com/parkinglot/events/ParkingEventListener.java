@@ -0,0 +1,9 @@
+package com.parkinglot.events;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface ParkingEventListener {
+    // Events are ring entries that are reused once the call returns; copy anything that must outlive it
+    void onEvents(List<ParkingEvent> events);
+}
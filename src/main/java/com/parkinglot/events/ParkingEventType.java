@@ -0,0 +1,5 @@
+package com.parkinglot.events;
+
+public enum ParkingEventType {
+    LOT_CREATED, PARKED, EXITED, SLOT_EDITED, SLOT_DELETED
+}
@@ -0,0 +1,240 @@
+package com.parkinglot.metrics;
+
+import com.parkinglot.billing.ParkingClock;
+import com.parkinglot.domain.VehicleType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Occupancy per slot type in fixed rings of per-second, per-minute and per-hour buckets, so memory never grows.
+// Gates only raise a striped peak; whichever gate first sees a new second rolls the rings forward if no one else is
+// (tryLock, never waits), filling quiet seconds with the current occupancy. Every tier is fed seconds directly, so a
+// minute's mean is weighted by time rather than by how many events it saw.
+public class OccupancyHistory {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    public enum Resolution {
+        SECONDS(1, 3600),
+        MINUTES(60, 24 * 60),
+        HOURS(3600, 30 * 24);
+
+        private final long seconds;
+        private final int buckets;
+
+        Resolution(long seconds, int buckets) {
+            this.seconds = seconds;
+            this.buckets = buckets;
+        }
+
+        public long getSeconds() {
+            return seconds;
+        }
+
+        public int getBuckets() {
+            return buckets;
+        }
+    }
+
+    private final ParkingMetrics metrics;
+    private final ParkingClock clock;
+    private final LongAccumulator[] peaks = new LongAccumulator[VEHICLE_TYPES.length];
+    private final ReentrantLock rollLock = new ReentrantLock();
+    private final Tier[] tiers = new Tier[Resolution.values().length];
+    private final int[] closingValues = new int[VEHICLE_TYPES.length];
+    private final int[] closingPeaks = new int[VEHICLE_TYPES.length];
+    private volatile long rolledSecond;
+
+    public OccupancyHistory(ParkingMetrics metrics) {
+        this(metrics, ParkingClock.monotonic());
+    }
+
+    public OccupancyHistory(ParkingMetrics metrics, ParkingClock clock) {
+        this.metrics = metrics;
+        this.clock = clock;
+        for (int i = 0; i < peaks.length; i++) {
+            peaks[i] = new LongAccumulator(Math::max, 0);
+        }
+        for (Resolution resolution : Resolution.values()) {
+            tiers[resolution.ordinal()] = new Tier(resolution);
+        }
+        rolledSecond = currentSecond();
+    }
+
+    // Called after the metrics have counted the park
+    public void recordParked(VehicleType slotType) {
+        record(slotType, 1);
+    }
+
+    // Called after the metrics have counted the exit
+    public void recordExited(VehicleType slotType) {
+        record(slotType, -1);
+    }
+
+    private void record(VehicleType slotType, int change) {
+        long second = currentSecond();
+        if (second > rolledSecond && rollLock.tryLock()) {
+            try {
+                rollTo(second, slotType, change);
+            } finally {
+                rollLock.unlock();
+            }
+        }
+        peaks[slotType.ordinal()].accumulate(metrics.occupied(slotType));
+    }
+
+    // The last bucket is the one still filling
+    public List<OccupancySample> recent(Resolution resolution, int count) {
+        rollLock.lock();
+        try {
+            rollTo(currentSecond(), null, 0);
+            Tier tier = tiers[resolution.ordinal()];
+            if (tier.openStart == EMPTY) {
+                return new ArrayList<>();
+            }
+            long fromSecond = tier.openStart - (Math.max(count, 1) - 1) * resolution.seconds;
+            return tier.samples(fromSecond, tier.openStart);
+        } finally {
+            rollLock.unlock();
+        }
+    }
+
+    // Buckets starting in [fromMillis, toMillis)
+    public List<OccupancySample> query(Resolution resolution, long fromMillis, long toMillis) {
+        rollLock.lock();
+        try {
+            rollTo(currentSecond(), null, 0);
+            long span = resolution.seconds;
+            long fromSecond = Math.floorDiv(Math.floorDiv(fromMillis + 999, 1000) + span - 1, span) * span;
+            long toSecond = Math.floorDiv(toMillis - 1, 1000);
+            return tiers[resolution.ordinal()].samples(fromSecond, toSecond);
+        } finally {
+            rollLock.unlock();
+        }
+    }
+
+    private long currentSecond() {
+        return Math.floorDiv(clock.millis(), 1000);
+    }
+
+    // Closes every second before the given one; the second being rolled out takes the peak seen by the gates, and
+    // the quiet seconds after it the occupancy at roll time, less the change that triggered the roll (it belongs to
+    // the new second)
+    private void rollTo(long second, VehicleType changedType, int change) {
+        long lastSecond = rolledSecond;
+        if (second <= lastSecond) {
+            return;
+        }
+        for (VehicleType type : VEHICLE_TYPES) {
+            int occupied = (int) metrics.occupied(type) - (type == changedType ? change : 0);
+            closingValues[type.ordinal()] = occupied;
+            closingPeaks[type.ordinal()] = (int) Math.max(occupied, peaks[type.ordinal()].getThenReset());
+        }
+        for (Tier tier : tiers) {
+            tier.add(lastSecond, 1, closingValues, closingPeaks);
+            tier.add(lastSecond + 1, second - lastSecond - 1, closingValues, closingValues);
+        }
+        rolledSecond = second;
+    }
+
+    private static final class Tier {
+        private final long span;
+        private final int bucketCount;
+        private final long[] bucketStart;
+        private final int[] mean;
+        private final int[] peak;
+        private long openStart = EMPTY;
+        private long openSeconds;
+        private final long[] openSum = new long[VEHICLE_TYPES.length];
+        private final int[] openPeak = new int[VEHICLE_TYPES.length];
+
+        Tier(Resolution resolution) {
+            span = resolution.seconds;
+            bucketCount = resolution.buckets;
+            bucketStart = new long[bucketCount];
+            Arrays.fill(bucketStart, EMPTY);
+            mean = new int[bucketCount * VEHICLE_TYPES.length];
+            peak = new int[bucketCount * VEHICLE_TYPES.length];
+        }
+
+        void add(long second, long length, int[] values, int[] peaks) {
+            long end = second + length;
+            while (second < end) {
+                long start = second - Math.floorMod(second, span);
+                if (start != openStart) {
+                    close();
+                    long retainedFrom = end - bucketCount * span;
+                    long skipTo = retainedFrom - Math.floorMod(retainedFrom, span);
+                    if (skipTo > start) {
+                        // Buckets before the retained window would only be overwritten later in this run
+                        start = skipTo;
+                        second = start;
+                    }
+                    openStart = start;
+                }
+                long run = Math.min(end, start + span) - second;
+                openSeconds += run;
+                for (int type = 0; type < values.length; type++) {
+                    openSum[type] += values[type] * run;
+                    openPeak[type] = Math.max(openPeak[type], peaks[type]);
+                }
+                second += run;
+            }
+        }
+
+        private void close() {
+            if (openStart == EMPTY) {
+                return;
+            }
+            int bucket = bucketIndex(openStart);
+            bucketStart[bucket] = openStart;
+            for (int type = 0; type < openSum.length; type++) {
+                mean[bucket * openSum.length + type] = (int) ((openSum[type] + openSeconds / 2) / openSeconds);
+                peak[bucket * openSum.length + type] = openPeak[type];
+            }
+            openSeconds = 0;
+            Arrays.fill(openSum, 0);
+            Arrays.fill(openPeak, 0);
+        }
+
+        List<OccupancySample> samples(long fromSecond, long toSecond) {
+            List<OccupancySample> samples = new ArrayList<>();
+            if (openStart == EMPTY) {
+                return samples;
+            }
+            long from = Math.max(fromSecond, openStart - (bucketCount - 1) * span);
+            long to = Math.min(toSecond, openStart);
+            for (long start = from - Math.floorMod(from, span); start <= to; start += span) {
+                if (start < fromSecond) {
+                    continue;
+                }
+                if (start == openStart) {
+                    samples.add(openSample());
+                    continue;
+                }
+                int bucket = bucketIndex(start);
+                if (bucketStart[bucket] == start) {
+                    int offset = bucket * VEHICLE_TYPES.length;
+                    samples.add(new OccupancySample(start * 1000,
+                            Arrays.copyOfRange(mean, offset, offset + VEHICLE_TYPES.length),
+                            Arrays.copyOfRange(peak, offset, offset + VEHICLE_TYPES.length)));
+                }
+            }
+            return samples;
+        }
+
+        private OccupancySample openSample() {
+            int[] openMean = new int[openSum.length];
+            for (int type = 0; type < openSum.length; type++) {
+                openMean[type] = (int) ((openSum[type] + openSeconds / 2) / openSeconds);
+            }
+            return new OccupancySample(openStart * 1000, openMean, openPeak.clone());
+        }
+
+        private int bucketIndex(long start) {
+            return (int) Math.floorMod(Math.floorDiv(start, span), (long) bucketCount);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.parkinglot.metrics;
+
+import com.parkinglot.domain.VehicleType;
+
+// One bucket of an occupancy history: the time-weighted mean and the peak number of occupied slots per slot type
+public class OccupancySample {
+    private final long startMillis;
+    private final int[] mean;
+    private final int[] peak;
+
+    OccupancySample(long startMillis, int[] mean, int[] peak) {
+        this.startMillis = startMillis;
+        this.mean = mean;
+        this.peak = peak;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public int mean(VehicleType slotType) {
+        return mean[slotType.ordinal()];
+    }
+
+    public int peak(VehicleType slotType) {
+        return peak[slotType.ordinal()];
+    }
+}
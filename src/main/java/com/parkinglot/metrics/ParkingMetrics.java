@@ -0,0 +1,132 @@
+package com.parkinglot.metrics;
+
+import com.parkinglot.domain.VehicleType;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Counters are plain LongAdders so the park and exit paths never contend on a shared cache line
+public class ParkingMetrics {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+    // By default one park or exit in 8 is timed: System.nanoTime() alone costs tens of nanoseconds on some VMs
+    private static final int DEFAULT_LATENCY_SAMPLE_INTERVAL = 8;
+
+    private final LongAdder[] capacity = newAdders();
+    private final LongAdder[] occupied = newAdders();
+    private final LongAdder[] upsized = newAdders();
+    private final LongAdder allocationFailures = new LongAdder();
+    private final LatencyHistogram parkLatency = new LatencyHistogram();
+    private final LatencyHistogram exitLatency = new LatencyHistogram();
+    private final LatencyHistogram findLatency = new LatencyHistogram();
+    private final LatencyHistogram persistLatency = new LatencyHistogram();
+    private final int latencySampleMask;
+
+    public ParkingMetrics() {
+        this(DEFAULT_LATENCY_SAMPLE_INTERVAL);
+    }
+
+    public ParkingMetrics(int latencySampleInterval) {
+        if (latencySampleInterval <= 0 || Integer.bitCount(latencySampleInterval) != 1) {
+            throw new IllegalArgumentException("Latency sample interval must be a power of two");
+        }
+        this.latencySampleMask = latencySampleInterval - 1;
+    }
+
+    public boolean sampleLatency() {
+        return latencySampleMask == 0 || (ThreadLocalRandom.current().nextInt() & latencySampleMask) == 0;
+    }
+
+    public void setOccupancy(VehicleType slotType, long slotCapacity, long occupiedSlots) {
+        capacity[slotType.ordinal()].reset();
+        capacity[slotType.ordinal()].add(slotCapacity);
+        occupied[slotType.ordinal()].reset();
+        occupied[slotType.ordinal()].add(occupiedSlots);
+    }
+
+    public void recordParked(VehicleType vehicleType, VehicleType slotType) {
+        occupied[slotType.ordinal()].increment();
+        if (slotType != vehicleType) {
+            upsized[vehicleType.ordinal()].increment();
+        }
+    }
+
+    public void recordExited(VehicleType slotType) {
+        occupied[slotType.ordinal()].decrement();
+    }
+
+    public void recordSlotAdded(VehicleType slotType) {
+        capacity[slotType.ordinal()].increment();
+    }
+
+    public void recordSlotRemoved(VehicleType slotType) {
+        capacity[slotType.ordinal()].decrement();
+    }
+
+    public void recordAllocationFailure() {
+        allocationFailures.increment();
+    }
+
+    public long capacity(VehicleType slotType) {
+        return capacity[slotType.ordinal()].sum();
+    }
+
+    public long occupied(VehicleType slotType) {
+        return occupied[slotType.ordinal()].sum();
+    }
+
+    public long free(VehicleType slotType) {
+        return capacity(slotType) - occupied(slotType);
+    }
+
+    public long upsized(VehicleType vehicleType) {
+        return upsized[vehicleType.ordinal()].sum();
+    }
+
+    public long upsizedTotal() {
+        long total = 0;
+        for (LongAdder adder : upsized) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    public long allocationFailures() {
+        return allocationFailures.sum();
+    }
+
+    public LatencyHistogram parkLatency() {
+        return parkLatency;
+    }
+
+    public LatencyHistogram exitLatency() {
+        return exitLatency;
+    }
+
+    public LatencyHistogram findLatency() {
+        return findLatency;
+    }
+
+    public LatencyHistogram persistLatency() {
+        return persistLatency;
+    }
+
+    public ObjectName registerMBean(String lotName) {
+        try {
+            ObjectName name = new ObjectName("com.parkinglot:type=ParkingMetrics,name=" + ObjectName.quote(lotName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new ParkingMetricsMXBeanImpl(this), name);
+            return name;
+        } catch (JMException e) {
+            throw new RuntimeException("Failed to register parking metrics MBean", e);
+        }
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[VEHICLE_TYPES.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,15 @@
+package com.parkinglot.metrics;
+
+import java.util.Map;
+
+public interface ParkingMetricsMXBean {
+    Map<String, Long> getCapacity();
+    Map<String, Long> getOccupied();
+    Map<String, Long> getFree();
+    Map<String, Long> getUpsizedAllocations();
+    long getAllocationFailures();
+    Map<String, Long> getParkLatencyNanos();
+    Map<String, Long> getExitLatencyNanos();
+    Map<String, Long> getFindLatencyNanos();
+    Map<String, Long> getPersistLatencyNanos();
+}
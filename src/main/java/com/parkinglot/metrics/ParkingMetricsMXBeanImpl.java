@@ -0,0 +1,77 @@
+package com.parkinglot.metrics;
+
+import com.parkinglot.domain.VehicleType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+class ParkingMetricsMXBeanImpl implements ParkingMetricsMXBean {
+    private final ParkingMetrics metrics;
+
+    ParkingMetricsMXBeanImpl(ParkingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Map<String, Long> getCapacity() {
+        return byType(metrics::capacity);
+    }
+
+    @Override
+    public Map<String, Long> getOccupied() {
+        return byType(metrics::occupied);
+    }
+
+    @Override
+    public Map<String, Long> getFree() {
+        return byType(metrics::free);
+    }
+
+    @Override
+    public Map<String, Long> getUpsizedAllocations() {
+        return byType(metrics::upsized);
+    }
+
+    @Override
+    public long getAllocationFailures() {
+        return metrics.allocationFailures();
+    }
+
+    @Override
+    public Map<String, Long> getParkLatencyNanos() {
+        return summary(metrics.parkLatency());
+    }
+
+    @Override
+    public Map<String, Long> getExitLatencyNanos() {
+        return summary(metrics.exitLatency());
+    }
+
+    @Override
+    public Map<String, Long> getFindLatencyNanos() {
+        return summary(metrics.findLatency());
+    }
+
+    @Override
+    public Map<String, Long> getPersistLatencyNanos() {
+        return summary(metrics.persistLatency());
+    }
+
+    private static Map<String, Long> byType(ToLongFunction<VehicleType> counter) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (VehicleType type : VehicleType.values()) {
+            values.put(type.name(), counter.applyAsLong(type));
+        }
+        return values;
+    }
+
+    private static Map<String, Long> summary(LatencyHistogram histogram) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        values.put("count", histogram.count());
+        values.put("mean", histogram.meanNanos());
+        values.put("p50", histogram.percentileNanos(0.50));
+        values.put("p99", histogram.percentileNanos(0.99));
+        values.put("max", histogram.maxNanos());
+        return values;
+    }
+}
@@ -0,0 +1,85 @@
+package com.parkinglot.seeder;
+
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+// Arrival rate (vehicles per simulated second) as a function of the time of day. Arrivals are drawn as a
+// non-homogeneous Poisson process by thinning a homogeneous one at the peak rate.
+public final class ArrivalProcess {
+    public static final double DAY_SECONDS = 24 * 60 * 60;
+    private static final double HOUR_SECONDS = 60 * 60;
+
+    private final DoubleUnaryOperator rate;
+    private final double peakRate;
+    private final String description;
+
+    private ArrivalProcess(DoubleUnaryOperator rate, double peakRate, String description) {
+        if (!(peakRate > 0)) {
+            throw new IllegalArgumentException("Peak arrival rate must be greater than 0");
+        }
+        this.rate = rate;
+        this.peakRate = peakRate;
+        this.description = description;
+    }
+
+    public static ArrivalProcess poisson(double ratePerSecond) {
+        return new ArrivalProcess(second -> ratePerSecond, ratePerSecond, "poisson " + ratePerSecond + "/s");
+    }
+
+    // Morning and evening peaks (08:30 and 17:30, one hour wide) over a base rate, repeating every day
+    public static ArrivalProcess rushHour(double baseRatePerSecond, double peakRatePerSecond) {
+        if (peakRatePerSecond < baseRatePerSecond) {
+            throw new IllegalArgumentException("Peak rate must not be below the base rate");
+        }
+        DoubleUnaryOperator rate = second -> {
+            double timeOfDay = second % DAY_SECONDS;
+            double peak = Math.max(bump(timeOfDay, 8.5 * HOUR_SECONDS), bump(timeOfDay, 17.5 * HOUR_SECONDS));
+            return baseRatePerSecond + (peakRatePerSecond - baseRatePerSecond) * peak;
+        };
+        return new ArrivalProcess(rate, peakRatePerSecond,
+                "rush-hour " + baseRatePerSecond + "/s to " + peakRatePerSecond + "/s");
+    }
+
+    // Multiplies the rate for a window of simulated time, e.g. a stadium emptying into the lot
+    public ArrivalProcess withSpike(double startSecond, double durationSeconds, double multiplier) {
+        if (multiplier < 0 || durationSeconds <= 0) {
+            throw new IllegalArgumentException("Spike needs a positive duration and a non-negative multiplier");
+        }
+        DoubleUnaryOperator base = rate;
+        DoubleUnaryOperator spiked = second -> second >= startSecond && second < startSecond + durationSeconds
+                ? base.applyAsDouble(second) * multiplier
+                : base.applyAsDouble(second);
+        return new ArrivalProcess(spiked, peakRate * Math.max(1, multiplier),
+                description + " with x" + multiplier + " spike at " + startSecond + "s for " + durationSeconds + "s");
+    }
+
+    public double ratePerSecond(double second) {
+        return rate.applyAsDouble(second);
+    }
+
+    public double getPeakRatePerSecond() {
+        return peakRate;
+    }
+
+    // Next arrival after the given time for a share of the traffic (several gates split one lot's arrivals)
+    double nextArrival(double second, double share, Random random) {
+        double candidateRate = peakRate * share;
+        while (true) {
+            second += -Math.log(1 - random.nextDouble()) / candidateRate;
+            if (random.nextDouble() * peakRate <= rate.applyAsDouble(second)) {
+                return second;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    private static double bump(double timeOfDay, double centre) {
+        double distance = Math.abs(timeOfDay - centre);
+        distance = Math.min(distance, DAY_SECONDS - distance);
+        return Math.exp(-distance * distance / (2 * HOUR_SECONDS * HOUR_SECONDS));
+    }
+}
@@ -1,9 +1,25 @@
 package com.parkinglot.seeder;
 
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.Vehicle;
 import com.parkinglot.domain.VehicleType;
 import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.BinarySnapshot;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+// Seeds go to the storage as one bulk load, never through per-vehicle allocation
 public class ParkingLotSeeder {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+    // Well above a full million-slot lot in either format. The file size only bounds the parsing; what the file
+    // claims about the lot is bounded by ParkingLotService.MAX_LOT_SLOTS.
+    public static final long MAX_SEED_FILE_BYTES = 32L << 20;
+
     private final ParkingLotService service;
 
     public ParkingLotSeeder(ParkingLotService service) {
@@ -11,11 +27,137 @@ public class ParkingLotSeeder {
     }
 
     public void seed(int smallSlots, int largeSlots, int oversizeSlots, String[][] parkedVehicles) {
-        service.createParkingLot(smallSlots, largeSlots, oversizeSlots);
+        List<Vehicle> vehicles = new ArrayList<>(parkedVehicles.length);
         for (String[] vehicleData : parkedVehicles) {
-            String vehicleNumber = vehicleData[0];
-            VehicleType type = VehicleType.valueOf(vehicleData[1]);
-            service.parkVehicle(vehicleNumber, type);
+            vehicles.add(new Vehicle(vehicleData[0], VehicleType.valueOf(vehicleData[1])));
+        }
+        service.loadParkingLot(layout(smallSlots, largeSlots, oversizeSlots, vehicles, new int[vehicles.size()]));
+    }
+
+    // One "lot,<small>,<large>,<oversize>" line, then one "<vehicle_number>,<type>[,<slot_number>]" line per parked
+    // vehicle; blank lines and lines starting with # are skipped. Returns the number of vehicles loaded.
+    public int seedFromCsv(Path csvFile) {
+        int[] slotCounts = null;
+        List<Vehicle> vehicles = new ArrayList<>();
+        int[] slotNumbers = new int[16];
+        try (BufferedReader reader = Files.newBufferedReader(csvFile)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                try {
+                    if (slotCounts == null) {
+                        if (fields.length != 4 || !fields[0].trim().equalsIgnoreCase("lot")) {
+                            throw new IllegalArgumentException("expected lot,<small>,<large>,<oversize>");
+                        }
+                        slotCounts = new int[] {parseCount(fields[1]), parseCount(fields[2]), parseCount(fields[3])};
+                        checkLotSize(slotCounts[0], slotCounts[1], slotCounts[2]);
+                        continue;
+                    }
+                    if (fields.length != 2 && fields.length != 3) {
+                        throw new IllegalArgumentException("expected <vehicle_number>,<type>[,<slot_number>]");
+                    }
+                    if (vehicles.size() == slotNumbers.length) {
+                        slotNumbers = Arrays.copyOf(slotNumbers, slotNumbers.length * 2);
+                    }
+                    slotNumbers[vehicles.size()] = fields.length == 3 ? Integer.parseInt(fields[2].trim()) : 0;
+                    vehicles.add(new Vehicle(fields[0].trim(), VehicleType.valueOf(fields[1].trim().toUpperCase())));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Line " + lineNumber + " of " + csvFile + ": " + e.getMessage(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read seed file", e);
+        }
+        if (slotCounts == null) {
+            throw new IllegalArgumentException(csvFile + " has no lot line");
+        }
+        service.loadParkingLot(layout(slotCounts[0], slotCounts[1], slotCounts[2], vehicles, slotNumbers));
+        return vehicles.size();
+    }
+
+    // A binary snapshot as written by BinarySnapshot or SnapshotTool; returns the number of vehicles loaded
+    public int seedFromSnapshot(Path snapshotFile) {
+        try {
+            List<ParkingSlot> slots = BinarySnapshot.read(snapshotFile);
+            service.loadParkingLot(slots);
+            return (int) slots.stream().filter(ParkingSlot::isOccupied).count();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read seed snapshot", e);
+        }
+    }
+
+    public int seedFromFile(Path file) {
+        try {
+            if (Files.size(file) > MAX_SEED_FILE_BYTES) {
+                throw new IllegalArgumentException("Seed file is larger than " + (MAX_SEED_FILE_BYTES >> 20) + " MB");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read seed file", e);
+        }
+        return file.getFileName().toString().toLowerCase().endsWith(".csv") ? seedFromCsv(file) : seedFromSnapshot(file);
+    }
+
+    // Places vehicles the way the default strategy would park them one by one: vehicles with a slot number (> 0 in
+    // slotNumbers) go there, and the rest, in order, take the lowest free slot of the smallest type that fits them
+    static List<ParkingSlot> layout(int smallSlots, int largeSlots, int oversizeSlots, List<Vehicle> vehicles, int[] slotNumbers) {
+        checkLotSize(smallSlots, largeSlots, oversizeSlots);
+        List<ParkingSlot> slots = new ArrayList<>(smallSlots + largeSlots + oversizeSlots);
+        int[] firstSlotNumber = {1, 1 + smallSlots, 1 + smallSlots + largeSlots, 1 + smallSlots + largeSlots + oversizeSlots};
+        for (VehicleType type : VEHICLE_TYPES) {
+            for (int slotNumber = firstSlotNumber[type.ordinal()]; slotNumber < firstSlotNumber[type.ordinal() + 1]; slotNumber++) {
+                slots.add(new ParkingSlot(slotNumber, type));
+            }
+        }
+        for (int i = 0; i < vehicles.size(); i++) {
+            if (slotNumbers[i] > 0) {
+                if (slotNumbers[i] > slots.size() || slots.get(slotNumbers[i] - 1).isOccupied()) {
+                    throw new IllegalArgumentException("Slot " + slotNumbers[i] + " does not exist or is taken twice");
+                }
+                slots.get(slotNumbers[i] - 1).setParkedVehicle(vehicles.get(i));
+            }
+        }
+        int[] nextFree = Arrays.copyOf(firstSlotNumber, VEHICLE_TYPES.length);
+        for (int i = 0; i < vehicles.size(); i++) {
+            if (slotNumbers[i] > 0) {
+                continue;
+            }
+            Vehicle vehicle = vehicles.get(i);
+            ParkingSlot slot = null;
+            for (int type = vehicle.getType().ordinal(); type < VEHICLE_TYPES.length && slot == null; type++) {
+                while (nextFree[type] < firstSlotNumber[type + 1] && slots.get(nextFree[type] - 1).isOccupied()) {
+                    nextFree[type]++;
+                }
+                if (nextFree[type] < firstSlotNumber[type + 1]) {
+                    slot = slots.get(nextFree[type]++ - 1);
+                }
+            }
+            if (slot == null) {
+                throw new IllegalArgumentException("No free slot for vehicle " + vehicle.getVehicleNumber());
+            }
+            slot.setParkedVehicle(vehicle);
+        }
+        return slots;
+    }
+
+    private static int parseCount(String field) {
+        int count = Integer.parseInt(field.trim());
+        if (count < 0 || count > ParkingLotService.MAX_LOT_SLOTS) {
+            throw new IllegalArgumentException("slot counts must be between 0 and " + ParkingLotService.MAX_LOT_SLOTS);
+        }
+        return count;
+    }
+
+    // Summed as a long, so three large counts cannot wrap around to a small total
+    private static void checkLotSize(int smallSlots, int largeSlots, int oversizeSlots) {
+        if (smallSlots < 0 || largeSlots < 0 || oversizeSlots < 0
+                || (long) smallSlots + largeSlots + oversizeSlots > ParkingLotService.MAX_LOT_SLOTS) {
+            throw new IllegalArgumentException("a lot has at most " + ParkingLotService.MAX_LOT_SLOTS + " slots");
         }
     }
 
@@ -0,0 +1,128 @@
+package com.parkinglot.seeder;
+
+import com.parkinglot.domain.VehicleType;
+import java.util.Arrays;
+
+// Immutable; each with* method returns a changed copy
+public final class SimulationConfig {
+    private final int smallSlots;
+    private final int largeSlots;
+    private final int oversizeSlots;
+    private final int lots;
+    private final int gateThreads;
+    private final long vehicles;
+    private final ArrivalProcess arrivals;
+    private final double meanDwellSeconds;
+    private final double[] vehicleMix;
+    private final double timeScale;
+    private final long seed;
+
+    public SimulationConfig(int smallSlots, int largeSlots, int oversizeSlots, long vehicles, ArrivalProcess arrivals) {
+        this(smallSlots, largeSlots, oversizeSlots, 1, 1, vehicles, arrivals, 2 * 60 * 60, new double[] {0.6, 0.3, 0.1}, 0, 42);
+    }
+
+    private SimulationConfig(int smallSlots, int largeSlots, int oversizeSlots, int lots, int gateThreads, long vehicles,
+                             ArrivalProcess arrivals, double meanDwellSeconds, double[] vehicleMix, double timeScale, long seed) {
+        if (smallSlots < 0 || largeSlots < 0 || oversizeSlots < 0 || smallSlots + largeSlots + oversizeSlots == 0) {
+            throw new IllegalArgumentException("Slot counts must be non-negative and not all 0");
+        }
+        if (lots <= 0 || gateThreads <= 0 || vehicles < 0 || meanDwellSeconds <= 0 || timeScale < 0) {
+            throw new IllegalArgumentException("Invalid simulation settings");
+        }
+        this.smallSlots = smallSlots;
+        this.largeSlots = largeSlots;
+        this.oversizeSlots = oversizeSlots;
+        this.lots = lots;
+        this.gateThreads = gateThreads;
+        this.vehicles = vehicles;
+        this.arrivals = arrivals;
+        this.meanDwellSeconds = meanDwellSeconds;
+        this.vehicleMix = vehicleMix;
+        this.timeScale = timeScale;
+        this.seed = seed;
+    }
+
+    // With fewer lots than threads several threads drive the same lot, which needs a thread-safe storage
+    public SimulationConfig withLots(int lots, int gateThreads) {
+        return new SimulationConfig(smallSlots, largeSlots, oversizeSlots, lots, gateThreads, vehicles, arrivals,
+                meanDwellSeconds, vehicleMix, timeScale, seed);
+    }
+
+    // Dwell times are exponentially distributed
+    public SimulationConfig withMeanDwellSeconds(double meanDwellSeconds) {
+        return new SimulationConfig(smallSlots, largeSlots, oversizeSlots, lots, gateThreads, vehicles, arrivals,
+                meanDwellSeconds, vehicleMix, timeScale, seed);
+    }
+
+    // Relative weights of SMALL, LARGE and OVERSIZE arrivals
+    public SimulationConfig withVehicleMix(double small, double large, double oversize) {
+        if (small < 0 || large < 0 || oversize < 0 || small + large + oversize <= 0) {
+            throw new IllegalArgumentException("Vehicle mix weights must be non-negative and not all 0");
+        }
+        double total = small + large + oversize;
+        return new SimulationConfig(smallSlots, largeSlots, oversizeSlots, lots, gateThreads, vehicles, arrivals,
+                meanDwellSeconds, new double[] {small / total, large / total, oversize / total}, timeScale, seed);
+    }
+
+    // Simulated seconds per wall-clock second; 0 replays as fast as the lot allows
+    public SimulationConfig withTimeScale(double timeScale) {
+        return new SimulationConfig(smallSlots, largeSlots, oversizeSlots, lots, gateThreads, vehicles, arrivals,
+                meanDwellSeconds, vehicleMix, timeScale, seed);
+    }
+
+    public SimulationConfig withSeed(long seed) {
+        return new SimulationConfig(smallSlots, largeSlots, oversizeSlots, lots, gateThreads, vehicles, arrivals,
+                meanDwellSeconds, vehicleMix, timeScale, seed);
+    }
+
+    public int getSmallSlots() {
+        return smallSlots;
+    }
+
+    public int getLargeSlots() {
+        return largeSlots;
+    }
+
+    public int getOversizeSlots() {
+        return oversizeSlots;
+    }
+
+    public int getLots() {
+        return lots;
+    }
+
+    public int getGateThreads() {
+        return gateThreads;
+    }
+
+    public long getVehicles() {
+        return vehicles;
+    }
+
+    public ArrivalProcess getArrivals() {
+        return arrivals;
+    }
+
+    public double getMeanDwellSeconds() {
+        return meanDwellSeconds;
+    }
+
+    public double getVehicleMix(VehicleType vehicleType) {
+        return vehicleMix[vehicleType.ordinal()];
+    }
+
+    public double getTimeScale() {
+        return timeScale;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return lots + " lot(s) of " + smallSlots + "/" + largeSlots + "/" + oversizeSlots + ", " + gateThreads
+                + " gate thread(s), " + vehicles + " vehicles, " + arrivals + ", mean dwell " + meanDwellSeconds
+                + "s, mix " + Arrays.toString(vehicleMix);
+    }
+}
@@ -0,0 +1,107 @@
+package com.parkinglot.seeder;
+
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.metrics.LatencyHistogram;
+import java.util.Locale;
+
+public class SimulationReport {
+    private final long[] arrivals;
+    private final long[] rejected;
+    private final long exits;
+    private final long wallNanos;
+    private final double simulatedSeconds;
+    private final LatencyHistogram parkLatency;
+    private final LatencyHistogram exitLatency;
+
+    SimulationReport(long[] arrivals, long[] rejected, long exits, long wallNanos, double simulatedSeconds,
+                     LatencyHistogram parkLatency, LatencyHistogram exitLatency) {
+        this.arrivals = arrivals;
+        this.rejected = rejected;
+        this.exits = exits;
+        this.wallNanos = wallNanos;
+        this.simulatedSeconds = simulatedSeconds;
+        this.parkLatency = parkLatency;
+        this.exitLatency = exitLatency;
+    }
+
+    public long arrivals(VehicleType vehicleType) {
+        return arrivals[vehicleType.ordinal()];
+    }
+
+    public long rejected(VehicleType vehicleType) {
+        return rejected[vehicleType.ordinal()];
+    }
+
+    public long getArrivals() {
+        long total = 0;
+        for (long count : arrivals) {
+            total += count;
+        }
+        return total;
+    }
+
+    public long getRejected() {
+        long total = 0;
+        for (long count : rejected) {
+            total += count;
+        }
+        return total;
+    }
+
+    public double getRejectionRate() {
+        long total = getArrivals();
+        return total == 0 ? 0 : (double) getRejected() / total;
+    }
+
+    public long getExits() {
+        return exits;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public double getSimulatedSeconds() {
+        return simulatedSeconds;
+    }
+
+    // Park and exit calls per wall-clock second
+    public double getOperationsPerSecond() {
+        return wallNanos == 0 ? 0 : (getArrivals() + exits) * 1e9 / wallNanos;
+    }
+
+    public LatencyHistogram getParkLatency() {
+        return parkLatency;
+    }
+
+    public LatencyHistogram getExitLatency() {
+        return exitLatency;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "Simulated %.1f hours in %.2f s: %d arrivals, %d exits, %.1f ops/s%n",
+                simulatedSeconds / 3600, wallNanos / 1e9, getArrivals(), exits, getOperationsPerSecond()));
+        report.append(String.format(Locale.ROOT, "Rejected: %d (%.2f%%)", getRejected(), getRejectionRate() * 100));
+        for (VehicleType type : VehicleType.values()) {
+            long typeArrivals = arrivals(type);
+            report.append(String.format(Locale.ROOT, "%n  %-8s %d of %d (%.2f%%)", type.name(), rejected(type), typeArrivals,
+                    typeArrivals == 0 ? 0 : rejected(type) * 100.0 / typeArrivals));
+        }
+        report.append(String.format("%nLatency (ns)\tSamples\tMean\tp50\tp99\tp99.9\tMax"));
+        appendLatency(report, "park", parkLatency);
+        appendLatency(report, "exit", exitLatency);
+        return report.toString();
+    }
+
+    private static void appendLatency(StringBuilder report, String operation, LatencyHistogram histogram) {
+        report.append('\n').append(operation).append("\t\t")
+              .append(histogram.count()).append('\t')
+              .append(histogram.meanNanos()).append('\t')
+              .append(histogram.percentileNanos(0.50)).append('\t')
+              .append(histogram.percentileNanos(0.99)).append('\t')
+              .append(histogram.percentileNanos(0.999)).append('\t')
+              .append(histogram.maxNanos());
+    }
+}
@@ -0,0 +1,312 @@
+package com.parkinglot.seeder;
+
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.metrics.LatencyHistogram;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.ParkingStorage;
+import com.parkinglot.strategy.SlotAllocationStrategy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Replays arrival and departure processes through ParkingLotService, one event loop per gate thread. A thread
+// owns its lots outright when there are at least as many lots as threads; otherwise the threads sharing a lot split
+// its arrivals between them. Each thread walks its own simulated clock, so threads are not kept in step.
+public class TrafficSimulator {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final Supplier<ParkingStorage> storageFactory;
+    private final Supplier<SlotAllocationStrategy> strategyFactory;
+
+    public TrafficSimulator(Supplier<ParkingStorage> storageFactory, Supplier<SlotAllocationStrategy> strategyFactory) {
+        this.storageFactory = storageFactory;
+        this.strategyFactory = strategyFactory;
+    }
+
+    public SimulationReport run(SimulationConfig config) {
+        List<ParkingLotService> services = new ArrayList<>(config.getLots());
+        for (int lot = 0; lot < config.getLots(); lot++) {
+            ParkingLotService service = new ParkingLotService(storageFactory.get(), strategyFactory.get());
+            service.createParkingLot(config.getSmallSlots(), config.getLargeSlots(), config.getOversizeSlots());
+            services.add(service);
+        }
+
+        int threads = config.getGateThreads();
+        int laneCount = Math.max(config.getLots(), threads);
+        List<List<Lane>> lanesByThread = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            lanesByThread.add(new ArrayList<>());
+        }
+        for (int lane = 0; lane < laneCount; lane++) {
+            int lot = lane % config.getLots();
+            int sharing = config.getLots() >= threads ? 1 : countSharing(lot, config.getLots(), threads);
+            long budget = config.getVehicles() / laneCount + (lane < config.getVehicles() % laneCount ? 1 : 0);
+            lanesByThread.get(lane % threads).add(new Lane(services.get(lot), 1.0 / sharing, budget));
+        }
+
+        LatencyHistogram parkLatency = new LatencyHistogram();
+        LatencyHistogram exitLatency = new LatencyHistogram();
+        ExecutorService gates = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "parking-simulator-gate");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long start = System.nanoTime();
+            List<Future<Gate>> futures = new ArrayList<>(threads);
+            for (int thread = 0; thread < threads; thread++) {
+                Gate gate = new Gate(thread, lanesByThread.get(thread), config, parkLatency, exitLatency, start);
+                futures.add(gates.submit(() -> {
+                    gate.run();
+                    return gate;
+                }));
+            }
+            long[] arrivals = new long[VEHICLE_TYPES.length];
+            long[] rejected = new long[VEHICLE_TYPES.length];
+            long exits = 0;
+            double simulatedSeconds = 0;
+            for (Future<Gate> future : futures) {
+                Gate gate = future.get();
+                for (int type = 0; type < VEHICLE_TYPES.length; type++) {
+                    arrivals[type] += gate.arrivals[type];
+                    rejected[type] += gate.rejected[type];
+                }
+                exits += gate.exits;
+                simulatedSeconds = Math.max(simulatedSeconds, gate.clock);
+            }
+            return new SimulationReport(arrivals, rejected, exits, System.nanoTime() - start, simulatedSeconds,
+                    parkLatency, exitLatency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Simulation failed", e.getCause());
+        } finally {
+            gates.shutdownNow();
+        }
+    }
+
+    private static int countSharing(int lot, int lots, int threads) {
+        return threads / lots + (lot < threads % lots ? 1 : 0);
+    }
+
+    private static final class Lane {
+        private final ParkingLotService service;
+        private final double share;
+        private long remaining;
+        private double nextArrival;
+
+        Lane(ParkingLotService service, double share, long budget) {
+            this.service = service;
+            this.share = share;
+            this.remaining = budget;
+        }
+    }
+
+    private static final class Gate {
+        private final List<Lane> lanes;
+        private final ArrivalProcess arrivalProcess;
+        private final double meanDwellSeconds;
+        private final double[] cumulativeMix = new double[VEHICLE_TYPES.length];
+        private final double timeScale;
+        private final long wallStart;
+        private final LatencyHistogram parkLatency;
+        private final LatencyHistogram exitLatency;
+        private final Random random;
+        private final String platePrefix;
+        private final DepartureQueue departures = new DepartureQueue();
+        private final long[] arrivals = new long[VEHICLE_TYPES.length];
+        private final long[] rejected = new long[VEHICLE_TYPES.length];
+        private long exits;
+        private long plateSequence;
+        private double clock;
+
+        Gate(int index, List<Lane> lanes, SimulationConfig config, LatencyHistogram parkLatency,
+             LatencyHistogram exitLatency, long wallStart) {
+            this.lanes = lanes;
+            this.arrivalProcess = config.getArrivals();
+            this.meanDwellSeconds = config.getMeanDwellSeconds();
+            this.timeScale = config.getTimeScale();
+            this.wallStart = wallStart;
+            this.parkLatency = parkLatency;
+            this.exitLatency = exitLatency;
+            this.random = new Random(config.getSeed() * 31 + index);
+            this.platePrefix = "SIM" + index + "-";
+            double total = 0;
+            for (VehicleType type : VEHICLE_TYPES) {
+                total += config.getVehicleMix(type);
+                cumulativeMix[type.ordinal()] = total;
+            }
+        }
+
+        void run() {
+            for (Lane lane : lanes) {
+                lane.nextArrival = lane.remaining > 0 ? arrivalProcess.nextArrival(0, lane.share, random) : Double.MAX_VALUE;
+            }
+            while (true) {
+                Lane arriving = null;
+                for (Lane lane : lanes) {
+                    if (lane.remaining > 0 && (arriving == null || lane.nextArrival < arriving.nextArrival)) {
+                        arriving = lane;
+                    }
+                }
+                boolean departureFirst = !departures.isEmpty()
+                        && (arriving == null || departures.peekTime() <= arriving.nextArrival);
+                if (departureFirst) {
+                    clock = departures.peekTime();
+                    pace();
+                    depart(departures.poll());
+                } else if (arriving != null) {
+                    clock = arriving.nextArrival;
+                    pace();
+                    arrive(arriving);
+                    arriving.remaining--;
+                    arriving.nextArrival = arrivalProcess.nextArrival(clock, arriving.share, random);
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void arrive(Lane lane) {
+            VehicleType vehicleType = nextVehicleType();
+            arrivals[vehicleType.ordinal()]++;
+            String vehicleNumber = platePrefix + plateSequence++;
+            long start = System.nanoTime();
+            boolean parked = lane.service.parkVehicle(vehicleNumber, vehicleType).isPresent();
+            parkLatency.record(System.nanoTime() - start);
+            if (!parked) {
+                rejected[vehicleType.ordinal()]++;
+                return;
+            }
+            double dwell = -Math.log(1 - random.nextDouble()) * meanDwellSeconds;
+            departures.add(clock + dwell, lane, vehicleNumber);
+        }
+
+        private void depart(int entry) {
+            Lane lane = departures.lane(entry);
+            String vehicleNumber = departures.vehicleNumber(entry);
+            departures.release(entry);
+            long start = System.nanoTime();
+            lane.service.exitVehicle(vehicleNumber);
+            exitLatency.record(System.nanoTime() - start);
+            exits++;
+        }
+
+        private VehicleType nextVehicleType() {
+            double draw = random.nextDouble();
+            for (VehicleType type : VEHICLE_TYPES) {
+                if (draw < cumulativeMix[type.ordinal()]) {
+                    return type;
+                }
+            }
+            return VEHICLE_TYPES[VEHICLE_TYPES.length - 1];
+        }
+
+        // Waits until the wall clock reaches the simulated time, when replaying at a fixed speed
+        private void pace() {
+            if (timeScale == 0) {
+                return;
+            }
+            long due = wallStart + (long) (clock / timeScale * 1e9);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    // Min-heap of departure times over a recycled pool of entries, so millions of vehicles cost no per-vehicle
+    // objects beyond their plates
+    private static final class DepartureQueue {
+        private double[] times = new double[1024];
+        private int[] heap = new int[1024];
+        private int size;
+        private Lane[] lanes = new Lane[1024];
+        private String[] vehicleNumbers = new String[1024];
+        private int[] freeEntries = new int[1024];
+        private int freeCount;
+        private int entryCount;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekTime() {
+            return times[heap[0]];
+        }
+
+        void add(double time, Lane lane, String vehicleNumber) {
+            int entry;
+            if (freeCount > 0) {
+                entry = freeEntries[--freeCount];
+            } else {
+                if (entryCount == times.length) {
+                    int capacity = entryCount * 2;
+                    times = Arrays.copyOf(times, capacity);
+                    heap = Arrays.copyOf(heap, capacity);
+                    lanes = Arrays.copyOf(lanes, capacity);
+                    vehicleNumbers = Arrays.copyOf(vehicleNumbers, capacity);
+                    freeEntries = Arrays.copyOf(freeEntries, capacity);
+                }
+                entry = entryCount++;
+            }
+            times[entry] = time;
+            lanes[entry] = lane;
+            vehicleNumbers[entry] = vehicleNumber;
+            int position = size++;
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (times[heap[parent]] <= time) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                position = parent;
+            }
+            heap[position] = entry;
+        }
+
+        int poll() {
+            int top = heap[0];
+            int last = heap[--size];
+            int position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && times[heap[child + 1]] < times[heap[child]]) {
+                    child++;
+                }
+                if (times[heap[child]] >= times[last]) {
+                    break;
+                }
+                heap[position] = heap[child];
+                position = child;
+            }
+            heap[position] = last;
+            return top;
+        }
+
+        Lane lane(int entry) {
+            return lanes[entry];
+        }
+
+        String vehicleNumber(int entry) {
+            return vehicleNumbers[entry];
+        }
+
+        void release(int entry) {
+            lanes[entry] = null;
+            vehicleNumbers[entry] = null;
+            freeEntries[freeCount++] = entry;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.parkinglot.server;
+
+import com.parkinglot.controller.LotRegistryController;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One gate terminal. The IO thread splits incoming bytes into commands; a worker drains them in arrival
+// order and queues the replies, so a terminal can pipeline commands without waiting for each reply
+class GateConnection {
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    private static final int REPLY_FLUSH_CHARS = 8192;
+
+    final SocketChannel channel;
+    final Queue<ByteBuffer> replies = new ConcurrentLinkedQueue<>();
+    final AtomicInteger queuedCommands = new AtomicInteger();
+    volatile boolean inputClosed;
+    volatile boolean closeRequested;
+
+    private final GateServer server;
+    private final LotRegistryController controller;
+    private final Queue<String> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final CharArrayWriter output = new CharArrayWriter(REPLY_FLUSH_CHARS);
+    private byte[] line = new byte[256];
+    private int lineLength;
+
+    GateConnection(GateServer server, SocketChannel channel, LotRegistryController controller) {
+        this.server = server;
+        this.channel = channel;
+        this.controller = controller;
+    }
+
+    // Called on the IO thread only; returns false if the line limit was exceeded
+    boolean accept(ByteBuffer input) {
+        boolean added = false;
+        while (input.hasRemaining()) {
+            byte next = input.get();
+            if (next == '\n') {
+                int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+                lineLength = 0;
+                if (length > 0) {
+                    commands.add(new String(line, 0, length, StandardCharsets.UTF_8));
+                    queuedCommands.incrementAndGet();
+                    added = true;
+                }
+                continue;
+            }
+            if (lineLength == MAX_LINE_BYTES) {
+                return false;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, Math.min(line.length * 2, MAX_LINE_BYTES));
+            }
+            line[lineLength++] = next;
+        }
+        if (added && draining.compareAndSet(false, true)) {
+            server.dispatch(this::drain);
+        }
+        return true;
+    }
+
+    // Commands still queued behind END are dropped; after end of input every command gets its reply first
+    boolean readyToClose() {
+        if (!closeRequested && !inputClosed) {
+            return false;
+        }
+        return !draining.get() && replies.isEmpty() && (closeRequested || commands.isEmpty());
+    }
+
+    private void drain() {
+        do {
+            String command;
+            while (!closeRequested && (command = commands.poll()) != null) {
+                queuedCommands.decrementAndGet();
+                if (command.trim().equalsIgnoreCase("END")) {
+                    output.append("Goodbye\n\n");
+                    closeRequested = true;
+                    break;
+                }
+                process(command);
+                // Every reply ends with a blank line so clients can tell multi-line replies apart
+                output.append("\n\n");
+                if (output.size() >= REPLY_FLUSH_CHARS) {
+                    reply();
+                }
+            }
+            if (output.size() > 0) {
+                reply();
+            }
+            draining.set(false);
+            server.requestUpdate(this);
+        } while (!closeRequested && !commands.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private void process(String command) {
+        int mark = output.size();
+        try {
+            controller.processCommand(command, output);
+        } catch (IOException | RuntimeException e) {
+            truncate(mark);
+            output.append("Invalid command format");
+        }
+    }
+
+    // CharArrayWriter cannot shrink in place, so a failed command's partial reply is dropped by rewriting the kept prefix
+    private void truncate(int length) {
+        char[] kept = Arrays.copyOf(output.toCharArray(), length);
+        output.reset();
+        output.write(kept, 0, length);
+    }
+
+    private void reply() {
+        replies.add(StandardCharsets.UTF_8.encode(CharBuffer.wrap(output.toCharArray())));
+        output.reset();
+        server.requestUpdate(this);
+    }
+}
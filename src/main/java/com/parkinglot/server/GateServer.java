@@ -0,0 +1,228 @@
+package com.parkinglot.server;
+
+import com.parkinglot.controller.LotRegistryController;
+import com.parkinglot.controller.ParkingLotController;
+import com.parkinglot.service.LotRegistry;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Connections are multiplexed on one selector thread, so an idle gate costs a socket and a small buffer, not a thread.
+// Commands run on a bounded worker pool and only while a gate has input queued.
+public class GateServer implements AutoCloseable {
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_PIPELINED_COMMANDS = 1024;
+
+    private final LotRegistry registry;
+    private final String defaultLot;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Queue<GateConnection> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final Thread ioThread;
+    private volatile boolean running = true;
+    private volatile Path seedDirectory;
+
+    public GateServer(LotRegistry registry, String defaultLot, int port) throws IOException {
+        this(registry, defaultLot, new InetSocketAddress(port), Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+    }
+
+    public GateServer(LotRegistry registry, String defaultLot, InetSocketAddress address, int workerThreads) throws IOException {
+        this.registry = registry;
+        this.defaultLot = defaultLot;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "parking-gate-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ioThread = new Thread(this::runSelector, "parking-gate-io");
+    }
+
+    public void start() {
+        ioThread.start();
+    }
+
+    // Gates may SEED FILE only from this directory; with none set, SEED FILE is refused over the network
+    public void setSeedDirectory(Path seedDirectory) {
+        this.seedDirectory = seedDirectory;
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public void awaitTermination() throws InterruptedException {
+        ioThread.join();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void dispatch(Runnable task) {
+        workers.execute(task);
+    }
+
+    void requestUpdate(GateConnection connection) {
+        pendingUpdates.add(connection);
+        selector.wakeup();
+    }
+
+    private void runSelector() {
+        try {
+            while (running) {
+                selector.select();
+                GateConnection updated;
+                while ((updated = pendingUpdates.poll()) != null) {
+                    updateInterest(updated);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        acceptConnections();
+                        continue;
+                    }
+                    GateConnection connection = (GateConnection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(connection);
+                        }
+                    } catch (IOException e) {
+                        closeConnection(connection); // Gate went away mid-exchange
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Gate server failed", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException e) {
+                // Shutting down anyway
+            }
+        }
+    }
+
+    private void acceptConnections() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Path seeds = seedDirectory;
+            LotRegistryController controller = new LotRegistryController(registry, defaultLot,
+                    InMemoryParkingStorage::new, DefaultSlotAllocationStrategy::new,
+                    service -> new ParkingLotController(service, seeds));
+            GateConnection connection = new GateConnection(this, channel, controller);
+            channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    private void read(GateConnection connection) throws IOException {
+        readBuffer.clear();
+        int read = connection.channel.read(readBuffer);
+        if (read < 0) {
+            connection.inputClosed = true;
+            updateInterest(connection);
+            return;
+        }
+        readBuffer.flip();
+        if (!connection.accept(readBuffer)) {
+            closeConnection(connection);
+            return;
+        }
+        updateInterest(connection);
+    }
+
+    private void write(GateConnection connection) throws IOException {
+        ByteBuffer reply;
+        while ((reply = connection.replies.peek()) != null) {
+            connection.channel.write(reply);
+            if (reply.hasRemaining()) {
+                return; // Socket buffer is full; wait for the next OP_WRITE
+            }
+            connection.replies.poll();
+        }
+        updateInterest(connection);
+    }
+
+    private void updateInterest(GateConnection connection) {
+        SelectionKey key = connection.channel.keyFor(selector);
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        if (connection.readyToClose()) {
+            closeConnection(connection);
+            return;
+        }
+        boolean finished = connection.closeRequested || connection.inputClosed;
+        int interest = 0;
+        // Stop reading from a gate that is far ahead of its replies
+        if (!finished && connection.queuedCommands.get() < MAX_PIPELINED_COMMANDS) {
+            interest |= SelectionKey.OP_READ;
+        }
+        if (!connection.replies.isEmpty()) {
+            interest |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(interest);
+    }
+
+    private void closeConnection(GateConnection connection) {
+        SelectionKey key = connection.channel.keyFor(selector);
+        if (key != null) {
+            closeQuietly(key);
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Nothing useful to do with a failed close
+        }
+    }
+}
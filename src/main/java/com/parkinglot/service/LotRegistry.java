@@ -0,0 +1,299 @@
+package com.parkinglot.service;
+
+import com.parkinglot.billing.ParkingSessions;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.events.ParkingEventBus;
+import com.parkinglot.metrics.ParkingMetrics;
+import com.parkinglot.storage.ParkingStorage;
+import com.parkinglot.strategy.SlotAllocationStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Each lot is pinned to one shard, and a shard runs everything on a single thread, so a lot's
+// storage and strategy are never touched concurrently and need no locks of their own
+public class LotRegistry implements AutoCloseable {
+    public static final int DEFAULT_MAX_LOTS = 1024;
+    // Lot ids name per-lot files such as the billing log, so they are kept to plain file-name characters
+    private static final Pattern LOT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    // Billing buffers closed sessions; a quiet lot still gets them on disk within this long
+    private static final long SESSION_FLUSH_MILLIS = 1000;
+
+    private final Shard[] shards;
+    private final int maxLots;
+    private final ConcurrentMap<String, Lot> lots = new ConcurrentHashMap<>();
+    private final AtomicInteger lotCount = new AtomicInteger();
+    private volatile ParkingEventBus eventBus;
+    private volatile Function<String, ParkingSessions> sessionFactory;
+
+    public LotRegistry() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public LotRegistry(int shardCount) {
+        this(shardCount, DEFAULT_MAX_LOTS);
+    }
+
+    public LotRegistry(int shardCount, int maxLots) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be greater than 0");
+        }
+        if (maxLots <= 0) {
+            throw new IllegalArgumentException("Maximum lot count must be greater than 0");
+        }
+        this.maxLots = maxLots;
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    public static boolean isValidLotId(String lotId) {
+        return lotId != null && LOT_ID.matcher(lotId).matches();
+    }
+
+    // The registry owns the storage from here on: it is closed when the lot is removed, or right away when the lot
+    // cannot be created
+    public void createLot(String lotId, ParkingStorage storage, SlotAllocationStrategy allocationStrategy) {
+        boolean counted = false;
+        try {
+            if (!isValidLotId(lotId)) {
+                throw new IllegalArgumentException("Invalid lot id: lot ids are 1-64 letters, digits, '_' or '-'");
+            }
+            // Counted before the insert so racing creators can never take the registry past the limit
+            counted = true;
+            if (lotCount.incrementAndGet() > maxLots) {
+                throw new IllegalStateException("Lot limit of " + maxLots + " reached");
+            }
+            Lot[] created = new Lot[1];
+            // Only the caller that wins the id builds the lot, so the session factory opens one log per lot, and
+            // billing is attached before other callers can see it
+            Lot lot = lots.computeIfAbsent(lotId, id -> {
+                Shard shard = leastLoadedShard();
+                // Hold expiries run on the lot's own shard like every other operation on it
+                ParkingLotService service = new ParkingLotService(storage, allocationStrategy, new ParkingMetrics(),
+                        shard.executor);
+                if (eventBus != null) {
+                    service.setEventBus(id, eventBus);
+                }
+                Function<String, ParkingSessions> factory = sessionFactory;
+                if (factory != null) {
+                    service.setSessions(factory.apply(id));
+                }
+                created[0] = new Lot(id, service, storage, shard);
+                return created[0];
+            });
+            if (lot != created[0]) {
+                throw new IllegalArgumentException("Lot " + lotId + " already exists");
+            }
+            lot.shard.lots.add(lot);
+        } catch (RuntimeException e) {
+            if (counted) {
+                lotCount.decrementAndGet();
+            }
+            try {
+                closeStorage(lotId, storage);
+            } catch (RuntimeException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    // Applies to existing lots and to every lot created afterwards
+    public void setEventBus(ParkingEventBus eventBus) {
+        this.eventBus = eventBus;
+        for (Lot lot : lots.values()) {
+            lot.service.setEventBus(lot.id, eventBus);
+        }
+    }
+
+    // Billing for each lot; the factory runs once per lot, and the lot's sessions are closed when it is removed
+    public void setSessionFactory(Function<String, ParkingSessions> sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        for (Lot lot : lots.values()) {
+            lot.shard.executor.execute(() -> lot.service.setSessions(sessionFactory.apply(lot.id)));
+        }
+    }
+
+    public boolean removeLot(String lotId) {
+        Lot lot = lots.remove(lotId);
+        if (lot == null) {
+            return false;
+        }
+        lotCount.decrementAndGet();
+        lot.shard.lots.remove(lot);
+        // Queued commands for the lot still run before its storage is closed
+        lot.shard.executor.submit(() -> {
+            ParkingSessions sessions = lot.service.getSessions();
+            if (sessions != null) {
+                sessions.close();
+            }
+            closeStorage(lotId, lot.storage);
+        });
+        return true;
+    }
+
+    private static void closeStorage(String lotId, ParkingStorage storage) {
+        if (storage instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) storage).close();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to close storage for lot " + lotId, e);
+            }
+        }
+    }
+
+    public boolean hasLot(String lotId) {
+        return lots.containsKey(lotId);
+    }
+
+    public Set<String> getLotIds() {
+        return new TreeSet<>(lots.keySet());
+    }
+
+    public int getMaxLots() {
+        return maxLots;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public <T> CompletableFuture<T> submit(String lotId, Function<ParkingLotService, T> operation) {
+        Lot lot = lots.get(lotId);
+        if (lot == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Lot " + lotId + " not found"));
+        }
+        return CompletableFuture.supplyAsync(() -> operation.apply(lot.service), lot.shard.executor);
+    }
+
+    public <T> T execute(String lotId, Function<ParkingLotService, T> operation) {
+        try {
+            return submit(lotId, operation).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Optional<VehicleLocation>> findVehicle(String vehicleNumber) {
+        return fanOut(lot -> lot.storage.findSlotByVehicleNumber(vehicleNumber).map(slot -> new VehicleLocation(lot.id, slot)))
+                .thenApply(results -> results.stream().flatMap(Optional::stream).findFirst());
+    }
+
+    public CompletableFuture<Long> totalFree(VehicleType slotType) {
+        return fanOut(lot -> (long) lot.storage.getFreeSlotIndex().freeCount(slotType))
+                .thenApply(counts -> counts.stream().mapToLong(Long::longValue).sum());
+    }
+
+    public CompletableFuture<Long> totalOccupied() {
+        return fanOut(lot -> (long) lot.service.getOccupiedCount())
+                .thenApply(counts -> counts.stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Override
+    public void close() {
+        for (String lotId : getLotIds()) {
+            removeLot(lotId);
+        }
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // One task per shard rather than per lot; each shard visits its own lots and the partial results are merged
+    private <T> CompletableFuture<List<T>> fanOut(Function<Lot, T> query) {
+        List<CompletableFuture<List<T>>> partials = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            partials.add(CompletableFuture.supplyAsync(() -> {
+                List<T> results = new ArrayList<>(shard.lots.size());
+                for (Lot lot : shard.lots) {
+                    results.add(query.apply(lot));
+                }
+                return results;
+            }, shard.executor));
+        }
+        return CompletableFuture.allOf(partials.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<T> merged = new ArrayList<>();
+                    partials.forEach(partial -> merged.addAll(partial.join()));
+                    return merged;
+                });
+    }
+
+    private Shard leastLoadedShard() {
+        Shard best = shards[0];
+        for (Shard shard : shards) {
+            if (shard.lots.size() < best.lots.size()) {
+                best = shard;
+            }
+        }
+        return best;
+    }
+
+    private static final class Shard {
+        private final ScheduledExecutorService executor;
+        private final List<Lot> lots = new CopyOnWriteArrayList<>();
+
+        Shard(int index) {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "parking-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Cancelled hold expiries would otherwise stay queued until due, and pending ones would hold up close()
+            scheduler.setRemoveOnCancelPolicy(true);
+            scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            executor = scheduler;
+            executor.scheduleWithFixedDelay(this::flushSessions, SESSION_FLUSH_MILLIS, SESSION_FLUSH_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        private void flushSessions() {
+            for (Lot lot : lots) {
+                ParkingSessions sessions = lot.service.getSessions();
+                if (sessions != null) {
+                    sessions.flush();
+                }
+            }
+        }
+    }
+
+    private static final class Lot {
+        private final String id;
+        private final ParkingLotService service;
+        private final ParkingStorage storage;
+        private final Shard shard;
+
+        Lot(String id, ParkingLotService service, ParkingStorage storage, Shard shard) {
+            this.id = id;
+            this.service = service;
+            this.storage = storage;
+            this.shard = shard;
+        }
+    }
+}
@@ -1,46 +1,393 @@
 package com.parkinglot.service;
 
+import com.parkinglot.billing.ParkingSessions;
 import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
 import com.parkinglot.domain.Vehicle;
 import com.parkinglot.domain.VehicleType;
+import com.parkinglot.events.ParkingEventBus;
+import com.parkinglot.events.ParkingEventType;
+import com.parkinglot.metrics.OccupancyHistory;
+import com.parkinglot.metrics.ParkingMetrics;
+import com.parkinglot.storage.LotSnapshot;
 import com.parkinglot.storage.ParkingStorage;
 import com.parkinglot.strategy.SlotAllocationStrategy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ParkingLotService {
+    // Storage backends and the zoned strategy size arrays by slot number, so a lot is capped well below int overflow
+    // and a heap-sized allocation
+    public static final int MAX_LOT_SLOTS = 10_000_000;
+    private static final int MAX_PARK_ATTEMPTS = 64;
+
     private final ParkingStorage storage;
-    private final SlotAllocationStrategy allocationStrategy;
+    private volatile SlotAllocationStrategy allocationStrategy;
+    private final ParkingMetrics metrics;
+    // Expired holds are released on this executor, so it should be the thread that owns the storage (a LotRegistry
+    // shard) unless the storage is thread-safe
+    private final ScheduledExecutorService holdTimer;
+    private final ConcurrentMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private volatile String eventLotId;
+    private volatile ParkingEventBus eventBus;
+    private volatile ParkingSessions sessions;
+    private volatile OccupancyHistory occupancyHistory;
+    // Live slot numbers in order, rebuilt on demand after a structural change. Any gate may rebuild it, so a view is
+    // only used while its layout version is still current; one built across a concurrent delete is simply rebuilt.
+    private final AtomicLong layoutVersion = new AtomicLong();
+    private volatile CompactNumbering compactNumbering;
 
     public ParkingLotService(ParkingStorage storage, SlotAllocationStrategy allocationStrategy) {
+        this(storage, allocationStrategy, new ParkingMetrics());
+    }
+
+    public ParkingLotService(ParkingStorage storage, SlotAllocationStrategy allocationStrategy, ParkingMetrics metrics) {
+        this(storage, allocationStrategy, metrics, SharedHoldTimer.INSTANCE);
+    }
+
+    public ParkingLotService(ParkingStorage storage, SlotAllocationStrategy allocationStrategy, ParkingMetrics metrics,
+                             ScheduledExecutorService holdTimer) {
         this.storage = storage;
         this.allocationStrategy = allocationStrategy;
+        this.metrics = metrics;
+        this.holdTimer = holdTimer;
+        this.occupancyHistory = new OccupancyHistory(metrics);
+        storage.setMetrics(metrics);
+        resetOccupancyMetrics(); // The backend may have loaded an existing lot
+        allocationStrategy.onLotReset(storage.getAllSlots());
+    }
+
+    // Events are tagged with lotId so listeners shared by several lots can tell them apart
+    public void setEventBus(String lotId, ParkingEventBus eventBus) {
+        this.eventLotId = lotId;
+        this.eventBus = eventBus;
+    }
+
+    // Vehicles already parked are billed from the moment billing is attached
+    public void setSessions(ParkingSessions sessions) {
+        if (sessions != null) {
+            sessions.reset();
+        }
+        this.sessions = sessions;
+    }
+
+    public ParkingSessions getSessions() {
+        return sessions;
+    }
+
+    public OccupancyHistory getOccupancyHistory() {
+        return occupancyHistory;
+    }
+
+    // Replaces the history (e.g. one with another clock); it must read this service's metrics
+    public void setOccupancyHistory(OccupancyHistory occupancyHistory) {
+        this.occupancyHistory = occupancyHistory;
+    }
+
+    public SlotAllocationStrategy getAllocationStrategy() {
+        return allocationStrategy;
+    }
+
+    public void setAllocationStrategy(SlotAllocationStrategy allocationStrategy) {
+        allocationStrategy.onLotReset(storage.getAllSlots());
+        this.allocationStrategy = allocationStrategy;
+    }
+
+    public ParkingMetrics getMetrics() {
+        return metrics;
     }
 
     public void createParkingLot(int smallSlots, int largeSlots, int oversizeSlots) {
+        if (smallSlots < 0 || largeSlots < 0 || oversizeSlots < 0
+                || (long) smallSlots + largeSlots + oversizeSlots > MAX_LOT_SLOTS) {
+            throw new IllegalArgumentException("Slot counts must be non-negative and add up to at most " + MAX_LOT_SLOTS);
+        }
+        dropReservations();
         storage.initializeSlots(smallSlots, largeSlots, oversizeSlots);
+        onLotReplaced(smallSlots, largeSlots, oversizeSlots);
+    }
+
+    // Bulk load for seed data and fixtures: the slots (ascending numbers, occupied ones carrying their vehicles) go to
+    // the storage in one call instead of one park per vehicle, and no PARKED events are published for them
+    public void loadParkingLot(List<ParkingSlot> slots) {
+        int[] slotsByType = new int[VehicleType.values().length];
+        Set<String> vehicleNumbers = new HashSet<>();
+        int previousSlotNumber = 0;
+        for (ParkingSlot slot : slots) {
+            if (slot.getSlotNumber() <= previousSlotNumber) {
+                throw new IllegalArgumentException("Slot numbers must be positive and ascending: " + slot.getSlotNumber());
+            }
+            if (slot.getSlotNumber() > MAX_LOT_SLOTS) {
+                throw new IllegalArgumentException("Slot numbers must be at most " + MAX_LOT_SLOTS + ": " + slot.getSlotNumber());
+            }
+            Vehicle vehicle = slot.getParkedVehicle();
+            if (vehicle != null && (!slot.canAccommodate(vehicle.getType()) || !vehicleNumbers.add(vehicle.getVehicleNumber()))) {
+                throw new IllegalArgumentException("Vehicle " + vehicle.getVehicleNumber() + " cannot be placed in slot " + slot.getSlotNumber());
+            }
+            slotsByType[slot.getSupportedType().ordinal()]++;
+            previousSlotNumber = slot.getSlotNumber();
+        }
+        dropReservations();
+        storage.restoreSlots(slots);
+        onLotReplaced(slotsByType[VehicleType.SMALL.ordinal()], slotsByType[VehicleType.LARGE.ordinal()],
+                slotsByType[VehicleType.OVERSIZE.ordinal()]);
+    }
+
+    private void dropReservations() {
+        for (Reservation reservation : reservations.values()) {
+            reservation.cancelExpiry();
+        }
+        reservations.clear(); // Replacing the lot drops every hold in the storage as well
+    }
+
+    private void onLotReplaced(int smallSlots, int largeSlots, int oversizeSlots) {
+        layoutVersion.incrementAndGet();
+        resetOccupancyMetrics();
+        allocationStrategy.onLotReset(storage.getAllSlots());
+        ParkingSessions billing = sessions;
+        if (billing != null) {
+            billing.reset();
+        }
+        ParkingEventBus bus = eventBus;
+        if (bus != null) {
+            bus.publishLotCreated(eventLotId, smallSlots, largeSlots, oversizeSlots);
+        }
     }
 
     public Optional<Integer> parkVehicle(String vehicleNumber, VehicleType vehicleType) {
-        Vehicle vehicle = new Vehicle(vehicleNumber, vehicleType);
-        List<ParkingSlot> allSlots = storage.getAllSlots();
+        return park(newVehicle(vehicleNumber, vehicleType));
+    }
+
+    public List<Optional<Integer>> parkVehicles(List<Vehicle> vehicles) {
+        return storage.batch(() -> {
+            List<Optional<Integer>> results = new ArrayList<>(vehicles.size());
+            for (Vehicle vehicle : vehicles) {
+                results.add(park(vehicle));
+            }
+            return results;
+        });
+    }
+
+    // Stamped with the billing entry time before the storage commit, so the session exists from the moment the
+    // occupancy does
+    private Vehicle newVehicle(String vehicleNumber, VehicleType vehicleType) {
+        ParkingSessions billing = sessions;
+        return new Vehicle(vehicleNumber, vehicleType, billing == null ? Vehicle.UNKNOWN_ENTRY : billing.entryMillis());
+    }
+
+    private Optional<Integer> park(Vehicle vehicle) {
+        if (vehicle.getEntryMillis() == Vehicle.UNKNOWN_ENTRY && sessions != null) {
+            vehicle = newVehicle(vehicle.getVehicleNumber(), vehicle.getType()); // Batch vehicles come unstamped
+        }
+        Reservation reservation = reservations.isEmpty() ? null : reservations.remove(vehicle.getVehicleNumber());
+        if (reservation != null) {
+            Optional<Integer> slotNumber = parkReserved(reservation, vehicle);
+            if (slotNumber.isPresent()) {
+                return slotNumber;
+            }
+        }
+        if (!metrics.sampleLatency()) {
+            return allocate(vehicle, false);
+        }
+        long start = System.nanoTime();
+        Optional<Integer> slotNumber = allocate(vehicle, true);
+        metrics.parkLatency().record(System.nanoTime() - start);
+        return slotNumber;
+    }
 
-        Optional<ParkingSlot> availableSlot = allocationStrategy.findSlot(vehicleType, allSlots);
+    private Optional<Integer> allocate(Vehicle vehicle, boolean timed) {
+        SlotAllocationStrategy strategy = allocationStrategy;
+        for (int attempt = 0; attempt < MAX_PARK_ATTEMPTS; attempt++) {
+            Optional<ParkingSlot> availableSlot = findSlot(strategy, vehicle.getType(), timed);
+            if (availableSlot.isEmpty()) {
+                metrics.recordAllocationFailure();
+                return Optional.empty();
+            }
+            ParkingSlot slot = availableSlot.get();
+            if (storage.parkVehicle(vehicle, slot)) {
+                metrics.recordParked(vehicle.getType(), slot.getSupportedType());
+                occupancyHistory.recordParked(slot.getSupportedType());
+                strategy.onParked(slot);
+                publish(ParkingEventType.PARKED, slot, vehicle.getVehicleNumber(), vehicle.getType());
+                return Optional.of(slot.getSlotNumber());
+            }
+            if (storage.getFreeSlotIndex().contains(slot)) {
+                return Optional.empty(); // Slot is still free, so the vehicle itself was rejected
+            }
+        }
+        metrics.recordAllocationFailure();
+        return Optional.empty();
+    }
+
+    private Optional<ParkingSlot> findSlot(SlotAllocationStrategy strategy, VehicleType vehicleType, boolean timed) {
+        if (!timed) {
+            return strategy.findSlot(vehicleType, storage.getFreeSlotIndex());
+        }
+        long start = System.nanoTime();
+        Optional<ParkingSlot> slot = strategy.findSlot(vehicleType, storage.getFreeSlotIndex());
+        metrics.findLatency().record(System.nanoTime() - start);
+        return slot;
+    }
 
-        if (availableSlot.isPresent() && storage.parkVehicle(vehicle, availableSlot.get())) {
-            return Optional.of(availableSlot.get().getSlotNumber());
+    // Runs the slot search ahead of the vehicle reaching the barrier; the slot leaves the free index until the
+    // reservation is confirmed, cancelled or expires
+    public Optional<Reservation> reserveSlot(String vehicleNumber, VehicleType vehicleType, long holdMillis) {
+        if (holdMillis <= 0) {
+            throw new IllegalArgumentException("Hold time must be greater than 0");
         }
+        if (reservations.containsKey(vehicleNumber) || isVehicleParked(vehicleNumber)) {
+            return Optional.empty();
+        }
+        SlotAllocationStrategy strategy = allocationStrategy;
+        for (int attempt = 0; attempt < MAX_PARK_ATTEMPTS; attempt++) {
+            Optional<ParkingSlot> availableSlot = strategy.findSlot(vehicleType, storage.getFreeSlotIndex());
+            if (availableSlot.isEmpty()) {
+                break;
+            }
+            if (!storage.holdSlot(availableSlot.get())) {
+                continue; // Taken by another gate between the search and the hold
+            }
+            Reservation reservation = new Reservation(vehicleNumber, vehicleType, availableSlot.get(), holdMillis);
+            if (reservations.putIfAbsent(vehicleNumber, reservation) != null) {
+                storage.releaseHold(reservation.getSlotNumber());
+                return Optional.empty();
+            }
+            reservation.setExpiry(holdTimer.schedule(() -> expire(reservation), holdMillis, TimeUnit.MILLISECONDS));
+            return Optional.of(reservation);
+        }
+        metrics.recordAllocationFailure();
         return Optional.empty();
     }
 
+    public Optional<Integer> confirmReservation(String vehicleNumber) {
+        Reservation reservation = reservations.remove(vehicleNumber);
+        if (reservation == null) {
+            return Optional.empty();
+        }
+        return parkReserved(reservation, newVehicle(vehicleNumber, reservation.getVehicleType()));
+    }
+
+    public boolean cancelReservation(String vehicleNumber) {
+        Reservation reservation = reservations.remove(vehicleNumber);
+        if (reservation == null) {
+            return false;
+        }
+        reservation.cancelExpiry();
+        storage.releaseHold(reservation.getSlotNumber());
+        return true;
+    }
+
+    public Optional<Reservation> getReservation(String vehicleNumber) {
+        return Optional.ofNullable(reservations.get(vehicleNumber));
+    }
+
+    public int getReservationCount() {
+        return reservations.size();
+    }
+
+    // The caller has already removed the reservation, so neither the expiry task nor a cancel can release the slot
+    private Optional<Integer> parkReserved(Reservation reservation, Vehicle vehicle) {
+        reservation.cancelExpiry();
+        ParkingSlot slot = reservation.getSlot();
+        if (!storage.parkInHeldSlot(vehicle, slot.getSlotNumber())) {
+            storage.releaseHold(slot.getSlotNumber());
+            return Optional.empty();
+        }
+        metrics.recordParked(vehicle.getType(), slot.getSupportedType());
+        occupancyHistory.recordParked(slot.getSupportedType());
+        allocationStrategy.onParked(slot);
+        publish(ParkingEventType.PARKED, slot, vehicle.getVehicleNumber(), vehicle.getType());
+        return Optional.of(slot.getSlotNumber());
+    }
+
+    private void expire(Reservation reservation) {
+        if (reservations.remove(reservation.getVehicleNumber(), reservation)) {
+            storage.releaseHold(reservation.getSlotNumber());
+        }
+    }
+
+    public boolean isVehicleParked(String vehicleNumber) {
+        return storage.findSlotByVehicleNumber(vehicleNumber).isPresent();
+    }
+
     public boolean exitVehicle(String vehicleNumber) {
-        return storage.exitVehicle(vehicleNumber);
+        return exitAndCharge(vehicleNumber) >= 0;
+    }
+
+    // Returns the fee in cents, 0 when billing is off, or -1 when the vehicle is not parked
+    public long exitAndCharge(String vehicleNumber) {
+        boolean timed = metrics.sampleLatency();
+        long start = timed ? System.nanoTime() : 0;
+        // One storage call, so a racing exit of the same vehicle cannot free or charge someone else's occupancy
+        Optional<SlotState> exited = storage.removeVehicle(vehicleNumber);
+        if (exited.isEmpty()) {
+            return -1;
+        }
+        SlotState slot = exited.get();
+        Vehicle vehicle = slot.getParkedVehicle();
+        metrics.recordExited(slot.getSupportedType());
+        occupancyHistory.recordExited(slot.getSupportedType());
+        allocationStrategy.onExited(slot);
+        ParkingSessions billing = sessions;
+        long feeCents = billing == null ? 0 : billing.close(slot.getSlotNumber(), vehicle, slot.getSupportedType());
+        publish(ParkingEventType.EXITED, slot.getSlotNumber(), slot.getSupportedType(), vehicleNumber, vehicle.getType());
+        if (timed) {
+            metrics.exitLatency().record(System.nanoTime() - start);
+        }
+        return feeCents;
+    }
+
+    public List<Boolean> exitVehicles(List<String> vehicleNumbers) {
+        return storage.batch(() -> {
+            List<Boolean> results = new ArrayList<>(vehicleNumbers.size());
+            for (String vehicleNumber : vehicleNumbers) {
+                results.add(exitVehicle(vehicleNumber));
+            }
+            return results;
+        });
     }
 
     public List<ParkingSlot> getStatus() {
-        return storage.getAllSlots().stream()
-                .filter(ParkingSlot::isOccupied)
-                .toList();
+        List<ParkingSlot> occupiedSlots = new ArrayList<>(storage.getOccupiedCount());
+        for (ParkingSlot slot : storage.getOccupiedSlots(0)) {
+            occupiedSlots.add(slot);
+        }
+        return occupiedSlots;
+    }
+
+    public Iterable<ParkingSlot> getOccupiedSlots(int afterSlotNumber) {
+        return storage.getOccupiedSlots(afterSlotNumber);
+    }
+
+    public LotSnapshot getSnapshot() {
+        return storage.getSnapshot();
+    }
+
+    public boolean publishesSnapshots() {
+        return storage.publishesSnapshots();
+    }
+
+    public CompletableFuture<Void> whenDurable() {
+        return storage.whenDurable();
+    }
+
+    public int getSlotCount() {
+        return storage.getSlotCount();
+    }
+
+    public int getOccupiedCount() {
+        return storage.getOccupiedCount();
     }
 
     public List<ParkingSlot> getAllSlots() {
@@ -48,14 +395,99 @@ public class ParkingLotService {
     }
 
     public boolean isParkingLotCreated() {
-        return !storage.getAllSlots().isEmpty();
+        return storage.getSlotCount() > 0;
     }
 
     public boolean editSlot(int slotNumber, VehicleType newType) {
-        return storage.editSlot(slotNumber, newType);
+        Optional<ParkingSlot> slot = storage.getSlot(slotNumber);
+        if (slot.isEmpty() || !storage.editSlot(slotNumber, newType)) {
+            return false;
+        }
+        allocationStrategy.onSlotEdited(slotNumber, slot.get().getSupportedType(), newType);
+        metrics.recordSlotRemoved(slot.get().getSupportedType());
+        metrics.recordSlotAdded(newType);
+        ParkingEventBus bus = eventBus;
+        if (bus != null) {
+            bus.publish(ParkingEventType.SLOT_EDITED, eventLotId, slotNumber, newType, null, null);
+        }
+        return true;
     }
 
     public boolean deleteSlot(int slotNumber) {
-        return storage.deleteSlot(slotNumber);
+        Optional<ParkingSlot> slot = storage.getSlot(slotNumber);
+        if (slot.isEmpty() || !storage.deleteSlot(slotNumber)) {
+            return false;
+        }
+        layoutVersion.incrementAndGet();
+        allocationStrategy.onSlotDeleted(slotNumber, slot.get().getSupportedType());
+        metrics.recordSlotRemoved(slot.get().getSupportedType());
+        publish(ParkingEventType.SLOT_DELETED, slot.get(), null, null);
+        return true;
+    }
+
+    private void publish(ParkingEventType type, ParkingSlot slot, String vehicleNumber, VehicleType vehicleType) {
+        publish(type, slot.getSlotNumber(), slot.getSupportedType(), vehicleNumber, vehicleType);
+    }
+
+    private void publish(ParkingEventType type, int slotNumber, VehicleType slotType, String vehicleNumber,
+                         VehicleType vehicleType) {
+        ParkingEventBus bus = eventBus;
+        if (bus != null) {
+            bus.publish(type, eventLotId, slotNumber, slotType, vehicleNumber, vehicleType);
+        }
+    }
+
+    public Optional<Integer> getCompactSlotNumber(int slotNumber) {
+        int position = Arrays.binarySearch(compactNumbering(), slotNumber);
+        return position < 0 ? Optional.empty() : Optional.of(position + 1);
+    }
+
+    // Counted from the free index and the occupied view so large lots never materialise every slot
+    private void resetOccupancyMetrics() {
+        long[] occupiedByType = new long[VehicleType.values().length];
+        for (ParkingSlot slot : storage.getOccupiedSlots(0)) {
+            occupiedByType[slot.getSupportedType().ordinal()]++;
+        }
+        for (VehicleType type : VehicleType.values()) {
+            long occupied = occupiedByType[type.ordinal()];
+            metrics.setOccupancy(type, storage.getFreeSlotIndex().freeCount(type) + occupied, occupied);
+        }
+    }
+
+    private int[] compactNumbering() {
+        long version = layoutVersion.get();
+        CompactNumbering current = compactNumbering;
+        if (current == null || current.layoutVersion != version) {
+            current = new CompactNumbering(version, storage.getAllSlots().stream()
+                    .mapToInt(ParkingSlot::getSlotNumber)
+                    .toArray());
+            compactNumbering = current;
+        }
+        return current.slotNumbers;
+    }
+
+    private static final class CompactNumbering {
+        private final long layoutVersion;
+        private final int[] slotNumbers;
+
+        CompactNumbering(long layoutVersion, int[] slotNumbers) {
+            this.layoutVersion = layoutVersion;
+            this.slotNumbers = slotNumbers;
+        }
+    }
+
+    // Created on first use; only services built without their own hold timer share it
+    private static final class SharedHoldTimer {
+        private static final ScheduledExecutorService INSTANCE = create();
+
+        private static ScheduledExecutorService create() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "parking-hold-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true); // Most holds are confirmed long before they expire
+            return timer;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package com.parkinglot.service;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.VehicleType;
+import java.util.concurrent.Future;
+
+public class Reservation {
+    private final String vehicleNumber;
+    private final VehicleType vehicleType;
+    private final ParkingSlot slot;
+    private final long holdMillis;
+    private volatile Future<?> expiry;
+
+    Reservation(String vehicleNumber, VehicleType vehicleType, ParkingSlot slot, long holdMillis) {
+        this.vehicleNumber = vehicleNumber;
+        this.vehicleType = vehicleType;
+        this.slot = slot;
+        this.holdMillis = holdMillis;
+    }
+
+    public String getVehicleNumber() {
+        return vehicleNumber;
+    }
+
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    public int getSlotNumber() {
+        return slot.getSlotNumber();
+    }
+
+    public long getHoldMillis() {
+        return holdMillis;
+    }
+
+    ParkingSlot getSlot() {
+        return slot;
+    }
+
+    void setExpiry(Future<?> expiry) {
+        this.expiry = expiry;
+    }
+
+    // The expiry task checks that the reservation is still registered, so a cancel that loses the race is harmless
+    void cancelExpiry() {
+        Future<?> scheduled = expiry;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+}
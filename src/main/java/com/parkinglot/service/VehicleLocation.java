@@ -0,0 +1,21 @@
+package com.parkinglot.service;
+
+import com.parkinglot.domain.ParkingSlot;
+
+public class VehicleLocation {
+    private final String lotId;
+    private final ParkingSlot slot;
+
+    public VehicleLocation(String lotId, ParkingSlot slot) {
+        this.lotId = lotId;
+        this.slot = slot;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public ParkingSlot getSlot() {
+        return slot;
+    }
+}
@@ -0,0 +1,164 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Layout (big-endian):
+ *   header   magic:int, version:short, slotCount:int, plateTableSize:int
+ *   records  slotCount x { slotNumber:int, supportedType:byte, occupied:byte, vehicleType:byte, reserved:byte, plateOffset:int }
+ *   plates   { length:short, utf8 bytes } per occupied slot, addressed by plateOffset
+ */
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x504B534E; // "PKSN"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 14;
+    private static final int RECORD_SIZE = 12;
+    private static final int NO_PLATE = -1;
+    private static final int WRITE_BUFFER_SIZE = 128 * 1024; // Fits the longest possible plate entry
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private BinarySnapshot() {
+    }
+
+    public static void write(Path path, List<ParkingSlot> slots) throws IOException {
+        List<byte[]> plates = new ArrayList<>();
+        int plateTableSize = 0;
+        for (ParkingSlot slot : slots) {
+            Vehicle vehicle = slot.getParkedVehicle();
+            if (vehicle != null) {
+                byte[] plate = vehicle.getVehicleNumber().getBytes(StandardCharsets.UTF_8);
+                if (plate.length > 0xFFFF) {
+                    throw new IOException("Vehicle number too long for snapshot: " + vehicle.getVehicleNumber());
+                }
+                plates.add(plate);
+                plateTableSize += 2 + plate.length;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putShort(VERSION).putInt(slots.size()).putInt(plateTableSize);
+
+            int plateOffset = 0;
+            int plateIndex = 0;
+            for (ParkingSlot slot : slots) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    drain(channel, buffer);
+                }
+                Vehicle vehicle = slot.getParkedVehicle();
+                buffer.putInt(slot.getSlotNumber())
+                      .put((byte) slot.getSupportedType().ordinal())
+                      .put((byte) (vehicle != null ? 1 : 0))
+                      .put((byte) (vehicle != null ? vehicle.getType().ordinal() : 0))
+                      .put((byte) 0);
+                if (vehicle != null) {
+                    buffer.putInt(plateOffset);
+                    plateOffset += 2 + plates.get(plateIndex++).length;
+                } else {
+                    buffer.putInt(NO_PLATE);
+                }
+            }
+
+            for (byte[] plate : plates) {
+                if (buffer.remaining() < 2 + plate.length) {
+                    drain(channel, buffer);
+                }
+                buffer.putShort((short) plate.length).put(plate);
+            }
+            drain(channel, buffer);
+            channel.force(true);
+        }
+    }
+
+    public static List<ParkingSlot> read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + path + " is too large");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a parking snapshot");
+            }
+            short version = buffer.getShort(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            int slotCount = buffer.getInt(6);
+            int plateTableSize = buffer.getInt(10);
+            long plateTableStart = HEADER_SIZE + (long) slotCount * RECORD_SIZE;
+            if (slotCount < 0 || plateTableSize < 0 || plateTableStart + plateTableSize != size) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+
+            List<ParkingSlot> slots = new ArrayList<>(slotCount);
+            byte[] plate = new byte[64];
+            for (int i = 0; i < slotCount; i++) {
+                int record = HEADER_SIZE + i * RECORD_SIZE;
+                ParkingSlot slot = new ParkingSlot(buffer.getInt(record), vehicleType(buffer.get(record + 4)));
+                if (buffer.get(record + 5) != 0) {
+                    int plateStart = (int) plateTableStart + buffer.getInt(record + 8);
+                    int length = Short.toUnsignedInt(buffer.getShort(plateStart));
+                    if (plate.length < length) {
+                        plate = new byte[length];
+                    }
+                    buffer.get(plateStart + 2, plate, 0, length);
+                    String vehicleNumber = new String(plate, 0, length, StandardCharsets.UTF_8);
+                    slot.setParkedVehicle(new Vehicle(vehicleNumber, vehicleType(buffer.get(record + 6))));
+                }
+                slots.add(slot);
+            }
+            return slots;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Snapshot " + path + " is corrupt", e);
+        }
+    }
+
+    public static void exportJson(Path snapshot, Path json) throws IOException {
+        List<ParkingSlot> slots = read(snapshot);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(json, StandardCharsets.UTF_8))) {
+            ParkingSlotJson.write(slots, writer);
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + json);
+            }
+        }
+    }
+
+    public static void importJson(Path json, Path snapshot) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(json, StandardCharsets.UTF_8)) {
+            write(snapshot, ParkingSlotJson.read(reader));
+        }
+    }
+
+    private static VehicleType vehicleType(byte ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= VEHICLE_TYPES.length) {
+            throw new IOException("Unknown vehicle type ordinal " + ordinal);
+        }
+        return VEHICLE_TYPES[ordinal];
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,552 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+// Slots live in primitive columns; ParkingSlot objects are only created as views when a caller asks for one
+public class ColumnarParkingStorage implements ParkingStorage {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final boolean offHeap;
+    private final PlateDictionary plates = new PlateDictionary();
+    private final FreeBitmap[] freeByType = new FreeBitmap[VEHICLE_TYPES.length];
+    private final ColumnarFreeSlotIndex freeSlotIndex = new ColumnarFreeSlotIndex();
+    private Columns columns;
+    private BitSet occupied = new BitSet();
+    private BitSet held = new BitSet();
+    // Deleted positions stay in the columns so slot numbers (position + 1) never change
+    private BitSet deleted = new BitSet();
+    private int size;
+    private int liveCount;
+
+    public ColumnarParkingStorage() {
+        this(false);
+    }
+
+    public ColumnarParkingStorage(boolean offHeap) {
+        this.offHeap = offHeap;
+        this.columns = newColumns(0);
+        rebuildFreeBitmaps();
+    }
+
+    @Override
+    public void initializeSlots(int smallSlots, int largeSlots, int oversizeSlots) {
+        size = smallSlots + largeSlots + oversizeSlots;
+        liveCount = size;
+        columns = newColumns(size);
+        occupied = new BitSet(size);
+        held = new BitSet(size);
+        deleted = new BitSet(size);
+        plates.clear();
+        int position = 0;
+        for (int i = 0; i < smallSlots; i++) {
+            columns.setSlotType(position++, VehicleType.SMALL);
+        }
+        for (int i = 0; i < largeSlots; i++) {
+            columns.setSlotType(position++, VehicleType.LARGE);
+        }
+        for (int i = 0; i < oversizeSlots; i++) {
+            columns.setSlotType(position++, VehicleType.OVERSIZE);
+        }
+        rebuildFreeBitmaps();
+    }
+
+    // Positions missing from the list (deleted slots) stay in the columns as gaps
+    @Override
+    public void restoreSlots(List<ParkingSlot> slots) {
+        size = slots.isEmpty() ? 0 : slots.get(slots.size() - 1).getSlotNumber();
+        liveCount = slots.size();
+        columns = newColumns(size);
+        occupied = new BitSet(size);
+        held = new BitSet(size);
+        deleted = new BitSet(size);
+        deleted.set(0, size);
+        plates.clear();
+        for (ParkingSlot slot : slots) {
+            int position = slot.getSlotNumber() - 1;
+            deleted.clear(position);
+            columns.setSlotType(position, slot.getSupportedType());
+            if (slot.isOccupied()) {
+                occupy(position, slot.getParkedVehicle());
+            }
+        }
+        rebuildFreeBitmaps();
+    }
+
+    @Override
+    public List<ParkingSlot> getAllSlots() {
+        List<ParkingSlot> slots = new ArrayList<>(liveCount);
+        for (int position = deleted.nextClearBit(0); position < size; position = deleted.nextClearBit(position + 1)) {
+            slots.add(view(position));
+        }
+        return slots;
+    }
+
+    @Override
+    public int getSlotCount() {
+        return liveCount;
+    }
+
+    @Override
+    public int getOccupiedCount() {
+        return plates.size();
+    }
+
+    @Override
+    public Iterable<ParkingSlot> getOccupiedSlots(int afterSlotNumber) {
+        int start = Math.max(0, afterSlotNumber);
+        return () -> new Iterator<>() {
+            private int position = occupied.nextSetBit(start);
+
+            @Override
+            public boolean hasNext() {
+                return position >= 0;
+            }
+
+            @Override
+            public ParkingSlot next() {
+                if (position < 0) {
+                    throw new NoSuchElementException();
+                }
+                ParkingSlot slot = view(position);
+                position = occupied.nextSetBit(position + 1);
+                return slot;
+            }
+        };
+    }
+
+    @Override
+    public Optional<ParkingSlot> getSlot(int slotNumber) {
+        if (!isLive(slotNumber - 1)) {
+            return Optional.empty();
+        }
+        return Optional.of(view(slotNumber - 1));
+    }
+
+    @Override
+    public FreeSlotIndex getFreeSlotIndex() {
+        return freeSlotIndex;
+    }
+
+    @Override
+    public Optional<ParkingSlot> findSlotByVehicleNumber(String vehicleNumber) {
+        int plateId = plates.find(vehicleNumber);
+        if (plateId == PlateDictionary.NO_PLATE) {
+            return Optional.empty();
+        }
+        return Optional.of(view(plates.position(plateId)));
+    }
+
+    @Override
+    public boolean parkVehicle(Vehicle vehicle, ParkingSlot slot) {
+        int position = slot.getSlotNumber() - 1;
+        if (!isFree(position)) {
+            return false;
+        }
+        VehicleType slotType = columns.slotType(position);
+        if (!ParkingSlot.canAccommodate(slotType, vehicle.getType())) {
+            return false;
+        }
+        if (plates.find(vehicle.getVehicleNumber()) != PlateDictionary.NO_PLATE) {
+            return false; // Same vehicle cannot be parked twice
+        }
+        occupy(position, vehicle);
+        freeByType[slotType.ordinal()].clear(position);
+        return true;
+    }
+
+    private void occupy(int position, Vehicle vehicle) {
+        columns.setPlateId(position, plates.intern(vehicle.getVehicleNumber(), position));
+        columns.setVehicleType(position, vehicle.getType());
+        columns.setEntryMillis(position, vehicle.getEntryMillis());
+        occupied.set(position);
+    }
+
+    @Override
+    public boolean exitVehicle(String vehicleNumber) {
+        int plateId = plates.find(vehicleNumber);
+        if (plateId == PlateDictionary.NO_PLATE) {
+            return false;
+        }
+        int position = plates.position(plateId);
+        plates.release(plateId);
+        columns.setPlateId(position, PlateDictionary.NO_PLATE);
+        occupied.clear(position);
+        freeByType[columns.slotType(position).ordinal()].set(position);
+        return true;
+    }
+
+    @Override
+    public boolean editSlot(int slotNumber, VehicleType newType) {
+        int position = slotNumber - 1;
+        if (!isFree(position)) {
+            return false; // Cannot edit occupied or held slot
+        }
+        freeByType[columns.slotType(position).ordinal()].clear(position);
+        columns.setSlotType(position, newType);
+        freeByType[newType.ordinal()].set(position);
+        return true;
+    }
+
+    @Override
+    public boolean deleteSlot(int slotNumber) {
+        int position = slotNumber - 1;
+        if (!isFree(position)) {
+            return false; // Cannot delete occupied or held slot
+        }
+        deleted.set(position);
+        liveCount--;
+        freeByType[columns.slotType(position).ordinal()].clear(position);
+        return true;
+    }
+
+    @Override
+    public boolean holdSlot(ParkingSlot slot) {
+        int position = slot.getSlotNumber() - 1;
+        if (!isFree(position)) {
+            return false;
+        }
+        held.set(position);
+        freeByType[columns.slotType(position).ordinal()].clear(position);
+        return true;
+    }
+
+    @Override
+    public boolean releaseHold(int slotNumber) {
+        int position = slotNumber - 1;
+        if (position < 0 || !held.get(position)) {
+            return false;
+        }
+        held.clear(position);
+        freeByType[columns.slotType(position).ordinal()].set(position);
+        return true;
+    }
+
+    @Override
+    public boolean parkInHeldSlot(Vehicle vehicle, int slotNumber) {
+        int position = slotNumber - 1;
+        if (position < 0 || !held.get(position)
+                || !ParkingSlot.canAccommodate(columns.slotType(position), vehicle.getType())
+                || plates.find(vehicle.getVehicleNumber()) != PlateDictionary.NO_PLATE) {
+            return false;
+        }
+        held.clear(position);
+        occupy(position, vehicle);
+        return true;
+    }
+
+    private boolean isLive(int position) {
+        return position >= 0 && position < size && !deleted.get(position);
+    }
+
+    private boolean isFree(int position) {
+        return isLive(position) && !occupied.get(position) && !held.get(position);
+    }
+
+    private ParkingSlot view(int position) {
+        ParkingSlot slot = new ParkingSlot(position + 1, columns.slotType(position));
+        if (occupied.get(position)) {
+            slot.setParkedVehicle(new Vehicle(plates.plate(columns.plateId(position)), columns.vehicleType(position),
+                    columns.entryMillis(position)));
+        }
+        return slot;
+    }
+
+    private void rebuildFreeBitmaps() {
+        for (int type = 0; type < freeByType.length; type++) {
+            freeByType[type] = new FreeBitmap(size);
+        }
+        for (int position = occupied.nextClearBit(0); position < size; position = occupied.nextClearBit(position + 1)) {
+            if (!deleted.get(position)) {
+                freeByType[columns.slotType(position).ordinal()].set(position);
+            }
+        }
+    }
+
+    private Columns newColumns(int capacity) {
+        return offHeap ? new OffHeapColumns(capacity) : new HeapColumns(capacity);
+    }
+
+    private class ColumnarFreeSlotIndex implements FreeSlotIndex {
+        @Override
+        public boolean contains(ParkingSlot slot) {
+            int position = slot.getSlotNumber() - 1;
+            return position >= 0 && position < size
+                    && freeByType[slot.getSupportedType().ordinal()].get(position);
+        }
+
+        @Override
+        public Optional<ParkingSlot> lowestFree(VehicleType slotType) {
+            int position = freeByType[slotType.ordinal()].first();
+            return position < 0 ? Optional.empty() : Optional.of(view(position));
+        }
+
+        @Override
+        public Optional<ParkingSlot> lowestCompatible(VehicleType vehicleType) {
+            int best = -1;
+            for (VehicleType slotType : VEHICLE_TYPES) {
+                if (!ParkingSlot.canAccommodate(slotType, vehicleType)) {
+                    continue;
+                }
+                int position = freeByType[slotType.ordinal()].first();
+                if (position >= 0 && (best < 0 || position < best)) {
+                    best = position;
+                }
+            }
+            return best < 0 ? Optional.empty() : Optional.of(view(best));
+        }
+
+        @Override
+        public Optional<ParkingSlot> ceilingFree(VehicleType slotType, int slotNumber) {
+            int position = freeByType[slotType.ordinal()].next(Math.max(0, slotNumber - 1));
+            return position < 0 ? Optional.empty() : Optional.of(view(position));
+        }
+
+        @Override
+        public Optional<ParkingSlot> floorFree(VehicleType slotType, int slotNumber) {
+            int position = freeByType[slotType.ordinal()].previous(Math.min(size - 1, slotNumber - 1));
+            return position < 0 ? Optional.empty() : Optional.of(view(position));
+        }
+
+        @Override
+        public int freeCount(VehicleType slotType) {
+            return freeByType[slotType.ordinal()].count();
+        }
+
+        @Override
+        public List<ParkingSlot> freeSlots() {
+            List<ParkingSlot> free = new ArrayList<>();
+            for (VehicleType slotType : VEHICLE_TYPES) {
+                FreeBitmap bitmap = freeByType[slotType.ordinal()];
+                for (int position = bitmap.next(0); position >= 0; position = bitmap.next(position + 1)) {
+                    free.add(view(position));
+                }
+            }
+            return free;
+        }
+    }
+
+    // Two-level bitmap: the summary marks non-empty words so searches skip full regions 4096 slots at a time
+    private static final class FreeBitmap {
+        private final long[] words;
+        private final long[] summary;
+        private int count;
+        private int firstSummaryHint; // No summary word below this index is non-zero
+
+        FreeBitmap(int capacity) {
+            words = new long[(capacity + 63) >>> 6];
+            summary = new long[(words.length + 63) >>> 6];
+        }
+
+        boolean get(int position) {
+            return (words[position >>> 6] & (1L << position)) != 0;
+        }
+
+        void set(int position) {
+            int word = position >>> 6;
+            if ((words[word] & (1L << position)) == 0) {
+                words[word] |= 1L << position;
+                summary[word >>> 6] |= 1L << word;
+                firstSummaryHint = Math.min(firstSummaryHint, word >>> 6);
+                count++;
+            }
+        }
+
+        void clear(int position) {
+            int word = position >>> 6;
+            if ((words[word] & (1L << position)) != 0) {
+                words[word] &= ~(1L << position);
+                if (words[word] == 0) {
+                    summary[word >>> 6] &= ~(1L << word);
+                }
+                count--;
+            }
+        }
+
+        int first() {
+            for (int i = firstSummaryHint; i < summary.length; i++) {
+                if (summary[i] != 0) {
+                    firstSummaryHint = i;
+                    int word = (i << 6) + Long.numberOfTrailingZeros(summary[i]);
+                    return (word << 6) + Long.numberOfTrailingZeros(words[word]);
+                }
+            }
+            firstSummaryHint = summary.length;
+            return -1;
+        }
+
+        int next(int from) {
+            int word = from >>> 6;
+            if (word >= words.length) {
+                return -1;
+            }
+            long bits = words[word] & (-1L << from);
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            int nextWord = nextNonEmptyWord(word + 1);
+            return nextWord < 0 ? -1 : (nextWord << 6) + Long.numberOfTrailingZeros(words[nextWord]);
+        }
+
+        int previous(int from) {
+            if (from < 0) {
+                return -1;
+            }
+            int word = from >>> 6;
+            long bits = words[word] & (-1L >>> (63 - (from & 63)));
+            if (bits != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+            int previousWord = previousNonEmptyWord(word - 1);
+            return previousWord < 0 ? -1 : (previousWord << 6) + 63 - Long.numberOfLeadingZeros(words[previousWord]);
+        }
+
+        private int nextNonEmptyWord(int from) {
+            for (int i = from >>> 6; i < summary.length && from < words.length; i++) {
+                long bits = i == from >>> 6 ? summary[i] & (-1L << from) : summary[i];
+                if (bits != 0) {
+                    return (i << 6) + Long.numberOfTrailingZeros(bits);
+                }
+            }
+            return -1;
+        }
+
+        private int previousNonEmptyWord(int from) {
+            for (int i = from >> 6; i >= 0; i--) {
+                long bits = i == from >>> 6 ? summary[i] & (-1L >>> (63 - (from & 63))) : summary[i];
+                if (bits != 0) {
+                    return (i << 6) + 63 - Long.numberOfLeadingZeros(bits);
+                }
+            }
+            return -1;
+        }
+
+        int count() {
+            return count;
+        }
+    }
+
+    private interface Columns {
+        VehicleType slotType(int position);
+        void setSlotType(int position, VehicleType type);
+        VehicleType vehicleType(int position);
+        void setVehicleType(int position, VehicleType type);
+        int plateId(int position);
+        void setPlateId(int position, int plateId);
+        long entryMillis(int position);
+        void setEntryMillis(int position, long entryMillis);
+    }
+
+    private static final class HeapColumns implements Columns {
+        private final byte[] slotTypes;
+        private final byte[] vehicleTypes;
+        private final int[] plateIds;
+        private final long[] entryMillis;
+
+        HeapColumns(int capacity) {
+            slotTypes = new byte[capacity];
+            vehicleTypes = new byte[capacity];
+            plateIds = new int[capacity];
+            entryMillis = new long[capacity];
+        }
+
+        @Override
+        public VehicleType slotType(int position) {
+            return VEHICLE_TYPES[slotTypes[position]];
+        }
+
+        @Override
+        public void setSlotType(int position, VehicleType type) {
+            slotTypes[position] = (byte) type.ordinal();
+        }
+
+        @Override
+        public VehicleType vehicleType(int position) {
+            return VEHICLE_TYPES[vehicleTypes[position]];
+        }
+
+        @Override
+        public void setVehicleType(int position, VehicleType type) {
+            vehicleTypes[position] = (byte) type.ordinal();
+        }
+
+        @Override
+        public int plateId(int position) {
+            return plateIds[position];
+        }
+
+        @Override
+        public void setPlateId(int position, int plateId) {
+            plateIds[position] = plateId;
+        }
+
+        @Override
+        public long entryMillis(int position) {
+            return entryMillis[position];
+        }
+
+        @Override
+        public void setEntryMillis(int position, long entryMillis) {
+            this.entryMillis[position] = entryMillis;
+        }
+    }
+
+    private static final class OffHeapColumns implements Columns {
+        // Record per slot: slotType:byte, vehicleType:byte, plateId:int, entryMillis:long
+        private static final int RECORD_SIZE = 14;
+
+        private final ByteBuffer records;
+
+        OffHeapColumns(int capacity) {
+            records = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+        }
+
+        @Override
+        public VehicleType slotType(int position) {
+            return VEHICLE_TYPES[records.get(position * RECORD_SIZE)];
+        }
+
+        @Override
+        public void setSlotType(int position, VehicleType type) {
+            records.put(position * RECORD_SIZE, (byte) type.ordinal());
+        }
+
+        @Override
+        public VehicleType vehicleType(int position) {
+            return VEHICLE_TYPES[records.get(position * RECORD_SIZE + 1)];
+        }
+
+        @Override
+        public void setVehicleType(int position, VehicleType type) {
+            records.put(position * RECORD_SIZE + 1, (byte) type.ordinal());
+        }
+
+        @Override
+        public int plateId(int position) {
+            return records.getInt(position * RECORD_SIZE + 2);
+        }
+
+        @Override
+        public void setPlateId(int position, int plateId) {
+            records.putInt(position * RECORD_SIZE + 2, plateId);
+        }
+
+        @Override
+        public long entryMillis(int position) {
+            return records.getLong(position * RECORD_SIZE + 6);
+        }
+
+        @Override
+        public void setEntryMillis(int position, long entryMillis) {
+            records.putLong(position * RECORD_SIZE + 6, entryMillis);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+public class ConcurrentParkingStorage implements ParkingStorage {
+    private final NavigableMap<Integer, ParkingSlot> slots = new ConcurrentSkipListMap<>();
+    private final SortedFreeSlotIndex freeSlotIndex = SortedFreeSlotIndex.concurrent();
+    private final ConcurrentMap<String, ParkingSlot> slotsByVehicleNumber = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, ParkingSlot> occupiedSlots = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Integer, ParkingSlot> heldSlots = new ConcurrentHashMap<>();
+    // ConcurrentSkipListMap.size() walks the whole map, so the live slot count is tracked separately
+    private final AtomicInteger slotCount = new AtomicInteger();
+    // Gates and slot edits share the read side, so they never block each other; only re-creating the lot takes the write side
+    private final ReadWriteLock structureLock = new ReentrantReadWriteLock();
+    // Gates change the live slots under STATUS, so readers get a published snapshot instead. The snapshot lock is
+    // only held to copy one trie path. Each publish re-reads the slot it is for, so a gate that publishes late
+    // cannot overwrite a newer state of that slot. The allocation strategies run on the gate threads as well, but
+    // they only read the free-slot index and a slot's single volatile vehicle field, neither of which can be torn.
+    private final LotSnapshot.Editor snapshotEditor = new LotSnapshot.Editor();
+    private volatile LotSnapshot snapshot = LotSnapshot.EMPTY;
+
+    @Override
+    public void initializeSlots(int smallSlots, int largeSlots, int oversizeSlots) {
+        structureLock.writeLock().lock();
+        try {
+            slots.clear();
+            int slotNumber = 1;
+            for (int i = 0; i < smallSlots; i++) {
+                slots.put(slotNumber, new ParkingSlot(slotNumber, VehicleType.SMALL));
+                slotNumber++;
+            }
+            for (int i = 0; i < largeSlots; i++) {
+                slots.put(slotNumber, new ParkingSlot(slotNumber, VehicleType.LARGE));
+                slotNumber++;
+            }
+            for (int i = 0; i < oversizeSlots; i++) {
+                slots.put(slotNumber, new ParkingSlot(slotNumber, VehicleType.OVERSIZE));
+                slotNumber++;
+            }
+            rebuildIndexes();
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void restoreSlots(List<ParkingSlot> restoredSlots) {
+        structureLock.writeLock().lock();
+        try {
+            slots.clear();
+            for (ParkingSlot slot : restoredSlots) {
+                slots.put(slot.getSlotNumber(), slot);
+            }
+            rebuildIndexes();
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ParkingSlot> getAllSlots() {
+        structureLock.readLock().lock();
+        try {
+            return new ArrayList<>(slots.values());
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int getSlotCount() {
+        return slotCount.get();
+    }
+
+    @Override
+    public int getOccupiedCount() {
+        return slotsByVehicleNumber.size();
+    }
+
+    @Override
+    public Iterable<ParkingSlot> getOccupiedSlots(int afterSlotNumber) {
+        return Collections.unmodifiableCollection(occupiedSlots.tailMap(afterSlotNumber, false).values());
+    }
+
+    @Override
+    public Optional<ParkingSlot> getSlot(int slotNumber) {
+        structureLock.readLock().lock();
+        try {
+            return Optional.ofNullable(slots.get(slotNumber));
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public FreeSlotIndex getFreeSlotIndex() {
+        return freeSlotIndex;
+    }
+
+    @Override
+    public Optional<ParkingSlot> findSlotByVehicleNumber(String vehicleNumber) {
+        return Optional.ofNullable(slotsByVehicleNumber.get(vehicleNumber));
+    }
+
+    @Override
+    public boolean parkVehicle(Vehicle vehicle, ParkingSlot slot) {
+        if (!slot.canAccommodate(vehicle.getType())) {
+            return false;
+        }
+        structureLock.readLock().lock();
+        try {
+            // Removing the slot from the free index is the claim: exactly one gate wins it
+            if (!freeSlotIndex.remove(slot)) {
+                return false;
+            }
+            if (!slot.claim(vehicle)) {
+                freeSlotIndex.add(slot);
+                return false;
+            }
+            if (slotsByVehicleNumber.putIfAbsent(vehicle.getVehicleNumber(), slot) != null) {
+                slot.release(vehicle); // Same vehicle cannot be parked twice
+                freeSlotIndex.add(slot);
+                return false;
+            }
+            occupiedSlots.put(slot.getSlotNumber(), slot);
+            publishSnapshot(slot.getSlotNumber());
+            return true;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean exitVehicle(String vehicleNumber) {
+        return removeVehicle(vehicleNumber).isPresent();
+    }
+
+    // Removing the plate from the map is the claim: only one of two racing exits gets the slot back
+    @Override
+    public Optional<SlotState> removeVehicle(String vehicleNumber) {
+        structureLock.readLock().lock();
+        try {
+            ParkingSlot slot = slotsByVehicleNumber.remove(vehicleNumber);
+            if (slot == null) {
+                return Optional.empty();
+            }
+            Vehicle vehicle = slot.getParkedVehicle();
+            occupiedSlots.remove(slot.getSlotNumber(), slot);
+            slot.release(vehicle);
+            freeSlotIndex.add(slot);
+            publishSnapshot(slot.getSlotNumber());
+            return Optional.of(new SlotState(slot.getSlotNumber(), slot.getSupportedType(), vehicle));
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean editSlot(int slotNumber, VehicleType newType) {
+        structureLock.readLock().lock();
+        try {
+            ParkingSlot slot = slots.get(slotNumber);
+            // Claiming the slot from the free index fails if it is occupied or a gate is parking into it
+            if (slot == null || !freeSlotIndex.remove(slot)) {
+                return false;
+            }
+            ParkingSlot newSlot = new ParkingSlot(slotNumber, newType);
+            slots.put(slotNumber, newSlot);
+            freeSlotIndex.add(newSlot);
+            publishSnapshot(slotNumber);
+            return true;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteSlot(int slotNumber) {
+        structureLock.readLock().lock();
+        try {
+            ParkingSlot slot = slots.get(slotNumber);
+            if (slot == null || !freeSlotIndex.remove(slot)) {
+                return false; // Cannot delete occupied slot
+            }
+            slots.remove(slotNumber, slot);
+            slotCount.decrementAndGet();
+            publishSnapshot(slotNumber);
+            return true;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean holdSlot(ParkingSlot slot) {
+        structureLock.readLock().lock();
+        try {
+            // Same claim as parking: whichever of a hold, a park or an edit removes the slot first wins it
+            if (slots.get(slot.getSlotNumber()) != slot || !freeSlotIndex.remove(slot)) {
+                return false;
+            }
+            heldSlots.put(slot.getSlotNumber(), slot);
+            return true;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean releaseHold(int slotNumber) {
+        structureLock.readLock().lock();
+        try {
+            ParkingSlot slot = heldSlots.remove(slotNumber);
+            if (slot == null) {
+                return false;
+            }
+            freeSlotIndex.add(slot);
+            return true;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean parkInHeldSlot(Vehicle vehicle, int slotNumber) {
+        structureLock.readLock().lock();
+        try {
+            ParkingSlot slot = heldSlots.get(slotNumber);
+            // Removing the hold is the claim, so a confirm racing an expiry or a cancel parks at most once
+            if (slot == null || !slot.canAccommodate(vehicle.getType()) || !heldSlots.remove(slotNumber, slot)) {
+                return false;
+            }
+            if (!slot.claim(vehicle)) {
+                heldSlots.put(slotNumber, slot);
+                return false;
+            }
+            if (slotsByVehicleNumber.putIfAbsent(vehicle.getVehicleNumber(), slot) != null) {
+                slot.release(vehicle); // Same vehicle cannot be parked twice
+                heldSlots.put(slotNumber, slot);
+                return false;
+            }
+            occupiedSlots.put(slotNumber, slot);
+            publishSnapshot(slotNumber);
+            return true;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public LotSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public boolean publishesSnapshots() {
+        return true;
+    }
+
+    @Override
+    public <T> T batch(Supplier<T> operations) {
+        structureLock.readLock().lock();
+        try {
+            return operations.get();
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    private void rebuildIndexes() {
+        freeSlotIndex.rebuild(slots.values());
+        heldSlots.clear();
+        slotsByVehicleNumber.clear();
+        occupiedSlots.clear();
+        slotCount.set(slots.size());
+        for (ParkingSlot slot : slots.values()) {
+            if (slot.isOccupied()) {
+                slotsByVehicleNumber.put(slot.getParkedVehicle().getVehicleNumber(), slot);
+                occupiedSlots.put(slot.getSlotNumber(), slot);
+            }
+        }
+        synchronized (snapshotEditor) {
+            snapshotEditor.load(slots.values());
+            snapshot = snapshotEditor.publish();
+        }
+    }
+
+    private void publishSnapshot(int slotNumber) {
+        synchronized (snapshotEditor) {
+            ParkingSlot slot = slots.get(slotNumber);
+            if (slot == null) {
+                snapshotEditor.remove(slotNumber);
+            } else {
+                snapshotEditor.put(slot);
+            }
+            snapshot = snapshotEditor.publish();
+        }
+    }
+}
@@ -3,20 +3,87 @@ package com.parkinglot.storage;
 import com.parkinglot.domain.ParkingSlot;
 import com.parkinglot.domain.Vehicle;
 import com.parkinglot.domain.VehicleType;
-import java.io.*;
+import com.parkinglot.metrics.ParkingMetrics;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public class FileBasedParkingStorage implements ParkingStorage, AutoCloseable {
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String PREVIOUS_SUFFIX = ".prev";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
 
-public class FileBasedParkingStorage implements ParkingStorage {
     private final String filePath;
-    private final List<ParkingSlot> slots = new ArrayList<>();
+    // Keyed by slot number, which stays the same when other slots are deleted
+    private final NavigableMap<Integer, ParkingSlot> slots = new TreeMap<>();
+    private final SortedFreeSlotIndex freeSlotIndex = new SortedFreeSlotIndex();
+    private final Map<String, ParkingSlot> slotsByVehicleNumber = new HashMap<>();
+    private final NavigableMap<Integer, ParkingSlot> occupiedSlots = new TreeMap<>();
+    private final Map<Integer, ParkingSlot> heldSlots = new HashMap<>();
+    private final LotSnapshot.Editor snapshotEditor = new LotSnapshot.Editor();
+    private volatile LotSnapshot snapshot = LotSnapshot.EMPTY;
+    private int batchDepth;
+    private boolean unsavedChanges;
+    private ParkingMetrics metrics;
+    private Path recoveredFrom;
+    // Write-behind state, guarded by writeLock; versions are those of the published snapshots
+    private final long writeBehindMillis;
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private final Object writeLock = new Object();
+    private final ArrayDeque<PendingWrite> pendingWrites = new ArrayDeque<>();
+    private long requestedVersion;
+    private long attemptedVersion;
+    private long durableVersion;
+    private RuntimeException writeFailure;
+    private boolean writerRunning;
+    private boolean closed;
 
     public FileBasedParkingStorage(String filePath) {
+        this(filePath, 0);
+    }
+
+    // With a positive window, a mutation only publishes the new snapshot and the caller returns at once. A writer
+    // thread saves the latest snapshot at most once per window, so a crash loses at most one window of changes.
+    public FileBasedParkingStorage(String filePath, long writeBehindMillis) {
+        if (writeBehindMillis < 0) {
+            throw new IllegalArgumentException("Write-behind window must not be negative");
+        }
         this.filePath = filePath;
+        this.writeBehindMillis = writeBehindMillis;
         loadFromFile();
+        durableVersion = attemptedVersion = requestedVersion = snapshot.getVersion();
+        if (writeBehindMillis > 0) {
+            writer = new Thread(this::runWriter, "parking-writer-" + Paths.get(filePath).getFileName());
+            writer.setDaemon(true);
+            writerRunning = true;
+            writer.start();
+            shutdownHook = new Thread(this::close, "parking-writer-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } else {
+            writer = null;
+            shutdownHook = null;
+        }
     }
 
     @Override
@@ -24,33 +91,77 @@ public class FileBasedParkingStorage implements ParkingStorage {
         slots.clear();
         int slotNumber = 1;
         for (int i = 0; i < smallSlots; i++) {
-            slots.add(new ParkingSlot(slotNumber++, VehicleType.SMALL));
+            slots.put(slotNumber, new ParkingSlot(slotNumber, VehicleType.SMALL));
+            slotNumber++;
         }
         for (int i = 0; i < largeSlots; i++) {
-            slots.add(new ParkingSlot(slotNumber++, VehicleType.LARGE));
+            slots.put(slotNumber, new ParkingSlot(slotNumber, VehicleType.LARGE));
+            slotNumber++;
         }
         for (int i = 0; i < oversizeSlots; i++) {
-            slots.add(new ParkingSlot(slotNumber++, VehicleType.OVERSIZE));
+            slots.put(slotNumber, new ParkingSlot(slotNumber, VehicleType.OVERSIZE));
+            slotNumber++;
         }
+        rebuildIndexes();
+        saveToFile();
+    }
+
+    @Override
+    public void restoreSlots(List<ParkingSlot> restoredSlots) {
+        slots.clear();
+        for (ParkingSlot slot : restoredSlots) {
+            slots.put(slot.getSlotNumber(), slot);
+        }
+        rebuildIndexes();
         saveToFile();
     }
 
     @Override
     public List<ParkingSlot> getAllSlots() {
-        return new ArrayList<>(slots);
+        return new ArrayList<>(slots.values());
+    }
+
+    @Override
+    public int getSlotCount() {
+        return slots.size();
+    }
+
+    @Override
+    public int getOccupiedCount() {
+        return occupiedSlots.size();
+    }
+
+    @Override
+    public Iterable<ParkingSlot> getOccupiedSlots(int afterSlotNumber) {
+        return Collections.unmodifiableCollection(occupiedSlots.tailMap(afterSlotNumber, false).values());
+    }
+
+    @Override
+    public Optional<ParkingSlot> getSlot(int slotNumber) {
+        return Optional.ofNullable(slots.get(slotNumber));
+    }
+
+    @Override
+    public FreeSlotIndex getFreeSlotIndex() {
+        return freeSlotIndex;
     }
 
     @Override
     public Optional<ParkingSlot> findSlotByVehicleNumber(String vehicleNumber) {
-        return slots.stream()
-                .filter(slot -> slot.isOccupied() && slot.getParkedVehicle().getVehicleNumber().equals(vehicleNumber))
-                .findFirst();
+        return Optional.ofNullable(slotsByVehicleNumber.get(vehicleNumber));
     }
 
     @Override
     public boolean parkVehicle(Vehicle vehicle, ParkingSlot slot) {
-        if (!slot.isOccupied() && slot.canAccommodate(vehicle.getType())) {
+        if (slotsByVehicleNumber.containsKey(vehicle.getVehicleNumber())) {
+            return false; // Same vehicle cannot be parked twice
+        }
+        // Occupied, held and replaced slots are not in the free index
+        if (slot.canAccommodate(vehicle.getType()) && freeSlotIndex.remove(slot)) {
             slot.setParkedVehicle(vehicle);
+            slotsByVehicleNumber.put(vehicle.getVehicleNumber(), slot);
+            occupiedSlots.put(slot.getSlotNumber(), slot);
+            snapshotEditor.put(slot);
             saveToFile();
             return true;
         }
@@ -59,9 +170,12 @@ public class FileBasedParkingStorage implements ParkingStorage {
 
     @Override
     public boolean exitVehicle(String vehicleNumber) {
-        Optional<ParkingSlot> slotOpt = findSlotByVehicleNumber(vehicleNumber);
-        if (slotOpt.isPresent()) {
-            slotOpt.get().setParkedVehicle(null);
+        ParkingSlot slot = slotsByVehicleNumber.remove(vehicleNumber);
+        if (slot != null) {
+            slot.setParkedVehicle(null);
+            occupiedSlots.remove(slot.getSlotNumber());
+            freeSlotIndex.add(slot);
+            snapshotEditor.put(slot);
             saveToFile();
             return true;
         }
@@ -70,131 +184,338 @@ public class FileBasedParkingStorage implements ParkingStorage {
 
     @Override
     public boolean editSlot(int slotNumber, VehicleType newType) {
-        Optional<ParkingSlot> slotOpt = slots.stream()
-                .filter(slot -> slot.getSlotNumber() == slotNumber)
-                .findFirst();
+        ParkingSlot slot = slots.get(slotNumber);
+        if (slot == null || !freeSlotIndex.remove(slot)) {
+            return false; // Cannot edit occupied or held slot
+        }
+        // Create new slot with same number but different type
+        ParkingSlot newSlot = new ParkingSlot(slotNumber, newType);
+        slots.put(slotNumber, newSlot);
+        freeSlotIndex.add(newSlot);
+        snapshotEditor.put(newSlot);
+        saveToFile();
+        return true;
+    }
 
-        if (slotOpt.isPresent()) {
-            ParkingSlot slot = slotOpt.get();
+    @Override
+    public boolean deleteSlot(int slotNumber) {
+        ParkingSlot slot = slots.get(slotNumber);
+        if (slot == null || !freeSlotIndex.remove(slot)) {
+            return false; // Cannot delete occupied or held slot
+        }
+        slots.remove(slotNumber);
+        snapshotEditor.remove(slotNumber);
+        saveToFile();
+        return true;
+    }
+
+    @Override
+    public boolean holdSlot(ParkingSlot slot) {
+        if (slots.get(slot.getSlotNumber()) != slot || !freeSlotIndex.remove(slot)) {
+            return false;
+        }
+        heldSlots.put(slot.getSlotNumber(), slot);
+        return true;
+    }
+
+    @Override
+    public boolean releaseHold(int slotNumber) {
+        ParkingSlot slot = heldSlots.remove(slotNumber);
+        if (slot == null) {
+            return false;
+        }
+        freeSlotIndex.add(slot);
+        return true;
+    }
+
+    @Override
+    public boolean parkInHeldSlot(Vehicle vehicle, int slotNumber) {
+        ParkingSlot slot = heldSlots.get(slotNumber);
+        if (slot == null || !slot.canAccommodate(vehicle.getType())
+                || slotsByVehicleNumber.containsKey(vehicle.getVehicleNumber())) {
+            return false;
+        }
+        heldSlots.remove(slotNumber);
+        slot.setParkedVehicle(vehicle);
+        slotsByVehicleNumber.put(vehicle.getVehicleNumber(), slot);
+        occupiedSlots.put(slotNumber, slot);
+        snapshotEditor.put(slot);
+        saveToFile();
+        return true;
+    }
+
+    private void rebuildIndexes() {
+        freeSlotIndex.rebuild(slots.values());
+        heldSlots.clear();
+        slotsByVehicleNumber.clear();
+        occupiedSlots.clear();
+        for (ParkingSlot slot : slots.values()) {
             if (slot.isOccupied()) {
-                return false; // Cannot edit occupied slot
+                slotsByVehicleNumber.put(slot.getParkedVehicle().getVehicleNumber(), slot);
+                occupiedSlots.put(slot.getSlotNumber(), slot);
             }
-            // Create new slot with same number but different type
-            ParkingSlot newSlot = new ParkingSlot(slotNumber, newType);
-            slots.set(slotNumber - 1, newSlot); // slots are 0-indexed in list
-            saveToFile();
-            return true;
         }
-        return false;
+        snapshotEditor.load(slots.values());
     }
 
     @Override
-    public boolean deleteSlot(int slotNumber) {
-        Optional<ParkingSlot> slotOpt = slots.stream()
-                .filter(slot -> slot.getSlotNumber() == slotNumber)
-                .findFirst();
+    public void setMetrics(ParkingMetrics metrics) {
+        this.metrics = metrics;
+    }
 
-        if (slotOpt.isPresent()) {
-            ParkingSlot slot = slotOpt.get();
-            if (slot.isOccupied()) {
-                return false; // Cannot delete occupied slot
-            }
-            slots.remove(slot);
-            // Renumber remaining slots
-            for (int i = 0; i < slots.size(); i++) {
-                ParkingSlot updatedSlot = new ParkingSlot(i + 1, slots.get(i).getSupportedType());
-                if (slots.get(i).isOccupied()) {
-                    updatedSlot.setParkedVehicle(slots.get(i).getParkedVehicle());
-                }
-                slots.set(i, updatedSlot);
+    @Override
+    public <T> T batch(Supplier<T> operations) {
+        batchDepth++;
+        try {
+            return operations.get();
+        } finally {
+            if (--batchDepth == 0 && unsavedChanges) {
+                saveToFile();
             }
-            saveToFile();
-            return true;
         }
-        return false;
+    }
+
+    @Override
+    public LotSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public boolean publishesSnapshots() {
+        return true;
+    }
+
+    // Completes once everything published so far is on disk; right away when saves are synchronous
+    @Override
+    public CompletableFuture<Void> whenDurable() {
+        long version = snapshot.getVersion();
+        synchronized (writeLock) {
+            if (version <= durableVersion) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (version <= attemptedVersion) {
+                return CompletableFuture.failedFuture(writeFailure);
+            }
+            if (!writerRunning) {
+                return CompletableFuture.completedFuture(null); // Saved on the caller's thread once the writer stopped
+            }
+            CompletableFuture<Void> acknowledgement = new CompletableFuture<>();
+            pendingWrites.add(new PendingWrite(version, acknowledgement));
+            return acknowledgement;
+        }
+    }
+
+    // Writes whatever is still pending and stops the writer thread; later saves go back to being synchronous
+    @Override
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            writeLock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already running as the shutdown hook
+        }
     }
 
     private void saveToFile() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
-            writer.println("{");
-            writer.println("  \"slots\": [");
-            for (int i = 0; i < slots.size(); i++) {
-                ParkingSlot slot = slots.get(i);
-                writer.println("    {");
-                writer.println("      \"slotNumber\": " + slot.getSlotNumber() + ",");
-                writer.println("      \"supportedType\": \"" + slot.getSupportedType() + "\",");
-                if (slot.isOccupied()) {
-                    writer.println("      \"vehicleNumber\": \"" + slot.getParkedVehicle().getVehicleNumber() + "\",");
-                    writer.println("      \"vehicleType\": \"" + slot.getParkedVehicle().getType() + "\"");
-                } else {
-                    writer.println("      \"vehicleNumber\": null,");
-                    writer.println("      \"vehicleType\": null");
+        if (batchDepth > 0) {
+            unsavedChanges = true; // Written once when the outermost batch finishes
+            return;
+        }
+        unsavedChanges = false;
+        LotSnapshot current = snapshotEditor.publish();
+        snapshot = current;
+        synchronized (writeLock) {
+            if (writerRunning) {
+                if (requestedVersion <= attemptedVersion) {
+                    writeLock.notifyAll(); // The writer is idle; this change opens a new window
+                }
+                requestedVersion = current.getVersion();
+                return;
+            }
+        }
+        writeSnapshot(current);
+    }
+
+    private void runWriter() {
+        while (true) {
+            synchronized (writeLock) {
+                while (!closed && requestedVersion <= attemptedVersion) {
+                    waitForWrite(0);
+                }
+                if (requestedVersion <= attemptedVersion) {
+                    writerRunning = false; // Closed with nothing left to write
+                    return;
+                }
+                // Changes arriving during the window are coalesced into the same write
+                long deadline = System.currentTimeMillis() + writeBehindMillis;
+                long remaining = writeBehindMillis;
+                while (!closed && remaining > 0) {
+                    waitForWrite(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+            }
+            LotSnapshot current = snapshot;
+            RuntimeException failure = null;
+            try {
+                writeSnapshot(current);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            acknowledge(current.getVersion(), failure);
+        }
+    }
+
+    private void waitForWrite(long millis) {
+        try {
+            writeLock.wait(millis);
+        } catch (InterruptedException e) {
+            closed = true; // Nobody else stops this thread, so treat it as a close and drain
+        }
+    }
+
+    private void acknowledge(long version, RuntimeException failure) {
+        List<CompletableFuture<Void>> completed = new ArrayList<>();
+        synchronized (writeLock) {
+            attemptedVersion = Math.max(attemptedVersion, version);
+            if (failure == null) {
+                durableVersion = attemptedVersion;
+            } else {
+                writeFailure = failure;
+            }
+            while (!pendingWrites.isEmpty() && pendingWrites.peek().version <= version) {
+                completed.add(pendingWrites.poll().acknowledgement);
+            }
+        }
+        // Completed outside the lock, since dependent stages run on this thread
+        for (CompletableFuture<Void> acknowledgement : completed) {
+            if (failure == null) {
+                acknowledgement.complete(null);
+            } else {
+                acknowledgement.completeExceptionally(failure);
+            }
+        }
+    }
+
+    // The live file is never written in place: the new state goes to a temp file that is forced to disk and then
+    // renamed over it, and the version it replaces is kept as the fallback for a live file that fails to verify
+    private void writeSnapshot(LotSnapshot current) {
+        long start = System.nanoTime();
+        Path file = Paths.get(filePath);
+        Path temp = sibling(TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 PrintWriter out = new PrintWriter(new BufferedWriter(
+                         Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 16))) {
+                ParkingSlotJson.write(current, out);
+                out.flush();
+                if (out.checkError()) {
+                    throw new IOException("Failed to write " + temp);
                 }
-                writer.println("    }" + (i < slots.size() - 1 ? "," : ""));
+                channel.force(true);
             }
-            writer.println("  ]");
-            writer.println("}");
+            if (Files.exists(file)) {
+                Files.move(file, sibling(PREVIOUS_SUFFIX), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(file);
         } catch (IOException e) {
             throw new RuntimeException("Failed to save parking data", e);
         }
+        if (metrics != null) {
+            metrics.persistLatency().record(System.nanoTime() - start);
+        }
     }
 
+    // Newest first: the live file, then a temp file that was complete but not yet renamed, then the previous
+    // version. Each record carries a CRC, and a torn write fails to parse, so the first candidate that reads
+    // cleanly is the newest good state.
     private void loadFromFile() {
-        if (!Files.exists(Paths.get(filePath))) {
+        Path file = Paths.get(filePath);
+        IOException failure = null;
+        for (Path candidate : List.of(file, sibling(TEMP_SUFFIX), sibling(PREVIOUS_SUFFIX))) {
+            if (!Files.exists(candidate)) {
+                continue;
+            }
+            List<ParkingSlot> loaded;
+            try (BufferedReader reader = Files.newBufferedReader(candidate, StandardCharsets.UTF_8)) {
+                loaded = ParkingSlotJson.read(reader);
+            } catch (IOException e) {
+                failure = e;
+                continue;
+            }
+            slots.clear();
+            for (ParkingSlot slot : loaded) {
+                slots.put(slot.getSlotNumber(), slot);
+            }
+            rebuildIndexes();
+            snapshot = snapshotEditor.publish();
+            recoveredFrom = candidate.equals(file) ? null : candidate;
+            if (recoveredFrom != null) {
+                promote(file, candidate);
+            }
             return;
         }
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            StringBuilder json = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                json.append(line.trim());
+        if (failure != null) {
+            throw new RuntimeException("Failed to load parking data", failure);
+        }
+    }
+
+    // Keeps the damaged live file for inspection, out of the way of the next save, which would otherwise move it
+    // over the good previous version
+    private void promote(Path file, Path recovered) {
+        try {
+            if (Files.exists(file)) {
+                Files.move(file, sibling(CORRUPT_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (recovered.equals(sibling(TEMP_SUFFIX))) {
+                Files.move(recovered, file, StandardCopyOption.ATOMIC_MOVE);
             }
-            parseJson(json.toString());
         } catch (IOException e) {
-            throw new RuntimeException("Failed to load parking data", e);
+            throw new RuntimeException("Failed to recover parking data", e);
         }
     }
 
-    private void parseJson(String json) {
-        slots.clear();
-        String slotsJson = json.substring(json.indexOf("[") + 1, json.lastIndexOf("]"));
-        String[] slotEntries = slotsJson.split("\\},\\s*\\{");
-        for (String entry : slotEntries) {
-            entry = entry.trim();
-            if (entry.startsWith("{")) entry = entry.substring(1);
-            if (entry.endsWith("}")) entry = entry.substring(0, entry.length() - 1);
-
-            String[] lines = entry.split(",");
-            int slotNumber = 0;
-            VehicleType supportedType = null;
-            String vehicleNumber = null;
-            VehicleType vehicleType = null;
-
-            for (String line : lines) {
-                line = line.trim();
-                if (line.startsWith("\"slotNumber\":")) {
-                    slotNumber = Integer.parseInt(line.substring(line.indexOf(":") + 1).trim());
-                } else if (line.startsWith("\"supportedType\":")) {
-                    String typeStr = line.substring(line.indexOf(":") + 1).trim().replace("\"", "");
-                    supportedType = VehicleType.valueOf(typeStr);
-                } else if (line.startsWith("\"vehicleNumber\":")) {
-                    String numStr = line.substring(line.indexOf(":") + 1).trim();
-                    if (!numStr.equals("null")) {
-                        vehicleNumber = numStr.replace("\"", "");
-                    }
-                } else if (line.startsWith("\"vehicleType\":")) {
-                    String typeStr = line.substring(line.indexOf(":") + 1).trim();
-                    if (!typeStr.equals("null")) {
-                        vehicleType = VehicleType.valueOf(typeStr.replace("\"", ""));
-                    }
-                }
-            }
+    // Where the state was loaded from when the live file was missing or damaged; null after a normal start
+    public Path getRecoveredFrom() {
+        return recoveredFrom;
+    }
 
-            ParkingSlot slot = new ParkingSlot(slotNumber, supportedType);
-            if (vehicleNumber != null && vehicleType != null) {
-                slot.setParkedVehicle(new Vehicle(vehicleNumber, vehicleType));
-            }
-            slots.add(slot);
+    private Path sibling(String suffix) {
+        return Paths.get(filePath + suffix);
+    }
+
+    private static void forceDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true); // Makes the rename itself durable
+        } catch (IOException e) {
+            // Not every platform can open a directory; the rename is still atomic there
+        }
+    }
+
+    private static final class PendingWrite {
+        final long version;
+        final CompletableFuture<Void> acknowledgement;
+
+        PendingWrite(long version, CompletableFuture<Void> acknowledgement) {
+            this.version = version;
+            this.acknowledgement = acknowledgement;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.VehicleType;
+import java.util.List;
+import java.util.Optional;
+
+public interface FreeSlotIndex {
+    boolean contains(ParkingSlot slot);
+    Optional<ParkingSlot> lowestFree(VehicleType slotType);
+    Optional<ParkingSlot> lowestCompatible(VehicleType vehicleType);
+    // Nearest free slot of the type numbered at or above / at or below the given slot number
+    Optional<ParkingSlot> ceilingFree(VehicleType slotType, int slotNumber);
+    Optional<ParkingSlot> floorFree(VehicleType slotType, int slotNumber);
+    int freeCount(VehicleType slotType);
+    List<ParkingSlot> freeSlots();
+}
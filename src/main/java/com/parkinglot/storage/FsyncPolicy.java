@@ -0,0 +1,7 @@
+package com.parkinglot.storage;
+
+public enum FsyncPolicy {
+    PER_OPERATION,
+    GROUP_COMMIT,
+    PERIODIC
+}
@@ -4,43 +4,101 @@ import com.parkinglot.domain.ParkingSlot;
 import com.parkinglot.domain.Vehicle;
 import com.parkinglot.domain.VehicleType;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 public class InMemoryParkingStorage implements ParkingStorage {
-    private final List<ParkingSlot> slots = new ArrayList<>();
+    // Slot numbers are stable ids; deleting a slot leaves a gap instead of renumbering the rest
+    private final NavigableMap<Integer, ParkingSlot> slots = new TreeMap<>();
+    private final SortedFreeSlotIndex freeSlotIndex = new SortedFreeSlotIndex();
+    private final Map<String, ParkingSlot> slotsByVehicleNumber = new HashMap<>();
+    private final NavigableMap<Integer, ParkingSlot> occupiedSlots = new TreeMap<>();
+    private final Map<Integer, ParkingSlot> heldSlots = new HashMap<>();
+    private final LotSnapshot.Editor snapshotEditor = new LotSnapshot.Editor();
+    private volatile LotSnapshot snapshot = LotSnapshot.EMPTY;
+    private int batchDepth;
 
     @Override
     public void initializeSlots(int smallSlots, int largeSlots, int oversizeSlots) {
         slots.clear();
         int slotNumber = 1;
         for (int i = 0; i < smallSlots; i++) {
-            slots.add(new ParkingSlot(slotNumber++, VehicleType.SMALL));
+            slots.put(slotNumber, new ParkingSlot(slotNumber, VehicleType.SMALL));
+            slotNumber++;
         }
         for (int i = 0; i < largeSlots; i++) {
-            slots.add(new ParkingSlot(slotNumber++, VehicleType.LARGE));
+            slots.put(slotNumber, new ParkingSlot(slotNumber, VehicleType.LARGE));
+            slotNumber++;
         }
         for (int i = 0; i < oversizeSlots; i++) {
-            slots.add(new ParkingSlot(slotNumber++, VehicleType.OVERSIZE));
+            slots.put(slotNumber, new ParkingSlot(slotNumber, VehicleType.OVERSIZE));
+            slotNumber++;
         }
+        rebuildIndexes();
+    }
+
+    @Override
+    public void restoreSlots(List<ParkingSlot> restoredSlots) {
+        slots.clear();
+        for (ParkingSlot slot : restoredSlots) {
+            slots.put(slot.getSlotNumber(), slot);
+        }
+        rebuildIndexes();
     }
 
     @Override
     public List<ParkingSlot> getAllSlots() {
-        return new ArrayList<>(slots);
+        return new ArrayList<>(slots.values());
+    }
+
+    @Override
+    public int getSlotCount() {
+        return slots.size();
+    }
+
+    @Override
+    public int getOccupiedCount() {
+        return occupiedSlots.size();
+    }
+
+    @Override
+    public Iterable<ParkingSlot> getOccupiedSlots(int afterSlotNumber) {
+        return Collections.unmodifiableCollection(occupiedSlots.tailMap(afterSlotNumber, false).values());
+    }
+
+    @Override
+    public Optional<ParkingSlot> getSlot(int slotNumber) {
+        return Optional.ofNullable(slots.get(slotNumber));
+    }
+
+    @Override
+    public FreeSlotIndex getFreeSlotIndex() {
+        return freeSlotIndex;
     }
 
     @Override
     public Optional<ParkingSlot> findSlotByVehicleNumber(String vehicleNumber) {
-        return slots.stream()
-                .filter(slot -> slot.isOccupied() && slot.getParkedVehicle().getVehicleNumber().equals(vehicleNumber))
-                .findFirst();
+        return Optional.ofNullable(slotsByVehicleNumber.get(vehicleNumber));
     }
 
     @Override
     public boolean parkVehicle(Vehicle vehicle, ParkingSlot slot) {
-        if (!slot.isOccupied() && slot.canAccommodate(vehicle.getType())) {
+        if (slotsByVehicleNumber.containsKey(vehicle.getVehicleNumber())) {
+            return false; // Same vehicle cannot be parked twice
+        }
+        // Occupied, held and replaced slots are not in the free index
+        if (slot.canAccommodate(vehicle.getType()) && freeSlotIndex.remove(slot)) {
             slot.setParkedVehicle(vehicle);
+            slotsByVehicleNumber.put(vehicle.getVehicleNumber(), slot);
+            occupiedSlots.put(slot.getSlotNumber(), slot);
+            snapshotEditor.put(slot);
+            publishSnapshot();
             return true;
         }
         return false;
@@ -48,9 +106,13 @@ public class InMemoryParkingStorage implements ParkingStorage {
 
     @Override
     public boolean exitVehicle(String vehicleNumber) {
-        Optional<ParkingSlot> slotOpt = findSlotByVehicleNumber(vehicleNumber);
-        if (slotOpt.isPresent()) {
-            slotOpt.get().setParkedVehicle(null);
+        ParkingSlot slot = slotsByVehicleNumber.remove(vehicleNumber);
+        if (slot != null) {
+            slot.setParkedVehicle(null);
+            occupiedSlots.remove(slot.getSlotNumber());
+            freeSlotIndex.add(slot);
+            snapshotEditor.put(slot);
+            publishSnapshot();
             return true;
         }
         return false;
@@ -58,45 +120,107 @@ public class InMemoryParkingStorage implements ParkingStorage {
 
     @Override
     public boolean editSlot(int slotNumber, VehicleType newType) {
-        Optional<ParkingSlot> slotOpt = slots.stream()
-                .filter(slot -> slot.getSlotNumber() == slotNumber)
-                .findFirst();
-
-        if (slotOpt.isPresent()) {
-            ParkingSlot slot = slotOpt.get();
-            if (slot.isOccupied()) {
-                return false; // Cannot edit occupied slot
-            }
-            // Create new slot with same number but different type
-            ParkingSlot newSlot = new ParkingSlot(slotNumber, newType);
-            slots.set(slotNumber - 1, newSlot); // slots are 0-indexed in list
-            return true;
+        ParkingSlot slot = slots.get(slotNumber);
+        if (slot == null || !freeSlotIndex.remove(slot)) {
+            return false; // Cannot edit occupied or held slot
         }
-        return false;
+        // Create new slot with same number but different type
+        ParkingSlot newSlot = new ParkingSlot(slotNumber, newType);
+        slots.put(slotNumber, newSlot);
+        freeSlotIndex.add(newSlot);
+        snapshotEditor.put(newSlot);
+        publishSnapshot();
+        return true;
     }
 
     @Override
     public boolean deleteSlot(int slotNumber) {
-        Optional<ParkingSlot> slotOpt = slots.stream()
-                .filter(slot -> slot.getSlotNumber() == slotNumber)
-                .findFirst();
+        ParkingSlot slot = slots.get(slotNumber);
+        if (slot == null || !freeSlotIndex.remove(slot)) {
+            return false; // Cannot delete occupied or held slot
+        }
+        slots.remove(slotNumber);
+        snapshotEditor.remove(slotNumber);
+        publishSnapshot();
+        return true;
+    }
 
-        if (slotOpt.isPresent()) {
-            ParkingSlot slot = slotOpt.get();
+    @Override
+    public boolean holdSlot(ParkingSlot slot) {
+        if (slots.get(slot.getSlotNumber()) != slot || !freeSlotIndex.remove(slot)) {
+            return false;
+        }
+        heldSlots.put(slot.getSlotNumber(), slot);
+        return true;
+    }
+
+    @Override
+    public boolean releaseHold(int slotNumber) {
+        ParkingSlot slot = heldSlots.remove(slotNumber);
+        if (slot == null) {
+            return false;
+        }
+        freeSlotIndex.add(slot);
+        return true;
+    }
+
+    @Override
+    public boolean parkInHeldSlot(Vehicle vehicle, int slotNumber) {
+        ParkingSlot slot = heldSlots.get(slotNumber);
+        if (slot == null || !slot.canAccommodate(vehicle.getType())
+                || slotsByVehicleNumber.containsKey(vehicle.getVehicleNumber())) {
+            return false;
+        }
+        heldSlots.remove(slotNumber);
+        slot.setParkedVehicle(vehicle);
+        slotsByVehicleNumber.put(vehicle.getVehicleNumber(), slot);
+        occupiedSlots.put(slotNumber, slot);
+        snapshotEditor.put(slot);
+        publishSnapshot();
+        return true;
+    }
+
+    private void rebuildIndexes() {
+        freeSlotIndex.rebuild(slots.values());
+        heldSlots.clear();
+        slotsByVehicleNumber.clear();
+        occupiedSlots.clear();
+        for (ParkingSlot slot : slots.values()) {
             if (slot.isOccupied()) {
-                return false; // Cannot delete occupied slot
+                slotsByVehicleNumber.put(slot.getParkedVehicle().getVehicleNumber(), slot);
+                occupiedSlots.put(slot.getSlotNumber(), slot);
             }
-            slots.remove(slot);
-            // Renumber remaining slots
-            for (int i = 0; i < slots.size(); i++) {
-                ParkingSlot updatedSlot = new ParkingSlot(i + 1, slots.get(i).getSupportedType());
-                if (slots.get(i).isOccupied()) {
-                    updatedSlot.setParkedVehicle(slots.get(i).getParkedVehicle());
-                }
-                slots.set(i, updatedSlot);
+        }
+        snapshotEditor.load(slots.values());
+        publishSnapshot();
+    }
+
+    @Override
+    public LotSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public boolean publishesSnapshots() {
+        return true;
+    }
+
+    @Override
+    public <T> T batch(Supplier<T> operations) {
+        batchDepth++;
+        try {
+            return operations.get();
+        } finally {
+            if (--batchDepth == 0) {
+                publishSnapshot();
             }
-            return true;
         }
-        return false;
     }
-}
\ No newline at end of file
+
+    private void publishSnapshot() {
+        // Readers see the whole batch at once, when the outermost one finishes
+        if (batchDepth == 0) {
+            snapshot = snapshotEditor.publish();
+        }
+    }
+}
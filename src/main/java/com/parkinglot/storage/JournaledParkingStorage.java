@@ -0,0 +1,435 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.metrics.ParkingMetrics;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class JournaledParkingStorage implements ParkingStorage, AutoCloseable {
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+    private static final int GROUP_COMMIT_SIZE = 32;
+    private static final long PERIODIC_SYNC_MILLIS = 1000;
+    private static final long GROUP_COMMIT_MAX_DELAY_MILLIS = 10;
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final int snapshotInterval;
+    private final InMemoryParkingStorage state = new InMemoryParkingStorage();
+    // Shared record buffer; only touched by the synchronized mutators that append to the journal
+    private final StringBuilder record = new StringBuilder();
+    private FileChannel journal;
+    private ScheduledExecutorService syncScheduler;
+    private long sequence;
+    private int recordsSinceSnapshot;
+    private int unsyncedRecords;
+    private int batchDepth;
+    private ParkingMetrics metrics;
+
+    public JournaledParkingStorage(String directory) {
+        this(directory, FsyncPolicy.PER_OPERATION, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public JournaledParkingStorage(String directory, FsyncPolicy fsyncPolicy, int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be greater than 0");
+        }
+        this.directory = Paths.get(directory);
+        this.fsyncPolicy = fsyncPolicy;
+        this.snapshotInterval = snapshotInterval;
+        recover();
+        if (fsyncPolicy != FsyncPolicy.PER_OPERATION) {
+            syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "parking-journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Group commit still bounds how long a quiet lot can leave acknowledged records unsynced
+            long interval = fsyncPolicy == FsyncPolicy.PERIODIC ? PERIODIC_SYNC_MILLIS : GROUP_COMMIT_MAX_DELAY_MILLIS;
+            syncScheduler.scheduleAtFixedRate(this::syncPending, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void initializeSlots(int smallSlots, int largeSlots, int oversizeSlots) {
+        state.initializeSlots(smallSlots, largeSlots, oversizeSlots);
+        startRecord('C').append(' ').append(smallSlots).append(' ').append(largeSlots).append(' ').append(oversizeSlots);
+        appendRecord();
+    }
+
+    // Written as a fresh snapshot rather than one journal record per vehicle
+    @Override
+    public synchronized void restoreSlots(List<ParkingSlot> slots) {
+        state.restoreSlots(slots);
+        sequence++;
+        checkpoint();
+    }
+
+    @Override
+    public List<ParkingSlot> getAllSlots() {
+        return state.getAllSlots();
+    }
+
+    @Override
+    public int getSlotCount() {
+        return state.getSlotCount();
+    }
+
+    @Override
+    public int getOccupiedCount() {
+        return state.getOccupiedCount();
+    }
+
+    @Override
+    public Iterable<ParkingSlot> getOccupiedSlots(int afterSlotNumber) {
+        return state.getOccupiedSlots(afterSlotNumber);
+    }
+
+    @Override
+    public Optional<ParkingSlot> getSlot(int slotNumber) {
+        return state.getSlot(slotNumber);
+    }
+
+    @Override
+    public LotSnapshot getSnapshot() {
+        return state.getSnapshot();
+    }
+
+    @Override
+    public boolean publishesSnapshots() {
+        return state.publishesSnapshots();
+    }
+
+    @Override
+    public FreeSlotIndex getFreeSlotIndex() {
+        return state.getFreeSlotIndex();
+    }
+
+    @Override
+    public Optional<ParkingSlot> findSlotByVehicleNumber(String vehicleNumber) {
+        return state.findSlotByVehicleNumber(vehicleNumber);
+    }
+
+    @Override
+    public synchronized boolean parkVehicle(Vehicle vehicle, ParkingSlot slot) {
+        if (!state.parkVehicle(vehicle, slot)) {
+            return false;
+        }
+        appendParkRecord(slot.getSlotNumber(), vehicle);
+        return true;
+    }
+
+    private void appendParkRecord(int slotNumber, Vehicle vehicle) {
+        startRecord('P').append(' ').append(slotNumber)
+                .append(' ').append(vehicle.getType())
+                .append(' ').append(vehicle.getVehicleNumber());
+        appendRecord();
+    }
+
+    @Override
+    public synchronized boolean exitVehicle(String vehicleNumber) {
+        if (!state.exitVehicle(vehicleNumber)) {
+            return false;
+        }
+        startRecord('X').append(' ').append(vehicleNumber);
+        appendRecord();
+        return true;
+    }
+
+    // Lookup and journaled exit under one lock
+    @Override
+    public synchronized Optional<SlotState> removeVehicle(String vehicleNumber) {
+        return ParkingStorage.super.removeVehicle(vehicleNumber);
+    }
+
+    @Override
+    public synchronized boolean editSlot(int slotNumber, VehicleType newType) {
+        if (!state.editSlot(slotNumber, newType)) {
+            return false;
+        }
+        startRecord('E').append(' ').append(slotNumber).append(' ').append(newType);
+        appendRecord();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean deleteSlot(int slotNumber) {
+        if (!state.deleteSlot(slotNumber)) {
+            return false;
+        }
+        startRecord('D').append(' ').append(slotNumber);
+        appendRecord();
+        return true;
+    }
+
+    // Holds only live for seconds, so they stay in memory; the park that fills one is journaled like any other
+    @Override
+    public synchronized boolean holdSlot(ParkingSlot slot) {
+        return state.holdSlot(slot);
+    }
+
+    @Override
+    public synchronized boolean releaseHold(int slotNumber) {
+        return state.releaseHold(slotNumber);
+    }
+
+    @Override
+    public synchronized boolean parkInHeldSlot(Vehicle vehicle, int slotNumber) {
+        if (!state.parkInHeldSlot(vehicle, slotNumber)) {
+            return false;
+        }
+        appendParkRecord(slotNumber, vehicle);
+        return true;
+    }
+
+    @Override
+    public <T> T batch(Supplier<T> operations) {
+        synchronized (this) {
+            batchDepth++;
+        }
+        try {
+            return state.batch(operations);
+        } finally {
+            synchronized (this) {
+                // One fsync covers every record appended by the batch
+                if (--batchDepth == 0 && unsyncedRecords > 0 && fsyncPolicy != FsyncPolicy.PERIODIC) {
+                    sync();
+                }
+            }
+        }
+    }
+
+    public synchronized void checkpoint() {
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write parking snapshot", e);
+        }
+    }
+
+    public synchronized void sync() {
+        try {
+            if (journal.isOpen()) {
+                journal.force(false);
+                unsyncedRecords = 0;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to sync parking journal", e);
+        }
+    }
+
+    synchronized int getUnsyncedRecords() {
+        return unsyncedRecords;
+    }
+
+    private synchronized void syncPending() {
+        if (unsyncedRecords > 0) {
+            sync();
+        }
+    }
+
+    @Override
+    public void setMetrics(ParkingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void close() {
+        if (syncScheduler != null) {
+            syncScheduler.shutdown();
+        }
+        synchronized (this) {
+            sync();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to close parking journal", e);
+            }
+        }
+    }
+
+    // Callers hold this storage's lock from startRecord through appendRecord
+    private StringBuilder startRecord(char operation) {
+        record.setLength(0);
+        return record.append(sequence + 1).append(' ').append(operation);
+    }
+
+    private synchronized void appendRecord() {
+        long start = System.nanoTime();
+        try {
+            record.append('\n');
+            ByteBuffer buffer = ByteBuffer.wrap(record.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            sequence++;
+            unsyncedRecords++;
+            switch (fsyncPolicy) {
+                case PER_OPERATION:
+                    if (batchDepth == 0) {
+                        journal.force(false);
+                        unsyncedRecords = 0;
+                    }
+                    break;
+                case GROUP_COMMIT:
+                    if (unsyncedRecords >= GROUP_COMMIT_SIZE) {
+                        journal.force(false);
+                        unsyncedRecords = 0;
+                    }
+                    break;
+                default:
+                    break; // PERIODIC: the sync thread forces the journal
+            }
+            if (metrics != null) {
+                metrics.persistLatency().record(System.nanoTime() - start);
+            }
+            if (++recordsSinceSnapshot >= snapshotInterval) {
+                writeSnapshot();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append to parking journal", e);
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_PREFIX + sequence + SNAPSHOT_SUFFIX);
+        Path temp = directory.resolve(snapshot.getFileName() + ".tmp");
+        BinarySnapshot.write(temp, state.getAllSlots());
+        Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // The rename must be durable before the journal it replaces is truncated, or a crash could keep the
+        // truncation and lose the rename, leaving neither
+        forceDirectory();
+        // Everything up to this sequence is in the snapshot, so the journal can be compacted
+        journal.truncate(0);
+        journal.force(true);
+        recordsSinceSnapshot = 0;
+        unsyncedRecords = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                long fileSequence = snapshotSequence(file);
+                if (fileSequence >= 0 && fileSequence < sequence) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory; the rename is still atomic there
+        }
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            Path latestSnapshot = null;
+            long snapshotSequence = 0;
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    long fileSequence = snapshotSequence(file);
+                    if (fileSequence > snapshotSequence || (fileSequence == 0 && latestSnapshot == null)) {
+                        latestSnapshot = file;
+                        snapshotSequence = fileSequence;
+                    }
+                }
+            }
+            if (latestSnapshot != null) {
+                state.restoreSlots(BinarySnapshot.read(latestSnapshot));
+            }
+            sequence = snapshotSequence;
+
+            Path journalPath = directory.resolve(JOURNAL_FILE);
+            long validLength = Files.exists(journalPath) ? replayJournal(journalPath, snapshotSequence) : 0;
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            journal.truncate(validLength); // Drop a record torn by a crash mid-append
+            journal.position(validLength);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load parking data", e);
+        }
+    }
+
+    private long replayJournal(Path journalPath, long snapshotSequence) throws IOException {
+        byte[] bytes = Files.readAllBytes(journalPath);
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            if (!replayRecord(line, snapshotSequence)) {
+                break;
+            }
+            lineStart = i + 1;
+        }
+        return lineStart;
+    }
+
+    private boolean replayRecord(String line, long snapshotSequence) {
+        String[] fields = line.split(" ", 5);
+        try {
+            long recordSequence = Long.parseLong(fields[0]);
+            if (recordSequence <= snapshotSequence) {
+                return true; // Already covered by the snapshot
+            }
+            switch (fields[1]) {
+                case "C":
+                    state.initializeSlots(Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+                    break;
+                case "P":
+                    Vehicle vehicle = new Vehicle(fields[4], VehicleType.valueOf(fields[3]));
+                    state.getSlot(Integer.parseInt(fields[2])).ifPresent(slot -> state.parkVehicle(vehicle, slot));
+                    break;
+                case "X":
+                    state.exitVehicle(line.substring(line.indexOf(" X ") + 3));
+                    break;
+                case "E":
+                    state.editSlot(Integer.parseInt(fields[2]), VehicleType.valueOf(fields[3]));
+                    break;
+                case "D":
+                    state.deleteSlot(Integer.parseInt(fields[2]));
+                    break;
+                default:
+                    return false;
+            }
+            sequence = recordSequence;
+            recordsSinceSnapshot++;
+            return true;
+        } catch (RuntimeException e) {
+            return false; // Corrupt record: stop replaying here
+        }
+    }
+
+    private static long snapshotSequence(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SNAPSHOT_PREFIX) || !name.endsWith(SNAPSHOT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
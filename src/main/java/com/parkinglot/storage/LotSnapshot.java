@@ -0,0 +1,227 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+// Immutable, versioned view of a lot. Slots live in a 32-way trie indexed by slot number, so publishing a change
+// copies only the path to that slot and every other node is shared with the previous version. Each node counts
+// its live and occupied slots, which lets paging skip empty subtrees and keeps the totals O(1).
+public final class LotSnapshot {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    public static final LotSnapshot EMPTY = new LotSnapshot(0, new Node(null), 0);
+
+    private final long version;
+    private final Node root;
+    private final int shift;
+
+    private LotSnapshot(long version, Node root, int shift) {
+        this.version = version;
+        this.root = root;
+        this.shift = shift;
+    }
+
+    // Copies the given slots into a fresh snapshot; for backends that do not maintain one as they go
+    public static LotSnapshot of(Iterable<ParkingSlot> slots) {
+        Editor editor = new Editor();
+        editor.load(slots);
+        return editor.publish();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getSlotCount() {
+        return root.live;
+    }
+
+    public int getOccupiedCount() {
+        return root.occupied;
+    }
+
+    public Optional<SlotState> getSlot(int slotNumber) {
+        int position = slotNumber - 1;
+        if (position < 0 || (position >>> shift) >= WIDTH) {
+            return Optional.empty();
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.children[(position >>> level) & MASK];
+            if (node == null) {
+                return Optional.empty();
+            }
+        }
+        return Optional.ofNullable((SlotState) node.children[position & MASK]);
+    }
+
+    public Iterable<SlotState> getSlots() {
+        return () -> new SlotIterator(0, false);
+    }
+
+    // Slot-number order, starting after the given slot number (0 for the first page)
+    public Iterable<SlotState> getOccupiedSlots(int afterSlotNumber) {
+        return () -> new SlotIterator(Math.max(afterSlotNumber, 0), true);
+    }
+
+    private SlotState seek(Node node, int level, int position, boolean occupiedOnly) {
+        int first = (position >>> level) & MASK;
+        for (int i = first; i < WIDTH; i++) {
+            Object child = node.children[i];
+            if (child == null) {
+                continue;
+            }
+            if (level == 0) {
+                SlotState state = (SlotState) child;
+                if (!occupiedOnly || state.isOccupied()) {
+                    return state;
+                }
+                continue;
+            }
+            Node next = (Node) child;
+            if (occupiedOnly ? next.occupied == 0 : next.live == 0) {
+                continue;
+            }
+            // Only the subtree holding the start position is entered part-way; later ones are scanned from the start
+            SlotState found = seek(next, level - BITS, i == first ? position : 0, occupiedOnly);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private final class SlotIterator implements Iterator<SlotState> {
+        private final boolean occupiedOnly;
+        private SlotState next;
+
+        SlotIterator(int position, boolean occupiedOnly) {
+            this.occupiedOnly = occupiedOnly;
+            this.next = find(position);
+        }
+
+        private SlotState find(int position) {
+            if ((position >>> shift) >= WIDTH) {
+                return null;
+            }
+            return seek(root, shift, position, occupiedOnly);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public SlotState next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            SlotState current = next;
+            // Positions are slot number - 1, so the slot number itself is the next position to look at
+            next = find(current.getSlotNumber());
+            return current;
+        }
+    }
+
+    private static final class Node {
+        // Nodes owned by the editor's current token may be changed in place; any other node is shared and copied
+        final Object owner;
+        final Object[] children;
+        int live;
+        int occupied;
+
+        Node(Object owner) {
+            this.owner = owner;
+            this.children = new Object[WIDTH];
+        }
+
+        Node(Object owner, Node source) {
+            this.owner = owner;
+            this.children = source.children.clone();
+            this.live = source.live;
+            this.occupied = source.occupied;
+        }
+    }
+
+    // Single-writer builder for the next version. Changes between two publishes edit the same private copies,
+    // so a batch of mutations pays for one path copy per touched node rather than one per mutation.
+    static final class Editor {
+        private final Node[] path = new Node[8];
+        private Object owner = new Object();
+        private Node root = EMPTY.root;
+        private int shift;
+        private long version;
+        private LotSnapshot published = EMPTY;
+
+        void load(Iterable<ParkingSlot> slots) {
+            root = new Node(owner);
+            shift = 0;
+            for (ParkingSlot slot : slots) {
+                put(slot);
+            }
+        }
+
+        void put(ParkingSlot slot) {
+            set(slot.getSlotNumber() - 1, SlotState.of(slot));
+        }
+
+        void remove(int slotNumber) {
+            set(slotNumber - 1, null);
+        }
+
+        LotSnapshot publish() {
+            if (published.root != root) {
+                published = new LotSnapshot(++version, root, shift);
+                owner = new Object(); // Everything reachable from the published root is now frozen
+            }
+            return published;
+        }
+
+        private void set(int position, SlotState state) {
+            if (position < 0) {
+                throw new IllegalArgumentException("Invalid slot number: " + (position + 1));
+            }
+            root = editable(root);
+            while ((position >>> shift) >= WIDTH) {
+                Node grown = new Node(owner);
+                grown.children[0] = root;
+                grown.live = root.live;
+                grown.occupied = root.occupied;
+                root = grown;
+                shift += BITS;
+            }
+            Node node = root;
+            int depth = 0;
+            for (int level = shift; level > 0; level -= BITS) {
+                path[depth++] = node;
+                int index = (position >>> level) & MASK;
+                Node child = (Node) node.children[index];
+                child = child == null ? new Node(owner) : editable(child);
+                node.children[index] = child;
+                node = child;
+            }
+            path[depth++] = node;
+            int index = position & MASK;
+            SlotState previous = (SlotState) node.children[index];
+            node.children[index] = state;
+            int liveChange = (state != null ? 1 : 0) - (previous != null ? 1 : 0);
+            int occupiedChange = (state != null && state.isOccupied() ? 1 : 0)
+                    - (previous != null && previous.isOccupied() ? 1 : 0);
+            for (int i = 0; i < depth; i++) {
+                path[i].live += liveChange;
+                path[i].occupied += occupiedChange;
+                path[i] = null;
+            }
+        }
+
+        private Node editable(Node node) {
+            return node.owner == owner ? node : new Node(owner, node);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Header: format version, whether every record carries a CRC, and the record count, so a record that is dropped
+// whole or loses its crc key is caught as well as one whose values changed. Files from before the header have
+// neither checksums nor a count and load unchecked.
+final class ParkingSlotJson {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+    private static final int FORMAT_VERSION = 2;
+
+    private ParkingSlotJson() {
+    }
+
+    static void write(List<ParkingSlot> slots, PrintWriter writer) {
+        writeHeader(slots.size(), writer);
+        CRC32C crc = new CRC32C();
+        for (int i = 0; i < slots.size(); i++) {
+            ParkingSlot slot = slots.get(i);
+            writeSlot(slot.getSlotNumber(), slot.getSupportedType(), slot.getParkedVehicle(), i == slots.size() - 1, crc,
+                    writer);
+        }
+        writer.println("  ]");
+        writer.println("}");
+    }
+
+    static void write(LotSnapshot snapshot, PrintWriter writer) {
+        writeHeader(snapshot.getSlotCount(), writer);
+        CRC32C crc = new CRC32C();
+        Iterator<SlotState> slots = snapshot.getSlots().iterator();
+        while (slots.hasNext()) {
+            SlotState slot = slots.next();
+            writeSlot(slot.getSlotNumber(), slot.getSupportedType(), slot.getParkedVehicle(), !slots.hasNext(), crc, writer);
+        }
+        writer.println("  ]");
+        writer.println("}");
+    }
+
+    private static void writeHeader(int slotCount, PrintWriter writer) {
+        writer.println("{");
+        writer.println("  \"formatVersion\": " + FORMAT_VERSION + ",");
+        writer.println("  \"checksums\": true,");
+        writer.println("  \"slotCount\": " + slotCount + ",");
+        writer.println("  \"slots\": [");
+    }
+
+    private static void writeSlot(int slotNumber, VehicleType supportedType, Vehicle vehicle, boolean last,
+                                  CRC32C crc, PrintWriter writer) {
+        String vehicleNumber = vehicle != null ? vehicle.getVehicleNumber() : null;
+        VehicleType vehicleType = vehicle != null ? vehicle.getType() : null;
+        writer.println("    {");
+        writer.println("      \"slotNumber\": " + slotNumber + ",");
+        writer.println("      \"supportedType\": \"" + supportedType + "\",");
+        if (vehicle != null) {
+            writer.println("      \"vehicleNumber\": " + quote(vehicleNumber) + ",");
+            writer.println("      \"vehicleType\": \"" + vehicleType + "\",");
+        } else {
+            writer.println("      \"vehicleNumber\": null,");
+            writer.println("      \"vehicleType\": null,");
+        }
+        writer.println("      \"crc\": " + recordCrc(crc, slotNumber, supportedType, vehicleNumber, vehicleType));
+        writer.println("    }" + (last ? "" : ","));
+    }
+
+    // CRC-32C over the decoded fields rather than the text, so it survives reformatting but not a changed value
+    private static long recordCrc(CRC32C crc, int slotNumber, VehicleType supportedType, String vehicleNumber,
+                                  VehicleType vehicleType) {
+        crc.reset();
+        crc.update(slotNumber >>> 24);
+        crc.update(slotNumber >>> 16);
+        crc.update(slotNumber >>> 8);
+        crc.update(slotNumber);
+        crc.update(supportedType.ordinal());
+        crc.update(vehicleType == null ? 0xFF : vehicleType.ordinal());
+        if (vehicleNumber != null) {
+            for (int i = 0; i < vehicleNumber.length(); i++) {
+                char c = vehicleNumber.charAt(i);
+                crc.update(c >>> 8);
+                crc.update(c);
+            }
+        }
+        return crc.getValue();
+    }
+
+    // Single pass over the reader: slots are built as their objects close, with no intermediate document or line strings
+    static List<ParkingSlot> read(Reader reader) throws IOException {
+        return new Parser(reader).readDocument();
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static final class Parser {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder text = new StringBuilder();
+        private final CRC32C crc = new CRC32C();
+        private int checkedSlots;
+        private int position;
+        private int limit;
+        private long offset;
+
+        Parser(Reader reader) {
+            this.reader = reader;
+        }
+
+        List<ParkingSlot> readDocument() throws IOException {
+            List<ParkingSlot> slots = new ArrayList<>();
+            long formatVersion = -1;
+            long slotCount = -1;
+            boolean checksums = false;
+            expect('{');
+            if (!consume('}')) {
+                do {
+                    readString();
+                    expect(':');
+                    if (textIs("slots")) {
+                        readSlots(slots);
+                    } else if (textIs("formatVersion")) {
+                        formatVersion = readLong();
+                    } else if (textIs("checksums")) {
+                        checksums = readBoolean();
+                    } else if (textIs("slotCount")) {
+                        slotCount = readLong();
+                    } else {
+                        skipValue();
+                    }
+                } while (consume(','));
+                expect('}');
+            }
+
+            // Any header field or checksummed record marks a current file, so damage to one key cannot make it legacy
+            if (formatVersion == -1 && slotCount == -1 && !checksums && checkedSlots == 0) {
+                return slots;
+            }
+            if (formatVersion == -1 || slotCount == -1) {
+                throw error("Incomplete header");
+            }
+            if (formatVersion > FORMAT_VERSION) {
+                throw error("Unsupported format version " + formatVersion);
+            }
+            if (slotCount != slots.size()) {
+                throw error("Header declares " + slotCount + " slots but " + slots.size() + " were read");
+            }
+            if ((checksums || checkedSlots > 0) && checkedSlots != slots.size()) {
+                throw error((slots.size() - checkedSlots) + " slots have no checksum");
+            }
+            return slots;
+        }
+
+        private void readSlots(List<ParkingSlot> slots) throws IOException {
+            expect('[');
+            if (consume(']')) {
+                return;
+            }
+            do {
+                slots.add(readSlot());
+            } while (consume(','));
+            expect(']');
+        }
+
+        private ParkingSlot readSlot() throws IOException {
+            int slotNumber = 0;
+            VehicleType supportedType = null;
+            String vehicleNumber = null;
+            VehicleType vehicleType = null;
+            long storedCrc = -1;
+
+            expect('{');
+            if (!consume('}')) {
+                do {
+                    readString();
+                    expect(':');
+                    if (textIs("slotNumber")) {
+                        slotNumber = readInt();
+                    } else if (textIs("supportedType")) {
+                        supportedType = readVehicleType();
+                    } else if (textIs("vehicleNumber")) {
+                        vehicleNumber = readNullableString();
+                    } else if (textIs("vehicleType")) {
+                        vehicleType = readVehicleType();
+                    } else if (textIs("crc")) {
+                        storedCrc = readLong();
+                    } else {
+                        skipValue();
+                    }
+                } while (consume(','));
+                expect('}');
+            }
+
+            if (supportedType == null) {
+                throw error("Slot " + slotNumber + " has no supported type");
+            }
+            // Records without one are only accepted in legacy files, which readDocument checks once all are read
+            if (storedCrc != -1) {
+                if (storedCrc != recordCrc(crc, slotNumber, supportedType, vehicleNumber, vehicleType)) {
+                    throw error("Checksum mismatch for slot " + slotNumber);
+                }
+                checkedSlots++;
+            }
+            ParkingSlot slot = new ParkingSlot(slotNumber, supportedType);
+            if (vehicleNumber != null && vehicleType != null) {
+                slot.setParkedVehicle(new Vehicle(vehicleNumber, vehicleType));
+            }
+            return slot;
+        }
+
+        private VehicleType readVehicleType() throws IOException {
+            if (peekToken() == 'n') {
+                readLiteral("null");
+                return null;
+            }
+            readString();
+            for (VehicleType type : VEHICLE_TYPES) {
+                if (textIs(type.name())) {
+                    return type;
+                }
+            }
+            throw error("Unknown vehicle type " + text);
+        }
+
+        private boolean readBoolean() throws IOException {
+            if (peekToken() == 't') {
+                readLiteral("true");
+                return true;
+            }
+            readLiteral("false");
+            return false;
+        }
+
+        private String readNullableString() throws IOException {
+            if (peekToken() == 'n') {
+                readLiteral("null");
+                return null;
+            }
+            readString();
+            return text.toString();
+        }
+
+        private int readInt() throws IOException {
+            long value = readLong();
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw error("Number out of range");
+            }
+            return (int) value;
+        }
+
+        private long readLong() throws IOException {
+            peekToken();
+            boolean negative = consumeChar('-');
+            long value = 0;
+            int digits = 0;
+            while (peek() >= '0' && peek() <= '9') {
+                if (++digits > 18) {
+                    throw error("Number out of range");
+                }
+                value = value * 10 + (next() - '0');
+            }
+            if (digits == 0) {
+                throw error("Expected a number");
+            }
+            return negative ? -value : value;
+        }
+
+        private void readString() throws IOException {
+            expect('"');
+            text.setLength(0);
+            while (true) {
+                int c = next();
+                if (c == '"') {
+                    return;
+                }
+                if (c == -1) {
+                    throw error("Unterminated string");
+                }
+                if (c == '\\') {
+                    c = next();
+                    switch (c) {
+                        case 'b': text.append('\b'); break;
+                        case 'f': text.append('\f'); break;
+                        case 'n': text.append('\n'); break;
+                        case 'r': text.append('\r'); break;
+                        case 't': text.append('\t'); break;
+                        case 'u': text.append(readUnicodeEscape()); break;
+                        case '"':
+                        case '\\':
+                        case '/':
+                            text.append((char) c);
+                            break;
+                        default:
+                            throw error("Invalid escape");
+                    }
+                } else {
+                    text.append((char) c);
+                }
+            }
+        }
+
+        private char readUnicodeEscape() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(next(), 16);
+                if (digit < 0) {
+                    throw error("Invalid unicode escape");
+                }
+                value = (value << 4) | digit;
+            }
+            return (char) value;
+        }
+
+        private void readLiteral(String literal) throws IOException {
+            peekToken();
+            for (int i = 0; i < literal.length(); i++) {
+                if (next() != literal.charAt(i)) {
+                    throw error("Expected " + literal);
+                }
+            }
+        }
+
+        private void skipValue() throws IOException {
+            int c = peekToken();
+            if (c == '"') {
+                readString();
+            } else if (c == '{' || c == '[') {
+                char close = c == '{' ? '}' : ']';
+                next();
+                if (consume(close)) {
+                    return;
+                }
+                do {
+                    if (c == '{') {
+                        readString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (consume(','));
+                expect(close);
+            } else {
+                while (peek() != -1 && peek() != ',' && peek() != '}' && peek() != ']' && !Character.isWhitespace(peek())) {
+                    next();
+                }
+            }
+        }
+
+        private boolean textIs(String value) {
+            return text.length() == value.length() && value.contentEquals(text);
+        }
+
+        private void expect(char c) throws IOException {
+            if (!consume(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private boolean consume(char c) throws IOException {
+            peekToken();
+            return consumeChar(c);
+        }
+
+        private boolean consumeChar(char c) throws IOException {
+            if (peek() == c) {
+                next();
+                return true;
+            }
+            return false;
+        }
+
+        private int peekToken() throws IOException {
+            while (peek() != -1 && Character.isWhitespace(peek())) {
+                next();
+            }
+            return peek();
+        }
+
+        private int peek() throws IOException {
+            if (position == limit) {
+                offset += limit;
+                position = 0;
+                limit = Math.max(reader.read(buffer), 0);
+                if (limit == 0) {
+                    return -1;
+                }
+            }
+            return buffer[position];
+        }
+
+        private int next() throws IOException {
+            int c = peek();
+            if (c != -1) {
+                position++;
+            }
+            return c;
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " at offset " + (offset + position));
+        }
+    }
+}
@@ -1,17 +1,76 @@
 package com.parkinglot.storage;
 
 import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
 import com.parkinglot.domain.Vehicle;
 import com.parkinglot.domain.VehicleType;
+import com.parkinglot.metrics.ParkingMetrics;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public interface ParkingStorage {
     void initializeSlots(int smallSlots, int largeSlots, int oversizeSlots);
+    // Bulk load: replaces the lot with these slots, in ascending slot-number order, occupied ones carrying their
+    // vehicles. Indexes are built in one pass and persistent backends write once, whatever the number of vehicles.
+    void restoreSlots(List<ParkingSlot> slots);
     List<ParkingSlot> getAllSlots();
+    int getSlotCount();
+    int getOccupiedCount();
+    // Read-only live view in slot-number order, starting after the given slot number (0 for the first page)
+    Iterable<ParkingSlot> getOccupiedSlots(int afterSlotNumber);
+    Optional<ParkingSlot> getSlot(int slotNumber);
+
+    // Consistent point-in-time view that readers can hold without locks while gates keep writing. Backends that
+    // publish one after every mutation return it directly; the rest fall back to copying the current slots, which
+    // costs a pass over the whole lot, so callers on a hot path check publishesSnapshots() first.
+    default LotSnapshot getSnapshot() {
+        return LotSnapshot.of(getAllSlots());
+    }
+
+    default boolean publishesSnapshots() {
+        return false;
+    }
+
+    FreeSlotIndex getFreeSlotIndex();
     Optional<ParkingSlot> findSlotByVehicleNumber(String vehicleNumber);
     boolean parkVehicle(Vehicle vehicle, ParkingSlot slot);
     boolean exitVehicle(String vehicleNumber);
+
+    // Looks up and exits the vehicle as one step and returns its slot as it was just before the exit. Backends
+    // that gates share between threads override this so a racing exit of the same vehicle cannot slip in between.
+    default Optional<SlotState> removeVehicle(String vehicleNumber) {
+        Optional<ParkingSlot> slot = findSlotByVehicleNumber(vehicleNumber);
+        if (slot.isEmpty()) {
+            return Optional.empty();
+        }
+        SlotState exited = SlotState.of(slot.get());
+        if (!exited.isOccupied() || !exitVehicle(vehicleNumber)) {
+            return Optional.empty();
+        }
+        return Optional.of(exited);
+    }
     boolean editSlot(int slotNumber, VehicleType newType);
     boolean deleteSlot(int slotNumber);
-}
\ No newline at end of file
+    // A hold takes a free slot out of the free index without parking in it, so allocation never sees it.
+    // Only parkInHeldSlot can fill it, and releaseHold returns it to the index. Holds are never persisted.
+    boolean holdSlot(ParkingSlot slot);
+    boolean releaseHold(int slotNumber);
+    boolean parkInHeldSlot(Vehicle vehicle, int slotNumber);
+
+    // Only backends that write to disk have anything to report (persist latency)
+    default void setMetrics(ParkingMetrics metrics) {
+    }
+
+    // Completes once every change made so far is on disk. Backends that save on the caller's thread, or never save,
+    // are already there; write-behind backends complete it from their writer thread.
+    default CompletableFuture<Void> whenDurable() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Runs several operations as one unit; backends override this to take locks and persist once per batch
+    default <T> T batch(Supplier<T> operations) {
+        return operations.get();
+    }
+}
@@ -0,0 +1,66 @@
+package com.parkinglot.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Interns parked vehicle numbers to small int ids and remembers which slot position holds each id
+final class PlateDictionary {
+    static final int NO_PLATE = -1;
+
+    private final Map<String, Integer> idsByPlate = new HashMap<>();
+    private String[] plates = new String[16];
+    private int[] positions = new int[16];
+    private int[] freeIds = new int[16];
+    private int freeIdCount;
+    private int nextId;
+
+    int find(String plate) {
+        Integer id = idsByPlate.get(plate);
+        return id == null ? NO_PLATE : id;
+    }
+
+    int intern(String plate, int position) {
+        int id = freeIdCount > 0 ? freeIds[--freeIdCount] : nextId++;
+        if (id >= plates.length) {
+            plates = Arrays.copyOf(plates, plates.length * 2);
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        plates[id] = plate;
+        positions[id] = position;
+        idsByPlate.put(plate, id);
+        return id;
+    }
+
+    void release(int id) {
+        idsByPlate.remove(plates[id]);
+        plates[id] = null;
+        if (freeIdCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeIdCount++] = id;
+    }
+
+    int size() {
+        return idsByPlate.size();
+    }
+
+    String plate(int id) {
+        return plates[id];
+    }
+
+    int position(int id) {
+        return positions[id];
+    }
+
+    void setPosition(int id, int position) {
+        positions[id] = position;
+    }
+
+    void clear() {
+        idsByPlate.clear();
+        Arrays.fill(plates, 0, nextId, null);
+        freeIdCount = 0;
+        nextId = 0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.VehicleType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+public class SortedFreeSlotIndex implements FreeSlotIndex {
+    // Free slots per supported type, keyed by slot number so the lowest one is firstEntry()
+    private final Map<VehicleType, NavigableMap<Integer, ParkingSlot>> freeSlotsByType = new EnumMap<>(VehicleType.class);
+
+    public SortedFreeSlotIndex() {
+        this(TreeMap::new);
+    }
+
+    private SortedFreeSlotIndex(Supplier<NavigableMap<Integer, ParkingSlot>> mapFactory) {
+        for (VehicleType type : VehicleType.values()) {
+            freeSlotsByType.put(type, mapFactory.get());
+        }
+    }
+
+    public static SortedFreeSlotIndex concurrent() {
+        return new SortedFreeSlotIndex(ConcurrentSkipListMap::new);
+    }
+
+    public void rebuild(Collection<ParkingSlot> slots) {
+        clear();
+        for (ParkingSlot slot : slots) {
+            if (!slot.isOccupied()) {
+                add(slot);
+            }
+        }
+    }
+
+    public void clear() {
+        freeSlotsByType.values().forEach(Map::clear);
+    }
+
+    public void add(ParkingSlot slot) {
+        freeSlotsByType.get(slot.getSupportedType()).put(slot.getSlotNumber(), slot);
+    }
+
+    public boolean remove(ParkingSlot slot) {
+        return freeSlotsByType.get(slot.getSupportedType()).remove(slot.getSlotNumber(), slot);
+    }
+
+    @Override
+    public boolean contains(ParkingSlot slot) {
+        return freeSlotsByType.get(slot.getSupportedType()).get(slot.getSlotNumber()) == slot;
+    }
+
+    @Override
+    public Optional<ParkingSlot> lowestFree(VehicleType slotType) {
+        Map.Entry<Integer, ParkingSlot> first = freeSlotsByType.get(slotType).firstEntry();
+        return first == null ? Optional.empty() : Optional.of(first.getValue());
+    }
+
+    @Override
+    public Optional<ParkingSlot> ceilingFree(VehicleType slotType, int slotNumber) {
+        Map.Entry<Integer, ParkingSlot> entry = freeSlotsByType.get(slotType).ceilingEntry(slotNumber);
+        return entry == null ? Optional.empty() : Optional.of(entry.getValue());
+    }
+
+    @Override
+    public Optional<ParkingSlot> floorFree(VehicleType slotType, int slotNumber) {
+        Map.Entry<Integer, ParkingSlot> entry = freeSlotsByType.get(slotType).floorEntry(slotNumber);
+        return entry == null ? Optional.empty() : Optional.of(entry.getValue());
+    }
+
+    @Override
+    public Optional<ParkingSlot> lowestCompatible(VehicleType vehicleType) {
+        ParkingSlot best = null;
+        for (VehicleType slotType : VehicleType.values()) {
+            if (!ParkingSlot.canAccommodate(slotType, vehicleType)) {
+                continue;
+            }
+            Map.Entry<Integer, ParkingSlot> first = freeSlotsByType.get(slotType).firstEntry();
+            if (first != null && (best == null || first.getKey() < best.getSlotNumber())) {
+                best = first.getValue();
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    @Override
+    public int freeCount(VehicleType slotType) {
+        return freeSlotsByType.get(slotType).size();
+    }
+
+    @Override
+    public List<ParkingSlot> freeSlots() {
+        List<ParkingSlot> free = new ArrayList<>();
+        freeSlotsByType.values().forEach(slots -> free.addAll(slots.values()));
+        return free;
+    }
+}
@@ -0,0 +1,37 @@
+package com.parkinglot.strategy;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.storage.FreeSlotIndex;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+// Fills the smallest compatible slot type first so small cars only spill into LARGE/OVERSIZE slots once their own type is full
+public class BestFitSlotAllocationStrategy implements SlotAllocationStrategy {
+    private static final VehicleType[] SLOT_TYPES = VehicleType.values();
+
+    @Override
+    public Optional<ParkingSlot> findSlot(VehicleType vehicleType, List<ParkingSlot> availableSlots) {
+        return availableSlots.stream()
+                .filter(slot -> !slot.isOccupied() && slot.canAccommodate(vehicleType))
+                .min(Comparator.comparing(ParkingSlot::getSupportedType)
+                        .thenComparingInt(ParkingSlot::getSlotNumber));
+    }
+
+    @Override
+    public Optional<ParkingSlot> findSlot(VehicleType vehicleType, FreeSlotIndex freeSlots) {
+        for (int type = vehicleType.ordinal(); type < SLOT_TYPES.length; type++) {
+            Optional<ParkingSlot> slot = freeSlots.lowestFree(SLOT_TYPES[type]);
+            if (slot.isPresent()) {
+                return slot;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "BEST_FIT";
+    }
+}
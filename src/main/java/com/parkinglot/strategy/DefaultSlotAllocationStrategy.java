@@ -2,6 +2,7 @@ package com.parkinglot.strategy;
 
 import com.parkinglot.domain.ParkingSlot;
 import com.parkinglot.domain.VehicleType;
+import com.parkinglot.storage.FreeSlotIndex;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -13,4 +14,14 @@ public class DefaultSlotAllocationStrategy implements SlotAllocationStrategy {
                 .filter(slot -> !slot.isOccupied() && slot.canAccommodate(vehicleType))
                 .min(Comparator.comparingInt(ParkingSlot::getSlotNumber));
     }
-}
\ No newline at end of file
+
+    @Override
+    public Optional<ParkingSlot> findSlot(VehicleType vehicleType, FreeSlotIndex freeSlots) {
+        return freeSlots.lowestCompatible(vehicleType);
+    }
+
+    @Override
+    public String toString() {
+        return "DEFAULT";
+    }
+}
@@ -0,0 +1,71 @@
+package com.parkinglot.strategy;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.storage.FreeSlotIndex;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+// Slot numbers run along the lane, so the nearest free slot is the closer of the ceiling and floor of the entrance per type.
+// Ties go to the smaller slot type, then to the lower slot number.
+public class NearestSlotAllocationStrategy implements SlotAllocationStrategy {
+    private static final VehicleType[] SLOT_TYPES = VehicleType.values();
+
+    private final int entranceSlotNumber;
+
+    public NearestSlotAllocationStrategy(int entranceSlotNumber) {
+        if (entranceSlotNumber < 1) {
+            throw new IllegalArgumentException("Entrance slot number must be positive");
+        }
+        this.entranceSlotNumber = entranceSlotNumber;
+    }
+
+    public int getEntranceSlotNumber() {
+        return entranceSlotNumber;
+    }
+
+    @Override
+    public Optional<ParkingSlot> findSlot(VehicleType vehicleType, List<ParkingSlot> availableSlots) {
+        return availableSlots.stream()
+                .filter(slot -> !slot.isOccupied() && slot.canAccommodate(vehicleType))
+                .min(Comparator.comparingInt(this::distance)
+                        .thenComparing(ParkingSlot::getSupportedType)
+                        .thenComparingInt(ParkingSlot::getSlotNumber));
+    }
+
+    @Override
+    public Optional<ParkingSlot> findSlot(VehicleType vehicleType, FreeSlotIndex freeSlots) {
+        ParkingSlot best = null;
+        for (int type = vehicleType.ordinal(); type < SLOT_TYPES.length; type++) {
+            best = closer(best, freeSlots.floorFree(SLOT_TYPES[type], entranceSlotNumber).orElse(null));
+            best = closer(best, freeSlots.ceilingFree(SLOT_TYPES[type], entranceSlotNumber).orElse(null));
+        }
+        return Optional.ofNullable(best);
+    }
+
+    // Candidates arrive in slot type order, so only a strictly closer or equally close lower-numbered slot of the same type wins
+    private ParkingSlot closer(ParkingSlot best, ParkingSlot candidate) {
+        if (candidate == null) {
+            return best;
+        }
+        if (best == null) {
+            return candidate;
+        }
+        int difference = distance(candidate) - distance(best);
+        if (difference < 0 || (difference == 0 && candidate.getSupportedType() == best.getSupportedType()
+                && candidate.getSlotNumber() < best.getSlotNumber())) {
+            return candidate;
+        }
+        return best;
+    }
+
+    private int distance(ParkingSlot slot) {
+        return Math.abs(slot.getSlotNumber() - entranceSlotNumber);
+    }
+
+    @Override
+    public String toString() {
+        return "NEAREST " + entranceSlotNumber;
+    }
+}
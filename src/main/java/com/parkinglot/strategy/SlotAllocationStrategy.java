@@ -1,10 +1,35 @@
 package com.parkinglot.strategy;
 
 import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
 import com.parkinglot.domain.VehicleType;
+import com.parkinglot.storage.FreeSlotIndex;
 import java.util.List;
 import java.util.Optional;
 
 public interface SlotAllocationStrategy {
     Optional<ParkingSlot> findSlot(VehicleType vehicleType, List<ParkingSlot> availableSlots);
-}
\ No newline at end of file
+
+    default Optional<ParkingSlot> findSlot(VehicleType vehicleType, FreeSlotIndex freeSlots) {
+        return findSlot(vehicleType, freeSlots.freeSlots());
+    }
+
+    // Hooks for strategies that keep their own view of the lot; called by the service after the storage changes.
+    // A reset passes every slot, the occupied ones carrying their vehicles.
+    default void onLotReset(List<ParkingSlot> slots) {
+    }
+
+    default void onParked(ParkingSlot slot) {
+    }
+
+    // Gets the slot as it was just before the exit
+    default void onExited(SlotState slot) {
+    }
+
+    // Only free slots can be edited or deleted, so these never change the occupancy
+    default void onSlotEdited(int slotNumber, VehicleType oldType, VehicleType newType) {
+    }
+
+    default void onSlotDeleted(int slotNumber, VehicleType slotType) {
+    }
+}
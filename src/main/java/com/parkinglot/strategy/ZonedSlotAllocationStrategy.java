@@ -0,0 +1,336 @@
+package com.parkinglot.strategy;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.storage.FreeSlotIndex;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+// Splits the slot numbers into equal contiguous zones and parks best-fit by slot type, in the zone whose slots of that
+// type are the smallest fraction occupied. Layouts number slots by type, so most zones hold one or two types; each
+// type keeps its own min-heap over only the zones that have slots of it, updated from the service hooks, so a park
+// costs O(log zones + log n) whichever type it lands on.
+public class ZonedSlotAllocationStrategy implements SlotAllocationStrategy {
+    public static final int MAX_ZONES = 1024;
+    private static final VehicleType[] SLOT_TYPES = VehicleType.values();
+
+    private final int zoneCount;
+    private volatile Zones zones;
+
+    public ZonedSlotAllocationStrategy(int zoneCount) {
+        if (zoneCount < 1 || zoneCount > MAX_ZONES) {
+            throw new IllegalArgumentException("Zone count must be between 1 and " + MAX_ZONES);
+        }
+        this.zoneCount = zoneCount;
+        this.zones = new Zones(zoneCount, 1);
+    }
+
+    public int getZoneCount() {
+        return zoneCount;
+    }
+
+    public int getOccupiedInZone(int zone) {
+        return zones.occupiedIn(zone);
+    }
+
+    // A lot smaller than the requested zone count gets one zone per slot. Zones split the numbers up to the highest
+    // slot, so the gaps left by deleted slots do not shift them.
+    @Override
+    public void onLotReset(List<ParkingSlot> slots) {
+        int lastSlotNumber = 0;
+        for (ParkingSlot slot : slots) {
+            lastSlotNumber = Math.max(lastSlotNumber, slot.getSlotNumber());
+        }
+        int count = Math.max(1, Math.min(zoneCount, slots.size()));
+        Zones reset = new Zones(count, Math.max(1, (lastSlotNumber + count - 1) / count));
+        for (ParkingSlot slot : slots) {
+            reset.count(reset.zoneOf(slot.getSlotNumber()), slot.getSupportedType(), slot.isOccupied());
+        }
+        reset.heapify();
+        zones = reset;
+    }
+
+    @Override
+    public void onParked(ParkingSlot slot) {
+        Zones current = zones;
+        current.occupy(current.zoneOf(slot.getSlotNumber()), slot.getSupportedType(), 1);
+    }
+
+    @Override
+    public void onExited(SlotState slot) {
+        Zones current = zones;
+        current.occupy(current.zoneOf(slot.getSlotNumber()), slot.getSupportedType(), -1);
+    }
+
+    @Override
+    public void onSlotEdited(int slotNumber, VehicleType oldType, VehicleType newType) {
+        Zones current = zones;
+        int zone = current.zoneOf(slotNumber);
+        current.resize(zone, oldType, -1);
+        current.resize(zone, newType, 1);
+    }
+
+    @Override
+    public void onSlotDeleted(int slotNumber, VehicleType slotType) {
+        Zones current = zones;
+        current.resize(current.zoneOf(slotNumber), slotType, -1);
+    }
+
+    @Override
+    public Optional<ParkingSlot> findSlot(VehicleType vehicleType, List<ParkingSlot> availableSlots) {
+        Zones current = zones;
+        return availableSlots.stream()
+                .filter(slot -> !slot.isOccupied() && slot.canAccommodate(vehicleType))
+                .min(Comparator.comparing(ParkingSlot::getSupportedType)
+                        .thenComparing((slot, other) -> current.compare(slot.getSupportedType(),
+                                current.zoneOf(slot.getSlotNumber()), current.zoneOf(other.getSlotNumber())))
+                        .thenComparingInt(ParkingSlot::getSlotNumber));
+    }
+
+    @Override
+    public Optional<ParkingSlot> findSlot(VehicleType vehicleType, FreeSlotIndex freeSlots) {
+        Zones current = zones;
+        for (int type = vehicleType.ordinal(); type < SLOT_TYPES.length; type++) {
+            Optional<ParkingSlot> slot = findOfType(current, SLOT_TYPES[type], freeSlots);
+            if (slot.isPresent()) {
+                return slot;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ParkingSlot> findOfType(Zones current, VehicleType slotType, FreeSlotIndex freeSlots) {
+        int least = current.leastWithRoom(slotType);
+        if (least < 0) {
+            return Optional.empty(); // Every slot of this type is taken
+        }
+        Optional<ParkingSlot> slot = findInZone(current, least, slotType, freeSlots);
+        if (slot.isPresent()) {
+            return slot;
+        }
+        // Held slots (or a park racing this one) can leave the least occupied zone without a free slot; the others
+        // are visited in occupancy order from a private copy of the heap, so the lookups run without the zone lock
+        Heap order = current.order(slotType);
+        for (int zone = order.poll(); zone >= 0 && order.hasRoom(zone); zone = order.poll()) {
+            if (zone == least) {
+                continue;
+            }
+            slot = findInZone(current, zone, slotType, freeSlots);
+            if (slot.isPresent()) {
+                return slot;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ParkingSlot> findInZone(Zones current, int zone, VehicleType slotType, FreeSlotIndex freeSlots) {
+        int first = zone * current.zoneSize + 1;
+        // The last zone also takes any slot numbered past the original lot size
+        int last = zone == current.count - 1 ? Integer.MAX_VALUE : first + current.zoneSize - 1;
+        Optional<ParkingSlot> slot = freeSlots.ceilingFree(slotType, first);
+        return slot.isPresent() && slot.get().getSlotNumber() <= last ? slot : Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "ZONED " + zoneCount;
+    }
+
+    // Swapped as a whole on reset so a concurrent park never sees counts from one layout and a size from another.
+    // One lock guards the heaps of every type.
+    private static final class Zones {
+        private final int zoneSize;
+        private final int count;
+        private final Heap[] heaps = new Heap[SLOT_TYPES.length];
+
+        Zones(int zoneCount, int zoneSize) {
+            this.zoneSize = zoneSize;
+            this.count = zoneCount;
+            for (int type = 0; type < heaps.length; type++) {
+                heaps[type] = new Heap(zoneCount);
+            }
+        }
+
+        int zoneOf(int slotNumber) {
+            return Math.min((slotNumber - 1) / zoneSize, count - 1);
+        }
+
+        // Only before the strategy publishes this instance
+        void count(int zone, VehicleType slotType, boolean occupied) {
+            Heap heap = heaps[slotType.ordinal()];
+            heap.capacity[zone]++;
+            if (occupied) {
+                heap.occupied[zone]++;
+            }
+        }
+
+        void heapify() {
+            for (Heap heap : heaps) {
+                heap.heapify();
+            }
+        }
+
+        synchronized int occupiedIn(int zone) {
+            int occupied = 0;
+            for (Heap heap : heaps) {
+                occupied += heap.occupied[zone];
+            }
+            return occupied;
+        }
+
+        synchronized int compare(VehicleType slotType, int zone, int other) {
+            Heap heap = heaps[slotType.ordinal()];
+            return zone == other ? 0 : heap.before(zone, other) ? -1 : 1;
+        }
+
+        // The least occupied zone for the type, or -1 when even that one is full
+        synchronized int leastWithRoom(VehicleType slotType) {
+            Heap heap = heaps[slotType.ordinal()];
+            return heap.size > 0 && heap.hasRoom(heap.heap[0]) ? heap.heap[0] : -1;
+        }
+
+        synchronized void occupy(int zone, VehicleType slotType, int change) {
+            Heap heap = heaps[slotType.ordinal()];
+            heap.occupied[zone] += change;
+            heap.update(zone);
+        }
+
+        synchronized void resize(int zone, VehicleType slotType, int change) {
+            Heap heap = heaps[slotType.ordinal()];
+            heap.capacity[zone] += change;
+            heap.update(zone);
+        }
+
+        synchronized Heap order(VehicleType slotType) {
+            return new Heap(heaps[slotType.ordinal()]);
+        }
+    }
+
+    // Indexed min-heap of the zones that have slots of one type, ordered by occupied / capacity (compared by
+    // cross-multiplying, so no rounding) and then by zone. position maps each zone to its heap index, -1 if absent.
+    private static final class Heap {
+        private final int[] occupied;
+        private final int[] capacity;
+        private final int[] heap;
+        private final int[] position;
+        private int size;
+
+        Heap(int zoneCount) {
+            this.occupied = new int[zoneCount];
+            this.capacity = new int[zoneCount];
+            this.heap = new int[zoneCount];
+            this.position = new int[zoneCount];
+        }
+
+        Heap(Heap other) {
+            this.occupied = other.occupied.clone();
+            this.capacity = other.capacity.clone();
+            this.heap = other.heap.clone();
+            this.position = other.position.clone();
+            this.size = other.size;
+        }
+
+        boolean hasRoom(int zone) {
+            return occupied[zone] < capacity[zone];
+        }
+
+        void heapify() {
+            size = 0;
+            for (int zone = 0; zone < capacity.length; zone++) {
+                position[zone] = -1;
+                if (capacity[zone] > 0) {
+                    heap[size] = zone;
+                    position[zone] = size++;
+                }
+            }
+            for (int index = size / 2 - 1; index >= 0; index--) {
+                siftDown(index);
+            }
+        }
+
+        // Re-places a zone after its counts changed, adding or dropping it as its capacity leaves or reaches zero
+        void update(int zone) {
+            int index = position[zone];
+            if (capacity[zone] <= 0) {
+                if (index >= 0) {
+                    removeAt(index);
+                }
+                return;
+            }
+            if (index < 0) {
+                index = size++;
+                heap[index] = zone;
+                position[zone] = index;
+            }
+            siftUp(index);
+            siftDown(position[zone]);
+        }
+
+        // Pops the least occupied zone, or -1 once empty; used on the private copies
+        int poll() {
+            if (size == 0) {
+                return -1;
+            }
+            int zone = heap[0];
+            removeAt(0);
+            return zone;
+        }
+
+        private void removeAt(int index) {
+            int zone = heap[index];
+            position[zone] = -1;
+            int last = heap[--size];
+            if (index == size) {
+                return;
+            }
+            heap[index] = last;
+            position[last] = index;
+            siftUp(index);
+            siftDown(position[last]);
+        }
+
+        private void siftUp(int index) {
+            int zone = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!before(zone, heap[parent])) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                position[heap[index]] = index;
+                index = parent;
+            }
+            heap[index] = zone;
+            position[zone] = index;
+        }
+
+        private void siftDown(int index) {
+            int zone = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], zone)) {
+                    break;
+                }
+                heap[index] = heap[child];
+                position[heap[index]] = index;
+                index = child;
+            }
+            heap[index] = zone;
+            position[zone] = index;
+        }
+
+        boolean before(int zone, int other) {
+            long share = (long) occupied[zone] * capacity[other];
+            long otherShare = (long) occupied[other] * capacity[zone];
+            return share < otherShare || (share == otherShare && zone < other);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.parkinglot.billing;
+
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParkingSessionsTest {
+    private static final long START_MILLIS = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong now = new AtomicLong(START_MILLIS);
+    private ParkingLotService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+        service.createParkingLot(2, 1, 1);
+    }
+
+    @Test
+    void testFeeIsChargedOnExit() {
+        service.setSessions(new ParkingSessions(now::get, new Tariff()));
+        service.parkVehicle("ABC123", VehicleType.SMALL);
+        service.parkVehicle("TRK001", VehicleType.OVERSIZE);
+        assertEquals(START_MILLIS, service.getStatus().get(0).getParkedVehicle().getEntryMillis());
+
+        now.addAndGet(90 * 60 * 1000L);
+        assertEquals(200, service.exitAndCharge("ABC123"));
+        assertEquals(4, service.getStatus().get(0).getSlotNumber());
+        assertEquals(-1, service.exitAndCharge("ABC123"));
+
+        now.addAndGet(Tariff.DAY_MILLIS);
+        assertEquals(4000 + 800, service.exitAndCharge("TRK001"));
+        assertEquals(200, service.getSessions().revenueCents(VehicleType.SMALL));
+        assertEquals(4800, service.getSessions().revenueCents(VehicleType.OVERSIZE));
+        assertEquals(1, service.getSessions().closedSessions(VehicleType.OVERSIZE));
+    }
+
+    @Test
+    void testVehiclesParkedBeforeBillingAreBilledFromAttachTime() {
+        service.parkVehicle("ABC123", VehicleType.LARGE);
+        now.addAndGet(5 * Tariff.HOUR_MILLIS);
+        service.setSessions(new ParkingSessions(now::get, new Tariff()));
+        now.addAndGet(Tariff.HOUR_MILLIS);
+        assertEquals(200, service.exitAndCharge("ABC123"));
+    }
+
+    @Test
+    void testTariffChangeAppliesToOpenSessions() {
+        ParkingSessions sessions = new ParkingSessions(now::get, new Tariff());
+        service.setSessions(sessions);
+        service.parkVehicle("ABC123", VehicleType.SMALL);
+        sessions.setTariff(sessions.getTariff().withRate(VehicleType.SMALL, 150, 900));
+        now.addAndGet(Tariff.HOUR_MILLIS);
+        assertEquals(150, service.exitAndCharge("ABC123"));
+    }
+
+    @Test
+    void testClosedSessionsAreWrittenInBatches() throws Exception {
+        Path logFile = tempDir.resolve("default.sessions");
+        ParkingSessions sessions = new ParkingSessions(now::get, new Tariff(), new SessionLog(logFile));
+        service.setSessions(sessions);
+        service.parkVehicle("ABC123", VehicleType.SMALL);
+        service.parkVehicle("XYZ789", VehicleType.LARGE);
+        now.addAndGet(Tariff.HOUR_MILLIS);
+        service.exitVehicle("XYZ789");
+        service.exitVehicle("ABC123");
+        assertEquals(0, Files.size(logFile));
+
+        sessions.flush();
+        List<ClosedSession> closed = SessionLog.read(logFile);
+        assertEquals(2, closed.size());
+        ClosedSession first = closed.get(0);
+        assertEquals("XYZ789", first.getVehicleNumber());
+        assertEquals(3, first.getSlotNumber());
+        assertEquals(VehicleType.LARGE, first.getVehicleType());
+        assertEquals(VehicleType.LARGE, first.getSlotType());
+        assertEquals(START_MILLIS, first.getEntryMillis());
+        assertEquals(START_MILLIS + Tariff.HOUR_MILLIS, first.getExitMillis());
+        assertEquals(200, first.getFeeCents());
+        assertEquals("ABC123", closed.get(1).getVehicleNumber());
+        assertEquals(100, closed.get(1).getFeeCents());
+
+        service.parkVehicle("DEF456", VehicleType.SMALL);
+        service.exitVehicle("DEF456");
+        sessions.close();
+        assertEquals(3, SessionLog.read(logFile).size());
+    }
+
+    @Test
+    void testFullBufferIsWrittenOut() {
+        Path logFile = tempDir.resolve("small.sessions");
+        SessionLog log = new SessionLog(logFile, 1 << 17);
+        int records = 5000;
+        for (int i = 0; i < records; i++) {
+            log.append(i + 1, "PLATE" + i, VehicleType.SMALL, VehicleType.LARGE, i, i + 1, 100);
+        }
+        log.close();
+        List<ClosedSession> closed = SessionLog.read(logFile);
+        assertEquals(records, closed.size());
+        assertEquals("PLATE4999", closed.get(records - 1).getVehicleNumber());
+        assertEquals(VehicleType.LARGE, closed.get(0).getSlotType());
+    }
+
+    @Test
+    void testReadStopsAtTornLastRecord() throws Exception {
+        Path logFile = tempDir.resolve("torn.sessions");
+        SessionLog log = new SessionLog(logFile);
+        log.append(1, "FIRST", VehicleType.SMALL, VehicleType.SMALL, 0, 1, 100);
+        log.append(2, "SECOND", VehicleType.LARGE, VehicleType.LARGE, 0, 1, 200);
+        log.close();
+        byte[] data = Files.readAllBytes(logFile);
+        for (int cut = 1; cut <= 2 * "SECOND".length() + 2; cut++) {
+            Files.write(logFile, Arrays.copyOf(data, data.length - cut));
+            List<ClosedSession> closed = SessionLog.read(logFile);
+            assertEquals(1, closed.size());
+            assertEquals("FIRST", closed.get(0).getVehicleNumber());
+        }
+    }
+
+    @Test
+    void testReadStopsAtCorruptRecord() throws Exception {
+        Path logFile = tempDir.resolve("corrupt.sessions");
+        SessionLog log = new SessionLog(logFile);
+        log.append(1, "FIRST", VehicleType.SMALL, VehicleType.SMALL, 0, 1, 100);
+        log.append(2, "SECOND", VehicleType.LARGE, VehicleType.LARGE, 0, 1, 200);
+        log.append(3, "THIRD", VehicleType.SMALL, VehicleType.LARGE, 0, 1, 100);
+        log.close();
+        byte[] data = Files.readAllBytes(logFile);
+        int second = 8 + (4 + 1 + 1 + 8 + 8 + 8 + 2 + 2 * "FIRST".length() + 4);
+        // Vehicle type ordinal, slot type ordinal, plate length sign bit, an exit time byte and a plate byte
+        for (int offset : new int[] {4, 5, 30, 20, 33}) {
+            byte[] corrupt = data.clone();
+            corrupt[second + offset] = (byte) (offset == 30 ? 0x80 : corrupt[second + offset] + 7);
+            Files.write(logFile, corrupt);
+            List<ClosedSession> closed = SessionLog.read(logFile);
+            assertEquals(1, closed.size(), "offset " + offset);
+            assertEquals("FIRST", closed.get(0).getVehicleNumber());
+        }
+    }
+
+    @Test
+    void testLogWithoutChecksumsIsStillReadable() throws Exception {
+        Path logFile = tempDir.resolve("legacy.sessions");
+        ByteBuffer legacy = ByteBuffer.allocate(2 * (4 + 1 + 1 + 8 + 8 + 8 + 2) + 2 * "OLD1".length() + 2 * "OLD2".length());
+        for (int i = 1; i <= 2; i++) {
+            legacy.putInt(i).put((byte) 0).put((byte) 1).putLong(0).putLong(1).putLong(100 * i).putShort((short) 4);
+            for (char c : ("OLD" + i).toCharArray()) {
+                legacy.putChar(c);
+            }
+        }
+        Files.write(logFile, legacy.array());
+        List<ClosedSession> closed = SessionLog.read(logFile);
+        assertEquals(2, closed.size());
+        assertEquals("OLD2", closed.get(1).getVehicleNumber());
+        assertEquals(VehicleType.LARGE, closed.get(1).getSlotType());
+
+        // New records go to a fresh log; the old one is kept beside it
+        SessionLog log = new SessionLog(logFile);
+        log.append(3, "NEW", VehicleType.SMALL, VehicleType.SMALL, 0, 1, 100);
+        log.close();
+        assertEquals("NEW", SessionLog.read(logFile).get(0).getVehicleNumber());
+        assertEquals(1, SessionLog.read(logFile).size());
+        assertEquals(2, SessionLog.read(tempDir.resolve("legacy.sessions.v1")).size());
+    }
+
+    @Test
+    void testMonotonicClockNeverGoesBackwards() {
+        ParkingClock clock = ParkingClock.monotonic();
+        long previous = clock.millis();
+        assertTrue(Math.abs(previous - System.currentTimeMillis()) < 1000);
+        for (int i = 0; i < 1000; i++) {
+            long current = clock.millis();
+            assertTrue(current >= previous);
+            previous = current;
+        }
+    }
+}
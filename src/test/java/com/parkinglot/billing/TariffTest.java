@@ -0,0 +1,36 @@
+package com.parkinglot.billing;
+
+import com.parkinglot.domain.VehicleType;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TariffTest {
+    private final Tariff tariff = new Tariff();
+
+    @Test
+    void testEveryStartedHourIsCharged() {
+        assertEquals(0, tariff.feeCents(VehicleType.SMALL, 0));
+        assertEquals(100, tariff.feeCents(VehicleType.SMALL, 1));
+        assertEquals(100, tariff.feeCents(VehicleType.SMALL, Tariff.HOUR_MILLIS));
+        assertEquals(200, tariff.feeCents(VehicleType.SMALL, Tariff.HOUR_MILLIS + 1));
+        assertEquals(800, tariff.feeCents(VehicleType.OVERSIZE, 2 * Tariff.HOUR_MILLIS));
+    }
+
+    @Test
+    void testDailyCap() {
+        assertEquals(1000, tariff.feeCents(VehicleType.SMALL, 11 * Tariff.HOUR_MILLIS));
+        assertEquals(1000, tariff.feeCents(VehicleType.SMALL, Tariff.DAY_MILLIS));
+        assertEquals(1100, tariff.feeCents(VehicleType.SMALL, Tariff.DAY_MILLIS + 1));
+        assertEquals(2 * 2000 + 600, tariff.feeCents(VehicleType.LARGE, 2 * Tariff.DAY_MILLIS + 3 * Tariff.HOUR_MILLIS));
+    }
+
+    @Test
+    void testWithRateLeavesTheOriginalUnchanged() {
+        Tariff changed = tariff.withRate(VehicleType.LARGE, 250, 1500);
+        assertEquals(250, changed.hourlyCents(VehicleType.LARGE));
+        assertEquals(1500, changed.dailyCapCents(VehicleType.LARGE));
+        assertEquals(100, changed.hourlyCents(VehicleType.SMALL));
+        assertEquals(200, tariff.hourlyCents(VehicleType.LARGE));
+        assertThrows(IllegalArgumentException.class, () -> tariff.withRate(VehicleType.SMALL, -1, 0));
+    }
+}
@@ -0,0 +1,48 @@
+package com.parkinglot.controller;
+
+import com.parkinglot.domain.VehicleType;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandTokenizerTest {
+    private final CommandTokenizer tokens = new CommandTokenizer();
+
+    @Test
+    void testSplitsOnAnyWhitespace() {
+        tokens.reset("  park\tABC-123   small \r");
+        assertEquals(3, tokens.count());
+        assertTrue(tokens.is(0, "PARK"));
+        assertFalse(tokens.is(0, "PAR"));
+        assertEquals("ABC-123", tokens.token(1));
+        assertEquals(VehicleType.SMALL, tokens.vehicleType(2));
+
+        tokens.reset("   ");
+        assertEquals(0, tokens.count());
+        tokens.reset("BATCH EXIT A B C D E F G H I J");
+        assertEquals(12, tokens.count());
+        assertEquals("J", tokens.token(11));
+        assertEquals("EXIT A B C D E F G H I J", tokens.remainder(1).toString());
+    }
+
+    @Test
+    void testParsesNumbersLikeIntegerParseInt() {
+        tokens.reset("0 +42 -7 2147483647 -2147483648 2147483648 12a - 99999999999999999999");
+        assertEquals(0, tokens.parseInt(0));
+        assertEquals(42, tokens.parseInt(1));
+        assertEquals(-7, tokens.parseInt(2));
+        assertEquals(Integer.MAX_VALUE, tokens.parseInt(3));
+        assertEquals(Integer.MIN_VALUE, tokens.parseInt(4));
+        for (int i = 5; i < tokens.count(); i++) {
+            assertEquals(CommandTokenizer.INVALID_NUMBER, tokens.parseInt(i), tokens.token(i));
+        }
+    }
+
+    @Test
+    void testVehicleTypeWithoutExceptions() {
+        tokens.reset("oversize Large TRUCK smal");
+        assertEquals(VehicleType.OVERSIZE, tokens.vehicleType(0));
+        assertEquals(VehicleType.LARGE, tokens.vehicleType(1));
+        assertNull(tokens.vehicleType(2));
+        assertNull(tokens.vehicleType(3));
+    }
+}
@@ -0,0 +1,195 @@
+package com.parkinglot.events;
+
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParkingEventBusTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEveryListenerGetsEveryEventInOrder() throws Exception {
+        int producers = 4;
+        int eventsPerProducer = 2000;
+        List<ParkingEvent> fast = Collections.synchronizedList(new ArrayList<>());
+        List<ParkingEvent> slow = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger largestBatch = new AtomicInteger();
+        try (ParkingEventBus bus = new ParkingEventBus(64, BackpressurePolicy.BLOCK, null, 32)) {
+            bus.subscribe("fast", events -> copyInto(fast, events));
+            bus.subscribe("slow", events -> {
+                largestBatch.accumulateAndGet(events.size(), Math::max);
+                copyInto(slow, events);
+                if (slow.size() % 500 == 0) {
+                    throw new IllegalStateException("listener failure must not stall the bus");
+                }
+            });
+            bus.start();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                String lotId = "lot" + p;
+                Thread thread = new Thread(() -> {
+                    for (int i = 1; i <= eventsPerProducer; i++) {
+                        assertTrue(bus.publish(ParkingEventType.PARKED, lotId, i, VehicleType.SMALL, "CAR" + i, VehicleType.SMALL));
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(bus.awaitDrained(10_000));
+            assertEquals(producers * eventsPerProducer, bus.getPublishedCount());
+            assertEquals(0, bus.getDroppedCount());
+        }
+
+        for (List<ParkingEvent> received : List.of(fast, slow)) {
+            assertEquals(producers * eventsPerProducer, received.size());
+            int[] lastSlotPerLot = new int[producers];
+            for (int i = 0; i < received.size(); i++) {
+                ParkingEvent event = received.get(i);
+                assertEquals(i, event.getSequence());
+                int lot = event.getLotId().charAt(3) - '0';
+                assertEquals(lastSlotPerLot[lot] + 1, event.getSlotNumber());
+                lastSlotPerLot[lot] = event.getSlotNumber();
+            }
+        }
+        assertTrue(largestBatch.get() <= 32);
+    }
+
+    @Test
+    void testDropPolicyDiscardsWhenListenersFallBehind() throws Exception {
+        List<ParkingEvent> received = Collections.synchronizedList(new ArrayList<>());
+        try (ParkingEventBus bus = new ParkingEventBus(8, BackpressurePolicy.DROP)) {
+            bus.subscribe("audit", events -> copyInto(received, events));
+            for (int i = 1; i <= 20; i++) {
+                assertEquals(i <= 8, bus.publish(ParkingEventType.EXITED, "lot", i, VehicleType.LARGE, "CAR" + i, VehicleType.SMALL));
+            }
+            assertEquals(12, bus.getDroppedCount());
+
+            bus.start();
+            assertTrue(bus.awaitDrained(5000));
+            assertTrue(bus.publish(ParkingEventType.EXITED, "lot", 21, VehicleType.LARGE, "CAR21", VehicleType.SMALL));
+            assertTrue(bus.awaitDrained(5000));
+        }
+        assertEquals(9, received.size());
+        assertEquals(21, received.get(8).getSlotNumber());
+    }
+
+    @Test
+    void testSpillPolicyReplaysOverflowInOrder() throws Exception {
+        Path spillFile = directory.resolve("events.spill");
+        List<ParkingEvent> received = Collections.synchronizedList(new ArrayList<>());
+        try (ParkingEventBus bus = new ParkingEventBus(8, BackpressurePolicy.SPILL, spillFile, 4)) {
+            bus.subscribe("audit", events -> copyInto(received, events));
+            bus.publishLotCreated("lot", 50, 40, 10);
+            for (int i = 1; i <= 99; i++) {
+                assertTrue(bus.publish(ParkingEventType.PARKED, "lot", i, VehicleType.OVERSIZE, i % 2 == 0 ? "CAR" + i : "TRK" + i, VehicleType.LARGE));
+            }
+            assertEquals(92, bus.getSpilledCount());
+
+            bus.start();
+            assertTrue(bus.awaitDrained(5000));
+            assertEquals(0, Files.size(spillFile));
+        }
+
+        assertEquals(100, received.size());
+        ParkingEvent created = received.get(0);
+        assertEquals(ParkingEventType.LOT_CREATED, created.getType());
+        assertEquals(40, created.getSlotCount(VehicleType.LARGE));
+        for (int i = 1; i < received.size(); i++) {
+            ParkingEvent event = received.get(i);
+            assertEquals(i, event.getSlotNumber());
+            assertEquals(i % 2 == 0 ? "CAR" + i : "TRK" + i, event.getVehicleNumber());
+            assertEquals(VehicleType.OVERSIZE, event.getSlotType());
+            assertEquals(VehicleType.LARGE, event.getVehicleType());
+        }
+    }
+
+    @Test
+    void testCloseDeliversEveryAcceptedEvent() throws Exception {
+        for (BackpressurePolicy policy : BackpressurePolicy.values()) {
+            Path spillFile = policy == BackpressurePolicy.SPILL ? directory.resolve(policy + ".spill") : null;
+            AtomicInteger received = new AtomicInteger();
+            AtomicInteger accepted = new AtomicInteger();
+            ParkingEventBus bus = new ParkingEventBus(16, policy, spillFile, 8);
+            bus.subscribe("count", events -> received.addAndGet(events.size()));
+            bus.start();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 1; bus.publish(ParkingEventType.PARKED, "lot", i, VehicleType.SMALL, "CAR" + i, VehicleType.SMALL); i++) {
+                        accepted.incrementAndGet();
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            Thread.sleep(20);
+            bus.close(); // Races the publishers; whatever they were told was accepted must still reach the listener
+            for (Thread thread : threads) {
+                thread.join(10_000);
+                assertFalse(thread.isAlive());
+            }
+            assertEquals(accepted.get(), received.get(), policy.toString());
+        }
+    }
+
+    @Test
+    void testServicePublishesStateChanges() throws Exception {
+        List<ParkingEvent> received = Collections.synchronizedList(new ArrayList<>());
+        try (ParkingEventBus bus = new ParkingEventBus(16, BackpressurePolicy.BLOCK)) {
+            bus.subscribe("audit", events -> copyInto(received, events));
+            bus.start();
+            ParkingLotService service = new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+            service.setEventBus("north", bus);
+
+            service.createParkingLot(2, 1, 0);
+            service.parkVehicle("ABC123", VehicleType.SMALL);
+            service.parkVehicle("TRK001", VehicleType.LARGE);
+            service.exitVehicle("ABC123");
+            service.exitVehicle("ABC123");
+            service.editSlot(2, VehicleType.LARGE);
+            service.deleteSlot(1);
+            assertTrue(bus.awaitDrained(5000));
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (ParkingEvent event : received) {
+            lines.add(event.toString().substring(event.toString().indexOf(' ', event.toString().indexOf(' ') + 1) + 1));
+        }
+        assertEquals(List.of(
+            "LOT_CREATED north 2 1 0",
+            "PARKED north 1 SMALL ABC123 SMALL",
+            "PARKED north 3 LARGE TRK001 LARGE",
+            "EXITED north 1 SMALL ABC123 SMALL",
+            "SLOT_EDITED north 2 LARGE",
+            "SLOT_DELETED north 1 SMALL"
+        ), lines);
+    }
+
+    @Test
+    void testRejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new ParkingEventBus(100, BackpressurePolicy.DROP));
+        assertThrows(IllegalArgumentException.class, () -> new ParkingEventBus(64, BackpressurePolicy.SPILL));
+    }
+
+    private static void copyInto(List<ParkingEvent> received, List<ParkingEvent> events) {
+        for (ParkingEvent event : events) {
+            received.add(event.copy());
+        }
+    }
+}
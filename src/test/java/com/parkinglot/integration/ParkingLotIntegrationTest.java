@@ -1,9 +1,19 @@
 package com.parkinglot.integration;
 
+import com.parkinglot.billing.ParkingSessions;
+import com.parkinglot.billing.Tariff;
+import com.parkinglot.controller.LotRegistryController;
 import com.parkinglot.controller.ParkingLotController;
+import com.parkinglot.metrics.OccupancyHistory;
+import com.parkinglot.service.LotRegistry;
 import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.ColumnarParkingStorage;
+import com.parkinglot.storage.ConcurrentParkingStorage;
 import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.storage.ParkingStorage;
 import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,7 +39,7 @@ class ParkingLotIntegrationTest {
     void testEditAndDeleteSlots() {
         assertEquals("Created a parking lot with 6 slots (3 small, 2 large, 1 oversize)", controller.processCommand("CREATE 3 2 1"));
         assertEquals("Slot 1 edited to LARGE successfully", controller.processCommand("EDIT 1 LARGE"));
-        assertEquals("Slot 6 deleted successfully. Remaining slots renumbered", controller.processCommand("DELETE 6"));
+        assertEquals("Slot 6 deleted successfully", controller.processCommand("DELETE 6"));
         assertTrue(controller.processCommand("PARK TEST001 LARGE").startsWith("Allocated slot number:"));
     }
 
@@ -47,4 +57,182 @@ class ParkingLotIntegrationTest {
         assertTrue(controller.processCommand("STATUS").contains("EMP001"));
         assertTrue(controller.processCommand("STATUS").contains("VIS002"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDuplicateVehicleRejected() {
+        controller.processCommand("CREATE 2 1 0");
+        assertEquals("Allocated slot number: 1", controller.processCommand("PARK ABC123 SMALL"));
+        assertEquals("Vehicle ABC123 is already parked", controller.processCommand("PARK ABC123 SMALL"));
+    }
+
+    @Test
+    void testBatchParkAndExit() {
+        controller.processCommand("CREATE 2 1 0");
+        assertEquals("CAR1: Allocated slot number: 1\nCAR2: Allocated slot number: 2\nCAR1: Vehicle CAR1 is already parked\nVAN1: Allocated slot number: 3",
+                controller.processCommand("BATCH PARK CAR1 SMALL CAR2 SMALL CAR1 SMALL VAN1 LARGE"));
+        assertEquals("Vehicle CAR2 exited successfully\nVehicle CAR9 not found", controller.processCommand("BATCH EXIT CAR2 CAR9"));
+        assertTrue(controller.processCommand("BATCH PARK CAR3").startsWith("Invalid BATCH command"));
+    }
+
+    @Test
+    void testPagedStatus() throws Exception {
+        assertEquals("Parking lot not created yet", controller.processCommand("STATUS"));
+        controller.processCommand("CREATE 5 0 0");
+        controller.processCommand("BATCH PARK CAR1 SMALL CAR2 SMALL CAR3 SMALL");
+        assertEquals("Slot No.\tRegistration No.\tType\n1\t\tCAR1\t\tSMALL\n2\t\tCAR2\t\tSMALL\nNext page: STATUS 2 2",
+                controller.processCommand("STATUS 0 2"));
+        assertEquals("Slot No.\tRegistration No.\tType\n3\t\tCAR3\t\tSMALL", controller.processCommand("STATUS 2 2"));
+        assertEquals("No vehicles parked after slot 3", controller.processCommand("STATUS 3 2"));
+        assertTrue(controller.processCommand("STATUS 0").startsWith("Invalid STATUS command"));
+
+        var out = new StringWriter();
+        controller.processCommand("STATUS", out);
+        assertEquals(controller.processCommand("STATUS"), out.toString());
+    }
+
+    @Test
+    void testPagedStatusOnBackendsWithoutSnapshots() {
+        for (ParkingStorage storage : new ParkingStorage[] {new ColumnarParkingStorage(), new ConcurrentParkingStorage()}) {
+            controller = new ParkingLotController(new ParkingLotService(storage, new DefaultSlotAllocationStrategy()));
+            controller.processCommand("CREATE 5 0 0");
+            controller.processCommand("BATCH PARK CAR1 SMALL CAR2 SMALL CAR3 SMALL");
+            controller.processCommand("EXIT CAR2");
+            assertEquals("Slot No.\tRegistration No.\tType\n1\t\tCAR1\t\tSMALL\nNext page: STATUS 1 1",
+                    controller.processCommand("STATUS 0 1"));
+            assertEquals("Slot No.\tRegistration No.\tType\n3\t\tCAR3\t\tSMALL", controller.processCommand("STATUS 1 1"));
+        }
+    }
+
+    @Test
+    void testMetricsCommand() {
+        controller.processCommand("CREATE 1 1 0");
+        controller.processCommand("PARK CAR1 SMALL");
+        controller.processCommand("PARK CAR2 SMALL");
+        controller.processCommand("PARK CAR3 SMALL");
+        String metrics = controller.processCommand("METRICS");
+        assertTrue(metrics.contains("SMALL\t\t1\t\t1\t\t0\t1"));
+        assertTrue(metrics.contains("Allocation failures: 1"));
+        assertTrue(metrics.contains("Upsized allocations: 1"));
+        assertTrue(metrics.contains("Latency (ns)\tSamples"));
+    }
+
+    @Test
+    void testMultipleLots() {
+        try (var registry = new LotRegistry(2)) {
+            var lots = new LotRegistryController(registry, "default", InMemoryParkingStorage::new, DefaultSlotAllocationStrategy::new);
+            lots.processCommand("CREATE 2 1 0");
+            assertEquals("Allocated slot number: 1", lots.processCommand("PARK CAR1 SMALL"));
+            assertEquals("Created lot north. Using lot north", lots.processCommand("USE north"));
+            lots.processCommand("CREATE 0 2 0");
+            assertEquals("Allocated slot number: 1", lots.processCommand("PARK VAN1 LARGE"));
+            assertEquals("default\nnorth (current)", lots.processCommand("LOTS"));
+            assertEquals("Vehicle CAR1 is parked in lot default, slot 1", lots.processCommand("FIND CAR1"));
+            assertEquals("Free LARGE slots across 2 lots: 2", lots.processCommand("FREE LARGE"));
+            assertEquals("Vehicle CAR1 exited successfully", lots.processCommand("LOT default EXIT CAR1"));
+            assertEquals("Lot south not found", lots.processCommand("LOT south STATUS"));
+            assertEquals("Using lot default", lots.processCommand("USE default"));
+            assertEquals("No vehicles parked", lots.processCommand("STATUS"));
+        }
+    }
+
+    @Test
+    void testRecreatedLotGetsFreshController() {
+        try (var registry = new LotRegistry(1, 2)) {
+            var lots = new LotRegistryController(registry, "default", InMemoryParkingStorage::new, DefaultSlotAllocationStrategy::new);
+            assertEquals("Created lot north. Using lot north", lots.processCommand("USE north"));
+            lots.processCommand("CREATE 1 0 0");
+            assertEquals("Allocated slot number: 1", lots.processCommand("PARK CAR1 SMALL"));
+            assertEquals("Cannot create lot south: limit of 2 lots reached", lots.processCommand("USE south"));
+
+            registry.removeLot("north");
+            registry.createLot("north", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+            assertEquals("Parking lot not created yet", lots.processCommand("STATUS"));
+        }
+    }
+
+    @Test
+    void testCommandParsingEdgeCases() {
+        assertEquals("Invalid command", controller.processCommand("   "));
+        assertEquals("Invalid command", controller.processCommand("PARKING A SMALL"));
+        assertEquals("Invalid number format", controller.processCommand("CREATE 1 2 99999999999"));
+        assertEquals("Slot counts must be non-negative", controller.processCommand("CREATE 1 -2 0"));
+        assertEquals("Created a parking lot with 3 slots (1 small, 2 large, 0 oversize)", controller.processCommand("\tcreate  1 2 0 "));
+        assertEquals("Invalid vehicle type. Must be SMALL, LARGE, or OVERSIZE", controller.processCommand("PARK A TRUCK"));
+        assertEquals("Allocated slot number: 1", controller.processCommand("park a small"));
+        assertEquals("Invalid slot number", controller.processCommand("EDIT x LARGE"));
+        assertEquals("Vehicle a exited successfully", controller.processCommand("exit a"));
+        assertEquals("END", controller.processCommand("end"));
+    }
+
+    @Test
+    void testSwitchAllocationStrategy() {
+        controller.processCommand("CREATE 2 1 1");
+        assertEquals("Allocation strategy: DEFAULT", controller.processCommand("STRATEGY"));
+        assertEquals("Allocation strategy set to NEAREST 4", controller.processCommand("strategy nearest 4"));
+        assertEquals("Allocated slot number: 4", controller.processCommand("PARK CAR001 SMALL"));
+        assertEquals("Allocation strategy set to BEST_FIT", controller.processCommand("STRATEGY BEST_FIT"));
+        assertEquals("Allocated slot number: 1", controller.processCommand("PARK CAR002 SMALL"));
+        assertEquals("Allocation strategy set to ZONED 2", controller.processCommand("STRATEGY ZONED 2"));
+        assertEquals("Allocated slot number: 2", controller.processCommand("PARK CAR003 SMALL"));
+        assertEquals("Invalid zone count", controller.processCommand("STRATEGY ZONED 0"));
+        assertEquals("Invalid entrance slot number", controller.processCommand("STRATEGY NEAREST x"));
+        assertTrue(controller.processCommand("STRATEGY WORST_FIT").startsWith("Invalid STRATEGY command"));
+        assertEquals("Allocation strategy: ZONED 2", controller.processCommand("STRATEGY"));
+    }
+
+    @Test
+    void testReserveConfirmCancel() {
+        controller.processCommand("CREATE 2 0 0");
+        assertEquals("Reserved slot number: 1 (held for 30 seconds)", controller.processCommand("RESERVE ABC123 SMALL"));
+        assertEquals("Vehicle ABC123 already has a reservation", controller.processCommand("RESERVE ABC123 SMALL 5"));
+        assertEquals("Reserved slot number: 2 (held for 5 seconds)", controller.processCommand("RESERVE DEF456 SMALL 5"));
+        assertEquals("Parking lot full or invalid vehicle type for available slots", controller.processCommand("PARK XYZ789 SMALL"));
+        assertEquals("Allocated slot number: 1", controller.processCommand("CONFIRM ABC123"));
+        assertEquals("Vehicle ABC123 is already parked", controller.processCommand("RESERVE ABC123 SMALL"));
+        assertEquals("Reservation for DEF456 cancelled", controller.processCommand("CANCEL DEF456"));
+        assertEquals("No active reservation for DEF456", controller.processCommand("CONFIRM DEF456"));
+        assertEquals("Invalid hold time", controller.processCommand("RESERVE XYZ789 SMALL 0"));
+        assertEquals("Allocated slot number: 2", controller.processCommand("PARK XYZ789 SMALL"));
+    }
+
+    @Test
+    void testExitReportsFee() {
+        AtomicLong now = new AtomicLong();
+        var service = new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+        service.setSessions(new ParkingSessions(now::get, new Tariff()));
+        ParkingLotController billingController = new ParkingLotController(service);
+        assertEquals("Billing is not enabled", controller.processCommand("TARIFF"));
+
+        billingController.processCommand("CREATE 2 1 0");
+        billingController.processCommand("PARK ABC123 SMALL");
+        billingController.processCommand("PARK TRK001 LARGE");
+        now.addAndGet(3 * Tariff.HOUR_MILLIS - 1);
+        assertEquals("Vehicle ABC123 exited successfully. Fee: 3.00", billingController.processCommand("EXIT ABC123"));
+        assertEquals("Vehicle ABC123 not found", billingController.processCommand("EXIT ABC123"));
+
+        assertEquals("Vehicle Type\tHourly\tDaily Cap\nSMALL\t\t1.00\t10.00\nLARGE\t\t2.05\t15.00\nOVERSIZE\t\t4.00\t40.00",
+                billingController.processCommand("TARIFF LARGE 205 1500"));
+        assertEquals("Invalid rate", billingController.processCommand("TARIFF LARGE -1 1500"));
+        assertEquals("Vehicle TRK001 exited successfully. Fee: 6.15", billingController.processCommand("EXIT TRK001"));
+        assertTrue(billingController.processCommand("METRICS").endsWith("LARGE\t\t1\t\t6.15\nOVERSIZE\t\t0\t\t0.00"));
+    }
+
+    @Test
+    void testHistory() {
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        var service = new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+        service.setOccupancyHistory(new OccupancyHistory(service.getMetrics(), now::get));
+        controller = new ParkingLotController(service);
+        assertEquals("No occupancy history yet", controller.processCommand("HISTORY SECONDS"));
+        assertEquals("Invalid count. Must be between 1 and 720", controller.processCommand("HISTORY HOURS 721"));
+        assertEquals("Invalid HISTORY command. Usage: HISTORY <SECONDS|MINUTES|HOURS> [<count>]", controller.processCommand("HISTORY DAYS"));
+        controller.processCommand("CREATE 2 0 0");
+        controller.processCommand("PARK ABC123 SMALL");
+        now.addAndGet(1000);
+        controller.processCommand("PARK XYZ789 SMALL");
+        now.addAndGet(1000);
+        assertEquals("Time (UTC)\t\t\tSMALL\tLARGE\tOVERSIZE\t(mean/peak occupied)\n"
+                + "2023-11-14T22:13:20Z\t\t1/1\t0/0\t0/0\n"
+                + "2023-11-14T22:13:21Z\t\t2/2\t0/0\t0/0", controller.processCommand("HISTORY SECONDS 2"));
+    }
+}
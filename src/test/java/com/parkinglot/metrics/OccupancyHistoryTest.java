@@ -0,0 +1,104 @@
+package com.parkinglot.metrics;
+
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.metrics.OccupancyHistory.Resolution;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyHistoryTest {
+    // Aligned to an hour so bucket boundaries are easy to reason about
+    private static final long START_MILLIS = 1_700_000_000_000L / 3_600_000 * 3_600_000;
+
+    private final AtomicLong now = new AtomicLong(START_MILLIS);
+    private ParkingLotService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+        service.createParkingLot(10, 2, 0);
+        service.setOccupancyHistory(new OccupancyHistory(service.getMetrics(), now::get));
+    }
+
+    @Test
+    void testSecondsKeepPeakAndClosingValue() {
+        service.parkVehicle("CAR1", VehicleType.SMALL);
+        service.parkVehicle("CAR2", VehicleType.SMALL);
+        service.exitVehicle("CAR2");
+        now.addAndGet(1000);
+        service.parkVehicle("TRK1", VehicleType.LARGE);
+        now.addAndGet(2000);
+
+        List<OccupancySample> samples = service.getOccupancyHistory().recent(Resolution.SECONDS, 10);
+        assertEquals(3, samples.size());
+        assertEquals(START_MILLIS, samples.get(0).getStartMillis());
+        assertEquals(1, samples.get(0).mean(VehicleType.SMALL));
+        assertEquals(2, samples.get(0).peak(VehicleType.SMALL));
+        assertEquals(0, samples.get(0).peak(VehicleType.LARGE));
+        assertEquals(1, samples.get(1).mean(VehicleType.LARGE));
+        // A quiet second is filled with the occupancy at the time it was rolled out
+        assertEquals(START_MILLIS + 2000, samples.get(2).getStartMillis());
+        assertEquals(1, samples.get(2).mean(VehicleType.LARGE));
+        assertEquals(1, samples.get(2).peak(VehicleType.SMALL));
+    }
+
+    @Test
+    void testMinutesAreTimeWeighted() {
+        service.parkVehicle("CAR1", VehicleType.SMALL);
+        now.addAndGet(15_000);
+        service.parkVehicle("CAR2", VehicleType.SMALL);
+        service.parkVehicle("CAR3", VehicleType.SMALL);
+        service.parkVehicle("CAR4", VehicleType.SMALL);
+        service.exitVehicle("CAR4");
+        now.addAndGet(45_000);
+        service.exitVehicle("CAR1");
+        now.addAndGet(60_000);
+
+        List<OccupancySample> minutes = service.getOccupancyHistory().recent(Resolution.MINUTES, 5);
+        assertEquals(2, minutes.size());
+        // 15 seconds with 1 car, then 45 seconds with 3
+        assertEquals(Math.round((15 * 1 + 45 * 3) / 60.0), minutes.get(0).mean(VehicleType.SMALL));
+        assertEquals(4, minutes.get(0).peak(VehicleType.SMALL));
+        assertEquals(2, minutes.get(1).mean(VehicleType.SMALL));
+
+        List<OccupancySample> hours = service.getOccupancyHistory().recent(Resolution.HOURS, 1);
+        assertEquals(1, hours.size());
+        assertEquals(START_MILLIS, hours.get(0).getStartMillis());
+        assertEquals(4, hours.get(0).peak(VehicleType.SMALL));
+    }
+
+    @Test
+    void testRingsStayBoundedAcrossLongGaps() {
+        service.parkVehicle("CAR1", VehicleType.SMALL);
+        now.addAndGet(90L * 24 * 3_600_000);
+        service.parkVehicle("CAR2", VehicleType.SMALL);
+
+        OccupancyHistory history = service.getOccupancyHistory();
+        assertEquals(Resolution.SECONDS.getBuckets(), history.recent(Resolution.SECONDS, 100_000).size());
+        assertEquals(Resolution.MINUTES.getBuckets(), history.recent(Resolution.MINUTES, 100_000).size());
+        List<OccupancySample> hours = history.recent(Resolution.HOURS, 100_000);
+        assertEquals(Resolution.HOURS.getBuckets(), hours.size());
+        assertEquals(1, hours.get(0).mean(VehicleType.SMALL));
+        // The second in progress is not recorded yet, so the newest bucket is the hour before the gap ended
+        assertEquals(now.get() - 3_600_000, hours.get(hours.size() - 1).getStartMillis());
+    }
+
+    @Test
+    void testQueryByRange() {
+        for (int second = 0; second < 5; second++) {
+            service.parkVehicle("CAR" + second, VehicleType.SMALL);
+            now.addAndGet(1000);
+        }
+        List<OccupancySample> samples = service.getOccupancyHistory()
+                .query(Resolution.SECONDS, START_MILLIS + 1000, START_MILLIS + 3000);
+        assertEquals(2, samples.size());
+        assertEquals(2, samples.get(0).mean(VehicleType.SMALL));
+        assertEquals(3, samples.get(1).mean(VehicleType.SMALL));
+        assertTrue(service.getOccupancyHistory().query(Resolution.MINUTES, START_MILLIS + 1, START_MILLIS + 2000).isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package com.parkinglot.metrics;
+
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParkingMetricsTest {
+    private ParkingLotService service;
+    private ParkingMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        service = new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy(), new ParkingMetrics(1));
+        metrics = service.getMetrics();
+        service.createParkingLot(1, 1, 1);
+    }
+
+    @Test
+    void testOccupancyCounters() {
+        service.parkVehicle("CAR1", VehicleType.SMALL);
+        service.parkVehicle("CAR2", VehicleType.SMALL); // Upsized into the large slot
+        assertEquals(1, metrics.occupied(VehicleType.SMALL));
+        assertEquals(1, metrics.occupied(VehicleType.LARGE));
+        assertEquals(0, metrics.free(VehicleType.LARGE));
+        assertEquals(1, metrics.upsized(VehicleType.SMALL));
+
+        service.parkVehicle("VAN1", VehicleType.LARGE);
+        service.parkVehicle("VAN2", VehicleType.LARGE);
+        assertEquals(1, metrics.allocationFailures());
+        assertEquals(2, metrics.upsizedTotal());
+
+        assertTrue(service.exitVehicle("CAR2"));
+        assertFalse(service.exitVehicle("CAR2"));
+        assertEquals(0, metrics.occupied(VehicleType.LARGE));
+        assertEquals(1, metrics.exitLatency().count());
+        assertEquals(4, metrics.parkLatency().count());
+    }
+
+    @Test
+    void testLatencyIsSampled() {
+        var sampled = new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy(), new ParkingMetrics(8));
+        sampled.createParkingLot(10_000, 0, 0);
+        for (int i = 0; i < 10_000; i++) {
+            sampled.parkVehicle("CAR" + i, VehicleType.SMALL);
+        }
+        assertEquals(10_000, sampled.getMetrics().occupied(VehicleType.SMALL));
+        long samples = sampled.getMetrics().parkLatency().count();
+        assertTrue(samples > 900 && samples < 1700, "samples=" + samples);
+        assertThrows(IllegalArgumentException.class, () -> new ParkingMetrics(3));
+    }
+
+    @Test
+    void testCapacityFollowsEditAndDelete() {
+        assertTrue(service.editSlot(1, VehicleType.OVERSIZE));
+        assertEquals(0, metrics.capacity(VehicleType.SMALL));
+        assertEquals(2, metrics.capacity(VehicleType.OVERSIZE));
+        assertTrue(service.deleteSlot(3));
+        assertEquals(1, metrics.capacity(VehicleType.OVERSIZE));
+        assertFalse(service.deleteSlot(3));
+        assertEquals(1, metrics.capacity(VehicleType.OVERSIZE));
+    }
+
+    @Test
+    void testCountersRebuiltFromExistingLot() {
+        var storage = new InMemoryParkingStorage();
+        var first = new ParkingLotService(storage, new DefaultSlotAllocationStrategy());
+        first.createParkingLot(2, 0, 0);
+        first.parkVehicle("CAR1", VehicleType.SMALL);
+        var second = new ParkingLotService(storage, new DefaultSlotAllocationStrategy());
+        assertEquals(2, second.getMetrics().capacity(VehicleType.SMALL));
+        assertEquals(1, second.getMetrics().occupied(VehicleType.SMALL));
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(500, histogram.meanNanos());
+        assertEquals(1000, histogram.maxNanos());
+        assertEquals(500, histogram.percentileNanos(0.50), 500 / 8.0);
+        assertEquals(990, histogram.percentileNanos(0.99), 990 / 8.0);
+        assertEquals(1, histogram.percentileNanos(0.0));
+        for (long value : new long[] {0, 7, 8, 100, 12345, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    void testMBeanExposesCounters() throws Exception {
+        service.parkVehicle("CAR1", VehicleType.SMALL);
+        ObjectName name = metrics.registerMBean("metrics-test");
+        try {
+            var server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(0L, server.getAttribute(name, "AllocationFailures"));
+            var occupied = (TabularData) server.getAttribute(name, "Occupied");
+            assertEquals(1L, occupied.get(new Object[] {"SMALL"}).get("value"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+}
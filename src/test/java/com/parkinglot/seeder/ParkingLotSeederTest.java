@@ -0,0 +1,129 @@
+package com.parkinglot.seeder;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.BinarySnapshot;
+import com.parkinglot.storage.FileBasedParkingStorage;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParkingLotSeederTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testBulkSeedMatchesParkingOneByOne() {
+        String[][] vehicles = {
+            {"CAR1", "SMALL"}, {"CAR2", "SMALL"}, {"CAR3", "SMALL"}, {"VAN1", "LARGE"}, {"TRK1", "OVERSIZE"}, {"VAN2", "LARGE"}
+        };
+        ParkingLotService seeded = newService();
+        new ParkingLotSeeder(seeded).seed(2, 2, 2, vehicles);
+
+        ParkingLotService parked = newService();
+        parked.createParkingLot(2, 2, 2);
+        for (String[] vehicle : vehicles) {
+            parked.parkVehicle(vehicle[0], VehicleType.valueOf(vehicle[1]));
+        }
+        for (String[] vehicle : vehicles) {
+            assertEquals(slotOf(parked, vehicle[0]), slotOf(seeded, vehicle[0]), vehicle[0]);
+        }
+        assertEquals(2, seeded.getMetrics().occupied(VehicleType.LARGE));
+        assertEquals(0, seeded.getMetrics().free(VehicleType.SMALL));
+        assertEquals(6, seeded.getOccupiedCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParkingLotSeeder(seeded).seed(1, 0, 0, new String[][] {{"CAR1", "SMALL"}, {"CAR2", "SMALL"}}));
+    }
+
+    @Test
+    void testSeedFromCsv() throws Exception {
+        Path csv = directory.resolve("fixture.csv");
+        Files.writeString(csv, "# Test fixture\nlot,3,2,1\n\nABC123,SMALL\nDEF456,large,4\nGHI789,SMALL,1\nTRK001,OVERSIZE\n");
+        ParkingLotService service = newService();
+        assertEquals(4, new ParkingLotSeeder(service).seedFromFile(csv));
+        assertEquals(6, service.getSlotCount());
+        assertEquals(2, slotOf(service, "ABC123"));
+        assertEquals(4, slotOf(service, "DEF456"));
+        assertEquals(1, slotOf(service, "GHI789"));
+        assertEquals(6, slotOf(service, "TRK001"));
+        assertEquals(3, service.parkVehicle("NEW001", VehicleType.SMALL).get());
+
+        Files.writeString(csv, "lot,1,0,0\nABC123,SMALL\nABC123,SMALL,1\n");
+        assertThrows(IllegalArgumentException.class, () -> new ParkingLotSeeder(service).seedFromCsv(csv));
+        Files.writeString(csv, "lot,1,0,0\nABC123,BUS\n");
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> new ParkingLotSeeder(service).seedFromCsv(csv));
+        assertTrue(error.getMessage().startsWith("Line 2"));
+    }
+
+    @Test
+    void testSeedFromSnapshotWritesFileStorageOnce() throws Exception {
+        int vehicles = 100_000;
+        ParkingLotService source = newService();
+        String[][] parkedVehicles = new String[vehicles][];
+        for (int i = 0; i < vehicles; i++) {
+            parkedVehicles[i] = new String[] {"PLATE" + i, i % 10 == 0 ? "LARGE" : "SMALL"};
+        }
+        new ParkingLotSeeder(source).seed(100_000, 20_000, 0, parkedVehicles);
+        Path snapshot = directory.resolve("fixture.snap");
+        BinarySnapshot.write(snapshot, source.getAllSlots());
+
+        ParkingLotService target = new ParkingLotService(
+                new FileBasedParkingStorage(directory.resolve("lot.json").toString()), new DefaultSlotAllocationStrategy());
+        assertEquals(vehicles, new ParkingLotSeeder(target).seedFromSnapshot(snapshot));
+        assertEquals(1, target.getMetrics().persistLatency().count());
+        assertEquals(vehicles, target.getOccupiedCount());
+        assertEquals(20_000 - vehicles / 10, target.getMetrics().free(VehicleType.LARGE));
+        assertEquals(slotOf(source, "PLATE99999"), slotOf(target, "PLATE99999"));
+    }
+
+    @Test
+    void testRejectsOversizedSeedFile() throws Exception {
+        Path huge = directory.resolve("huge.snapshot");
+        try (var file = new RandomAccessFile(huge.toFile(), "rw")) {
+            file.setLength(ParkingLotSeeder.MAX_SEED_FILE_BYTES + 1); // Sparse, so the test writes almost nothing
+        }
+        ParkingLotService service = newService();
+        assertThrows(IllegalArgumentException.class, () -> new ParkingLotSeeder(service).seedFromFile(huge));
+    }
+
+    @Test
+    void testRejectsLotsAboveTheSizeCap() throws Exception {
+        ParkingLotService service = newService();
+        ParkingLotSeeder seeder = new ParkingLotSeeder(service);
+        for (String lotLine : new String[] {"lot,2000000000,0,0", "lot,2000000000,2000000000,2000000000",
+                "lot," + ParkingLotService.MAX_LOT_SLOTS + ",1,0"}) {
+            Path csv = directory.resolve("big.csv");
+            Files.writeString(csv, lotLine + "\nABC123,SMALL\n");
+            assertThrows(IllegalArgumentException.class, () -> seeder.seedFromCsv(csv), lotLine);
+        }
+        assertThrows(IllegalArgumentException.class, () -> service.createParkingLot(Integer.MAX_VALUE, Integer.MAX_VALUE, 2));
+
+        // A snapshot only a few bytes long can still claim a huge slot number
+        Path snapshot = directory.resolve("far.snap");
+        BinarySnapshot.write(snapshot, List.of(new ParkingSlot(1, VehicleType.SMALL),
+                new ParkingSlot(2_000_000_000, VehicleType.SMALL)));
+        assertThrows(IllegalArgumentException.class, () -> seeder.seedFromSnapshot(snapshot));
+        assertFalse(service.isParkingLotCreated());
+    }
+
+    private static ParkingLotService newService() {
+        return new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+    }
+
+    private static int slotOf(ParkingLotService service, String vehicleNumber) {
+        List<ParkingSlot> slots = service.getStatus();
+        for (ParkingSlot slot : slots) {
+            if (slot.getParkedVehicle().getVehicleNumber().equals(vehicleNumber)) {
+                return slot.getSlotNumber();
+            }
+        }
+        return -1;
+    }
+}
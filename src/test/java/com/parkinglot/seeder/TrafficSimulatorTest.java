@@ -0,0 +1,78 @@
+package com.parkinglot.seeder;
+
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.storage.ConcurrentParkingStorage;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.strategy.BestFitSlotAllocationStrategy;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficSimulatorTest {
+    @Test
+    void testEveryArrivalIsParkedOrRejectedAndEveryParkedVehicleLeaves() {
+        TrafficSimulator simulator = new TrafficSimulator(InMemoryParkingStorage::new, DefaultSlotAllocationStrategy::new);
+        SimulationConfig config = new SimulationConfig(50, 20, 5, 20_000, ArrivalProcess.poisson(0.05))
+                .withLots(3, 2);
+        SimulationReport report = simulator.run(config);
+
+        assertEquals(20_000, report.getArrivals());
+        assertTrue(report.getRejected() > 0);
+        assertEquals(report.getArrivals() - report.getRejected(), report.getExits());
+        assertEquals(report.getArrivals(), report.getParkLatency().count());
+        assertEquals(report.getExits(), report.getExitLatency().count());
+        // Oversize vehicles only fit oversize slots, so they are turned away most often
+        assertTrue(report.rejected(VehicleType.OVERSIZE) * report.arrivals(VehicleType.SMALL)
+                > report.rejected(VehicleType.SMALL) * report.arrivals(VehicleType.OVERSIZE));
+        assertTrue(report.getSimulatedSeconds() > 0);
+    }
+
+    @Test
+    void testUncongestedLotRejectsNothing() {
+        TrafficSimulator simulator = new TrafficSimulator(InMemoryParkingStorage::new, BestFitSlotAllocationStrategy::new);
+        // 0.01 arrivals per second for 10 minutes on average keeps about 6 of 1000 slots busy
+        SimulationConfig config = new SimulationConfig(600, 300, 100, 5_000, ArrivalProcess.poisson(0.01))
+                .withMeanDwellSeconds(600);
+        SimulationReport report = simulator.run(config);
+        assertEquals(0, report.getRejected());
+        assertEquals(5_000, report.getExits());
+        assertEquals(0, report.getRejectionRate());
+    }
+
+    @Test
+    void testThreadsCanShareAThreadSafeLot() {
+        TrafficSimulator simulator = new TrafficSimulator(ConcurrentParkingStorage::new, DefaultSlotAllocationStrategy::new);
+        SimulationConfig config = new SimulationConfig(40, 10, 0, 30_000, ArrivalProcess.rushHour(0.01, 0.2))
+                .withLots(1, 4)
+                .withVehicleMix(3, 1, 0)
+                .withMeanDwellSeconds(1800);
+        SimulationReport report = simulator.run(config);
+        assertEquals(30_000, report.getArrivals());
+        assertEquals(0, report.arrivals(VehicleType.OVERSIZE));
+        assertEquals(report.getArrivals() - report.getRejected(), report.getExits());
+    }
+
+    @Test
+    void testArrivalProcessFollowsTheRateCurve() {
+        ArrivalProcess rushHour = ArrivalProcess.rushHour(1, 10);
+        assertEquals(10, rushHour.ratePerSecond(8.5 * 3600), 1e-9);
+        assertEquals(10, rushHour.ratePerSecond(ArrivalProcess.DAY_SECONDS + 17.5 * 3600), 1e-9);
+        assertEquals(1, rushHour.ratePerSecond(3 * 3600), 0.01);
+
+        ArrivalProcess spiked = ArrivalProcess.poisson(2).withSpike(100, 50, 4);
+        assertEquals(8, spiked.ratePerSecond(120));
+        assertEquals(2, spiked.ratePerSecond(150));
+        assertEquals(8, spiked.getPeakRatePerSecond());
+
+        Random random = new Random(1);
+        double second = 0;
+        int arrivals = 0;
+        while ((second = spiked.nextArrival(second, 1, random)) < 1000) {
+            arrivals++;
+        }
+        // 950 seconds at 2/s and 50 seconds at 8/s
+        assertEquals(2300, arrivals, 200);
+        assertThrows(IllegalArgumentException.class, () -> ArrivalProcess.poisson(0));
+    }
+}
@@ -0,0 +1,139 @@
+package com.parkinglot.server;
+
+import com.parkinglot.service.LotRegistry;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GateServerTest {
+    private LotRegistry registry;
+    private GateServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        registry = new LotRegistry(2);
+        server = new GateServer(registry, "default", new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        registry.close();
+    }
+
+    @Test
+    void testPipelinedCommandsAnsweredInOrder() throws Exception {
+        try (Socket socket = connect()) {
+            send(socket, "CREATE 2 1 0\nPARK CAR1 SMALL\nPARK CAR2 SMALL\nSTATUS\nEXIT CAR1\n");
+            BufferedReader in = reader(socket);
+            assertEquals("Created a parking lot with 3 slots (2 small, 1 large, 0 oversize)", readReply(in));
+            assertEquals("Allocated slot number: 1", readReply(in));
+            assertEquals("Allocated slot number: 2", readReply(in));
+            assertEquals("Slot No.\tRegistration No.\tType\n1\t\tCAR1\t\tSMALL\n2\t\tCAR2\t\tSMALL", readReply(in));
+            assertEquals("Vehicle CAR1 exited successfully", readReply(in));
+
+            send(socket, "END\nPARK CAR3 SMALL\n");
+            assertEquals("Goodbye", readReply(in));
+            assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    void testManyConcurrentGates() throws Exception {
+        try (Socket admin = connect()) {
+            send(admin, "CREATE 500 0 0\n");
+            assertTrue(readReply(reader(admin)).startsWith("Created"));
+        }
+
+        List<Socket> gates = new ArrayList<>();
+        try {
+            for (int i = 0; i < 500; i++) {
+                gates.add(connect());
+            }
+            for (int i = 0; i < gates.size(); i++) {
+                send(gates.get(i), "PARK CAR" + i + " SMALL\n");
+            }
+            for (Socket gate : gates) {
+                assertTrue(readReply(reader(gate)).startsWith("Allocated slot number: "));
+            }
+        } finally {
+            for (Socket gate : gates) {
+                gate.close();
+            }
+        }
+
+        try (Socket admin = connect()) {
+            send(admin, "PARK LATE SMALL\nUSE north\nLOTS\n");
+            BufferedReader in = reader(admin);
+            assertEquals("Parking lot full or invalid vehicle type for available slots", readReply(in));
+            assertEquals("Created lot north. Using lot north", readReply(in));
+            assertEquals("default\nnorth (current)", readReply(in));
+        }
+    }
+
+    @Test
+    void testSeedFileIsConfinedToSeedDirectory(@TempDir Path tempDir) throws Exception {
+        Path seeds = Files.createDirectory(tempDir.resolve("seeds"));
+        Files.writeString(seeds.resolve("lot.csv"), "lot,2,0,0\nCAR1,SMALL\n");
+        Files.writeString(tempDir.resolve("secret.csv"), "lot,1,0,0\nTOP-SECRET,SMALL\n");
+        Files.writeString(seeds.resolve("bad.csv"), "lot,1,0,0\nTOP-SECRET,TRUCK\n");
+
+        try (Socket gate = connect()) {
+            send(gate, "SEED FILE " + seeds.resolve("lot.csv") + "\n");
+            assertEquals("SEED FILE is not available on this connection", readReply(reader(gate)));
+        }
+
+        server.setSeedDirectory(seeds);
+        try (Socket gate = connect()) {
+            send(gate, "SEED FILE lot.csv\nSEED FILE ../secret.csv\nSEED FILE " + tempDir.resolve("secret.csv")
+                    + "\nSEED FILE bad.csv\n");
+            BufferedReader in = reader(gate);
+            assertEquals("Parking lot seeded with 1 vehicles from lot.csv", readReply(in));
+            assertEquals("Seed file must be inside the seed directory", readReply(in));
+            assertEquals("Seed file must be inside the seed directory", readReply(in));
+            assertEquals("Failed to seed data from bad.csv", readReply(in));
+        }
+    }
+
+    private Socket connect() throws Exception {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String commands) throws Exception {
+        OutputStream out = socket.getOutputStream();
+        out.write(commands.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static BufferedReader reader(Socket socket) throws Exception {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static String readReply(BufferedReader in) throws Exception {
+        StringBuilder reply = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            if (reply.length() > 0) {
+                reply.append('\n');
+            }
+            reply.append(line);
+        }
+        return reply.toString();
+    }
+}
@@ -0,0 +1,196 @@
+package com.parkinglot.service;
+
+import com.parkinglot.billing.ParkingClock;
+import com.parkinglot.billing.ParkingSessions;
+import com.parkinglot.billing.SessionLog;
+import com.parkinglot.billing.Tariff;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LotRegistryTest {
+    private LotRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new LotRegistry(4);
+        for (int i = 0; i < 8; i++) {
+            registry.createLot("lot" + i, new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+            registry.execute("lot" + i, service -> {
+                service.createParkingLot(10, 5, 1);
+                return null;
+            });
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    void testLotsAreIndependent() {
+        assertEquals(Optional.of(1), registry.execute("lot0", service -> service.parkVehicle("CAR1", VehicleType.SMALL)));
+        assertEquals(Optional.of(1), registry.execute("lot1", service -> service.parkVehicle("CAR2", VehicleType.SMALL)));
+        assertFalse(registry.<Boolean>execute("lot1", service -> service.isVehicleParked("CAR1")));
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.createLot("lot0", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy()));
+        assertThrows(IllegalArgumentException.class, () -> registry.execute("missing", ParkingLotService::getSlotCount));
+    }
+
+    @Test
+    void testCrossLotQueries() {
+        registry.execute("lot5", service -> service.parkVehicle("VAN1", VehicleType.LARGE));
+        registry.execute("lot6", service -> service.parkVehicle("VAN2", VehicleType.LARGE));
+
+        VehicleLocation location = registry.findVehicle("VAN1").join().get();
+        assertEquals("lot5", location.getLotId());
+        assertEquals(11, location.getSlot().getSlotNumber());
+        assertTrue(registry.findVehicle("NOPE").join().isEmpty());
+        assertEquals(8 * 5 - 2, registry.totalFree(VehicleType.LARGE).join());
+        assertEquals(2, registry.totalOccupied().join());
+    }
+
+    @Test
+    void testLotsSpreadAcrossShardsAndRunInParallel() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Optional<Integer>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String lotId = "lot" + i;
+            for (int car = 0; car < 10; car++) {
+                String vehicleNumber = lotId + "-CAR" + car;
+                results.add(registry.submit(lotId, service -> {
+                    threads.add(Thread.currentThread().getName());
+                    return service.parkVehicle(vehicleNumber, VehicleType.SMALL);
+                }));
+            }
+        }
+        results.forEach(result -> assertTrue(result.join().isPresent()));
+        assertEquals(4, threads.size());
+        assertEquals(0, registry.totalFree(VehicleType.SMALL).join());
+    }
+
+    @Test
+    void testRemoveLot() {
+        assertTrue(registry.removeLot("lot3"));
+        assertFalse(registry.removeLot("lot3"));
+        assertFalse(registry.getLotIds().contains("lot3"));
+        assertEquals(7 * 10, registry.totalFree(VehicleType.SMALL).join());
+    }
+
+    @Test
+    void testLotLimit() {
+        try (LotRegistry limited = new LotRegistry(2, 2)) {
+            limited.createLot("a", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+            assertThrows(IllegalArgumentException.class,
+                    () -> limited.createLot("a", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy()));
+            limited.createLot("b", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+            assertThrows(IllegalStateException.class,
+                    () -> limited.createLot("c", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy()));
+
+            assertTrue(limited.removeLot("a"));
+            limited.createLot("c", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+            assertEquals(Set.of("b", "c"), limited.getLotIds());
+        }
+    }
+
+    @Test
+    void testRejectsLotIdsThatAreNotPlainNames() {
+        for (String lotId : new String[] {"", "../etc", "a/b", "north lot", "x".repeat(65)}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> registry.createLot(lotId, new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy()));
+        }
+        registry.createLot("North_2-a", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+        assertTrue(registry.hasLot("North_2-a"));
+    }
+
+    @Test
+    void testSessionsOpenOnlyForTheCreatorThatWins() throws Exception {
+        AtomicInteger opened = new AtomicInteger();
+        registry.setSessionFactory(lotId -> {
+            if (lotId.equals("contested")) {
+                opened.incrementAndGet();
+            }
+            return new ParkingSessions(ParkingClock.monotonic(), new Tariff());
+        });
+        List<CompletableFuture<Void>> creators = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            creators.add(CompletableFuture.runAsync(() -> {
+                try {
+                    registry.createLot("contested", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+                } catch (IllegalArgumentException e) {
+                    // Lost the race
+                }
+            }));
+        }
+        creators.forEach(CompletableFuture::join);
+        assertEquals(1, opened.get());
+        assertNotNull(registry.execute("contested", ParkingLotService::getSessions));
+    }
+
+    @Test
+    void testClosedSessionsReachTheLogWithoutFurtherTraffic(@TempDir Path tempDir) throws Exception {
+        ParkingClock clock = ParkingClock.monotonic();
+        registry.setSessionFactory(lotId -> new ParkingSessions(clock, new Tariff(),
+                new SessionLog(tempDir.resolve(lotId + ".sessions"))));
+        registry.createLot("billed", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+        registry.execute("billed", service -> {
+            service.createParkingLot(1, 0, 0);
+            service.parkVehicle("CAR1", VehicleType.SMALL);
+            return service.exitVehicle("CAR1");
+        });
+
+        Path logFile = tempDir.resolve("billed.sessions");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (SessionLog.read(logFile).isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "closed session was never flushed");
+            Thread.sleep(20);
+        }
+        assertEquals("CAR1", SessionLog.read(logFile).get(0).getVehicleNumber());
+    }
+
+    @Test
+    void testRejectedLotClosesItsStorage() {
+        List<ClosingStorage> rejected = new ArrayList<>();
+        try (LotRegistry limited = new LotRegistry(1, 1)) {
+            limited.createLot("a", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+            for (String lotId : new String[] {"a", "b", "../c"}) {
+                ClosingStorage storage = new ClosingStorage();
+                rejected.add(storage);
+                assertThrows(RuntimeException.class, () -> limited.createLot(lotId, storage, new DefaultSlotAllocationStrategy()));
+            }
+
+            limited.setSessionFactory(lotId -> {
+                throw new IllegalStateException("billing unavailable");
+            });
+            assertTrue(limited.removeLot("a"));
+            ClosingStorage storage = new ClosingStorage();
+            rejected.add(storage);
+            assertThrows(IllegalStateException.class, () -> limited.createLot("d", storage, new DefaultSlotAllocationStrategy()));
+            assertFalse(limited.hasLot("d"));
+        }
+        rejected.forEach(storage -> assertTrue(storage.closed));
+    }
+
+    private static final class ClosingStorage extends InMemoryParkingStorage implements AutoCloseable {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
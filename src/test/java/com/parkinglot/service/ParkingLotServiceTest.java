@@ -1,10 +1,13 @@
 package com.parkinglot.service;
 
+import com.parkinglot.domain.Vehicle;
 import com.parkinglot.domain.VehicleType;
 import com.parkinglot.storage.InMemoryParkingStorage;
 import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 
 class ParkingLotServiceTest {
@@ -75,4 +78,27 @@ class ParkingLotServiceTest {
         service.parkVehicle("ABC123", VehicleType.SMALL);
         assertFalse(service.deleteSlot(1)); // Cannot delete occupied slot
     }
+
+    @Test
+    void testCompactSlotNumber() {
+        service.createParkingLot(5, 3, 2);
+        assertEquals(7, service.getCompactSlotNumber(7).get());
+        service.deleteSlot(2);
+        service.deleteSlot(5);
+        assertEquals(5, service.getCompactSlotNumber(7).get());
+        assertTrue(service.getCompactSlotNumber(2).isEmpty());
+        assertEquals(6, service.parkVehicle("ABC123", VehicleType.LARGE).get());
+    }
+
+    @Test
+    void testParkAndExitVehicles() {
+        service.createParkingLot(1, 1, 0);
+        var results = service.parkVehicles(List.of(
+            new Vehicle("ABC123", VehicleType.SMALL),
+            new Vehicle("DEF456", VehicleType.SMALL),
+            new Vehicle("GHI789", VehicleType.SMALL)
+        ));
+        assertEquals(List.of(Optional.of(1), Optional.of(2), Optional.empty()), results);
+        assertEquals(List.of(true, false), service.exitVehicles(List.of("DEF456", "XYZ000")));
+    }
 }
\ No newline at end of file
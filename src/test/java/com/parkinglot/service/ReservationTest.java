@@ -0,0 +1,97 @@
+package com.parkinglot.service;
+
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.storage.ConcurrentParkingStorage;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationTest {
+    private static final long LONG_HOLD_MILLIS = 60_000;
+
+    private ParkingLotService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+        service.createParkingLot(2, 1, 0);
+    }
+
+    @Test
+    void testReservedSlotIsSkippedUntilConfirmed() {
+        Reservation reservation = service.reserveSlot("ABC123", VehicleType.SMALL, LONG_HOLD_MILLIS).get();
+        assertEquals(1, reservation.getSlotNumber());
+        assertEquals(2, service.parkVehicle("XYZ789", VehicleType.SMALL).get());
+        assertFalse(service.isVehicleParked("ABC123"));
+
+        assertEquals(Optional.of(1), service.confirmReservation("ABC123"));
+        assertTrue(service.isVehicleParked("ABC123"));
+        assertEquals(0, service.getReservationCount());
+        assertTrue(service.confirmReservation("ABC123").isEmpty());
+        assertEquals(2, service.getMetrics().occupied(VehicleType.SMALL));
+    }
+
+    @Test
+    void testParkUsesTheReservation() {
+        service.reserveSlot("ABC123", VehicleType.SMALL, LONG_HOLD_MILLIS);
+        service.reserveSlot("DEF456", VehicleType.SMALL, LONG_HOLD_MILLIS);
+        assertEquals(Optional.of(2), service.parkVehicle("DEF456", VehicleType.SMALL));
+        // A vehicle that turns out to be bigger than reserved gives the hold back and is allocated normally
+        assertEquals(Optional.of(3), service.parkVehicle("ABC123", VehicleType.LARGE));
+        assertEquals(0, service.getReservationCount());
+        assertEquals(Optional.of(1), service.parkVehicle("GHI789", VehicleType.SMALL));
+    }
+
+    @Test
+    void testCancelAndDuplicateReservations() {
+        assertTrue(service.reserveSlot("ABC123", VehicleType.LARGE, LONG_HOLD_MILLIS).isPresent());
+        assertTrue(service.reserveSlot("ABC123", VehicleType.SMALL, LONG_HOLD_MILLIS).isEmpty());
+        assertTrue(service.reserveSlot("TRK001", VehicleType.LARGE, LONG_HOLD_MILLIS).isEmpty());
+        assertEquals(1, service.getMetrics().allocationFailures());
+
+        assertTrue(service.cancelReservation("ABC123"));
+        assertFalse(service.cancelReservation("ABC123"));
+        assertEquals(Optional.of(3), service.parkVehicle("TRK001", VehicleType.LARGE));
+        assertThrows(IllegalArgumentException.class, () -> service.reserveSlot("CAR001", VehicleType.SMALL, 0));
+    }
+
+    @Test
+    void testExpiredHoldIsReleased() throws Exception {
+        ParkingLotService concurrentService = new ParkingLotService(new ConcurrentParkingStorage(), new DefaultSlotAllocationStrategy());
+        concurrentService.createParkingLot(1, 0, 0);
+        assertTrue(concurrentService.reserveSlot("ABC123", VehicleType.SMALL, 20).isPresent());
+        assertTrue(concurrentService.parkVehicle("XYZ789", VehicleType.SMALL).isEmpty());
+
+        awaitNoReservations(concurrentService);
+        assertTrue(concurrentService.confirmReservation("ABC123").isEmpty());
+        assertEquals(Optional.of(1), concurrentService.parkVehicle("XYZ789", VehicleType.SMALL));
+    }
+
+    @Test
+    void testRegistryExpiresHoldsOnTheLotShard() throws Exception {
+        try (LotRegistry registry = new LotRegistry(1)) {
+            registry.createLot("north", new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+            registry.execute("north", service -> {
+                service.createParkingLot(1, 0, 0);
+                return service.reserveSlot("ABC123", VehicleType.SMALL, 20);
+            });
+            long deadline = System.currentTimeMillis() + 5000;
+            while (registry.<Integer>execute("north", ParkingLotService::getReservationCount) > 0) {
+                assertTrue(System.currentTimeMillis() < deadline, "hold did not expire");
+                Thread.sleep(5);
+            }
+            assertEquals(Optional.of(1), registry.execute("north", service -> service.parkVehicle("XYZ789", VehicleType.SMALL)));
+        }
+    }
+
+    private static void awaitNoReservations(ParkingLotService service) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getReservationCount() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "hold did not expire");
+            Thread.sleep(5);
+        }
+    }
+}
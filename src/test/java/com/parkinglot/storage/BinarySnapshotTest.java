@@ -0,0 +1,56 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWriteAndRead() throws IOException {
+        ParkingSlot occupied = new ParkingSlot(2, VehicleType.OVERSIZE);
+        occupied.setParkedVehicle(new Vehicle("TRUCK-\u00df1", VehicleType.LARGE));
+        Path snapshot = directory.resolve("lot.snap");
+        BinarySnapshot.write(snapshot, List.of(new ParkingSlot(1, VehicleType.SMALL), occupied));
+
+        var slots = BinarySnapshot.read(snapshot);
+        assertEquals(2, slots.size());
+        assertFalse(slots.get(0).isOccupied());
+        assertEquals(VehicleType.OVERSIZE, slots.get(1).getSupportedType());
+        assertEquals("TRUCK-\u00df1", slots.get(1).getParkedVehicle().getVehicleNumber());
+        assertEquals(VehicleType.LARGE, slots.get(1).getParkedVehicle().getType());
+    }
+
+    @Test
+    void testJsonRoundTrip() throws IOException {
+        Path json = directory.resolve("lot.json");
+        var storage = new FileBasedParkingStorage(json.toString());
+        storage.initializeSlots(2, 1, 1);
+        storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(1));
+
+        Path snapshot = directory.resolve("lot.snap");
+        Path exported = directory.resolve("exported.json");
+        BinarySnapshot.importJson(json, snapshot);
+        BinarySnapshot.exportJson(snapshot, exported);
+        assertEquals(Files.readString(json), Files.readString(exported));
+    }
+
+    @Test
+    void testRejectTruncatedSnapshot() throws IOException {
+        Path snapshot = directory.resolve("lot.snap");
+        BinarySnapshot.write(snapshot, List.of(new ParkingSlot(1, VehicleType.SMALL)));
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> BinarySnapshot.read(snapshot));
+    }
+}
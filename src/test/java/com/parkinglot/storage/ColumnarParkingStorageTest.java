@@ -0,0 +1,116 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.parkinglot.domain.ParkingSlot;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarParkingStorageTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testParkExitEditDelete(boolean offHeap) {
+        ParkingStorage storage = new ColumnarParkingStorage(offHeap);
+        storage.initializeSlots(5, 3, 2);
+        assertEquals(10, storage.getAllSlots().size());
+        assertEquals(VehicleType.LARGE, storage.getAllSlots().get(5).getSupportedType());
+
+        assertTrue(storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(0)));
+        assertFalse(storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(1)));
+        assertFalse(storage.parkVehicle(new Vehicle("TRK001", VehicleType.OVERSIZE), storage.getAllSlots().get(1)));
+        assertTrue(storage.parkVehicle(new Vehicle("TRK001", VehicleType.OVERSIZE), storage.getAllSlots().get(9)));
+        assertEquals("ABC123", storage.getAllSlots().get(0).getParkedVehicle().getVehicleNumber());
+
+        assertFalse(storage.editSlot(1, VehicleType.LARGE));
+        assertTrue(storage.editSlot(2, VehicleType.LARGE));
+        assertTrue(storage.deleteSlot(3));
+        assertEquals(9, storage.getAllSlots().size());
+        assertEquals(10, storage.findSlotByVehicleNumber("TRK001").get().getSlotNumber());
+        assertTrue(storage.getSlot(3).isEmpty());
+        assertEquals(VehicleType.OVERSIZE, storage.getSlot(10).get().getParkedVehicle().getType());
+
+        assertTrue(storage.exitVehicle("TRK001"));
+        assertFalse(storage.exitVehicle("TRK001"));
+        assertTrue(storage.findSlotByVehicleNumber("TRK001").isEmpty());
+        assertEquals(2, storage.getFreeSlotIndex().freeCount(VehicleType.OVERSIZE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testAllocatesLowestCompatibleSlot(boolean offHeap) {
+        ParkingLotService service = new ParkingLotService(new ColumnarParkingStorage(offHeap), new DefaultSlotAllocationStrategy());
+        service.createParkingLot(200, 100, 100);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i + 1, service.parkVehicle("CAR" + i, VehicleType.SMALL).get());
+        }
+        assertEquals(201, service.parkVehicle("CAR200", VehicleType.SMALL).get());
+        assertTrue(service.exitVehicle("CAR70"));
+        assertEquals(202, service.parkVehicle("VAN1", VehicleType.LARGE).get());
+        assertEquals(301, service.parkVehicle("TRK1", VehicleType.OVERSIZE).get());
+        assertEquals(71, service.parkVehicle("CAR70", VehicleType.SMALL).get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testOccupiedSlotsViewAndCounts(boolean offHeap) {
+        ColumnarParkingStorage storage = new ColumnarParkingStorage(offHeap);
+        storage.initializeSlots(5, 3, 2);
+        storage.parkVehicle(new Vehicle("CAR2", VehicleType.SMALL), storage.getSlot(2).get());
+        storage.parkVehicle(new Vehicle("TRK9", VehicleType.OVERSIZE), storage.getSlot(9).get());
+        assertTrue(storage.deleteSlot(1));
+        assertEquals(9, storage.getSlotCount());
+        assertEquals(2, storage.getOccupiedCount());
+
+        var iterator = storage.getOccupiedSlots(2).iterator();
+        assertEquals("TRK9", iterator.next().getParkedVehicle().getVehicleNumber());
+        assertFalse(iterator.hasNext());
+        assertEquals(2, storage.getOccupiedSlots(0).iterator().next().getSlotNumber());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testHoldsLeaveFreeBitmap(boolean offHeap) {
+        ParkingStorage storage = new ColumnarParkingStorage(offHeap);
+        storage.initializeSlots(3, 1, 0);
+        assertTrue(storage.holdSlot(storage.getSlot(1).get()));
+        assertFalse(storage.holdSlot(storage.getSlot(1).get()));
+        assertEquals(2, storage.getFreeSlotIndex().freeCount(VehicleType.SMALL));
+        assertEquals(2, storage.getFreeSlotIndex().lowestCompatible(VehicleType.SMALL).get().getSlotNumber());
+        assertFalse(storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getSlot(1).get()));
+        assertFalse(storage.deleteSlot(1));
+
+        assertFalse(storage.parkInHeldSlot(new Vehicle("TRK001", VehicleType.LARGE), 1));
+        assertTrue(storage.parkInHeldSlot(new Vehicle("ABC123", VehicleType.SMALL), 1));
+        assertEquals("ABC123", storage.getSlot(1).get().getParkedVehicle().getVehicleNumber());
+        assertEquals(1, storage.getOccupiedCount());
+        assertTrue(storage.exitVehicle("ABC123"));
+        assertEquals(3, storage.getFreeSlotIndex().freeCount(VehicleType.SMALL));
+
+        assertTrue(storage.holdSlot(storage.getSlot(4).get()));
+        assertTrue(storage.releaseHold(4));
+        assertFalse(storage.releaseHold(4));
+        assertEquals(1, storage.getFreeSlotIndex().freeCount(VehicleType.LARGE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testRestoreSlotsKeepsGapsAndOccupancy(boolean offHeap) {
+        ParkingSlot occupied = new ParkingSlot(2, VehicleType.LARGE);
+        occupied.setParkedVehicle(new Vehicle("ABC123", VehicleType.SMALL));
+        ParkingStorage storage = new ColumnarParkingStorage(offHeap);
+        storage.restoreSlots(List.of(new ParkingSlot(1, VehicleType.SMALL), occupied, new ParkingSlot(4, VehicleType.OVERSIZE)));
+
+        assertEquals(3, storage.getSlotCount());
+        assertTrue(storage.getSlot(3).isEmpty());
+        assertEquals(2, storage.findSlotByVehicleNumber("ABC123").get().getSlotNumber());
+        assertEquals(0, storage.getFreeSlotIndex().freeCount(VehicleType.LARGE));
+        assertEquals(4, storage.getFreeSlotIndex().lowestFree(VehicleType.OVERSIZE).get().getSlotNumber());
+        assertTrue(storage.exitVehicle("ABC123"));
+        assertEquals(2, storage.getFreeSlotIndex().lowestCompatible(VehicleType.LARGE).get().getSlotNumber());
+    }
+}
@@ -0,0 +1,220 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.billing.ParkingSessions;
+import com.parkinglot.billing.Tariff;
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.strategy.DefaultSlotAllocationStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentParkingStorageTest {
+    private ParkingStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new ConcurrentParkingStorage();
+    }
+
+    @Test
+    void testSlotClaimedOnce() {
+        storage.initializeSlots(2, 0, 0);
+        ParkingSlot slot = storage.getAllSlots().get(0);
+        assertTrue(storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), slot));
+        assertFalse(storage.parkVehicle(new Vehicle("XYZ789", VehicleType.SMALL), slot));
+        assertFalse(storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(1)));
+        assertTrue(storage.getFreeSlotIndex().contains(storage.getAllSlots().get(1)));
+        assertTrue(storage.exitVehicle("ABC123"));
+        assertTrue(storage.getFreeSlotIndex().contains(slot));
+    }
+
+    @Test
+    void testParallelGatesGetDistinctSlots() throws Exception {
+        int slotCount = 500;
+        storage.initializeSlots(slotCount, 0, 0);
+        ParkingLotService service = new ParkingLotService(storage, new DefaultSlotAllocationStrategy());
+        ExecutorService gates = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<Integer>>> results = new ArrayList<>();
+            for (int i = 0; i < slotCount + 50; i++) {
+                String vehicleNumber = "CAR" + i;
+                results.add(gates.submit(() -> service.parkVehicle(vehicleNumber, VehicleType.SMALL)));
+            }
+            Set<Integer> allocated = new HashSet<>();
+            int rejected = 0;
+            for (Future<Optional<Integer>> result : results) {
+                Optional<Integer> slotNumber = result.get();
+                if (slotNumber.isPresent()) {
+                    assertTrue(allocated.add(slotNumber.get()));
+                } else {
+                    rejected++;
+                }
+            }
+            assertEquals(slotCount, allocated.size());
+            assertEquals(50, rejected);
+        } finally {
+            gates.shutdown();
+        }
+    }
+
+    @Test
+    void testHoldAndParkRaceForOneSlot() throws Exception {
+        ExecutorService gates = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 200; round++) {
+                storage.initializeSlots(1, 0, 0);
+                ParkingSlot slot = storage.getAllSlots().get(0);
+                Future<Boolean> held = gates.submit(() -> storage.holdSlot(slot));
+                Vehicle vehicle = new Vehicle("CAR" + round, VehicleType.SMALL);
+                Future<Boolean> parked = gates.submit(() -> storage.parkVehicle(vehicle, slot));
+                assertTrue(held.get() ^ parked.get());
+                assertFalse(storage.getFreeSlotIndex().contains(slot));
+                if (held.get()) {
+                    assertTrue(storage.parkInHeldSlot(new Vehicle("RES" + round, VehicleType.SMALL), 1));
+                }
+                assertEquals(1, storage.getOccupiedCount());
+            }
+        } finally {
+            gates.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRacingExitsFreeOneOccupancy() throws Exception {
+        storage.initializeSlots(100, 0, 0);
+        ParkingLotService service = new ParkingLotService(storage, new DefaultSlotAllocationStrategy());
+        ExecutorService gates = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 200; round++) {
+                String vehicleNumber = "CAR" + round;
+                assertTrue(service.parkVehicle(vehicleNumber, VehicleType.SMALL).isPresent());
+                List<Future<Long>> exits = new ArrayList<>();
+                for (int gate = 0; gate < 4; gate++) {
+                    exits.add(gates.submit(() -> service.exitAndCharge(vehicleNumber)));
+                }
+                int succeeded = 0;
+                for (Future<Long> exit : exits) {
+                    succeeded += exit.get() >= 0 ? 1 : 0;
+                }
+                assertEquals(1, succeeded);
+            }
+        } finally {
+            gates.shutdown();
+        }
+        assertEquals(0, storage.getOccupiedCount());
+        assertEquals(0, service.getMetrics().occupied(VehicleType.SMALL));
+    }
+
+    @Test
+    void testSnapshotFollowsParallelGates() throws Exception {
+        storage.initializeSlots(64, 0, 0);
+        ParkingLotService service = new ParkingLotService(storage, new DefaultSlotAllocationStrategy());
+        assertTrue(storage.publishesSnapshots());
+        ExecutorService gates = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int gate = 0; gate < 4; gate++) {
+                String prefix = "G" + gate + "-";
+                runs.add(gates.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        service.parkVehicle(prefix + (i % 20), VehicleType.SMALL);
+                        if (i % 3 == 0) {
+                            service.exitVehicle(prefix + ((i + 7) % 20));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            gates.shutdown();
+        }
+        // Every late publish re-read its slot, so the last snapshot matches the live slots exactly
+        LotSnapshot snapshot = storage.getSnapshot();
+        assertEquals(storage.getOccupiedCount(), snapshot.getOccupiedCount());
+        for (ParkingSlot slot : storage.getAllSlots()) {
+            SlotState state = snapshot.getSlot(slot.getSlotNumber()).get();
+            assertEquals(slot.isOccupied(), state.isOccupied());
+            if (slot.isOccupied()) {
+                assertSame(slot.getParkedVehicle(), state.getParkedVehicle());
+            }
+        }
+
+        for (ParkingSlot slot : storage.getAllSlots()) {
+            if (slot.isOccupied()) {
+                assertTrue(storage.exitVehicle(slot.getParkedVehicle().getVehicleNumber()));
+            }
+        }
+        assertTrue(storage.deleteSlot(64));
+        assertEquals(0, storage.getSnapshot().getOccupiedCount());
+        assertEquals(63, storage.getSnapshot().getSlotCount());
+        assertTrue(storage.getSnapshot().getSlot(64).isEmpty());
+    }
+
+    @Test
+    void testSlotReusedDuringExitBillsBothSessions() throws Exception {
+        // Each exit waits, after freeing the slot, until another gate has parked the next car in it
+        AtomicReference<CountDownLatch> nextParked = new AtomicReference<>();
+        ConcurrentParkingStorage gated = new ConcurrentParkingStorage() {
+            @Override
+            public Optional<SlotState> removeVehicle(String vehicleNumber) {
+                Optional<SlotState> exited = super.removeVehicle(vehicleNumber);
+                try {
+                    assertTrue(nextParked.get().await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return exited;
+            }
+        };
+        gated.initializeSlots(1, 0, 0);
+        ParkingLotService service = new ParkingLotService(gated, new DefaultSlotAllocationStrategy());
+        AtomicLong now = new AtomicLong(0);
+        service.setSessions(new ParkingSessions(now::get, new Tariff()));
+        ExecutorService gates = Executors.newFixedThreadPool(2);
+        try {
+            String leaving = "CAR0";
+            assertEquals(1, service.parkVehicle(leaving, VehicleType.SMALL).get());
+            for (int round = 1; round <= 20; round++) {
+                now.addAndGet(Tariff.HOUR_MILLIS);
+                CountDownLatch parked = new CountDownLatch(1);
+                nextParked.set(parked);
+                String exiting = leaving;
+                String arriving = "CAR" + round;
+                Future<Long> exit = gates.submit(() -> service.exitAndCharge(exiting));
+                Future<Integer> park = gates.submit(() -> {
+                    Optional<Integer> slotNumber = service.parkVehicle(arriving, VehicleType.SMALL);
+                    while (slotNumber.isEmpty()) {
+                        slotNumber = service.parkVehicle(arriving, VehicleType.SMALL);
+                    }
+                    parked.countDown();
+                    return slotNumber.get();
+                });
+                assertEquals(1, park.get());
+                assertEquals(100, exit.get(), "fee of " + exiting);
+                leaving = arriving;
+            }
+        } finally {
+            gates.shutdown();
+        }
+        assertEquals(20, service.getSessions().closedSessions(VehicleType.SMALL));
+        assertEquals(20 * 100, service.getSessions().revenueCents(VehicleType.SMALL));
+    }
+}
@@ -2,12 +2,19 @@ package com.parkinglot.storage;
 
 import com.parkinglot.domain.Vehicle;
 import com.parkinglot.domain.VehicleType;
+import com.parkinglot.metrics.ParkingMetrics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 
 class FileBasedParkingStorageTest {
@@ -21,7 +28,9 @@ class FileBasedParkingStorageTest {
 
     @AfterEach
     void tearDown() throws Exception {
-        Files.deleteIfExists(Paths.get(TEST_FILE));
+        for (String suffix : List.of("", ".tmp", ".prev", ".corrupt")) {
+            Files.deleteIfExists(Paths.get(TEST_FILE + suffix));
+        }
     }
 
     @Test
@@ -72,4 +81,147 @@ class FileBasedParkingStorageTest {
         var reloadedSlots = reloadedStorage.getAllSlots();
         assertEquals(9, reloadedSlots.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindVehicleAfterReload() {
+        storage.initializeSlots(5, 3, 2);
+        storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(2));
+        var reloadedStorage = new FileBasedParkingStorage(TEST_FILE);
+        assertEquals(3, reloadedStorage.findSlotByVehicleNumber("ABC123").get().getSlotNumber());
+        assertFalse(reloadedStorage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), reloadedStorage.getAllSlots().get(0)));
+        assertTrue(reloadedStorage.exitVehicle("ABC123"));
+    }
+
+    @Test
+    void testVehicleNumberWithSpecialCharacters() {
+        storage.initializeSlots(2, 1, 0);
+        String vehicleNumber = "AB,C{1}\"2\\3";
+        storage.parkVehicle(new Vehicle(vehicleNumber, VehicleType.LARGE), storage.getAllSlots().get(2));
+        var reloadedStorage = new FileBasedParkingStorage(TEST_FILE);
+        assertEquals(3, reloadedStorage.getAllSlots().size());
+        assertEquals(vehicleNumber, reloadedStorage.getAllSlots().get(2).getParkedVehicle().getVehicleNumber());
+    }
+
+    @Test
+    void testBatchPersistsAtEnd() {
+        storage.initializeSlots(3, 0, 0);
+        var slots = storage.getAllSlots();
+        var vehicles = List.of(new Vehicle("CAR1", VehicleType.SMALL), new Vehicle("CAR2", VehicleType.SMALL));
+        var results = storage.batch(() -> List.of(storage.parkVehicle(vehicles.get(0), slots.get(0)),
+                storage.parkVehicle(vehicles.get(1), slots.get(1))));
+        assertEquals(List.of(true, true), results);
+        assertEquals(List.of(true, false), storage.batch(() -> List.of(storage.exitVehicle("CAR1"), storage.exitVehicle("CAR1"))));
+        var reloadedStorage = new FileBasedParkingStorage(TEST_FILE);
+        assertFalse(reloadedStorage.getAllSlots().get(0).isOccupied());
+        assertTrue(reloadedStorage.getAllSlots().get(1).isOccupied());
+    }
+
+    @Test
+    void testWriteBehindCoalescesWritesAndAcknowledges() throws Exception {
+        var metrics = new ParkingMetrics();
+        try (var writeBehind = new FileBasedParkingStorage(TEST_FILE, 200)) {
+            writeBehind.initializeSlots(50, 0, 0);
+            writeBehind.whenDurable().get(5, TimeUnit.SECONDS);
+            writeBehind.setMetrics(metrics);
+            var slots = writeBehind.getAllSlots();
+            for (int i = 0; i < 50; i++) {
+                assertTrue(writeBehind.parkVehicle(new Vehicle("CAR" + i, VehicleType.SMALL), slots.get(i)));
+            }
+            assertEquals(0, metrics.persistLatency().count()); // Nothing written on the caller's thread
+
+            writeBehind.whenDurable().get(5, TimeUnit.SECONDS);
+            assertEquals(1, metrics.persistLatency().count());
+            assertEquals(50, new FileBasedParkingStorage(TEST_FILE).getOccupiedCount());
+            assertTrue(writeBehind.whenDurable().isDone());
+        }
+    }
+
+    @Test
+    void testWriteBehindFlushesOnClose() {
+        var writeBehind = new FileBasedParkingStorage(TEST_FILE, 60_000);
+        writeBehind.initializeSlots(2, 0, 0);
+        writeBehind.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), writeBehind.getAllSlots().get(0));
+        CompletableFuture<Void> durable = writeBehind.whenDurable();
+        assertFalse(durable.isDone());
+
+        writeBehind.close();
+        assertTrue(durable.isDone());
+        assertEquals(1, new FileBasedParkingStorage(TEST_FILE).getOccupiedCount());
+
+        // Once the writer has stopped, saves are synchronous again
+        writeBehind.exitVehicle("ABC123");
+        assertEquals(0, new FileBasedParkingStorage(TEST_FILE).getOccupiedCount());
+        assertTrue(writeBehind.whenDurable().isDone());
+    }
+
+    @Test
+    void testWriteBehindReportsFailedWrite() throws Exception {
+        Path directory = Files.createTempDirectory("parking-write-behind");
+        Path file = directory.resolve("lot.json");
+        try (var writeBehind = new FileBasedParkingStorage(file.toString(), 10)) {
+            writeBehind.initializeSlots(1, 0, 0);
+            writeBehind.whenDurable().get(5, TimeUnit.SECONDS);
+            Files.delete(file);
+            Files.delete(directory);
+
+            writeBehind.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), writeBehind.getAllSlots().get(0));
+            var failure = assertThrows(ExecutionException.class, () -> writeBehind.whenDurable().get(5, TimeUnit.SECONDS));
+            assertEquals("Failed to save parking data", failure.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void testDamagedRecordFallsBackToPreviousVersion() throws Exception {
+        storage.initializeSlots(3, 0, 0);
+        storage.parkVehicle(new Vehicle("CARA", VehicleType.SMALL), storage.getAllSlots().get(0));
+        storage.parkVehicle(new Vehicle("CARB", VehicleType.SMALL), storage.getAllSlots().get(1));
+        Path file = Paths.get(TEST_FILE);
+        Files.writeString(file, Files.readString(file).replace("CARB", "CARX"));
+
+        var recovered = new FileBasedParkingStorage(TEST_FILE);
+        assertEquals(Paths.get(TEST_FILE + ".prev"), recovered.getRecoveredFrom());
+        assertTrue(recovered.findSlotByVehicleNumber("CARA").isPresent());
+        assertFalse(recovered.findSlotByVehicleNumber("CARX").isPresent());
+        assertTrue(Files.exists(Paths.get(TEST_FILE + ".corrupt")));
+
+        // The next save must not push the damaged file over the good previous version
+        recovered.parkVehicle(new Vehicle("CARC", VehicleType.SMALL), recovered.getAllSlots().get(2));
+        assertNull(new FileBasedParkingStorage(TEST_FILE).getRecoveredFrom());
+        assertEquals(2, new FileBasedParkingStorage(TEST_FILE).getOccupiedCount());
+    }
+
+    @Test
+    void testTornWriteFallsBackToPreviousVersion() throws Exception {
+        storage.initializeSlots(2, 0, 0);
+        storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(0));
+        Path file = Paths.get(TEST_FILE);
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length / 2));
+
+        var recovered = new FileBasedParkingStorage(TEST_FILE);
+        assertEquals(Paths.get(TEST_FILE + ".prev"), recovered.getRecoveredFrom());
+        assertEquals(2, recovered.getSlotCount());
+        assertEquals(0, recovered.getOccupiedCount());
+    }
+
+    @Test
+    void testCompleteTempFileIsPromoted() throws Exception {
+        storage.initializeSlots(2, 0, 0);
+        storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(0));
+        // A crash after the old live file was moved aside but before the temp file was renamed into place
+        Files.move(Paths.get(TEST_FILE), Paths.get(TEST_FILE + ".tmp"));
+
+        var recovered = new FileBasedParkingStorage(TEST_FILE);
+        assertEquals(Paths.get(TEST_FILE + ".tmp"), recovered.getRecoveredFrom());
+        assertEquals(1, recovered.getOccupiedCount());
+        assertTrue(Files.exists(Paths.get(TEST_FILE)));
+        assertFalse(Files.exists(Paths.get(TEST_FILE + ".tmp")));
+    }
+
+    @Test
+    void testNoValidVersionFailsToLoad() throws Exception {
+        Files.writeString(Paths.get(TEST_FILE), "{\"slots\": [");
+        var failure = assertThrows(RuntimeException.class, () -> new FileBasedParkingStorage(TEST_FILE));
+        assertEquals("Failed to load parking data", failure.getMessage());
+    }
+}
@@ -1,7 +1,10 @@
 package com.parkinglot.storage;
 
+import com.parkinglot.domain.ParkingSlot;
 import com.parkinglot.domain.Vehicle;
 import com.parkinglot.domain.VehicleType;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -66,7 +69,7 @@ class InMemoryParkingStorageTest {
         storage.initializeSlots(5, 3, 2);
         assertTrue(storage.deleteSlot(10)); // Delete last slot
         assertEquals(9, storage.getAllSlots().size());
-        // Check renumbering - slot 9 should now be the last slot
+        // Remaining slots keep their numbers - slot 9 is now the last slot
         assertEquals(9, storage.getAllSlots().get(8).getSlotNumber());
     }
 
@@ -77,4 +80,71 @@ class InMemoryParkingStorageTest {
         storage.parkVehicle(vehicle, storage.getAllSlots().get(0));
         assertFalse(storage.deleteSlot(1)); // Cannot delete occupied slot
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindAndRejectDuplicateVehicle() {
+        storage.initializeSlots(5, 3, 2);
+        var slots = storage.getAllSlots();
+        assertTrue(storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), slots.get(0)));
+        assertFalse(storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), slots.get(1)));
+        assertEquals(1, storage.findSlotByVehicleNumber("ABC123").get().getSlotNumber());
+        storage.exitVehicle("ABC123");
+        assertTrue(storage.findSlotByVehicleNumber("ABC123").isEmpty());
+    }
+
+    @Test
+    void testDeleteKeepsSlotNumbers() {
+        storage.initializeSlots(5, 3, 2);
+        assertTrue(storage.deleteSlot(3));
+        assertFalse(storage.deleteSlot(3));
+        assertTrue(storage.getSlot(3).isEmpty());
+        assertEquals(4, storage.getAllSlots().get(2).getSlotNumber());
+        assertTrue(storage.editSlot(4, VehicleType.OVERSIZE));
+        assertEquals(VehicleType.OVERSIZE, storage.getSlot(4).get().getSupportedType());
+        assertFalse(storage.editSlot(3, VehicleType.LARGE));
+    }
+
+    @Test
+    void testOccupiedSlotsViewAndCounts() {
+        storage.initializeSlots(5, 3, 2);
+        assertEquals(10, storage.getSlotCount());
+        storage.parkVehicle(new Vehicle("CAR2", VehicleType.SMALL), storage.getSlot(2).get());
+        storage.parkVehicle(new Vehicle("VAN7", VehicleType.LARGE), storage.getSlot(7).get());
+        storage.parkVehicle(new Vehicle("CAR4", VehicleType.SMALL), storage.getSlot(4).get());
+        assertEquals(3, storage.getOccupiedCount());
+
+        var slotNumbers = new ArrayList<Integer>();
+        storage.getOccupiedSlots(2).forEach(slot -> slotNumbers.add(slot.getSlotNumber()));
+        assertEquals(List.of(4, 7), slotNumbers);
+
+        storage.exitVehicle("CAR4");
+        storage.deleteSlot(10);
+        assertEquals(2, storage.getOccupiedCount());
+        assertEquals(9, storage.getSlotCount());
+        assertEquals(7, storage.getOccupiedSlots(2).iterator().next().getSlotNumber());
+    }
+
+    @Test
+    void testHeldSlotIsOnlyFilledByParkInHeldSlot() {
+        storage.initializeSlots(2, 0, 0);
+        ParkingSlot slot = storage.getAllSlots().get(0);
+        assertTrue(storage.holdSlot(slot));
+        assertFalse(storage.holdSlot(slot));
+        assertFalse(storage.getFreeSlotIndex().contains(slot));
+        assertEquals(2, storage.getFreeSlotIndex().lowestFree(VehicleType.SMALL).get().getSlotNumber());
+        assertFalse(storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), slot));
+        assertFalse(storage.editSlot(1, VehicleType.LARGE));
+        assertFalse(storage.deleteSlot(1));
+
+        assertTrue(storage.parkInHeldSlot(new Vehicle("ABC123", VehicleType.SMALL), 1));
+        assertFalse(storage.parkInHeldSlot(new Vehicle("XYZ789", VehicleType.SMALL), 1));
+        assertEquals(1, storage.findSlotByVehicleNumber("ABC123").get().getSlotNumber());
+        assertFalse(storage.releaseHold(1));
+
+        ParkingSlot other = storage.getAllSlots().get(1);
+        assertTrue(storage.holdSlot(other));
+        assertFalse(storage.parkInHeldSlot(new Vehicle("TRK001", VehicleType.LARGE), 2));
+        assertTrue(storage.releaseHold(2));
+        assertTrue(storage.getFreeSlotIndex().contains(other));
+    }
+}
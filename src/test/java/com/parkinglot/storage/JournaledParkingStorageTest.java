@@ -0,0 +1,142 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import com.parkinglot.domain.ParkingSlot;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledParkingStorageTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecoverFromJournal() {
+        try (var storage = new JournaledParkingStorage(directory.toString())) {
+            storage.initializeSlots(5, 3, 2);
+            storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(0));
+            storage.parkVehicle(new Vehicle("DEF456", VehicleType.LARGE), storage.getAllSlots().get(5));
+            storage.exitVehicle("ABC123");
+            storage.editSlot(1, VehicleType.LARGE);
+            storage.deleteSlot(10);
+        }
+        try (var reloadedStorage = new JournaledParkingStorage(directory.toString())) {
+            var slots = reloadedStorage.getAllSlots();
+            assertEquals(9, slots.size());
+            assertEquals(VehicleType.LARGE, slots.get(0).getSupportedType());
+            assertFalse(slots.get(0).isOccupied());
+            assertEquals(6, reloadedStorage.findSlotByVehicleNumber("DEF456").get().getSlotNumber());
+        }
+    }
+
+    @Test
+    void testSnapshotCompactsJournal() throws Exception {
+        try (var storage = new JournaledParkingStorage(directory.toString(), FsyncPolicy.GROUP_COMMIT, 3)) {
+            storage.initializeSlots(5, 0, 0);
+            storage.parkVehicle(new Vehicle("CAR1", VehicleType.SMALL), storage.getAllSlots().get(0));
+            storage.parkVehicle(new Vehicle("CAR2", VehicleType.SMALL), storage.getAllSlots().get(1));
+            storage.parkVehicle(new Vehicle("CAR3", VehicleType.SMALL), storage.getAllSlots().get(2));
+        }
+        assertTrue(Files.exists(directory.resolve("snapshot-3.snap")));
+        assertEquals(1, Files.readAllLines(directory.resolve("journal.log")).size());
+        try (var reloadedStorage = new JournaledParkingStorage(directory.toString(), FsyncPolicy.PERIODIC, 3)) {
+            assertEquals(3, reloadedStorage.findSlotByVehicleNumber("CAR3").get().getSlotNumber());
+            assertEquals(2, reloadedStorage.getFreeSlotIndex().freeCount(VehicleType.SMALL));
+        }
+    }
+
+    @Test
+    void testTornRecordIgnored() throws Exception {
+        try (var storage = new JournaledParkingStorage(directory.toString())) {
+            storage.initializeSlots(2, 0, 0);
+            storage.parkVehicle(new Vehicle("CAR1", VehicleType.SMALL), storage.getAllSlots().get(0));
+        }
+        Files.write(directory.resolve("journal.log"), "3 P 2 SMA".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        try (var reloadedStorage = new JournaledParkingStorage(directory.toString())) {
+            assertTrue(reloadedStorage.getAllSlots().get(0).isOccupied());
+            assertFalse(reloadedStorage.getAllSlots().get(1).isOccupied());
+            reloadedStorage.parkVehicle(new Vehicle("CAR2", VehicleType.SMALL), reloadedStorage.getAllSlots().get(1));
+        }
+        try (var reloadedStorage = new JournaledParkingStorage(directory.toString())) {
+            assertEquals(2, reloadedStorage.findSlotByVehicleNumber("CAR2").get().getSlotNumber());
+        }
+    }
+
+    @Test
+    void testHoldsAreNotJournaledButTheirParksAre() {
+        try (var storage = new JournaledParkingStorage(directory.toString())) {
+            storage.initializeSlots(3, 0, 0);
+            assertTrue(storage.holdSlot(storage.getSlot(1).get()));
+            assertTrue(storage.holdSlot(storage.getSlot(2).get()));
+            assertTrue(storage.parkInHeldSlot(new Vehicle("ABC123", VehicleType.SMALL), 1));
+        }
+        try (var reloadedStorage = new JournaledParkingStorage(directory.toString())) {
+            assertEquals(1, reloadedStorage.findSlotByVehicleNumber("ABC123").get().getSlotNumber());
+            assertEquals(2, reloadedStorage.getFreeSlotIndex().freeCount(VehicleType.SMALL));
+            assertFalse(reloadedStorage.releaseHold(2));
+        }
+    }
+
+    @Test
+    void testRestoredSlotsAreSnapshottedNotJournaled() throws Exception {
+        ParkingSlot occupied = new ParkingSlot(1, VehicleType.SMALL);
+        occupied.setParkedVehicle(new Vehicle("ABC123", VehicleType.SMALL));
+        try (var storage = new JournaledParkingStorage(directory.toString())) {
+            storage.initializeSlots(5, 0, 0);
+            storage.restoreSlots(List.of(occupied, new ParkingSlot(2, VehicleType.LARGE)));
+            assertEquals(0, Files.size(directory.resolve("journal.log")));
+            storage.parkVehicle(new Vehicle("DEF456", VehicleType.LARGE), storage.getSlot(2).get());
+        }
+        try (var reloadedStorage = new JournaledParkingStorage(directory.toString())) {
+            assertEquals(2, reloadedStorage.getSlotCount());
+            assertEquals(1, reloadedStorage.findSlotByVehicleNumber("ABC123").get().getSlotNumber());
+            assertEquals(2, reloadedStorage.findSlotByVehicleNumber("DEF456").get().getSlotNumber());
+        }
+    }
+
+    @Test
+    void testGroupCommitSyncsQuietLotAfterMaxDelay() throws Exception {
+        try (var storage = new JournaledParkingStorage(directory.toString(), FsyncPolicy.GROUP_COMMIT, 1000)) {
+            storage.initializeSlots(2, 0, 0);
+            storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(0));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (storage.getUnsyncedRecords() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(0, storage.getUnsyncedRecords());
+        }
+    }
+
+    @Test
+    void testConcurrentWritersProduceWholeRecords() throws Exception {
+        int threads = 4;
+        int perThread = 250;
+        try (var storage = new JournaledParkingStorage(directory.toString(), FsyncPolicy.GROUP_COMMIT, 100_000)) {
+            storage.initializeSlots(threads * perThread, 0, 0);
+            var slots = storage.getAllSlots();
+            var workers = new ArrayList<Thread>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * perThread;
+                workers.add(new Thread(() -> {
+                    for (int i = first; i < first + perThread; i++) {
+                        storage.parkVehicle(new Vehicle("CAR" + i, VehicleType.SMALL), slots.get(i));
+                    }
+                }));
+            }
+            workers.forEach(Thread::start);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        try (var reloadedStorage = new JournaledParkingStorage(directory.toString())) {
+            assertEquals(threads * perThread, reloadedStorage.getOccupiedCount());
+        }
+    }
+}
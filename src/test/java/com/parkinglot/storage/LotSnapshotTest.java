@@ -0,0 +1,141 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.SlotState;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LotSnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPublishedSnapshotNeverChanges() {
+        ParkingStorage storage = new InMemoryParkingStorage();
+        storage.initializeSlots(2, 1, 1);
+        LotSnapshot before = storage.getSnapshot();
+
+        assertTrue(storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(0)));
+        LotSnapshot after = storage.getSnapshot();
+
+        assertEquals(0, before.getOccupiedCount());
+        assertFalse(before.getSlot(1).get().isOccupied());
+        assertEquals(1, after.getOccupiedCount());
+        assertEquals("ABC123", after.getSlot(1).get().getParkedVehicle().getVehicleNumber());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+
+        storage.exitVehicle("ABC123");
+        assertEquals(1, after.getOccupiedCount());
+        assertEquals(0, storage.getSnapshot().getOccupiedCount());
+    }
+
+    @Test
+    void testBatchPublishesOnce() {
+        ParkingStorage storage = new InMemoryParkingStorage();
+        storage.initializeSlots(3, 0, 0);
+        List<ParkingSlot> slots = storage.getAllSlots();
+        long version = storage.getSnapshot().getVersion();
+
+        storage.batch(() -> {
+            storage.parkVehicle(new Vehicle("A", VehicleType.SMALL), slots.get(0));
+            storage.parkVehicle(new Vehicle("B", VehicleType.SMALL), slots.get(1));
+            assertEquals(0, storage.getSnapshot().getOccupiedCount()); // Not visible until the batch ends
+            return null;
+        });
+
+        assertEquals(version + 1, storage.getSnapshot().getVersion());
+        assertEquals(2, storage.getSnapshot().getOccupiedCount());
+    }
+
+    @Test
+    void testEditAndDeleteAreReflected() {
+        ParkingStorage storage = new InMemoryParkingStorage();
+        storage.initializeSlots(3, 0, 0);
+        storage.editSlot(2, VehicleType.OVERSIZE);
+        storage.deleteSlot(3);
+
+        LotSnapshot snapshot = storage.getSnapshot();
+        assertEquals(2, snapshot.getSlotCount());
+        assertEquals(VehicleType.OVERSIZE, snapshot.getSlot(2).get().getSupportedType());
+        assertTrue(snapshot.getSlot(3).isEmpty());
+        assertTrue(snapshot.getSlot(0).isEmpty());
+        assertTrue(snapshot.getSlot(4).isEmpty());
+    }
+
+    @Test
+    void testOccupiedSlotsPageAcrossLargeLot() {
+        ParkingStorage storage = new InMemoryParkingStorage();
+        storage.initializeSlots(100_000, 0, 0);
+        List<ParkingSlot> slots = storage.getAllSlots();
+        int[] parked = {1, 32, 33, 1025, 40_000, 99_999, 100_000};
+        for (int slotNumber : parked) {
+            storage.parkVehicle(new Vehicle("P" + slotNumber, VehicleType.SMALL), slots.get(slotNumber - 1));
+        }
+
+        LotSnapshot snapshot = storage.getSnapshot();
+        assertEquals(100_000, snapshot.getSlotCount());
+        assertEquals(parked.length, snapshot.getOccupiedCount());
+        List<Integer> all = new ArrayList<>();
+        for (SlotState slot : snapshot.getOccupiedSlots(0)) {
+            all.add(slot.getSlotNumber());
+        }
+        assertEquals(List.of(1, 32, 33, 1025, 40_000, 99_999, 100_000), all);
+
+        List<Integer> page = new ArrayList<>();
+        for (SlotState slot : snapshot.getOccupiedSlots(33)) {
+            page.add(slot.getSlotNumber());
+        }
+        assertEquals(List.of(1025, 40_000, 99_999, 100_000), page);
+        assertFalse(snapshot.getOccupiedSlots(100_000).iterator().hasNext());
+
+        int count = 0;
+        for (SlotState ignored : snapshot.getSlots()) {
+            count++;
+        }
+        assertEquals(100_000, count);
+    }
+
+    @Test
+    void testFileBasedStoragePublishesAfterSaveAndLoad() throws Exception {
+        String file = tempDir.resolve("lot.json").toString();
+        FileBasedParkingStorage storage = new FileBasedParkingStorage(file);
+        storage.initializeSlots(2, 2, 0);
+        storage.parkVehicle(new Vehicle("XYZ789", VehicleType.LARGE), storage.getAllSlots().get(2));
+        assertTrue(Files.exists(Path.of(file)));
+        assertEquals(1, storage.getSnapshot().getOccupiedCount());
+
+        LotSnapshot reloaded = new FileBasedParkingStorage(file).getSnapshot();
+        assertEquals(4, reloaded.getSlotCount());
+        assertEquals("XYZ789", reloaded.getSlot(3).get().getParkedVehicle().getVehicleNumber());
+    }
+
+    @Test
+    void testFallbackCopiesCurrentSlots() {
+        ParkingStorage storage = new ColumnarParkingStorage();
+        storage.initializeSlots(1, 1, 1);
+        storage.parkVehicle(new Vehicle("BIG1", VehicleType.OVERSIZE), storage.getAllSlots().get(2));
+
+        LotSnapshot snapshot = storage.getSnapshot();
+        assertEquals(3, snapshot.getSlotCount());
+        assertEquals(1, snapshot.getOccupiedCount());
+        assertEquals("BIG1", snapshot.getOccupiedSlots(0).iterator().next().getParkedVehicle().getVehicleNumber());
+    }
+
+    @Test
+    void testOnlyPublishingBackendsReportSnapshots() throws Exception {
+        assertTrue(new InMemoryParkingStorage().publishesSnapshots());
+        assertTrue(new FileBasedParkingStorage(tempDir.resolve("flag.json").toString()).publishesSnapshots());
+        try (JournaledParkingStorage journaled = new JournaledParkingStorage(tempDir.resolve("journal").toString())) {
+            assertTrue(journaled.publishesSnapshots());
+        }
+        assertTrue(new ConcurrentParkingStorage().publishesSnapshots());
+        assertFalse(new ColumnarParkingStorage().publishesSnapshots());
+    }
+}
@@ -0,0 +1,84 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParkingSlotJsonTest {
+
+    @Test
+    void testReadSkipsUnknownFields() throws IOException {
+        String json = "{\"version\": 2, \"meta\": {\"site\": [1, \"a]\"]}, \"slots\": ["
+                + "{\"slotNumber\": 1, \"supportedType\": \"SMALL\", \"vehicleNumber\": null, \"vehicleType\": null},"
+                + "{\"slotNumber\": 2, \"supportedType\": \"OVERSIZE\", \"zone\": true, \"vehicleNumber\": \"TRK\\u0031\", \"vehicleType\": \"LARGE\"}"
+                + "]}";
+        var slots = ParkingSlotJson.read(new StringReader(json));
+        assertEquals(2, slots.size());
+        assertFalse(slots.get(0).isOccupied());
+        assertEquals(VehicleType.OVERSIZE, slots.get(1).getSupportedType());
+        assertEquals("TRK1", slots.get(1).getParkedVehicle().getVehicleNumber());
+    }
+
+    @Test
+    void testReadEmptyAndMalformed() throws IOException {
+        assertTrue(ParkingSlotJson.read(new StringReader("{ \"slots\": [ ] }")).isEmpty());
+        assertThrows(IOException.class, () -> ParkingSlotJson.read(new StringReader("{\"slots\": [{\"slotNumber\": 1")));
+        assertThrows(IOException.class, () -> ParkingSlotJson.read(new StringReader("{\"slots\": [{\"slotNumber\": 1, \"supportedType\": \"HUGE\"}]}")));
+    }
+
+    @Test
+    void testChecksumDetectsChangedValue() throws IOException {
+        var slot = new ParkingSlot(1, VehicleType.LARGE);
+        slot.setParkedVehicle(new Vehicle("ABC123", VehicleType.SMALL));
+        StringWriter written = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(written)) {
+            ParkingSlotJson.write(List.of(slot), writer);
+        }
+        String json = written.toString();
+        assertEquals("ABC123", ParkingSlotJson.read(new StringReader(json)).get(0).getParkedVehicle().getVehicleNumber());
+
+        var error = assertThrows(IOException.class,
+                () -> ParkingSlotJson.read(new StringReader(json.replace("\"SMALL\"", "\"LARGE\""))));
+        assertTrue(error.getMessage().startsWith("Checksum mismatch for slot 1"));
+    }
+
+    @Test
+    void testHeaderCatchesDroppedRecordsAndMissingChecksums() throws IOException {
+        List<ParkingSlot> slots = List.of(new ParkingSlot(1, VehicleType.SMALL), new ParkingSlot(2, VehicleType.LARGE));
+        StringWriter written = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(written)) {
+            ParkingSlotJson.write(slots, writer);
+        }
+        String json = written.toString();
+        assertTrue(json.contains("\"slotCount\": 2"));
+        assertEquals(2, ParkingSlotJson.read(new StringReader(json)).size());
+
+        // The first record removed whole, leaving valid JSON with one checksummed record
+        int second = json.indexOf("    {", json.indexOf("    {") + 1);
+        String dropped = json.substring(0, json.indexOf("    {")) + json.substring(second);
+        var error = assertThrows(IOException.class, () -> ParkingSlotJson.read(new StringReader(dropped)));
+        assertTrue(error.getMessage().startsWith("Header declares 2 slots but 1 were read"));
+
+        String renamedCrc = json.replaceFirst("\"crc\"", "\"crC\"");
+        error = assertThrows(IOException.class, () -> ParkingSlotJson.read(new StringReader(renamedCrc)));
+        assertTrue(error.getMessage().startsWith("1 slots have no checksum"));
+
+        // A damaged header key does not turn the checks off
+        String damagedHeader = renamedCrc.replace("\"checksums\"", "\"checksumz\"");
+        assertThrows(IOException.class, () -> ParkingSlotJson.read(new StringReader(damagedHeader)));
+        String noVersion = json.replace("\"formatVersion\"", "\"formatVersiom\"");
+        error = assertThrows(IOException.class, () -> ParkingSlotJson.read(new StringReader(noVersion)));
+        assertTrue(error.getMessage().startsWith("Incomplete header"));
+
+        String future = json.replace("\"formatVersion\": 2", "\"formatVersion\": 3");
+        error = assertThrows(IOException.class, () -> ParkingSlotJson.read(new StringReader(future)));
+        assertTrue(error.getMessage().startsWith("Unsupported format version 3"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.parkinglot.storage;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedFreeSlotIndexTest {
+
+    @Test
+    void testStorageKeepsIndexInSync() {
+        ParkingStorage storage = new InMemoryParkingStorage();
+        storage.initializeSlots(2, 1, 1);
+        FreeSlotIndex index = storage.getFreeSlotIndex();
+        assertEquals(2, index.freeCount(VehicleType.SMALL));
+
+        storage.parkVehicle(new Vehicle("ABC123", VehicleType.SMALL), storage.getAllSlots().get(0));
+        assertEquals(1, index.freeCount(VehicleType.SMALL));
+        assertEquals(2, index.lowestFree(VehicleType.SMALL).get().getSlotNumber());
+
+        storage.exitVehicle("ABC123");
+        assertEquals(1, index.lowestFree(VehicleType.SMALL).get().getSlotNumber());
+
+        storage.editSlot(1, VehicleType.OVERSIZE);
+        assertEquals(1, index.freeCount(VehicleType.SMALL));
+        assertEquals(2, index.freeCount(VehicleType.OVERSIZE));
+
+        storage.deleteSlot(2);
+        assertEquals(0, index.freeCount(VehicleType.SMALL));
+        assertEquals(3, index.freeSlots().size());
+    }
+
+    @Test
+    void testLowestCompatibleAcrossTypes() {
+        SortedFreeSlotIndex index = new SortedFreeSlotIndex();
+        ParkingSlot oversize = new ParkingSlot(2, VehicleType.OVERSIZE);
+        index.add(new ParkingSlot(5, VehicleType.LARGE));
+        index.add(oversize);
+        assertEquals(2, index.lowestCompatible(VehicleType.SMALL).get().getSlotNumber());
+        index.remove(oversize);
+        assertEquals(5, index.lowestCompatible(VehicleType.SMALL).get().getSlotNumber());
+        assertTrue(index.lowestCompatible(VehicleType.OVERSIZE).isEmpty());
+    }
+}
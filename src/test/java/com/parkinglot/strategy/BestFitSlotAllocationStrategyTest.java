@@ -0,0 +1,58 @@
+package com.parkinglot.strategy;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.Vehicle;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.ColumnarParkingStorage;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.storage.SortedFreeSlotIndex;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BestFitSlotAllocationStrategyTest {
+    private final SlotAllocationStrategy strategy = new BestFitSlotAllocationStrategy();
+
+    @Test
+    void testPrefersSmallestCompatibleType() {
+        List<ParkingSlot> slots = Arrays.asList(
+            new ParkingSlot(1, VehicleType.OVERSIZE),
+            new ParkingSlot(2, VehicleType.LARGE),
+            new ParkingSlot(3, VehicleType.SMALL)
+        );
+        SortedFreeSlotIndex index = new SortedFreeSlotIndex();
+        index.rebuild(slots);
+        assertEquals(3, strategy.findSlot(VehicleType.SMALL, slots).get().getSlotNumber());
+        assertEquals(3, strategy.findSlot(VehicleType.SMALL, index).get().getSlotNumber());
+        assertEquals(2, strategy.findSlot(VehicleType.LARGE, slots).get().getSlotNumber());
+        assertEquals(2, strategy.findSlot(VehicleType.LARGE, index).get().getSlotNumber());
+        assertEquals(1, strategy.findSlot(VehicleType.OVERSIZE, index).get().getSlotNumber());
+    }
+
+    @Test
+    void testSpillsIntoLargerTypeWhenOwnTypeIsFull() {
+        ParkingSlot small = new ParkingSlot(1, VehicleType.SMALL);
+        small.setParkedVehicle(new Vehicle("ABC", VehicleType.SMALL));
+        List<ParkingSlot> slots = Arrays.asList(small, new ParkingSlot(2, VehicleType.OVERSIZE));
+        SortedFreeSlotIndex index = new SortedFreeSlotIndex();
+        index.rebuild(slots);
+        assertEquals(2, strategy.findSlot(VehicleType.SMALL, slots).get().getSlotNumber());
+        assertEquals(2, strategy.findSlot(VehicleType.SMALL, index).get().getSlotNumber());
+    }
+
+    @Test
+    void testKeepsLargeSlotsForTrucksAfterEdits() {
+        // After EDIT 1 LARGE the default strategy would put the first car in slot 1 and leave the truck nowhere to go
+        for (ParkingLotService service : Arrays.asList(
+                new ParkingLotService(new InMemoryParkingStorage(), strategy),
+                new ParkingLotService(new ColumnarParkingStorage(false), strategy))) {
+            service.createParkingLot(2, 0, 0);
+            assertTrue(service.editSlot(1, VehicleType.LARGE));
+            assertEquals(2, service.parkVehicle("CAR001", VehicleType.SMALL).get());
+            assertEquals(1, service.parkVehicle("TRK001", VehicleType.LARGE).get());
+            assertTrue(service.parkVehicle("CAR002", VehicleType.SMALL).isEmpty());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.parkinglot.strategy;
 
 import com.parkinglot.domain.ParkingSlot;
 import com.parkinglot.domain.VehicleType;
+import com.parkinglot.storage.SortedFreeSlotIndex;
 import org.junit.jupiter.api.Test;
 import java.util.Arrays;
 import java.util.List;
@@ -40,4 +41,21 @@ class DefaultSlotAllocationStrategyTest {
         var result = strategy.findSlot(VehicleType.SMALL, slots);
         assertFalse(result.isPresent());
     }
+
+    @Test
+    void testFindSlotFromIndex() {
+        ParkingSlot occupied = new ParkingSlot(1, VehicleType.LARGE);
+        occupied.setParkedVehicle(new com.parkinglot.domain.Vehicle("ABC", VehicleType.LARGE));
+        List<ParkingSlot> slots = Arrays.asList(
+            occupied,
+            new ParkingSlot(2, VehicleType.SMALL),
+            new ParkingSlot(3, VehicleType.OVERSIZE),
+            new ParkingSlot(4, VehicleType.LARGE)
+        );
+        SortedFreeSlotIndex index = new SortedFreeSlotIndex();
+        index.rebuild(slots);
+        assertEquals(2, strategy.findSlot(VehicleType.SMALL, index).get().getSlotNumber());
+        assertEquals(3, strategy.findSlot(VehicleType.LARGE, index).get().getSlotNumber());
+        assertEquals(3, strategy.findSlot(VehicleType.OVERSIZE, index).get().getSlotNumber());
+    }
 }
\ No newline at end of file
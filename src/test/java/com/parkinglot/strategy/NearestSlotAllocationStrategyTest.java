@@ -0,0 +1,65 @@
+package com.parkinglot.strategy;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.ColumnarParkingStorage;
+import com.parkinglot.storage.ConcurrentParkingStorage;
+import com.parkinglot.storage.ParkingStorage;
+import com.parkinglot.storage.SortedFreeSlotIndex;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearestSlotAllocationStrategyTest {
+
+    @Test
+    void testPicksClosestSlotOnEitherSide() {
+        List<ParkingSlot> slots = Arrays.asList(
+            new ParkingSlot(1, VehicleType.SMALL),
+            new ParkingSlot(4, VehicleType.SMALL),
+            new ParkingSlot(9, VehicleType.LARGE),
+            new ParkingSlot(12, VehicleType.OVERSIZE)
+        );
+        SortedFreeSlotIndex index = new SortedFreeSlotIndex();
+        index.rebuild(slots);
+
+        SlotAllocationStrategy strategy = new NearestSlotAllocationStrategy(8);
+        assertEquals(9, strategy.findSlot(VehicleType.SMALL, index).get().getSlotNumber());
+        assertEquals(9, strategy.findSlot(VehicleType.SMALL, slots).get().getSlotNumber());
+        assertEquals(12, strategy.findSlot(VehicleType.OVERSIZE, index).get().getSlotNumber());
+
+        // Slots 4 and 12 are both four away; the smaller type wins the tie
+        strategy = new NearestSlotAllocationStrategy(8);
+        index.remove(slots.get(2));
+        assertEquals(4, strategy.findSlot(VehicleType.SMALL, index).get().getSlotNumber());
+        assertEquals(4, strategy.findSlot(VehicleType.SMALL, Arrays.asList(slots.get(0), slots.get(1), slots.get(3))).get().getSlotNumber());
+    }
+
+    @Test
+    void testMatchesListLookupOnEveryBackend() {
+        for (ParkingStorage storage : Arrays.asList(new ColumnarParkingStorage(false), new ConcurrentParkingStorage())) {
+            storage.initializeSlots(40, 150, 10);
+            for (int entrance : new int[] {1, 37, 64, 65, 128, 200, 500}) {
+                SlotAllocationStrategy strategy = new NearestSlotAllocationStrategy(entrance);
+                ParkingLotService service = new ParkingLotService(storage, strategy);
+                for (int i = 0; i < 30; i++) {
+                    VehicleType type = VehicleType.values()[i % 3];
+                    var expected = strategy.findSlot(type, storage.getFreeSlotIndex().freeSlots());
+                    var slotNumber = service.parkVehicle("V" + entrance + "-" + i, type);
+                    assertEquals(expected.map(ParkingSlot::getSlotNumber), slotNumber);
+                }
+                for (int i = 0; i < 30; i++) {
+                    service.exitVehicle("V" + entrance + "-" + i); // Late trucks find every OVERSIZE slot taken
+                }
+                assertEquals(0, storage.getOccupiedCount());
+            }
+        }
+    }
+
+    @Test
+    void testRejectsNonPositiveEntrance() {
+        assertThrows(IllegalArgumentException.class, () -> new NearestSlotAllocationStrategy(0));
+    }
+}
@@ -0,0 +1,148 @@
+package com.parkinglot.strategy;
+
+import com.parkinglot.domain.ParkingSlot;
+import com.parkinglot.domain.VehicleType;
+import com.parkinglot.service.ParkingLotService;
+import com.parkinglot.storage.ColumnarParkingStorage;
+import com.parkinglot.storage.InMemoryParkingStorage;
+import com.parkinglot.storage.ParkingStorage;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZonedSlotAllocationStrategyTest {
+
+    @Test
+    void testSpreadsVehiclesAcrossZones() {
+        for (ParkingStorage storage : Arrays.asList(new InMemoryParkingStorage(), new ColumnarParkingStorage(false))) {
+            ZonedSlotAllocationStrategy strategy = new ZonedSlotAllocationStrategy(3);
+            ParkingLotService service = new ParkingLotService(storage, strategy);
+            service.createParkingLot(9, 0, 0);
+
+            assertEquals(1, service.parkVehicle("A", VehicleType.SMALL).get());
+            assertEquals(4, service.parkVehicle("B", VehicleType.SMALL).get());
+            assertEquals(7, service.parkVehicle("C", VehicleType.SMALL).get());
+            assertEquals(2, service.parkVehicle("D", VehicleType.SMALL).get());
+
+            assertTrue(service.exitVehicle("B"));
+            assertEquals(0, strategy.getOccupiedInZone(1));
+            assertEquals(4, service.parkVehicle("E", VehicleType.SMALL).get());
+            assertEquals(2, strategy.getOccupiedInZone(0));
+            assertEquals(1, strategy.getOccupiedInZone(1));
+        }
+    }
+
+    @Test
+    void testSkipsZonesWithoutCompatibleSlots() {
+        ZonedSlotAllocationStrategy strategy = new ZonedSlotAllocationStrategy(2);
+        ParkingLotService service = new ParkingLotService(new InMemoryParkingStorage(), strategy);
+        service.createParkingLot(2, 1, 1);
+
+        assertEquals(3, service.parkVehicle("TRK001", VehicleType.LARGE).get());
+        // Zone 1 is now busier, but only zone 1 has an OVERSIZE slot
+        assertEquals(4, service.parkVehicle("BUS001", VehicleType.OVERSIZE).get());
+        assertEquals(1, service.parkVehicle("CAR001", VehicleType.SMALL).get());
+    }
+
+    @Test
+    void testCountsExistingVehiclesWhenSelected() {
+        ParkingLotService service = new ParkingLotService(new InMemoryParkingStorage(), new DefaultSlotAllocationStrategy());
+        service.createParkingLot(4, 0, 0);
+        service.parkVehicle("A", VehicleType.SMALL);
+        service.parkVehicle("B", VehicleType.SMALL);
+
+        ZonedSlotAllocationStrategy strategy = new ZonedSlotAllocationStrategy(2);
+        service.setAllocationStrategy(strategy);
+        assertEquals(2, strategy.getOccupiedInZone(0));
+        assertEquals(3, service.parkVehicle("C", VehicleType.SMALL).get());
+    }
+
+    @Test
+    void testZoneCountIsBounded() {
+        assertThrows(IllegalArgumentException.class, () -> new ZonedSlotAllocationStrategy(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ZonedSlotAllocationStrategy(ZonedSlotAllocationStrategy.MAX_ZONES + 1));
+
+        // More zones than slots: one zone per slot
+        ZonedSlotAllocationStrategy strategy = new ZonedSlotAllocationStrategy(ZonedSlotAllocationStrategy.MAX_ZONES);
+        ParkingLotService service = new ParkingLotService(new InMemoryParkingStorage(), strategy);
+        service.createParkingLot(3, 0, 0);
+        assertEquals(1, service.parkVehicle("A", VehicleType.SMALL).get());
+        assertEquals(2, service.parkVehicle("B", VehicleType.SMALL).get());
+        assertEquals(3, service.parkVehicle("C", VehicleType.SMALL).get());
+        assertTrue(service.parkVehicle("D", VehicleType.SMALL).isEmpty());
+    }
+
+    @Test
+    void testFollowsLoadOrderAsZonesFillAndEmpty() {
+        ZonedSlotAllocationStrategy strategy = new ZonedSlotAllocationStrategy(4);
+        ParkingLotService service = new ParkingLotService(new InMemoryParkingStorage(), strategy);
+        service.createParkingLot(8, 0, 0);
+        for (int i = 0; i < 8; i++) {
+            service.parkVehicle("CAR" + i, VehicleType.SMALL);
+        }
+        // Filled round-robin: CAR0-CAR3 took slots 1, 3, 5, 7 and CAR4-CAR7 took 2, 4, 6, 8
+        assertTrue(service.exitVehicle("CAR5")); // Slot 4, zone 1
+        assertTrue(service.exitVehicle("CAR6")); // Slot 6, zone 2
+        assertTrue(service.exitVehicle("CAR7")); // Slot 8, zone 3
+        assertTrue(service.exitVehicle("CAR3")); // Slot 7, zone 3
+
+        // Zone 3 is now the emptiest, then zone 1 ahead of zone 2 on the tie
+        assertEquals(7, service.parkVehicle("X", VehicleType.SMALL).get());
+        assertEquals(4, service.parkVehicle("Y", VehicleType.SMALL).get());
+        assertEquals(6, service.parkVehicle("Z", VehicleType.SMALL).get());
+        assertEquals(8, service.parkVehicle("W", VehicleType.SMALL).get());
+    }
+
+    @Test
+    void testBalancesEachTypeByOccupiedFraction() {
+        // Zone 0 is slots 1-6 with four LARGE, zone 1 is slots 7-12 with two LARGE
+        VehicleType[] layout = {VehicleType.LARGE, VehicleType.LARGE, VehicleType.LARGE, VehicleType.LARGE,
+                VehicleType.SMALL, VehicleType.SMALL, VehicleType.LARGE, VehicleType.LARGE,
+                VehicleType.SMALL, VehicleType.SMALL, VehicleType.SMALL, VehicleType.SMALL};
+        for (ParkingStorage storage : Arrays.asList(new InMemoryParkingStorage(), new ColumnarParkingStorage(false))) {
+            List<ParkingSlot> slots = new ArrayList<>();
+            for (int i = 0; i < layout.length; i++) {
+                slots.add(new ParkingSlot(i + 1, layout[i]));
+            }
+            ParkingLotService service = new ParkingLotService(storage, new ZonedSlotAllocationStrategy(2));
+            service.loadParkingLot(slots);
+
+            assertEquals(1, service.parkVehicle("TRK1", VehicleType.LARGE).get());
+            assertEquals(7, service.parkVehicle("TRK2", VehicleType.LARGE).get());
+            assertEquals(2, service.parkVehicle("TRK3", VehicleType.LARGE).get());
+            // Both zones are half full; a raw count would send this one to zone 1
+            assertEquals(3, service.parkVehicle("TRK4", VehicleType.LARGE).get());
+            // SMALL slots are balanced on their own, whatever the LARGE load
+            assertEquals(5, service.parkVehicle("CAR1", VehicleType.SMALL).get());
+            assertEquals(9, service.parkVehicle("CAR2", VehicleType.SMALL).get());
+            assertEquals(10, service.parkVehicle("CAR3", VehicleType.SMALL).get());
+        }
+    }
+
+    @Test
+    void testFollowsSlotEditsAndDeletes() {
+        ZonedSlotAllocationStrategy strategy = new ZonedSlotAllocationStrategy(2);
+        ParkingLotService service = new ParkingLotService(new InMemoryParkingStorage(), strategy);
+        service.createParkingLot(4, 0, 0);
+        assertTrue(service.editSlot(3, VehicleType.LARGE));
+        assertEquals(3, service.parkVehicle("TRK1", VehicleType.LARGE).get());
+
+        // Zone 1 is left with one SMALL slot, so it fills up after one car against zone 0's two
+        assertEquals(1, service.parkVehicle("CAR1", VehicleType.SMALL).get());
+        assertEquals(4, service.parkVehicle("CAR2", VehicleType.SMALL).get());
+        assertEquals(2, service.parkVehicle("CAR3", VehicleType.SMALL).get());
+        assertEquals(2, strategy.getOccupiedInZone(0));
+        assertEquals(2, strategy.getOccupiedInZone(1));
+
+        assertTrue(service.exitVehicle("CAR2"));
+        assertTrue(service.deleteSlot(4));
+        assertTrue(service.exitVehicle("CAR1"));
+        // No SMALL slot is left in zone 1; the LARGE slot there takes a car once zone 0 is full
+        assertEquals(1, service.parkVehicle("CAR4", VehicleType.SMALL).get());
+        assertTrue(service.exitVehicle("TRK1"));
+        assertEquals(3, service.parkVehicle("CAR5", VehicleType.SMALL).get());
+    }
+}